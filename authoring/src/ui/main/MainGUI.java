@@ -1,5 +1,6 @@
 package ui.main;
 
+import data.external.AssetIterator;
 import data.external.DataManager;
 import data.external.DatabaseEngine;
 import data.external.GameCenterData;
@@ -73,6 +74,7 @@ public class MainGUI {
     private static final String DEFAULT_STYLESHEET = "default.css";
     private static final String MENU_ITEMS_FILE = "main_menu_items";
     private static final String STAGE_TITLE = "ByteMe Authoring Environment";
+    private static final String COULD_NOT_LOAD_ASSETS = "Couldn't load the assets saved under %s into %s: %s%n";
     private static final ResourceBundle GENERAL_RESOURCES = ResourceBundle.getBundle("authoring_general");
     private static final ResourceBundle SAVING_ASSETS_RESOURCES = ResourceBundle.getBundle("mainGUI_assets");
 
@@ -335,40 +337,58 @@ public class MainGUI {
     private void saveFolderToDataBase(String outerDirectoryPath){
         File outerDirectory = new File(outerDirectoryPath);
         String methodName = SAVING_ASSETS_RESOURCES.getString(outerDirectory.getName());
+        Map<String, File> assets = new HashMap<>();
         for(File file : outerDirectory.listFiles()){
-            Reflection.callMethod(myDataManager, methodName, file.getName(), file);
+            assets.put(file.getName(), file);
         }
+        Reflection.callMethod(myDataManager, methodName, assets);
     }
 
+    // A library that can't be loaded is reported and skipped, so the others are still available while authoring
     private void loadAllAssets(){
         String prefix = SAVING_ASSETS_RESOURCES.getString("userUploaded") + myGameData.getTitle() + myGameData.getAuthorName();
-        try {
-            Map<String, InputStream> defaultImages = myDataManager.loadAllImages(SAVING_ASSETS_RESOURCES.getString("defaults"));
-            Map<String, InputStream> userUploadedImages = myDataManager.loadAllImages(prefix);
-            Map<String, InputStream> defaultAudio = myDataManager.loadAllSounds(SAVING_ASSETS_RESOURCES.getString("defaults"));
-            Map<String, InputStream> userUploadedAudio = myDataManager.loadAllSounds(prefix);
-            loadAssets(GENERAL_RESOURCES.getString("images_filepath"), defaultImages);
-            loadAssets(GENERAL_RESOURCES.getString("images_filepath"), userUploadedImages);
-            loadAssets(GENERAL_RESOURCES.getString("audio_filepath"), defaultAudio);
-            loadAssets((GENERAL_RESOURCES.getString("audio_filepath")), userUploadedAudio);
+        String defaults = SAVING_ASSETS_RESOURCES.getString("defaults");
+        String images = GENERAL_RESOURCES.getString("images_filepath");
+        String audio = GENERAL_RESOURCES.getString("audio_filepath");
+        try (AssetIterator defaultImages = myDataManager.iterateImages(defaults)) {
+            loadAssets(images, defaults, defaultImages);
+        } catch (SQLException e) {
+            reportAssetLoadFailure(images, defaults, e);
+        }
+        try (AssetIterator userUploadedImages = myDataManager.iterateImages(prefix)) {
+            loadAssets(images, prefix, userUploadedImages);
+        } catch (SQLException e) {
+            reportAssetLoadFailure(images, prefix, e);
+        }
+        try (AssetIterator defaultAudio = myDataManager.iterateSounds(defaults)) {
+            loadAssets(audio, defaults, defaultAudio);
         } catch (SQLException e) {
-            //TODO deal with this
+            reportAssetLoadFailure(audio, defaults, e);
+        }
+        try (AssetIterator userUploadedAudio = myDataManager.iterateSounds(prefix)) {
+            loadAssets(audio, prefix, userUploadedAudio);
+        } catch (SQLException e) {
+            reportAssetLoadFailure(audio, prefix, e);
         }
     }
 
-    private void loadAssets(String folderFilePath, Map<String, InputStream> databaseInfo){
+    // Each asset is copied to its file before the next one is read, so only one asset is in memory at a time
+    private void loadAssets(String folderFilePath, String prefix, AssetIterator databaseInfo){
         try {
-            for(Map.Entry<String, InputStream> entry : databaseInfo.entrySet()){
-                InputStream inputStream = entry.getValue();
+            while (databaseInfo.hasNext()) {
+                Map.Entry<String, InputStream> entry = databaseInfo.next();
                 File destination = new File(folderFilePath + entry.getKey());
-                Files.copy(inputStream, destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
-                inputStream.close();
+                Files.copy(entry.getValue(), destination.toPath(), StandardCopyOption.REPLACE_EXISTING);
             }
-        } catch (IOException e) {
-            //TODO: handle error
+        } catch (IOException | IllegalStateException e) {
+            reportAssetLoadFailure(folderFilePath, prefix, e);
         }
     }
 
+    private void reportAssetLoadFailure(String folderFilePath, String prefix, Exception e) {
+        System.out.printf(COULD_NOT_LOAD_ASSETS, prefix, folderFilePath, e.getMessage());
+    }
+
     /**
      * This method takes in the path to the directory wished to be cleared and then
      * iterates through each file and deletes it
@@ -0,0 +1,176 @@
+/**
+ * @Date April 2019
+ * @Purpose Keep the profile pictures and bios of users that were shown recently, so that every view showing a user
+ * doesn't read them from the database again. A rating list with many reviewers, the header and the user profile popup
+ * all share one cache. Pictures are decoded at the width they are shown at and only a bounded number of them is kept.
+ * Everything expires after a few minutes, so changes made by other game centers show up eventually, and is dropped
+ * right away when the picture or bio is changed from this one.
+ * @Dependencies AsyncDataManager, DataManager, javafx
+ * @Uses: Used by HeaderBar, UserProfileDisplay and SingleRating to show profile pictures and bios.
+ */
+
+package frontend;
+
+import data.external.AsyncDataManager;
+import data.external.DataManager;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+public class UserProfileCache {
+    private static final long TIME_TO_LIVE_NANOS = TimeUnit.MINUTES.toNanos(5);
+    private static final int MAX_CACHED_PICTURES = 200;
+    private static final int MAX_CACHED_BIOS = 500;
+    private static final String KEY_SEPARATOR = "@";
+    private static final String DEFAULT_IMAGE_LOCATION = "center/data/profile_information/images/default.png";
+    private static UserProfileCache myInstance;
+
+    private DataManager myManager;
+    private AsyncDataManager myAsyncManager;
+    private Image myDefaultPicture;
+    private Map<String, CachedValue<Image>> myPictures;
+    private Map<String, CachedValue<String>> myBios;
+
+    private static class CachedValue<T> {
+        private CompletableFuture<T> myValue;
+        private long myExpiry;
+
+        CachedValue(CompletableFuture<T> value) {
+            myValue = value;
+            myExpiry = System.nanoTime() + TIME_TO_LIVE_NANOS;
+        }
+
+        boolean isFresh() {
+            return System.nanoTime() - myExpiry < 0;
+        }
+    }
+
+    /**
+     * @purpose get the cache shared by all views of the game center, creating it the first time.
+     * @return the shared cache
+     */
+    public static synchronized UserProfileCache getInstance() {
+        if(myInstance == null) {
+            myInstance = new UserProfileCache(new DataManager());
+        }
+        return myInstance;
+    }
+
+    /**
+     * @purpose set up an empty cache that drops the profile of a user whenever it is changed through any DataManager.
+     * @param manager the DataManager profile pictures and bios are read with
+     */
+    public UserProfileCache(DataManager manager) {
+        myManager = manager;
+        myAsyncManager = new AsyncDataManager(manager);
+        myPictures = makeLeastRecentlyUsedMap(MAX_CACHED_PICTURES);
+        myBios = makeLeastRecentlyUsedMap(MAX_CACHED_BIOS);
+        try {
+            myDefaultPicture = new Image(new FileInputStream(DEFAULT_IMAGE_LOCATION));
+        } catch (FileNotFoundException e) {
+            // do nothing, users without a picture are just shown without one
+        }
+        manager.addProfileListener(this::profileChanged);
+    }
+
+    /**
+     * @purpose show the profile picture of a user in an image view, as wide as the image view is. The default picture
+     * is shown if the user has no picture or it can't be read. Must be called on the JavaFX thread.
+     * @param userName the user whose picture to show
+     * @param imageView the image view to show the picture in, with its fit width set
+     */
+    public void showProfilePic(String userName, ImageView imageView) {
+        CompletableFuture<Image> picture = getProfilePic(userName, (int) Math.ceil(imageView.getFitWidth()));
+        if(picture.isDone() && !picture.isCompletedExceptionally()) {
+            showPicture(imageView, picture.join());
+            return;
+        }
+        AsyncDataManager.onFxThread(picture, loaded -> showPicture(imageView, loaded),
+                error -> imageView.setImage(myDefaultPicture));
+    }
+
+    /**
+     * @purpose get the profile picture of a user decoded at the width it is shown at, reading it in the background the
+     * first time.
+     * @param userName the user whose picture to get
+     * @param width the width the picture is shown at
+     * @return a future of the picture, completed with null if the user has no picture that can be decoded
+     */
+    public synchronized CompletableFuture<Image> getProfilePic(String userName, int width) {
+        return lookUp(myPictures, userName + KEY_SEPARATOR + width,
+                () -> myAsyncManager.submit(() -> decode(userName, width)));
+    }
+
+    /**
+     * @purpose get the bio of a user, reading it in the background the first time.
+     * @param userName the user whose bio to get
+     * @return a future of the bio
+     */
+    public synchronized CompletableFuture<String> getBio(String userName) {
+        return lookUp(myBios, userName, () -> myAsyncManager.getBio(userName));
+    }
+
+    /**
+     * @purpose drop the picture and bio of a user, so that they are read again the next time they are shown. Called
+     * by the DataManager whenever they are changed.
+     * @param userName the user whose profile changed
+     */
+    public synchronized void profileChanged(String userName) {
+        myBios.remove(userName);
+        myPictures.keySet().removeIf(key -> key.substring(0, key.lastIndexOf(KEY_SEPARATOR)).equals(userName));
+    }
+
+    private <T> CompletableFuture<T> lookUp(Map<String, CachedValue<T>> cache, String key,
+                                            Supplier<CompletableFuture<T>> request) {
+        CachedValue<T> cached = cache.get(key);
+        if(cached != null && cached.isFresh()) {
+            return cached.myValue;
+        }
+        CachedValue<T> requested = new CachedValue<>(request.get());
+        cache.put(key, requested);
+        // failures that only mean the database was busy are forgotten, others (e.g. a missing user) are kept like results
+        requested.myValue.whenComplete((value, error) -> {
+            if(error instanceof RejectedExecutionException || error instanceof TimeoutException) {
+                forget(cache, key, requested);
+            }
+        });
+        return requested.myValue;
+    }
+
+    private synchronized <T> void forget(Map<String, CachedValue<T>> cache, String key, CachedValue<T> value) {
+        cache.remove(key, value);
+    }
+
+    private Image decode(String userName, int width) throws Exception {
+        try (InputStream pictureData = myManager.getProfilePicThumbnail(userName, width)) {
+            if(pictureData == null) {
+                return null;
+            }
+            Image picture = new Image(pictureData, width, 0, true, true);
+            return picture.isError() ? null : picture;
+        }
+    }
+
+    private void showPicture(ImageView imageView, Image picture) {
+        imageView.setImage(picture == null ? myDefaultPicture : picture);
+    }
+
+    private static <T> Map<String, CachedValue<T>> makeLeastRecentlyUsedMap(int maxEntries) {
+        return new LinkedHashMap<>(maxEntries, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedValue<T>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+}
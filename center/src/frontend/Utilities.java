@@ -9,6 +9,7 @@
 
 package frontend;
 
+import data.external.CheckpointInfo;
 import data.external.DataManager;
 import data.external.GameCenterData;
 import javafx.geometry.Pos;
@@ -23,8 +24,11 @@ import voogasalad.util.reflection.Reflection;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.sql.SQLException;
+import java.util.List;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
+import java.util.function.Supplier;
 
 public class Utilities {
     private static final String ERROR_MESSAGE = "error";
@@ -60,9 +64,10 @@ public class Utilities {
     public static Pane getImagePane(DataManager manager, String imageLocation, double gameSize, double maxHeight) throws FileNotFoundException {
         ImageView gameImage;
         try {
-            gameImage = new ImageView(new Image(manager.loadImage(imageLocation)));
+            int thumbnailSize = (int) Math.ceil(Math.max(gameSize, maxHeight));
+            gameImage = new ImageView(new Image(manager.loadImageThumbnail(imageLocation, thumbnailSize)));
         } catch (Exception e) { // if any exceptions come from this, it should just become a default image.
-            gameImage = new ImageView(new Image(new FileInputStream(DEFAULT_IMAGE_LOCATION)));
+            gameImage = new ImageView(getDefaultImage());
         }
         double originalWidth = gameImage.getFitWidth();
         gameImage.setPreserveRatio(true);
@@ -76,6 +81,15 @@ public class Utilities {
         return imagePane;
     }
 
+    /**
+     * @purpose load the image shown for games that don't have an image of their own, or whose image is still loading
+     * @return the default game image
+     * @throws FileNotFoundException if the default image cannot be found
+     */
+    public static Image getDefaultImage() throws FileNotFoundException {
+        return new Image(new FileInputStream(DEFAULT_IMAGE_LOCATION));
+    }
+
     /**
      * @purpose launch the game runner. This is in utilities because it is used in many different places.
      * @param gameName the name of which the game should be launched
@@ -90,6 +104,31 @@ public class Utilities {
         }
     }
 
+    /**
+     * @purpose launch the game runner from the newest checkpoint the user saved for the game, or from the start of the
+     * game if the user has no checkpoints for it
+     * @param manager the DataManager that the checkpoints are listed with
+     * @param gameName the name of which the game should be launched
+     * @param authorName the name of the author who created the game
+     * @param username the name of the current user logged in
+     */
+    public static void continueGameRunner(DataManager manager, String gameName, String authorName, String username) {
+        CheckpointInfo newestCheckpoint = null;
+        try {
+            List<CheckpointInfo> checkpoints = manager.getCheckpointInfo(username, gameName, authorName);
+            if (!checkpoints.isEmpty()) {
+                newestCheckpoint = checkpoints.get(0);
+            }
+        } catch (SQLException e) {
+            // start from the beginning if the checkpoints can't be listed
+        }
+        try {
+            new GameRunner(gameName, authorName, username, newestCheckpoint);
+        } catch (FileNotFoundException e) {
+            // do nothing, the GameRunner will not launch in this case.
+        }
+    }
+
     /**
      * @purpose create an HBox of buttons using reflection so that buttons don't have to be repeatedly created
      * @param object an instance of the object that needs the buttons (for reflection)
@@ -97,13 +136,24 @@ public class Utilities {
      * @return an HBox that holds all of the desired buttons
      */
     public static HBox makeButtons(Object object, GameCenterData data) {
+        return makeButtons(object, () -> data);
+    }
+
+    /**
+     * @purpose create an HBox of buttons whose game is looked up when they are clicked, so that a display that is
+     * reused for different games (like a recycled GameCard) can keep the same buttons
+     * @param object an instance of the object that needs the buttons (for reflection)
+     * @param data supplies the GameCenterData of the game currently shown when a button is clicked
+     * @return an HBox that holds all of the desired buttons
+     */
+    public static HBox makeButtons(Object object, Supplier<GameCenterData> data) {
         HBox buttonList = new HBox();
         buttonList.getStyleClass().add(BUTTON_LIST_SELECTOR);
         ResourceBundle buttonResources = ResourceBundle.getBundle(object.getClass().getSimpleName());
         for(String buttonName : buttonResources.keySet()) {
             Button button = new Button(getValue(buttonResources, buttonName));
             button.getStyleClass().add(INDIVIDUAL_BUTTON_SELECTOR);
-            button.setOnAction(e -> Reflection.callMethod(object, buttonName, data));
+            button.setOnAction(e -> Reflection.callMethod(object, buttonName, data.get()));
             buttonList.getChildren().add(button);
         }
         BorderPane.setAlignment(buttonList, Pos.CENTER);
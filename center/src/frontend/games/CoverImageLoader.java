@@ -0,0 +1,95 @@
+/**
+ * @Date April 2019
+ * @Purpose Load the cover images of games off the JavaFX thread, so that showing a GameCard never waits for the
+ * database. Covers are loaded as thumbnails instead of at full size. A card shows the default image until its cover
+ * arrives, and covers are kept in memory so that scrolling back to a game doesn't load its cover again.
+ * @Dependencies AsyncDataManager, DataManager, javafx, Utilities
+ * @Uses: Used by GameList to fill in the images of the GameCards it shows.
+ */
+
+package frontend.games;
+
+import data.external.AsyncDataManager;
+import data.external.DataManager;
+import frontend.Utilities;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+public class CoverImageLoader {
+    private static final int MAX_CACHED_IMAGES = 200;
+    // thumbnails are square, so covers up to twice as wide as they are high still have enough pixels for the card
+    private static final int THUMBNAIL_SCALE = 2;
+    private DataManager myManager;
+    private AsyncDataManager myAsyncManager;
+    private double myImageHeight;
+    private Image myPlaceholder;
+    private Map<String, CompletableFuture<Image>> myImages;
+
+    /**
+     * @purpose set up an empty cache of cover images.
+     * @param manager the DataManager the images are loaded from
+     * @param imageHeight the height the images are shown at. Images are decoded at this height so that big covers
+     * don't take up more memory than they need.
+     */
+    public CoverImageLoader(DataManager manager, double imageHeight) {
+        myManager = manager;
+        myAsyncManager = new AsyncDataManager(manager);
+        myImageHeight = imageHeight;
+        myImages = new LinkedHashMap<>(MAX_CACHED_IMAGES, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<Image>> eldest) {
+                return size() > MAX_CACHED_IMAGES;
+            }
+        };
+        try {
+            myPlaceholder = Utilities.getDefaultImage();
+        } catch (FileNotFoundException e) {
+            // do nothing, the image view is just empty until the cover arrives
+        }
+    }
+
+    /**
+     * @purpose show the cover image of a game in an image view, right away if it was loaded before, otherwise as soon as
+     * it has been loaded. If the image view is given another image before the cover arrives, the cover is not shown.
+     * Must be called on the JavaFX thread.
+     * @param imageLocation the name of the image to show
+     * @param imageView the image view to show the image in
+     */
+    public void load(String imageLocation, ImageView imageView) {
+        imageView.setUserData(imageLocation);
+        CompletableFuture<Image> image = myImages.computeIfAbsent(imageLocation, this::request);
+        if (image.isDone() && !image.isCompletedExceptionally()) {
+            imageView.setImage(image.join());
+            return;
+        }
+        imageView.setImage(myPlaceholder);
+        AsyncDataManager.onFxThread(image, loaded -> {
+            if (imageLocation.equals(imageView.getUserData())) {
+                imageView.setImage(loaded);
+            }
+        }, error -> myImages.remove(imageLocation, image)); // e.g. too many queued loads, so try again next time
+    }
+
+    private CompletableFuture<Image> request(String imageLocation) {
+        return myAsyncManager.submit(() -> decode(imageLocation));
+    }
+
+    private Image decode(String imageLocation) {
+        int thumbnailSize = (int) Math.ceil(myImageHeight * THUMBNAIL_SCALE);
+        try (InputStream imageData = myManager.loadImageThumbnail(imageLocation, thumbnailSize)) {
+            Image image = new Image(imageData, 0, myImageHeight, true, true);
+            if (!image.isError()) {
+                return image;
+            }
+        } catch (Exception e) { // if any exceptions come from this, it should just become a default image.
+            // fall through to the default image
+        }
+        return myPlaceholder;
+    }
+}
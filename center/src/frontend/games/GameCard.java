@@ -2,16 +2,20 @@
  * @Author Megan Phibbons
  * @Date April 2019
  * @Purpose Act as a display component for game objects. Contains title, description, image, and buttons in a neater package.
- * @Dependencies javafx, GameRunner, GameCenterData, Utilities, and java.io
+ * A card can be bound to a different game at any time, so that GameList can reuse the same cards while scrolling.
+ * @Dependencies javafx, GameRunner, GameCenterData, Utilities, and CoverImageLoader
  * @Uses: Used by GameList for displaying single games at a time.
  */
 
 package frontend.games;
 
 import data.external.DataManager;
+import data.external.RatingSummary;
 import frontend.popups.GamePage;
 import frontend.popups.UserProfileDisplay;
 import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.image.ImageView;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.StackPane;
@@ -20,17 +24,16 @@ import javafx.scene.text.Text;
 import data.external.GameCenterData;
 import frontend.Utilities;
 
-import java.io.FileNotFoundException;
-import java.sql.SQLException;
 import java.text.DecimalFormat;
 import java.util.ResourceBundle;
 
 public class GameCard {
-    private static final int GAME_IMAGE_SIZE = 200;
     private static final int WRAP_OFFSET = 25;
 
     public static final double DISPLAY_WIDTH = 300;
     public static final double DISPLAY_HEIGHT = 350;
+    public static final double IMAGE_HEIGHT = 100;
+    private static final int NUM_STYLES = 2;
     private static final String DEFAULT_LANGUAGE_LOCATION = "languages/English";
     private static final String BACKGROUND_SELECTOR = "rectangle";
     private static final String TEXT_SELECTOR = "cardtext";
@@ -38,28 +41,55 @@ public class GameCard {
     private static final String BODY_SELECTOR = "cardbody";
     private static final String FOREGROUND_SELECTOR = "cardpadding";
     private static final String CONTENT_SELECTOR = "contentpadding";
-    private static final double MAX_HEIGHT = 100;
     private int myIndex;
     private ResourceBundle myLanguageBundle;
     private GameCenterData myGame;
     private Pane myDisplay;
     private DataManager myManager;
     private String myCurrentUser;
+    private CoverImageLoader myCoverImages;
+    private Rectangle myBackground;
+    private Text myTitle;
+    private Text myAuthor;
+    private ImageView myImage;
+    private Text myDescription;
+    private Text myRatingText;
 
     /**
-     * @purpose constructor that sets up parameters of the game and initializes the resource bundle used for text.
-     * @param game the GameCenterData object that represents the contents of the GameCard
-     * @param index the index that the game card is in a list. This is used for styling purposes
+     * @purpose constructor that sets up an empty card and initializes the resource bundle used for text. The card shows
+     * a game once it is bound to one.
+     * @param manager the DataManager used by the buttons and popups of the card
+     * @param user the current user logged in
+     * @param coverImages loads the image of the game the card is bound to
      */
-    public GameCard(GameCenterData game, int index, DataManager manager, String user) {
-        myGame = game;
-        myIndex = index % 2 + 1;
+    public GameCard(DataManager manager, String user, CoverImageLoader coverImages) {
         myLanguageBundle = ResourceBundle.getBundle(DEFAULT_LANGUAGE_LOCATION);
         myManager = manager;
         myCurrentUser = user;
+        myCoverImages = coverImages;
         initializeDisplay();
     }
 
+    /**
+     * @purpose show a game on the card, replacing whatever game it showed before. The rating goes back to its default
+     * text until showRating is called.
+     * @param game the GameCenterData object that represents the contents of the GameCard
+     * @param index the index that the game card is in a list. This is used for styling purposes
+     */
+    public void bind(GameCenterData game, int index) {
+        myGame = game;
+        myIndex = index % NUM_STYLES + 1;
+        myTitle.setText(myGame.getTitle());
+        myAuthor.setText(myGame.getAuthorName());
+        myDescription.setText(myGame.getDescription());
+        myRatingText.setText(Utilities.getValue(myLanguageBundle, "ratingDefaultText"));
+        setStyle(myBackground, BACKGROUND_SELECTOR);
+        for(Text text : new Text[]{myTitle, myAuthor, myDescription, myRatingText}) {
+            setStyle(text, TEXT_SELECTOR);
+        }
+        myCoverImages.load(myGame.getImageLocation(), myImage);
+    }
+
     /**
      * @purpose share the display of the pane. This is used in GameList so that the contents of the GameCard can actually
      * be displayed.
@@ -101,9 +131,8 @@ public class GameCard {
 
     private void addBackground(Pane pane) {
         BorderPane background = new BorderPane();
-        Rectangle display = new Rectangle(DISPLAY_WIDTH, DISPLAY_HEIGHT);
-        display.getStyleClass().add(BACKGROUND_SELECTOR + myIndex);
-        background.setCenter(display);
+        myBackground = new Rectangle(DISPLAY_WIDTH, DISPLAY_HEIGHT);
+        background.setCenter(myBackground);
         pane.getChildren().add(background);
     }
 
@@ -118,66 +147,74 @@ public class GameCard {
 
     private void addButtons(BorderPane foreground) {
         BorderPane buttonPane = new BorderPane();
-        buttonPane.setCenter(Utilities.makeButtons(this, myGame));
+        buttonPane.setCenter(Utilities.makeButtons(this, () -> myGame));
         foreground.setBottom(buttonPane);
     }
 
     private void addImageAndContent(BorderPane foreground) {
         BorderPane contentPane = new BorderPane();
         addImage(contentPane);
-        Text imageDescription = new Text(myGame.getDescription());
-        imageDescription.getStyleClass().add(BODY_SELECTOR);
-        imageDescription.getStyleClass().add(TEXT_SELECTOR + myIndex);
-        imageDescription.setWrappingWidth(DISPLAY_WIDTH - WRAP_OFFSET);
-        contentPane.setCenter(imageDescription);
+        myDescription = new Text();
+        myDescription.getStyleClass().add(BODY_SELECTOR);
+        myDescription.setWrappingWidth(DISPLAY_WIDTH - WRAP_OFFSET);
+        contentPane.setCenter(myDescription);
         addRatingText(contentPane);
         contentPane.getStyleClass().add(CONTENT_SELECTOR);
         foreground.setCenter(contentPane);
     }
 
-    private void addRatingText(BorderPane contentPane) {
-        try {
-            Text ratingText;
-            if(myManager.getAverageRating(myGame.getTitle()) == 0) {
-                ratingText = new Text (Utilities.getValue(myLanguageBundle, "ratingDefaultText"));
-            } else {
-                double rating = myManager.getAverageRating(myGame.getTitle());
-                DecimalFormat df2 = new DecimalFormat("###.##");
-                rating = Double.valueOf(df2.format(rating));
-                ratingText = new Text(Utilities.getValue(myLanguageBundle, "ratingStartText") + rating + Utilities.getValue(myLanguageBundle, "ratingEndText"));
-            }
-            ratingText.getStyleClass().add(BODY_SELECTOR);
-            ratingText.getStyleClass().add(TEXT_SELECTOR + myIndex);
-            BorderPane.setAlignment(ratingText, Pos.CENTER);
-            contentPane.setBottom(ratingText);
-        } catch (SQLException e) {
-            //do nothing - in this case, no rating will display
+    /**
+     * @purpose show the average rating of the game once the ratings of all the games have been read, so that the cards
+     * don't each have to ask the database for their own rating.
+     * @param summary the totals of the ratings of the game, null if the game hasn't been rated
+     */
+    public void showRating(RatingSummary summary) {
+        if(summary == null || summary.getCount() == 0) {
+            myRatingText.setText(Utilities.getValue(myLanguageBundle, "ratingDefaultText"));
+        } else {
+            DecimalFormat df2 = new DecimalFormat("###.##");
+            double rating = Double.valueOf(df2.format(summary.getAverage()));
+            myRatingText.setText(Utilities.getValue(myLanguageBundle, "ratingStartText") + rating + Utilities.getValue(myLanguageBundle, "ratingEndText"));
         }
     }
 
+    private void addRatingText(BorderPane contentPane) {
+        myRatingText = new Text();
+        myRatingText.getStyleClass().add(BODY_SELECTOR);
+        BorderPane.setAlignment(myRatingText, Pos.CENTER);
+        contentPane.setBottom(myRatingText);
+    }
+
     private void addImage(BorderPane contentPane) {
-        try {
-            contentPane.setTop(Utilities.getImagePane(myManager, myGame.getImageLocation(), GAME_IMAGE_SIZE, MAX_HEIGHT));
-        } catch (FileNotFoundException e) {
-            // do nothing, in this case there just won't be an image which is fine
-        }
+        myImage = new ImageView();
+        myImage.setPreserveRatio(true);
+        myImage.setFitHeight(IMAGE_HEIGHT);
+        BorderPane imagePane = new BorderPane();
+        imagePane.setCenter(myImage);
+        contentPane.setTop(imagePane);
     }
 
     private void addTitleContent(BorderPane foreground) {
-        Text title = new Text(myGame.getTitle());
-        title.getStyleClass().add(TITLE_SELECTOR);
-        title.getStyleClass().add(TEXT_SELECTOR + myIndex);
+        myTitle = new Text();
+        myTitle.getStyleClass().add(TITLE_SELECTOR);
         BorderPane titlePane = new BorderPane();
-        titlePane.setCenter(title);
-        Text author = new Text(myGame.getAuthorName());
-        author.setOnMouseClicked(e -> openUserPage(author.getText()));
-        author.getStyleClass().add(BODY_SELECTOR);
-        author.getStyleClass().add(TEXT_SELECTOR + myIndex);
-        BorderPane.setAlignment(author, Pos.CENTER);
-        titlePane.setBottom(author);
+        titlePane.setCenter(myTitle);
+        myAuthor = new Text();
+        myAuthor.setOnMouseClicked(e -> openUserPage(myAuthor.getText()));
+        myAuthor.getStyleClass().add(BODY_SELECTOR);
+        BorderPane.setAlignment(myAuthor, Pos.CENTER);
+        titlePane.setBottom(myAuthor);
         foreground.setTop(titlePane);
     }
 
+    // cards alternate between styles, so a reused card drops the style of the game it showed before
+    private void setStyle(Node node, String selector) {
+        for(int i = 1; i <= NUM_STYLES; i++) {
+            node.getStyleClass().remove(selector + i);
+        }
+        node.getStyleClass().add(selector + myIndex);
+    }
+
     private void openUserPage(String author) {
         new UserProfileDisplay(myGame, myManager, myCurrentUser, author);
     }
@@ -2,31 +2,38 @@
  * @Author Megan Phibbons
  * @Date April 2019
  * @Purpose List all of the games available in a user-friendly attractive way so that they can select a game they are
- * interested in.
- * @Dependencies DataManager, javafx, GameCenterData
+ * interested in. The games are shown in rows of a ListView, which only creates the rows that are on screen and reuses
+ * them while scrolling, so the list opens and scrolls just as fast with thousands of games as with a few.
+ * @Dependencies DataManager, javafx, GameCenterData, GameRow, CoverImageLoader
  * @Uses: Used in GamePane for displaying games
  */
 
 package frontend.games;
 
+import data.external.AsyncDataManager;
 import data.external.DataManager;
-import javafx.geometry.Pos;
-import javafx.scene.control.ScrollPane;
+import data.external.RatingSummary;
+import javafx.scene.control.ListView;
 import javafx.scene.layout.BorderPane;
-import javafx.scene.layout.FlowPane;
 import javafx.scene.layout.Pane;
 import data.external.GameCenterData;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class GameList {
     private Pane myDisplay;
     private static final double CARD_H_OFFSET = 50;
     private static final int NUM_CARDS_DISPLAYED = 3;
-    private static final String GAME_LIST_SELECTOR = "cardlist";
-    private static final String SCROLLER_SELECTOR = "scroller";
+    private static final String GAME_LIST_SELECTOR = "cardgrid";
     private static final int SCROLL_OFFSET = 140;
+    private static final int MAX_SEARCH_RESULTS = 300;
     private List<GameCenterData> myGames;
+    private ListView<List<GameCenterData>> myGameList;
+    private Map<String, RatingSummary> myRatings;
+    private CoverImageLoader myCoverImages;
     private DataManager myManager;
     private String myCurrentUser;
     private double myHeight;
@@ -36,10 +43,14 @@ public class GameList {
      */
     public GameList(String user, double height) {
         myManager = new DataManager();
-        myGames = myManager.loadAllGameInfoObjects();
+        myCoverImages = new CoverImageLoader(myManager, GameCard.IMAGE_HEIGHT);
+        myRatings = new HashMap<>();
         myCurrentUser = user;
         myHeight = height;
         initializeDisplay();
+        // the games are read off the FX thread, and the list stays empty if that fails
+        AsyncDataManager.onFxThreadOrDefault(new AsyncDataManager(myManager).loadAllGameInfoObjects(),
+                new ArrayList<>(), this::showGames);
     }
 
     /**
@@ -50,10 +61,13 @@ public class GameList {
      */
     public GameList(String user, String desiredAuthor, double height) {
         myManager = new DataManager();
-        myGames = myManager.loadAllGameInfoObjects(desiredAuthor);
+        myCoverImages = new CoverImageLoader(myManager, GameCard.IMAGE_HEIGHT);
+        myRatings = new HashMap<>();
         myCurrentUser = user;
         myHeight = height;
         initializeDisplay();
+        AsyncDataManager.onFxThreadOrDefault(new AsyncDataManager(myManager).loadAllGameInfoObjects(desiredAuthor),
+                new ArrayList<>(), this::showGames);
     }
 
 
@@ -66,22 +80,51 @@ public class GameList {
     }
 
     private void initializeDisplay() {
-        FlowPane gameList = new FlowPane();
-        gameList.setAlignment(Pos.CENTER);
-        gameList.getStyleClass().add(GAME_LIST_SELECTOR);
-        gameList.setPrefWrapLength((GameCard.DISPLAY_WIDTH + CARD_H_OFFSET) * NUM_CARDS_DISPLAYED);
-        int index = 0;
-        for(GameCenterData game : myGames) {
-            GameCard c = new GameCard(game, index, myManager, myCurrentUser);
-            gameList.getChildren().add(c.getDisplay());
-            index++;
-        }
-        ScrollPane scroller = new ScrollPane();
-        scroller.getStyleClass().add(SCROLLER_SELECTOR);
-        scroller.setContent(gameList);
-        scroller.setMinHeight(myHeight - SCROLL_OFFSET);
-        BorderPane content = new BorderPane(scroller);
+        myGameList = new ListView<>();
+        myGameList.getStyleClass().add(GAME_LIST_SELECTOR);
+        myGameList.setPrefWidth((GameCard.DISPLAY_WIDTH + CARD_H_OFFSET) * NUM_CARDS_DISPLAYED);
+        myGameList.setMinHeight(myHeight - SCROLL_OFFSET);
+        myGameList.setCellFactory(list -> new GameRow(NUM_CARDS_DISPLAYED,
+                () -> new GameCard(myManager, myCurrentUser, myCoverImages), myRatings::get));
+        BorderPane content = new BorderPane(myGameList);
         myDisplay = content;
     }
 
+    /**
+     * @purpose show only the games that match a search, best match first, or every game again if the search is empty.
+     * The search runs on an index in memory, so this can be called on every key stroke.
+     * @param query the words typed into the search bar
+     */
+    public void search(String query) {
+        if(myGames == null) {
+            return; // the games haven't arrived yet, they are all shown when they do
+        }
+        if(query.isBlank()) {
+            showRows(myGames);
+        } else {
+            showRows(myManager.searchGames(query, MAX_SEARCH_RESULTS));
+        }
+    }
+
+    private void showGames(List<GameCenterData> games) {
+        myGames = games;
+        showRows(games);
+        // the ratings of every game are read with one query, and the cards keep their default text if that fails
+        AsyncDataManager.onFxThreadOrDefault(new AsyncDataManager(myManager).getAllRatingSummaries(), new HashMap<>(),
+                this::showRatings);
+    }
+
+    private void showRows(List<GameCenterData> games) {
+        List<List<GameCenterData>> rows = new ArrayList<>();
+        for(int i = 0; i < games.size(); i += NUM_CARDS_DISPLAYED) {
+            rows.add(games.subList(i, Math.min(i + NUM_CARDS_DISPLAYED, games.size())));
+        }
+        myGameList.getItems().setAll(rows);
+    }
+
+    private void showRatings(Map<String, RatingSummary> summaries) {
+        myRatings.putAll(summaries);
+        myGameList.refresh();
+    }
+
 }
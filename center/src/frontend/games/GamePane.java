@@ -1,8 +1,8 @@
 /**
  * @Author Megan Phibbons
  * @Date April 2019
- * @Purpose This is the pane that encompasses all of the game data. For now, it only includes a title and list of games.
- * Moving forward, this will also have a sort button and an add new game button.
+ * @Purpose This is the pane that encompasses all of the game data. For now, it includes a title, a search bar and a list
+ * of games. Moving forward, this will also have a sort button and an add new game button.
  * @Dependencies javafx and Utilities.
  * @Uses: Used in CenterMain to display the games
  */
@@ -12,6 +12,7 @@ package frontend.games;
 import center.external.CenterView;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.scene.control.TextField;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.BorderPane;
@@ -32,6 +33,7 @@ public class GamePane {
     private static final String SUBTITLE_SELECTOR = "subtitlefont";
     private static final String REFRESH_BUTTON_PATH = "center/data/refresh.png";
     private static final String SPACING_SELECTOR = "refreshspacing";
+    private static final String SEARCH_SELECTOR = "searchbar";
     private BorderPane myDisplay;
     private ResourceBundle myResources;
     private String myCurrentUser;
@@ -60,12 +62,25 @@ public class GamePane {
         Text subtitle = new Text(Utilities.getValue(myResources, "gamePaneTitle"));
         subtitle.getStyleClass().add(SUBTITLE_SELECTOR);
         BorderPane.setAlignment(subtitle, Pos.CENTER);
-        gamePane.setTop(subtitle);
-        gamePane.setCenter((new GameList(myCurrentUser, CenterView.STAGE_HEIGHT)).getDisplay());
+        GameList gameList = new GameList(myCurrentUser, CenterView.STAGE_HEIGHT);
+        BorderPane titlePane = new BorderPane();
+        titlePane.setCenter(subtitle);
+        titlePane.setBottom(makeSearchBar(gameList));
+        gamePane.setTop(titlePane);
+        gamePane.setCenter(gameList.getDisplay());
         myDisplay.setCenter(gamePane);
         myDisplay.setRight(getRefreshButtonPane());
     }
 
+    private TextField makeSearchBar(GameList gameList) {
+        TextField searchBar = new TextField();
+        searchBar.setPromptText(Utilities.getValue(myResources, "searchPrompt"));
+        searchBar.getStyleClass().add(SEARCH_SELECTOR);
+        BorderPane.setAlignment(searchBar, Pos.CENTER);
+        searchBar.textProperty().addListener((observable, oldQuery, newQuery) -> gameList.search(newQuery));
+        return searchBar;
+    }
+
     private Pane getRefreshButtonPane() {
         BorderPane refreshButtonPane = new BorderPane();
         try {
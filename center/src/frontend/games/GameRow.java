@@ -0,0 +1,69 @@
+/**
+ * @Date April 2019
+ * @Purpose Show one row of games in the GameList. The ListView that holds the rows only creates rows for the part of
+ * the list that is on screen and reuses them while scrolling, so every row creates its GameCards once and binds them
+ * to whatever games it is asked to show.
+ * @Dependencies javafx, GameCard, GameCenterData, RatingSummary
+ * @Uses: Used by GameList as the cells of its ListView.
+ */
+
+package frontend.games;
+
+import data.external.GameCenterData;
+import data.external.RatingSummary;
+import javafx.scene.control.ListCell;
+import javafx.scene.layout.HBox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class GameRow extends ListCell<List<GameCenterData>> {
+    private static final String ROW_SELECTOR = "cardrow";
+    private List<GameCard> myCards;
+    private HBox myDisplay;
+    private Function<String, RatingSummary> myRatings;
+
+    /**
+     * @purpose constructor that creates the cards of the row.
+     * @param cardsPerRow how many games are shown next to each other
+     * @param cardFactory creates the cards of the row
+     * @param ratings finds the rating totals of a game by its name, null if they haven't been read (yet)
+     */
+    public GameRow(int cardsPerRow, Supplier<GameCard> cardFactory, Function<String, RatingSummary> ratings) {
+        myRatings = ratings;
+        myCards = new ArrayList<>();
+        myDisplay = new HBox();
+        myDisplay.getStyleClass().add(ROW_SELECTOR);
+        for(int i = 0; i < cardsPerRow; i++) {
+            GameCard card = cardFactory.get();
+            myCards.add(card);
+            myDisplay.getChildren().add(card.getDisplay());
+        }
+    }
+
+    /**
+     * @purpose bind the cards of the row to the games of the row it now shows. Cards left over in the last row are
+     * hidden.
+     * @param games the games of the row
+     * @param empty true if the row doesn't show anything
+     */
+    @Override
+    protected void updateItem(List<GameCenterData> games, boolean empty) {
+        super.updateItem(games, empty);
+        if(empty || games == null) {
+            setGraphic(null);
+            return;
+        }
+        for(int i = 0; i < myCards.size(); i++) {
+            GameCard card = myCards.get(i);
+            card.getDisplay().setVisible(i < games.size());
+            if(i < games.size()) {
+                card.bind(games.get(i), getIndex() * myCards.size() + i);
+                card.showRating(myRatings.apply(games.get(i).getTitle()));
+            }
+        }
+        setGraphic(myDisplay);
+    }
+}
@@ -61,6 +61,15 @@ public class GamePage extends Popup {
         Utilities.launchGameRunner(data.getTitle(), data.getAuthorName(), myCurrentUser);
     }
 
+    /**
+     * @purpose allow for button reflection for the continueGameButton, which launches the Runner from the user's newest
+     * checkpoint for the game
+     * @param data the GameCenterData associated with the game being pressed
+     */
+    public void continueGameButton(GameCenterData data) {
+        Utilities.continueGameRunner(myManager, data.getTitle(), data.getAuthorName(), myCurrentUser);
+    }
+
     /**
      * @purpose allow button reflection for rateGameButton, which launches the RatingScreen
      * @param data the GameCenterData for the game being rated
@@ -8,12 +8,13 @@
 
 package frontend.popups;
 
+import data.external.AsyncDataManager;
 import data.external.DataManager;
 import data.external.GameCenterData;
+import frontend.UserProfileCache;
 import frontend.Utilities;
 import frontend.games.GameList;
 import javafx.geometry.Pos;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.Pane;
@@ -21,10 +22,6 @@ import javafx.scene.layout.StackPane;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-import java.sql.SQLException;
-
 public class UserProfileDisplay extends Popup {
     private String myUsername;
     private String myCurrentUser;
@@ -38,7 +35,6 @@ public class UserProfileDisplay extends Popup {
     private static final String BODY_SELECTOR = "bodyfont";
     private static final String TITLE_SELECTOR = "titlefont";
     private static final String SUBTITLE_SELECTOR = "subtitlefont";
-    private static final String DEFAULT_IMAGE_LOCATION = "center/data/profile_information/images/default.png";
 
     /**
      * @purpose constructor that fills all instance fields, initializes, and displays the popup
@@ -64,43 +60,35 @@ public class UserProfileDisplay extends Popup {
         ((Stage) myDisplay.getScene().getWindow()).close();
     }
 
+    // the bio and the profile picture are read in the background and filled in once they arrive, so that the popup
+    // opens without waiting on the database. They are shared with every other view that shows this user.
     @Override
     protected void addHeader() {
         StackPane header = new StackPane();
-        try {
-            BorderPane titleAndSubtitle = new BorderPane();
-            Text username = new Text(myUsername);
-            username.getStyleClass().add(TITLE_SELECTOR);
-            BorderPane.setAlignment(username, Pos.CENTER);
-            Text bio = new Text(myManager.getBio(myUsername));
-            bio.setWrappingWidth(SUBTITLE_WRAP_LENGTH);
-            bio.getStyleClass().add(BODY_SELECTOR);
-            titleAndSubtitle.setTop(username);
-            titleAndSubtitle.setCenter(bio);
-            addUserNameInformation(header, titleAndSubtitle);
-        } catch (SQLException e) {
-            // do nothing, otherwise the header will be empty
-        }
+        UserProfileCache profiles = UserProfileCache.getInstance();
+        BorderPane titleAndSubtitle = new BorderPane();
+        Text username = new Text(myUsername);
+        username.getStyleClass().add(TITLE_SELECTOR);
+        BorderPane.setAlignment(username, Pos.CENTER);
+        Text bio = new Text();
+        bio.setWrappingWidth(SUBTITLE_WRAP_LENGTH);
+        bio.getStyleClass().add(BODY_SELECTOR);
+        titleAndSubtitle.setTop(username);
+        titleAndSubtitle.setCenter(bio);
+        addUserNameInformation(header, titleAndSubtitle, profiles);
+        // if the bio can't be read, it is simply left empty
+        AsyncDataManager.onFxThreadOrDefault(profiles.getBio(myUsername), "", bio::setText);
     }
 
-    private void addUserNameInformation(Pane header, Pane titleAndSubtitle) {
-        ImageView userImage;
-        try {
-            userImage = new ImageView(new Image(myManager.getProfilePic(myUsername)));
-        } catch(Exception e) {
-            try {
-                userImage = new ImageView(new Image(new FileInputStream(DEFAULT_IMAGE_LOCATION)));
-            } catch (FileNotFoundException e1) {
-                myDisplay.setTop(titleAndSubtitle);
-                return;
-            }
-        }
+    private void addUserNameInformation(Pane header, Pane titleAndSubtitle, UserProfileCache profiles) {
+        ImageView userImage = new ImageView();
         userImage.setPreserveRatio(true);
         userImage.setFitWidth(IMAGE_WIDTH);
         BorderPane imagePane = new BorderPane();
         imagePane.setLeft(userImage);
         header.getChildren().addAll(titleAndSubtitle, imagePane);
         myDisplay.setTop(header);
+        profiles.showProfilePic(myUsername, userImage);
     }
 
     @Override
@@ -8,38 +8,44 @@
 
 package frontend.ratings;
 
+import data.external.AsyncDataManager;
 import data.external.DataManager;
 import data.external.GameCenterData;
 import data.external.GameRating;
+import frontend.Utilities;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.Pane;
 import javafx.scene.layout.VBox;
+import javafx.scene.text.Text;
 
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.ResourceBundle;
 
 public class RatingList {
     private GameCenterData myData;
     private BorderPane myDisplay;
-    private List<GameRating> myRatings;
+    private VBox myRatingsBox;
     private DataManager myManager;
     private static final int PADDING = 10;
+    private static final int RATINGS_PER_PAGE = 20;
+    private static final String DEFAULT_LANGUAGE = "languages/English";
+    private static final String BODY_SELECTOR = "bodyfont";
+    private Text myMoreRatings;
+    private GameRating myLastRating;
 
     /**
-     * @purpose constructor so that the RatingList can be initialized for being displayed later.
+     * @purpose constructor so that the RatingList can be initialized for being displayed later. The ratings are read in
+     * the background a page at a time, newest first, and filled in once they arrive, so that opening a game page never
+     * waits on the database and never reads every rating of a popular game.
      * @param data the GameCenterData that the ratings are for
      * @param manager the DataManager that allows us to get existing ratings
      */
     public RatingList(GameCenterData data, DataManager manager) {
         myData = data;
         myManager = manager;
-        try {
-            myRatings = myManager.getAllRatings(data.getTitle());
-        } catch (SQLException e) {
-            myRatings = new ArrayList<>(); // worst case, the ratings list is just empty.
-        }
         initializeDisplay();
+        loadNextPage();
     }
 
     /**
@@ -52,13 +58,30 @@ public class RatingList {
 
     private void initializeDisplay() {
         myDisplay = new BorderPane();
-        VBox allRatings = new VBox();
-        for(GameRating rating : myRatings) {
+        myRatingsBox = new VBox();
+        myRatingsBox.setSpacing(PADDING);
+        myDisplay.setCenter(myRatingsBox);
+        myMoreRatings = new Text(Utilities.getValue(ResourceBundle.getBundle(DEFAULT_LANGUAGE), "moreRatings"));
+        myMoreRatings.getStyleClass().add(BODY_SELECTOR);
+        myMoreRatings.setOnMouseClicked(e -> loadNextPage());
+    }
+
+    private void loadNextPage() {
+        myRatingsBox.getChildren().remove(myMoreRatings);
+        // worst case, the ratings list just stops here.
+        AsyncDataManager.onFxThreadOrDefault(new AsyncDataManager(myManager).getRatingPage(myData.getTitle(),
+                myLastRating, RATINGS_PER_PAGE), new ArrayList<>(), this::addRatings);
+    }
+
+    private void addRatings(List<GameRating> ratings) {
+        for(GameRating rating : ratings) {
             SingleRating ratingDisplay = new SingleRating(rating, myManager, myData);
-            allRatings.getChildren().add(ratingDisplay.getDisplay());
+            myRatingsBox.getChildren().add(ratingDisplay.getDisplay());
+            myLastRating = rating;
+        }
+        if(ratings.size() == RATINGS_PER_PAGE) {
+            myRatingsBox.getChildren().add(myMoreRatings);
         }
-        allRatings.setSpacing(PADDING);
-        myDisplay.setCenter(allRatings);
     }
 
 }
@@ -11,18 +11,15 @@ package frontend.ratings;
 import data.external.DataManager;
 import data.external.GameCenterData;
 import data.external.GameRating;
+import frontend.UserProfileCache;
 import frontend.popups.GamePage;
 import javafx.geometry.Pos;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.Pane;
 import javafx.scene.text.Text;
 
-import java.io.FileInputStream;
-import java.io.FileNotFoundException;
-
 public class SingleRating {
     private static final String BODY_SELECTOR = "bodyfont";
     private static final String PADDING_SELECTOR = "contentpadding";
@@ -36,7 +33,6 @@ public class SingleRating {
     private String myUsername;
 
     private static final int IMAGE_WIDTH = 40;
-    private static final String DEFAULT_IMAGE_LOCATION = "center/data/profile_information/images/default.png";
 
     /**
      * @purpose constructor that initializes all values and the display
@@ -66,22 +62,15 @@ public class SingleRating {
         addRatingBody();
     }
 
+    // the profile picture is read and decoded in the background, the rating shows up right away and the picture is
+    // filled in once it is ready. Reviewers that were shown before, e.g. further up the list, are shown right away.
     private void addUserImage() {
-        ImageView userImage;
-        try {
-            userImage = new ImageView(new Image(myManager.getProfilePic(myUsername)));
-        } catch (Exception e) {
-            try {
-                userImage = new ImageView(new Image(new FileInputStream(DEFAULT_IMAGE_LOCATION)));
-            } catch (FileNotFoundException e1) {
-                // do nothing, there isn't really anything else we can do
-                return;
-            }
-        }
+        ImageView userImage = new ImageView();
         userImage.setPreserveRatio(true);
         userImage.setFitWidth(IMAGE_WIDTH);
         BorderPane.setAlignment(userImage, Pos.CENTER);
         myDisplay.setLeft(userImage);
+        UserProfileCache.getInstance().showProfilePic(myUsername, userImage);
     }
 
     private void addRatingBody() {
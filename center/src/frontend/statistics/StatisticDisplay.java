@@ -8,6 +8,7 @@
 
 package frontend.statistics;
 
+import data.external.AsyncDataManager;
 import data.external.DataManager;
 import data.external.GameCenterData;
 import data.external.UserScore;
@@ -20,7 +21,6 @@ import javafx.scene.layout.GridPane;
 import javafx.scene.layout.Pane;
 import javafx.scene.text.Text;
 
-import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.ResourceBundle;
@@ -34,24 +34,23 @@ public class StatisticDisplay {
     private static final int PADDING = 10;
     private static final int MAX_SCORE = 10;
     private BorderPane myDisplay;
-    private List<UserScore> myScores;
+    private GridPane myScoresGrid;
     private ResourceBundle myLanguageBundle;
 
     private static final int COLUMN_NUMBER = 3;
 
     /**
-     * @purpose constructor, which sets the language bundle and gets all scores from DataManager to display
+     * @purpose constructor, which sets the language bundle and gets the best scores from DataManager to display. The
+     * scores are read in the background and added below the header once they arrive.
      * @param data the GameCenterData for which we are looking at ratings
      * @param manager the DataManager used to read in ratings
      */
     public StatisticDisplay(GameCenterData data, DataManager manager) {
         myLanguageBundle = ResourceBundle.getBundle(DEFAULT_LANGUAGE);
-        try {
-            myScores = manager.loadScores(data.getTitle(), data.getAuthorName());
-        } catch (SQLException e) {
-            myScores = new ArrayList<>();
-        }
         initializeDisplay();
+        AsyncDataManager.onFxThreadOrDefault(new AsyncDataManager(manager).loadTopScores(data.getTitle(), data.getAuthorName(),
+                MAX_SCORE),
+                new ArrayList<>(), this::setUpScoresBody);
     }
 
     /**
@@ -64,14 +63,13 @@ public class StatisticDisplay {
 
     private void initializeDisplay() {
         myDisplay = new BorderPane();
-        GridPane scores = new GridPane();
-        scores.setAlignment(Pos.CENTER);
-        scores.setHgap(HORIZONTAL_GAP);
-        scores.setVgap(VERTICAL_GAP);
-        scores.setPadding(new Insets(PADDING));
-        setUpScoresHeader(scores);
-        setUpScoresBody(scores);
-        myDisplay.setCenter(scores);
+        myScoresGrid = new GridPane();
+        myScoresGrid.setAlignment(Pos.CENTER);
+        myScoresGrid.setHgap(HORIZONTAL_GAP);
+        myScoresGrid.setVgap(VERTICAL_GAP);
+        myScoresGrid.setPadding(new Insets(PADDING));
+        setUpScoresHeader(myScoresGrid);
+        myDisplay.setCenter(myScoresGrid);
     }
 
     private void setUpScoresHeader(GridPane scores) {
@@ -82,9 +80,10 @@ public class StatisticDisplay {
         }
     }
 
-    private void setUpScoresBody(GridPane scores) {
+    private void setUpScoresBody(List<UserScore> userScores) {
+        GridPane scores = myScoresGrid;
         int i = 1;
-        for(UserScore score : myScores) {
+        for(UserScore score : userScores) {
             if(i > MAX_SCORE) {
                 break;
             }
@@ -0,0 +1,73 @@
+-- Brings an existing byteme database up to the schema used by the queriers in data.internal
+-- Run once against the vooga_byteme database used by MySQLBackend, e.g. mysql -u <user> -p vooga_byteme < schema_upgrade.sql
+-- Tables and columns that existed before (Users, Images, Sounds, GameInformation, GameRatings, GameStatistics and
+-- Checkpoints) are only altered, so saved games, scores, ratings and checkpoints are kept
+
+-- GameLevelQuerier: games saved with individual levels keep their manifest in GameInformation and every level here
+CREATE TABLE IF NOT EXISTS GameLevels (
+    GameName VARCHAR(255) NOT NULL,
+    AuthorName VARCHAR(255) NOT NULL,
+    LevelNumber INT NOT NULL,
+    LevelData LONGTEXT NOT NULL,
+    PRIMARY KEY (GameName, AuthorName, LevelNumber)
+);
+
+-- CheckpointQuerier: checkpoints are listed without their payloads, chained by IsFull, and told apart by a time
+-- with milliseconds since several can be saved within the same second
+ALTER TABLE Checkpoints
+    ADD LevelNumber INT NULL,
+    ADD Score DOUBLE NULL,
+    ADD PayloadSize BIGINT NULL,
+    ADD IsFull BOOLEAN NOT NULL DEFAULT TRUE,
+    MODIFY CheckpointTime TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+    ADD INDEX CheckpointsByTime (UserName, GameName, AuthorName, CheckpointTime);
+
+-- StatisticsQuerier: leaderboard pages continue after the last row of the previous page, and ScoreID breaks ties
+-- between equal scores of the same user
+ALTER TABLE GameStatistics
+    ADD ScoreID BIGINT NOT NULL AUTO_INCREMENT UNIQUE,
+    ADD INDEX ScoresByRank (GameName, AuthorName, Score DESC, UserName, ScoreID);
+
+-- RatingsQuerier: ratings are paged newest first; ratings saved before the column existed get the upgrade time
+ALTER TABLE GameRatings
+    ADD RatingTime TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    ADD INDEX RatingsByTime (GameName, RatingTime DESC, UserName);
+
+-- RatingsQuerier: totals of every game, changed in the same transaction as its ratings
+CREATE TABLE IF NOT EXISTS GameRatingTotals (
+    GameName VARCHAR(255) NOT NULL,
+    AuthorName VARCHAR(255) NOT NULL,
+    RatingCount INT NOT NULL DEFAULT 0,
+    RatingSum INT NOT NULL DEFAULT 0,
+    Stars1 INT NOT NULL DEFAULT 0,
+    Stars2 INT NOT NULL DEFAULT 0,
+    Stars3 INT NOT NULL DEFAULT 0,
+    Stars4 INT NOT NULL DEFAULT 0,
+    Stars5 INT NOT NULL DEFAULT 0,
+    PRIMARY KEY (GameName, AuthorName)
+);
+
+DELETE FROM GameRatingTotals;
+INSERT INTO GameRatingTotals (GameName, AuthorName, RatingCount, RatingSum, Stars1, Stars2, Stars3, Stars4, Stars5)
+    SELECT GameName, AuthorName, COUNT(*), SUM(Rating), SUM(Rating = 1), SUM(Rating = 2), SUM(Rating = 3),
+           SUM(Rating = 4), SUM(Rating = 5)
+    FROM GameRatings GROUP BY GameName, AuthorName;
+
+-- GameInformationQuerier: the catalog only reloads the game info changed since its last refresh; rows saved before
+-- the column existed are stamped now so that they take part in incremental refreshes
+ALTER TABLE GameInformation
+    ADD InfoModified TIMESTAMP(3) NULL,
+    ADD INDEX GameInfoByModified (InfoModified);
+
+UPDATE GameInformation SET InfoModified = CURRENT_TIMESTAMP(3) WHERE GameInfo IS NOT NULL;
+
+-- ThumbnailQuerier: scaled cover images and profile pictures, one row per source and size
+CREATE TABLE IF NOT EXISTS Thumbnails (
+    SourceName VARCHAR(255) NOT NULL,
+    Size INT NOT NULL,
+    ThumbnailData MEDIUMBLOB,
+    PRIMARY KEY (SourceName, Size)
+);
+
+-- AssetQuerier needs no new column: unchanged assets are recognized by comparing the length of the saved asset and,
+-- only when the lengths match, a SHA2 hash the server computes from it
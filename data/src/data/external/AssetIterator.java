@@ -0,0 +1,22 @@
+package data.external;
+
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Walks through the assets (images or sounds) whose names start with a prefix one at a time, so that loading a whole
+ * asset library never holds more than one asset in memory.  Each entry maps the name of an asset to its data, which
+ * can only be read until the iterator moves on to the next asset.  The iterator holds on to the storage it reads
+ * from, e.g. a database connection, until it runs out of assets or is closed, which is why it should be used in a
+ * try-with-resources block.  Failures while moving to the next asset are thrown as IllegalStateExceptions caused by
+ * the original SQLException
+ */
+public interface AssetIterator extends Iterator<Map.Entry<String, InputStream>>, AutoCloseable {
+
+    /**
+     * Releases whatever the iterator still holds on to, it is safe to call more than once
+     */
+    @Override
+    void close();
+}
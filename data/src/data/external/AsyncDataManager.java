@@ -0,0 +1,307 @@
+package data.external;
+
+import javafx.application.Platform;
+
+import java.io.InputStream;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * AsyncDataManager runs the calls of a DataManager off the calling thread and hands back CompletableFutures, so that
+ * the JavaFX application thread never blocks on the database.  All AsyncDataManagers share one bounded pool of worker
+ * threads sized to the database connection pool, so that a burst of requests queues up instead of opening a thread
+ * per request.  Cancelling a returned future, or letting it time out, keeps the call from starting if it is still
+ * queued.  A call that is already running is left to finish and its result is ignored, since interrupting a thread in
+ * the middle of a JDBC call can leave its connection unusable after it went back to the pool
+ */
+public class AsyncDataManager {
+
+    private static final int WORKER_THREADS = 8;
+    private static final int MAX_QUEUED_CALLS = 256;
+    private static final long IDLE_SECONDS = 60;
+    private static final long DEFAULT_TIMEOUT_SECONDS = 30;
+    private static final String WORKER_THREAD_NAME = "data-async-";
+    private static final ExecutorService DATA_EXECUTOR = createExecutor();
+
+    private ExternalData myDataManager;
+    private long myTimeoutSeconds;
+
+    /**
+     * Creates an AsyncDataManager that runs the calls of dataManager with the default timeout
+     *
+     * @param dataManager the DataManager that makes the actual calls to the database
+     */
+    public AsyncDataManager(ExternalData dataManager) {
+        this(dataManager, DEFAULT_TIMEOUT_SECONDS);
+    }
+
+    /**
+     * Creates an AsyncDataManager that runs the calls of dataManager and fails any call that takes longer than
+     * timeoutSeconds with a TimeoutException
+     *
+     * @param dataManager    the DataManager that makes the actual calls to the database
+     * @param timeoutSeconds how long a call may take before its future fails
+     */
+    public AsyncDataManager(ExternalData dataManager, long timeoutSeconds) {
+        myDataManager = dataManager;
+        myTimeoutSeconds = timeoutSeconds;
+    }
+
+    /**
+     * Runs any call against the database on the shared worker threads
+     *
+     * @param call the call to make, typically a method reference on a DataManager
+     * @param <T>  type of the result of the call
+     * @return a future of the result, failed with a RejectedExecutionException if too many calls are already queued
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = DATA_EXECUTOR.submit(() -> runCall(call, result));
+        } catch (RejectedExecutionException e) {
+            result.completeExceptionally(e);
+            return result;
+        }
+        result.orTimeout(myTimeoutSeconds, TimeUnit.SECONDS).whenComplete((value, error) -> {
+            if (error instanceof CancellationException || error instanceof TimeoutException) {
+                task.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Loads and deserializes all the game info objects from the database
+     *
+     * @return a future of the deserialized game center data objects
+     */
+    public CompletableFuture<List<GameCenterData>> loadAllGameInfoObjects() {
+        return submit(() -> myDataManager.loadAllGameInfoObjects());
+    }
+
+    /**
+     * Loads and deserializes the game info objects of all the games authored by a user
+     *
+     * @param userName user whose games to retrieve
+     * @return a future of the deserialized game center data objects
+     */
+    public CompletableFuture<List<GameCenterData>> loadAllGameInfoObjects(String userName) {
+        return submit(() -> myDataManager.loadAllGameInfoObjects(userName));
+    }
+
+    /**
+     * Loads an image from the database
+     *
+     * @param imageName name of the image to be loaded
+     * @return a future of the image data, which completes with null if there is no such image
+     */
+    public CompletableFuture<InputStream> loadImage(String imageName) {
+        return submit(() -> myDataManager.loadImage(imageName));
+    }
+
+    /**
+     * Loads a scaled down copy of an image from the database
+     *
+     * @param imageName name of the image to be loaded
+     * @param size      width and height in pixels the image is shown at
+     * @return a future of the image data, which completes with null if there is no such image
+     */
+    public CompletableFuture<InputStream> loadImageThumbnail(String imageName, int size) {
+        return submit(() -> myDataManager.loadImageThumbnail(imageName, size));
+    }
+
+    /**
+     * Returns the average rating for a game
+     *
+     * @param gameName name of the game
+     * @return a future of the average rating
+     */
+    public CompletableFuture<Double> getAverageRating(String gameName) {
+        return submit(() -> myDataManager.getAverageRating(gameName));
+    }
+
+    /**
+     * Loads all the ratings of a game
+     *
+     * @param gameName name of the game
+     * @return a future of the ratings of the game
+     */
+    public CompletableFuture<List<GameRating>> getAllRatings(String gameName) {
+        return submit(() -> myDataManager.getAllRatings(gameName));
+    }
+
+    /**
+     * Loads one page of the ratings of a game, newest first
+     *
+     * @param gameName name of the game
+     * @param after    last rating of the previous page, null for the first page
+     * @param limit    maximum number of ratings on the page
+     * @return a future of the ratings on the page
+     */
+    public CompletableFuture<List<GameRating>> getRatingPage(String gameName, GameRating after, int limit) {
+        return submit(() -> myDataManager.getRatingPage(gameName, after, limit));
+    }
+
+    /**
+     * Loads the totals of the ratings of every game that has been rated
+     *
+     * @return a future of the map of the game names to the totals of their ratings
+     */
+    public CompletableFuture<Map<String, RatingSummary>> getAllRatingSummaries() {
+        return submit(() -> myDataManager.getAllRatingSummaries());
+    }
+
+    /**
+     * Loads all the scores of a game
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @return a future of the scores of the game
+     */
+    public CompletableFuture<List<UserScore>> loadScores(String gameName, String authorName) {
+        return submit(() -> myDataManager.loadScores(gameName, authorName));
+    }
+
+    /**
+     * Loads the best scores of a game
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param limit      maximum number of scores to load
+     * @return a future of the best scores of the game, highest first
+     */
+    public CompletableFuture<List<UserScore>> loadTopScores(String gameName, String authorName, int limit) {
+        return submit(() -> myDataManager.loadTopScores(gameName, authorName, limit));
+    }
+
+    /**
+     * Loads the profile picture of a user
+     *
+     * @param userName user whose profile picture should be loaded
+     * @return a future of the picture data
+     */
+    public CompletableFuture<InputStream> getProfilePic(String userName) {
+        return submit(() -> myDataManager.getProfilePic(userName));
+    }
+
+    /**
+     * Loads a scaled down copy of the profile picture of a user
+     *
+     * @param userName user whose profile picture should be loaded
+     * @param size     width and height in pixels the picture is shown at
+     * @return a future of the picture data
+     */
+    public CompletableFuture<InputStream> getProfilePicThumbnail(String userName, int size) {
+        return submit(() -> myDataManager.getProfilePicThumbnail(userName, size));
+    }
+
+    /**
+     * Loads the bio of a user
+     *
+     * @param userName user whose bio should be loaded
+     * @return a future of the bio
+     */
+    public CompletableFuture<String> getBio(String userName) {
+        return submit(() -> myDataManager.getBio(userName));
+    }
+
+    /**
+     * Describes the checkpoints of a user for a game without loading them
+     *
+     * @param userName   user playing the game
+     * @param gameName   name of the game
+     * @param authorName author of the game
+     * @return a future of the descriptions, newest first
+     */
+    public CompletableFuture<List<CheckpointInfo>> getCheckpointInfo(String userName, String gameName, String authorName) {
+        return submit(() -> myDataManager.getCheckpointInfo(userName, gameName, authorName));
+    }
+
+    /**
+     * Loads and deserializes one checkpoint of a user for a game, restoring it from its chain if it is chained
+     *
+     * @param userName   user playing the game
+     * @param gameName   name of the game
+     * @param authorName author of the game
+     * @param time       time the checkpoint was saved
+     * @return a future of the checkpoint or the state restored from its chain, null if there is none saved at that time
+     */
+    public CompletableFuture<Object> loadCheckpoint(String userName, String gameName, String authorName, Timestamp time) {
+        return submit(() -> myDataManager.loadCheckpoint(userName, gameName, authorName, time));
+    }
+
+    /**
+     * Hands the outcome of a future to the JavaFX application thread, where it is safe to update the scene graph
+     *
+     * @param future    future to wait for
+     * @param onSuccess called on the JavaFX application thread with the result if the future succeeds
+     * @param onFailure called on the JavaFX application thread with the cause if the future fails, is cancelled or
+     *                  times out
+     * @param <T>       type of the result
+     */
+    public static <T> void onFxThread(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        future.whenCompleteAsync((value, error) -> {
+            if (error == null) {
+                onSuccess.accept(value);
+            } else {
+                onFailure.accept(unwrap(error));
+            }
+        }, Platform::runLater);
+    }
+
+    /**
+     * Hands the result of a future to the JavaFX application thread, or a fallback value if the future fails
+     *
+     * @param future    future to wait for
+     * @param fallback  value to use instead if the future fails, is cancelled or times out
+     * @param onResult  called on the JavaFX application thread with the result or the fallback
+     * @param <T>       type of the result
+     */
+    public static <T> void onFxThreadOrDefault(CompletableFuture<T> future, T fallback, Consumer<T> onResult) {
+        onFxThread(future, onResult, error -> onResult.accept(fallback));
+    }
+
+    private <T> void runCall(Callable<T> call, CompletableFuture<T> result) {
+        if (result.isDone()) {
+            return;
+        }
+        try {
+            result.complete(call.call());
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            return error.getCause();
+        }
+        return error;
+    }
+
+    private static ExecutorService createExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, IDLE_SECONDS,
+                TimeUnit.SECONDS, new ArrayBlockingQueue<>(MAX_QUEUED_CALLS), runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setName(WORKER_THREAD_NAME + thread.getId());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+}
@@ -0,0 +1,24 @@
+package data.external;
+
+import java.util.Collection;
+
+/**
+ * Implemented by checkpoints that are saved as chains, where only the first checkpoint of a chain holds the whole
+ * saved state and every following one only holds what changed since the checkpoint before it.  Such a checkpoint can
+ * only be restored along with the checkpoints it builds on, so they are loaded and pruned together
+ */
+public interface ChainedCheckpoint {
+
+    /**
+     * Whether this checkpoint starts a chain, i.e. can be restored on its own
+     * @return true if this checkpoint holds the whole saved state
+     */
+    boolean isFull();
+
+    /**
+     * Rebuilds the state saved by this checkpoint from its chain
+     * @param savedCheckpoints checkpoints of the chain up to this one, starting with the full checkpoint
+     * @return the saved state, or null if the full checkpoint or any checkpoint between it and this one is missing
+     */
+    Object restore(Collection<Object> savedCheckpoints);
+}
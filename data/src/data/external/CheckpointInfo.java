@@ -0,0 +1,72 @@
+package data.external;
+
+import java.sql.Timestamp;
+
+/**
+ * Describes a saved checkpoint without the checkpoint itself, so that the checkpoints of a game can be listed and one
+ * of them chosen before any of them is loaded
+ */
+public class CheckpointInfo {
+
+    private Timestamp myTime;
+    private Integer myLevelNumber;
+    private Double myScore;
+    private long mySize;
+    private boolean myFull;
+
+    /**
+     * CheckpointInfo constructor
+     * @param time time the checkpoint was saved, identifies it when loading it
+     * @param levelNumber number of the level the checkpoint was saved in, null if it wasn't saved with one
+     * @param score score when the checkpoint was saved, null if it wasn't saved with one
+     * @param size size of the serialized checkpoint in bytes
+     * @param full false if the checkpoint is a ChainedCheckpoint that only holds changes to the ones before it
+     */
+    public CheckpointInfo(Timestamp time, Integer levelNumber, Double score, long size, boolean full) {
+        myTime = time;
+        myLevelNumber = levelNumber;
+        myScore = score;
+        mySize = size;
+        myFull = full;
+    }
+
+    /**
+     * Getter for the time the checkpoint was saved
+     * @return time
+     */
+    public Timestamp getTime() {
+        return myTime;
+    }
+
+    /**
+     * Getter for the number of the level the checkpoint was saved in
+     * @return level number, null if unknown
+     */
+    public Integer getLevelNumber() {
+        return myLevelNumber;
+    }
+
+    /**
+     * Getter for the score when the checkpoint was saved
+     * @return score, null if unknown
+     */
+    public Double getScore() {
+        return myScore;
+    }
+
+    /**
+     * Getter for the size of the serialized checkpoint
+     * @return size in bytes
+     */
+    public long getSize() {
+        return mySize;
+    }
+
+    /**
+     * Whether the checkpoint can be restored on its own, or needs the checkpoints of its chain before it
+     * @return true unless the checkpoint only holds changes to the ones before it
+     */
+    public boolean isFull() {
+        return myFull;
+    }
+}
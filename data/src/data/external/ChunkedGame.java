@@ -0,0 +1,30 @@
+package data.external;
+
+import java.util.List;
+
+/**
+ * Implemented by game objects that should be stored as a small manifest plus one payload per level, so that a game
+ * can be started after deserializing only its manifest and first level, with later levels loaded on demand
+ *
+ * @param <L> type of the levels held by the game
+ */
+public interface ChunkedGame<L> {
+
+    /**
+     * Getter for the levels of the game, each of which is saved as its own payload
+     * @return levels of the game, in order
+     */
+    List<L> getLevels();
+
+    /**
+     * Creates the manifest of the game that is saved in place of the whole game
+     * @return a copy of the game holding everything except for its levels
+     */
+    ChunkedGame<L> getManifest();
+
+    /**
+     * Adds a level back to a manifest after it has been loaded from its own payload
+     * @param level the level to add
+     */
+    void addLevel(L level);
+}
@@ -0,0 +1,116 @@
+package data.external;
+
+/**
+ * Packages the state and the counters of the database connection pool at one point in time
+ */
+public class ConnectionPoolMetrics {
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private int myMaxSize;
+    private int myOpenConnections;
+    private int myBorrowedConnections;
+    private long myCheckouts;
+    private long myCheckoutWaitNanos;
+    private long myTimeouts;
+    private long myCreatedConnections;
+    private long myDiscardedConnections;
+
+    /**
+     * ConnectionPoolMetrics constructor
+     * @param maxSize maximum number of connections of the pool
+     * @param openConnections number of connections currently open
+     * @param borrowedConnections number of connections currently checked out
+     * @param checkouts number of checkouts so far
+     * @param checkoutWaitNanos total time spent waiting for checkouts so far
+     * @param timeouts number of checkouts that timed out so far
+     * @param createdConnections number of connections opened so far
+     * @param discardedConnections number of connections closed so far, e.g. because they failed their health check
+     */
+    public ConnectionPoolMetrics(int maxSize, int openConnections, int borrowedConnections, long checkouts,
+                                 long checkoutWaitNanos, long timeouts, long createdConnections,
+                                 long discardedConnections) {
+        myMaxSize = maxSize;
+        myOpenConnections = openConnections;
+        myBorrowedConnections = borrowedConnections;
+        myCheckouts = checkouts;
+        myCheckoutWaitNanos = checkoutWaitNanos;
+        myTimeouts = timeouts;
+        myCreatedConnections = createdConnections;
+        myDiscardedConnections = discardedConnections;
+    }
+
+    /**
+     * Getter for the maximum number of connections
+     * @return maximum size of the pool
+     */
+    public int getMaxSize() {
+        return myMaxSize;
+    }
+
+    /**
+     * Getter for the number of open connections
+     * @return open connections, idle or borrowed
+     */
+    public int getOpenConnections() {
+        return myOpenConnections;
+    }
+
+    /**
+     * Getter for the number of borrowed connections
+     * @return connections currently checked out
+     */
+    public int getBorrowedConnections() {
+        return myBorrowedConnections;
+    }
+
+    /**
+     * Getter for the number of checkouts
+     * @return checkouts so far
+     */
+    public long getCheckouts() {
+        return myCheckouts;
+    }
+
+    /**
+     * Getter for the average time a checkout took
+     * @return average checkout time in milliseconds
+     */
+    public double getAverageCheckoutMillis() {
+        if (myCheckouts == 0) {
+            return 0;
+        }
+        return myCheckoutWaitNanos / NANOS_PER_MILLI / myCheckouts;
+    }
+
+    /**
+     * Getter for the number of checkouts that timed out
+     * @return timed out checkouts so far
+     */
+    public long getTimeouts() {
+        return myTimeouts;
+    }
+
+    /**
+     * Getter for the number of connections opened
+     * @return connections opened so far
+     */
+    public long getCreatedConnections() {
+        return myCreatedConnections;
+    }
+
+    /**
+     * Getter for the number of connections discarded
+     * @return connections closed so far
+     */
+    public long getDiscardedConnections() {
+        return myDiscardedConnections;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("open=%d/%d borrowed=%d checkouts=%d avgCheckoutMs=%.3f timeouts=%d created=%d discarded=%d",
+                myOpenConnections, myMaxSize, myBorrowedConnections, myCheckouts, getAverageCheckoutMillis(),
+                myTimeouts, myCreatedConnections, myDiscardedConnections);
+    }
+}
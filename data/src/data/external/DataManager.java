@@ -1,8 +1,9 @@
 package data.external;
 
 import com.thoughtworks.xstream.XStream;
-import com.thoughtworks.xstream.io.xml.DomDriver;
-import com.thoughtworks.xstream.mapper.CannotResolveClassException;
+import com.thoughtworks.xstream.XStreamException;
+import data.internal.PayloadCodec;
+import data.internal.Serializers;
 import data.internal.XMLHandler;
 
 import java.io.*;
@@ -10,8 +11,10 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 /**
  * DataManager is the wrapper class that allows other modules to interact with the database, saving and loading
@@ -28,16 +31,21 @@ public class DataManager implements ExternalData {
     private static final String CANT_UPDATE_GAME_ENTRY_INFO = "Couldn't update game entry information: ";
     private static final String CREATED_GAMES_DIR = "created_games/";
     private static final String COULD_NOT_CREATE_USER = "Could not create user: ";
+    private static final String COULDNT_MIGRATE_GAME = "Couldn't migrate game ";
+    private static final String COULDNT_SAVE_ASSETS = "Couldn't save assets: ";
+    private static final String COULDNT_LOAD_THUMBNAIL = "Couldn't load thumbnail: ";
 
     private XStream mySerializer;
+    private PayloadCodec myPayloadCodec;
     private XMLHandler myXMLHandler;
     private DatabaseEngine myDatabaseEngine;
 
     /**
-     * DataManager constructor creates a new serializer and connects to the the Database
+     * DataManager constructor picks up the shared serializers and connects to the the Database
      */
     public DataManager() {
-        mySerializer = new XStream(new DomDriver());
+        mySerializer = Serializers.getXMLSerializer();
+        myPayloadCodec = new PayloadCodec();
         myXMLHandler = new XMLHandler();
         myDatabaseEngine = DatabaseEngine.getInstance();
     }
@@ -61,8 +69,7 @@ public class DataManager implements ExternalData {
      */
     @Override
     public void saveObjectToXML(String path, Object objectToBeSaved) {
-        String myRawXML = mySerializer.toXML(objectToBeSaved);
-        myXMLHandler.writeToXML(path, myRawXML);
+        myXMLHandler.writeToXML(path, objectToBeSaved, mySerializer);
     }
 
     /**
@@ -74,12 +81,36 @@ public class DataManager implements ExternalData {
      */
     @Override
     public Object loadObjectFromXML(String path) throws FileNotFoundException {
-        String rawXML = myXMLHandler.readFromXML(path);
-        return mySerializer.fromXML(rawXML);
+        return myXMLHandler.readFromXML(path, mySerializer);
     }
 
     /**
-     * Saves game data to the database in the form of serialized xml of a game object
+     * Serializes an object in memory, without touching the file system or the database, in the same format that is
+     * used for saving to the database
+     *
+     * @param objectToSerialize the object that should be serialized
+     * @return the serialized object
+     */
+    @Override
+    public String serialize(Object objectToSerialize) {
+        return myPayloadCodec.encode(objectToSerialize);
+    }
+
+    /**
+     * Deserializes an object held in memory
+     *
+     * @param rawXML serialized object previously produced by serialize, or raw xml
+     * @return a new deserialized object that needs to be cast
+     */
+    @Override
+    public Object deserialize(String rawXML) {
+        return myPayloadCodec.decode(rawXML);
+    }
+
+    /**
+     * Saves game data to the database in the form of a serialized game object. A ChunkedGame is saved as a
+     * manifest without its levels plus one entry per level, so that its levels can later be loaded individually.
+     * The levels and the manifest are saved in one transaction, so a failed save leaves the game as it was
      *
      * @param gameName   name of the game -> folder to be created
      * @param authorName name of the author of the game
@@ -87,14 +118,27 @@ public class DataManager implements ExternalData {
      */
     @Override
     public void saveGameData(String gameName, String authorName, Object gameObject) {
-        String myRawXML = mySerializer.toXML(gameObject);
         try {
-            myDatabaseEngine.updateGameEntryData(gameName, authorName, myRawXML);
+            if (gameObject instanceof ChunkedGame) {
+                ChunkedGame<?> chunkedGame = (ChunkedGame<?>) gameObject;
+                myDatabaseEngine.saveChunkedGameData(gameName, authorName, serializeLevels(chunkedGame.getLevels()),
+                        myPayloadCodec.encode(chunkedGame.getManifest()));
+                return;
+            }
+            myDatabaseEngine.updateGameEntryData(gameName, authorName, myPayloadCodec.encode(gameObject));
         } catch (SQLException e) {
             System.out.println(COULDNT_UPDATE_GAME_ENTRY_DATA + e.getMessage());
         }
     }
 
+    private List<String> serializeLevels(List<?> levels) {
+        List<String> levelXMLs = new ArrayList<>();
+        for (Object level : levels) {
+            levelXMLs.add(myPayloadCodec.encode(level));
+        }
+        return levelXMLs;
+    }
+
     /**
      * Saves game data to the database in the form of serialized xml using a default author name
      *
@@ -113,26 +157,29 @@ public class DataManager implements ExternalData {
      */
     @Override
     public List<GameCenterData> loadAllGameInfoObjects() {
-        List<String> gameInfoObjectXMLs = new ArrayList<>();
         try {
-            gameInfoObjectXMLs = myDatabaseEngine.loadAllGameInformationXMLs();
+            return myDatabaseEngine.loadGameInfoObjects();
         } catch (SQLException e) {
             System.out.println(CANT_LOAD_GAME_INFORMATION_XMLS + e.getMessage());
+            return myDatabaseEngine.getCachedGameInfoObjects();
         }
-        return deserializeGameInfoObjects(gameInfoObjectXMLs);
     }
 
-    private List<GameCenterData> deserializeGameInfoObjects(List<String> serializedGameInfoObjects) {
-        List<GameCenterData> gameInfoObjects = new ArrayList<>();
-        for (String xml : serializedGameInfoObjects) {
-            try {
-                GameCenterData gameCenterDataToAdd = (GameCenterData) mySerializer.fromXML(xml);
-                gameInfoObjects.add(gameCenterDataToAdd);
-            } catch (CannotResolveClassException exception){
-                // do nothing, invalid objects should not be added to the list sent to game center
-            }
+    /**
+     * Searches the titles, author names and descriptions of all the games for every word of a query, from memory
+     *
+     * @param query words to look for, the last one may be only partly typed
+     * @param limit maximum number of games to return
+     * @return the best matching games, best match first
+     */
+    @Override
+    public List<GameCenterData> searchGames(String query, int limit) {
+        try {
+            return myDatabaseEngine.searchGames(query, limit);
+        } catch (SQLException e) {
+            System.out.println(CANT_LOAD_GAME_INFORMATION_XMLS + e.getMessage());
+            return new ArrayList<>();
         }
-        return gameInfoObjects;
     }
 
     /**
@@ -144,9 +191,9 @@ public class DataManager implements ExternalData {
      */
     @Override
     public void saveGameInfo(String gameName, String authorName, GameCenterData gameInfoObject) {
-        String myRawXML = mySerializer.toXML(gameInfoObject);
+        String myRawXML = myPayloadCodec.encode(gameInfoObject);
         try {
-            myDatabaseEngine.updateGameEntryInfo(gameName, authorName, myRawXML);
+            myDatabaseEngine.updateGameEntryInfo(gameName, authorName, myRawXML, gameInfoObject);
         } catch (SQLException e) {
             System.out.println(CANT_UPDATE_GAME_ENTRY_INFO + e.getMessage());
         }
@@ -161,7 +208,7 @@ public class DataManager implements ExternalData {
      */
     @Override
     public GameCenterData loadGameInfo(String gameName, String authorName) throws SQLException {
-        return (GameCenterData) mySerializer.fromXML(myDatabaseEngine.loadGameInfo(gameName, authorName));
+        return (GameCenterData) myPayloadCodec.decode(myDatabaseEngine.loadGameInfo(gameName, authorName));
     }
 
     /**
@@ -181,6 +228,62 @@ public class DataManager implements ExternalData {
         }
     }
 
+    /**
+     * Utility method for rewriting the game information, game data and levels of every saved game that is still stored
+     * in an older format, such as xml, in the current format. Old payloads can always be read, so this only saves
+     * space and load time and is safe to run more than once. Checkpoints are not rewritten, they are replaced in the
+     * current format as players save again
+     *
+     * @return number of payloads that were rewritten
+     */
+    public int migrateSavedGames() {
+        int migrated = 0;
+        for (GameCenterData gameInfo : loadAllGameInfoObjects()) {
+            String gameName = gameInfo.getTitle();
+            String authorName = gameInfo.getAuthorName();
+            try {
+                migrated += migrateGame(gameName, authorName);
+            } catch (SQLException | XStreamException e) {
+                System.out.println(COULDNT_MIGRATE_GAME + gameName + ": " + e.getMessage());
+            }
+        }
+        return migrated;
+    }
+
+    private int migrateGame(String gameName, String authorName) throws SQLException {
+        int migrated = 0;
+        String gameInfo = myDatabaseEngine.loadGameInfo(gameName, authorName);
+        if (gameInfo != null && !myPayloadCodec.isCurrent(gameInfo)) {
+            myDatabaseEngine.updateGameEntryInfo(gameName, authorName, migrate(gameInfo));
+            migrated++;
+        }
+        String gameData = myDatabaseEngine.loadGameData(gameName, authorName);
+        if (gameData != null && !myPayloadCodec.isCurrent(gameData)) {
+            myDatabaseEngine.updateGameEntryData(gameName, authorName, migrate(gameData));
+            migrated++;
+        }
+        List<String> levels = new ArrayList<>();
+        boolean levelsMigrated = false;
+        int levelCount = myDatabaseEngine.countGameLevels(gameName, authorName);
+        for (int levelNumber = 1; levelNumber <= levelCount; levelNumber++) {
+            String level = myDatabaseEngine.loadGameLevel(gameName, authorName, levelNumber);
+            if (!myPayloadCodec.isCurrent(level)) {
+                level = migrate(level);
+                levelsMigrated = true;
+                migrated++;
+            }
+            levels.add(level);
+        }
+        if (levelsMigrated) {
+            myDatabaseEngine.saveGameLevels(gameName, authorName, levels);
+        }
+        return migrated;
+    }
+
+    private String migrate(String payload) {
+        return myPayloadCodec.encode(myPayloadCodec.decode(payload));
+    }
+
     /**
      * Saves an image to the database
      *
@@ -203,6 +306,40 @@ public class DataManager implements ExternalData {
         myDatabaseEngine.saveSound(soundName, soundToSave);
     }
 
+    /**
+     * Saves many images to the database at once, skipping the ones that are already saved unchanged, which makes saving
+     * a whole folder of images again cheap
+     *
+     * @param imagesToSave map of the names of the images to save to the image files
+     * @return number of images that actually had to be uploaded
+     */
+    @Override
+    public int saveImages(Map<String, File> imagesToSave) {
+        try {
+            return myDatabaseEngine.saveImages(imagesToSave);
+        } catch (SQLException e) {
+            System.out.println(COULDNT_SAVE_ASSETS + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Saves many sounds to the database at once, skipping the ones that are already saved unchanged, which makes saving
+     * a whole folder of sounds again cheap
+     *
+     * @param soundsToSave map of the names of the sounds to save to the sound files
+     * @return number of sounds that actually had to be uploaded
+     */
+    @Override
+    public int saveSounds(Map<String, File> soundsToSave) {
+        try {
+            return myDatabaseEngine.saveSounds(soundsToSave);
+        } catch (SQLException e) {
+            System.out.println(COULDNT_SAVE_ASSETS + e.getMessage());
+            return 0;
+        }
+    }
+
     /**
      * Loads a sound from the database
      *
@@ -225,6 +362,24 @@ public class DataManager implements ExternalData {
         return myDatabaseEngine.loadImage(imageName);
     }
 
+    /**
+     * Loads a scaled down copy of an image, or the image itself if there can't be one
+     *
+     * @param imageName name of the image to be loaded
+     * @param size      width and height in pixels the image is shown at
+     * @return an input stream of image data to be converted to an image object
+     */
+    @Override
+    public InputStream loadImageThumbnail(String imageName, int size) {
+        InputStream thumbnail = null;
+        try {
+            thumbnail = myDatabaseEngine.loadImageThumbnail(imageName, size);
+        } catch (SQLException e) {
+            System.out.println(COULDNT_LOAD_THUMBNAIL + e.getMessage());
+        }
+        return thumbnail == null ? loadImage(imageName) : thumbnail;
+    }
+
     /**
      * Creates a user in the data base
      *
@@ -259,7 +414,7 @@ public class DataManager implements ExternalData {
      * Removes a user account
      *
      * @param userName user name of the user to remove
-     * @throws SQLException if operation fails
+     * @throws SQLException if operation fails or journaled writes haven't reached the database yet
      */
     @Override
     public void removeUser(String userName) throws SQLException {
@@ -271,7 +426,7 @@ public class DataManager implements ExternalData {
      *
      * @param gameName   name of the game to remove
      * @param authorName author of the game to remove
-     * @throws SQLException if operation fails
+     * @throws SQLException if operation fails or writes to the game journaled before haven't reached the database
      */
     @Override
     public void removeGame(String gameName, String authorName) throws SQLException {
@@ -311,7 +466,71 @@ public class DataManager implements ExternalData {
      */
     @Override
     public Object loadGameData(String gameName, String authorName) throws SQLException {
-        return mySerializer.fromXML(myDatabaseEngine.loadGameData(gameName, authorName));
+        Object gameObject = loadGameManifest(gameName, authorName);
+        if (isManifest(gameObject)) {
+            addSavedLevels((ChunkedGame<?>) gameObject, gameName, authorName);
+        }
+        return gameObject;
+    }
+
+    private <L> void addSavedLevels(ChunkedGame<L> manifest, String gameName, String authorName) throws SQLException {
+        int levelCount = myDatabaseEngine.countGameLevels(gameName, authorName);
+        for (int levelNumber = 1; levelNumber <= levelCount; levelNumber++) {
+            // levels are saved from the getLevels of the same game, so they have its level type
+            @SuppressWarnings("unchecked")
+            L level = (L) loadGameLevel(gameName, authorName, levelNumber);
+            manifest.addLevel(level);
+        }
+    }
+
+    // Games saved before levels were stored individually keep all of their levels inside the game object itself
+    private boolean isManifest(Object gameObject) {
+        return gameObject instanceof ChunkedGame && ((ChunkedGame<?>) gameObject).getLevels().isEmpty();
+    }
+
+    /**
+     * Loads the deserialized game object from the database without any of the levels that are saved individually,
+     * which allows a game to be started without deserializing all of its levels
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author that wrote the game
+     * @return deserialized game manifest that needs to be cast, or the whole game if it was saved as a single payload
+     * @throws SQLException if operation fails
+     */
+    @Override
+    public Object loadGameManifest(String gameName, String authorName) throws SQLException {
+        return myPayloadCodec.decode(myDatabaseEngine.loadGameData(gameName, authorName));
+    }
+
+    /**
+     * Loads a single deserialized level of a game that was saved as a ChunkedGame
+     *
+     * @param gameName    name of the game
+     * @param authorName  name of the author that wrote the game
+     * @param levelNumber number of the level to load, starting at 1
+     * @return deserialized level that needs to be cast, or null if there is no such level saved
+     * @throws SQLException if operation fails
+     */
+    @Override
+    public Object loadGameLevel(String gameName, String authorName, int levelNumber) throws SQLException {
+        String levelXML = myDatabaseEngine.loadGameLevel(gameName, authorName, levelNumber);
+        if (levelXML == null) {
+            return null;
+        }
+        return myPayloadCodec.decode(levelXML);
+    }
+
+    /**
+     * Returns the number of levels saved individually for a game
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author that wrote the game
+     * @return number of individually saved levels, 0 if the game was saved as a single payload
+     * @throws SQLException if operation fails
+     */
+    @Override
+    public int loadLevelCount(String gameName, String authorName) throws SQLException {
+        return myDatabaseEngine.countGameLevels(gameName, authorName);
     }
 
     /**
@@ -336,6 +555,30 @@ public class DataManager implements ExternalData {
         return myDatabaseEngine.loadAllSounds(prefix);
     }
 
+    /**
+     * Reads all the images involved in a game specified by prefix one at a time, without holding all of them in memory
+     *
+     * @param prefix the gameName + the authorName
+     * @return an iterator of the image names and data, to be used in a try-with-resources block
+     * @throws SQLException if the images can't be queried
+     */
+    @Override
+    public AssetIterator iterateImages(String prefix) throws SQLException {
+        return myDatabaseEngine.iterateImages(prefix);
+    }
+
+    /**
+     * Reads all the sounds involved in a game specified by prefix one at a time, without holding all of them in memory
+     *
+     * @param prefix the gameName + the authorName
+     * @return an iterator of the sound names and data, to be used in a try-with-resources block
+     * @throws SQLException if the sounds can't be queried
+     */
+    @Override
+    public AssetIterator iterateSounds(String prefix) throws SQLException {
+        return myDatabaseEngine.iterateSounds(prefix);
+    }
+
     /**
      * Loads all the names of the games that a user has created
      *
@@ -361,15 +604,27 @@ public class DataManager implements ExternalData {
     }
 
     /**
-     * Adds a rating to the database for a specific game
+     * Adds a rating to the database for a specific game.  The rating is journaled on the local disk and written to the
+     * database in the background, so it is kept even if the database can't be reached right now
      * @param rating GameRating object that contains the rating information
-     * @throws SQLException if statement fails
+     * @throws SQLException if statement fails, only when the rating couldn't be journaled and was written directly
      */
     @Override
     public void addRating(GameRating rating) throws SQLException {
         myDatabaseEngine.addGameRating(rating);
     }
 
+    /**
+     * Adds many ratings to the database at once, replacing earlier ratings of the same users for the same games
+     * @param ratings GameRating objects that contain the rating information
+     * @return number of ratings added
+     * @throws SQLException if statement fails, in which case none of the ratings are added
+     */
+    @Override
+    public int addRatings(Collection<GameRating> ratings) throws SQLException {
+        return myDatabaseEngine.addGameRatings(ratings);
+    }
+
     /**
      * Returns the average rating for a game
      * @param gameName name to retrieve the average rating for
@@ -392,6 +647,54 @@ public class DataManager implements ExternalData {
         return myDatabaseEngine.getAllRatings(gameName);
     }
 
+    /**
+     * Returns one page of the ratings for a specific game, newest first. Pages continue after the last rating of the
+     * previous page instead of skipping over a number of rows, so every page is as cheap as the first
+     * @param gameName name of the game to get the ratings for
+     * @param after last rating of the previous page, null for the first page
+     * @param limit maximum number of ratings on the page
+     * @return the ratings that were made right before the ones on the previous page
+     * @throws SQLException if statement fails
+     */
+    @Override
+    public List<GameRating> getRatingPage(String gameName, GameRating after, int limit) throws SQLException {
+        return myDatabaseEngine.getRatingPage(gameName, after, limit);
+    }
+
+    /**
+     * Returns the number of ratings, the average rating and how many ratings gave each number of stars for a game,
+     * without loading the ratings themselves
+     * @param gameName name of the game
+     * @return the totals of the ratings of the game
+     * @throws SQLException if statement fails
+     */
+    @Override
+    public RatingSummary getRatingSummary(String gameName) throws SQLException {
+        return myDatabaseEngine.getRatingSummary(gameName);
+    }
+
+    /**
+     * Returns the totals of the ratings of every game that has been rated with a single query, so that the ratings of
+     * every game in the game center can be shown at once
+     * @return map of the game names to the totals of their ratings, games without ratings are left out
+     * @throws SQLException if statement fails
+     */
+    @Override
+    public Map<String, RatingSummary> getAllRatingSummaries() throws SQLException {
+        return myDatabaseEngine.getAllRatingSummaries();
+    }
+
+    /**
+     * Utility method for recomputing the stored rating totals of every game from the ratings themselves, e.g. right
+     * after the totals were added to the database. Safe to run more than once
+     * @return number of games whose totals were computed
+     * @throws SQLException if statement fails
+     */
+    @Override
+    public int rebuildRatingTotals() throws SQLException {
+        return myDatabaseEngine.rebuildRatingTotals();
+    }
+
     /**
      * Loads a list of all GameCenterData objects for the games authored by a specific user
      * @param userName user whose games to retrieve
@@ -399,20 +702,19 @@ public class DataManager implements ExternalData {
      */
     @Override
     public List<GameCenterData> loadAllGameInfoObjects(String userName) {
-        List<String> gameInfoObjectXMLs = new ArrayList<>();
         try {
-            gameInfoObjectXMLs = myDatabaseEngine.loadAllGameInformationXMLs(userName);
+            return myDatabaseEngine.loadGameInfoObjects(userName);
         } catch (SQLException e) {
             System.out.println(CANT_LOAD_GAME_INFORMATION_XMLS + e.getMessage());
+            return myDatabaseEngine.getCachedGameInfoObjects(userName);
         }
-        return deserializeGameInfoObjects(gameInfoObjectXMLs);
     }
 
     /**
      * Method just used for testing purposes
      * @param gameName name of the game to remove
      * @param authorName author of the game to remove
-     * @throws SQLException if statement fails
+     * @throws SQLException if statement fails or ratings of the game journaled before haven't reached the database
      */
     public void removeRating(String gameName, String authorName) throws SQLException {
         myDatabaseEngine.removeRating(gameName, authorName);
@@ -431,13 +733,13 @@ public class DataManager implements ExternalData {
         Map<Timestamp, Object> deserializedCheckpoints = new HashMap<>();
         Map<Timestamp, String> serializedCheckpoints = myDatabaseEngine.getCheckpoints(userName, gameName, authorName);
         for (Timestamp time : serializedCheckpoints.keySet()) {
-            deserializedCheckpoints.put(time, mySerializer.fromXML(serializedCheckpoints.get(time)));
+            deserializedCheckpoints.put(time, myPayloadCodec.decode(serializedCheckpoints.get(time)));
         }
         return deserializedCheckpoints;
     }
 
     /**
-     * Saves a checkpoint to the database
+     * Saves a checkpoint to the database, journaled on the local disk first like scores and ratings
      * @param userName of the person playing the game
      * @param gameName of the game that's checkpoint should be loaded
      * @param authorName author of the game that is being played
@@ -446,7 +748,108 @@ public class DataManager implements ExternalData {
      */
     @Override
     public void saveCheckpoint(String userName, String gameName, String authorName, Object checkpoint) throws SQLException {
-        myDatabaseEngine.saveCheckpoint(userName, gameName, authorName, mySerializer.toXML(checkpoint));
+        myDatabaseEngine.saveCheckpoint(userName, gameName, authorName, myPayloadCodec.encode(checkpoint), null, null,
+                isFull(checkpoint));
+    }
+
+    /**
+     * Saves a checkpoint to the database together with where the player was, so that the checkpoints of a game can be
+     * listed with getCheckpointInfo. Old checkpoints are pruned afterwards as set by the byteme.checkpoints properties.
+     * The checkpoint is journaled on the local disk first, and listing the checkpoints of the game waits a few seconds
+     * at most for it to reach the database
+     * @param userName of the person playing the game
+     * @param gameName of the game that's checkpoint should be saved
+     * @param authorName author of the game that is being played
+     * @param checkpoint the object that should be serialized as a checkpoint
+     * @param levelNumber number of the level the checkpoint was saved in
+     * @param score score when the checkpoint was saved, null if the game has no score
+     * @throws SQLException if statement fails
+     */
+    @Override
+    public void saveCheckpoint(String userName, String gameName, String authorName, Object checkpoint, int levelNumber,
+                               Double score) throws SQLException {
+        saveSerializedCheckpoint(userName, gameName, authorName, myPayloadCodec.encode(checkpoint), isFull(checkpoint),
+                levelNumber, score);
+    }
+
+    /**
+     * Saves a checkpoint that was already serialized with serialize, so that it can be serialized on the
+     * thread that owns the checkpoint and saved on another one
+     * @param userName of the person playing the game
+     * @param gameName of the game that's checkpoint should be saved
+     * @param authorName author of the game that is being played
+     * @param serializedCheckpoint the checkpoint as returned by serialize
+     * @param full whether the checkpoint can be loaded without any checkpoint saved before it
+     * @param levelNumber number of the level the checkpoint was saved in
+     * @param score score when the checkpoint was saved, null if the game has no score
+     * @throws SQLException if statement fails
+     */
+    public void saveSerializedCheckpoint(String userName, String gameName, String authorName,
+                                         String serializedCheckpoint, boolean full, int levelNumber, Double score)
+            throws SQLException {
+        myDatabaseEngine.saveCheckpoint(userName, gameName, authorName, serializedCheckpoint, levelNumber, score, full);
+    }
+
+    /**
+     * @param checkpoint a checkpoint that is about to be saved
+     * @return whether the checkpoint can be loaded without any checkpoint saved before it
+     */
+    public boolean isFull(Object checkpoint) {
+        return !(checkpoint instanceof ChainedCheckpoint) || ((ChainedCheckpoint) checkpoint).isFull();
+    }
+
+    /**
+     * Describes the checkpoints of a user for a game without loading or deserializing any of them
+     * @param userName of the person playing the game
+     * @param gameName of the game whose checkpoints should be listed
+     * @param authorName author of the game that is being played
+     * @return time, level number, score and size of every checkpoint, newest first
+     * @throws SQLException if statement fails
+     */
+    @Override
+    public List<CheckpointInfo> getCheckpointInfo(String userName, String gameName, String authorName) throws SQLException {
+        return myDatabaseEngine.getCheckpointInfo(userName, gameName, authorName);
+    }
+
+    /**
+     * Loads and deserializes one checkpoint of a user for a game, e.g. one chosen from getCheckpointInfo.  If the
+     * checkpoint is a ChainedCheckpoint, the checkpoints saved since the nearest full checkpoint before it are loaded
+     * as well and the state restored from them is returned
+     * @param userName of the person playing the game
+     * @param gameName of the game whose checkpoint should be loaded
+     * @param authorName author of the game that is being played
+     * @param time time the checkpoint was saved, as given by getCheckpointInfo
+     * @return the deserialized checkpoint or the state restored from its chain, null if there is none saved at that
+     * time
+     * @throws SQLException if statement fails
+     */
+    @Override
+    public Object loadCheckpoint(String userName, String gameName, String authorName, Timestamp time) throws SQLException {
+        List<Timestamp> chainTimes = new ArrayList<>();
+        for (CheckpointInfo info : myDatabaseEngine.getCheckpointInfo(userName, gameName, authorName)) {
+            if (chainTimes.isEmpty() && !info.getTime().equals(time)) {
+                continue;
+            }
+            chainTimes.add(0, info.getTime());
+            if (info.isFull()) {
+                break;
+            }
+        }
+        if (chainTimes.isEmpty()) {
+            return null;
+        }
+        List<Object> chain = new ArrayList<>();
+        for (Timestamp chainTime : chainTimes) {
+            String checkpoint = myDatabaseEngine.loadCheckpoint(userName, gameName, authorName, chainTime);
+            if (checkpoint != null) {
+                chain.add(myPayloadCodec.decode(checkpoint));
+            }
+        }
+        Object checkpoint = chain.isEmpty() ? null : chain.get(chain.size() - 1);
+        if (checkpoint instanceof ChainedCheckpoint) {
+            return ((ChainedCheckpoint) checkpoint).restore(chain);
+        }
+        return checkpoint;
     }
 
     /**
@@ -470,6 +873,25 @@ public class DataManager implements ExternalData {
         myDatabaseEngine.setBio(userName, bio);
     }
 
+    /**
+     * Registers a listener that is told the name of a user whenever the profile picture or bio of that user is changed
+     * or the user is removed, through this or any other DataManager
+     * @param listener called with the name of the user, on the thread that made the change
+     */
+    @Override
+    public void addProfileListener(Consumer<String> listener) {
+        myDatabaseEngine.addProfileListener(listener);
+    }
+
+    /**
+     * Stops telling a listener about changed profiles
+     * @param listener listener that was registered with addProfileListener
+     */
+    @Override
+    public void removeProfileListener(Consumer<String> listener) {
+        myDatabaseEngine.removeProfileListener(listener);
+    }
+
     /**
      * Retrieves the profile picture of a user as an InputStream from the database
      * @param userName user name of the user whose profile pic should be retrieved
@@ -481,6 +903,19 @@ public class DataManager implements ExternalData {
         return myDatabaseEngine.getProfilePic(userName);
     }
 
+    /**
+     * Retrieves a scaled down copy of the profile picture of a user, or the picture itself if there can't be one
+     * @param userName user name of the user whose profile pic should be retrieved
+     * @param size width and height in pixels the picture is shown at
+     * @return an InputStream of the profile picture for that user
+     * @throws SQLException if statement fails
+     */
+    @Override
+    public InputStream getProfilePicThumbnail(String userName, int size) throws SQLException {
+        InputStream thumbnail = myDatabaseEngine.getProfilePicThumbnail(userName, size);
+        return thumbnail == null ? getProfilePic(userName) : thumbnail;
+    }
+
     /**
      * Retrieves the bio of a user in the database
      * @param userName user whose bio should be retrieved
@@ -497,14 +932,16 @@ public class DataManager implements ExternalData {
      * @param userName name of the user whose chekckpoint should be removed
      * @param gameName game name
      * @param authorName author name
-     * @throws SQLException if statement fails
+     * @throws SQLException if statement fails or checkpoints of the game journaled before haven't reached the database
      */
     public void deleteCheckpoints(String userName, String gameName, String authorName) throws SQLException {
         myDatabaseEngine.deleteCheckpoint(userName, gameName, authorName);
     }
 
     /**
-     * Saves the score of a game and a user to the database
+     * Saves the score of a game and a user to the database.  The score is journaled on the local disk and written to
+     * the database in the background, so saving it never waits for the network and it is kept if the database can't
+     * be reached, to be written once it can
      * @param userName person playing the game
      * @param gameName name of the game
      * @param authorName author of the game
@@ -519,6 +956,19 @@ public class DataManager implements ExternalData {
         }
     }
 
+    /**
+     * Saves many scores of a game to the database at once, e.g. when importing the results of a tournament
+     * @param gameName name of the game
+     * @param authorName author of the game
+     * @param scores scores of the users that played the game
+     * @return number of scores saved
+     * @throws SQLException if statement fails, in which case none of the scores are saved
+     */
+    @Override
+    public int saveScores(String gameName, String authorName, Collection<UserScore> scores) throws SQLException {
+        return myDatabaseEngine.saveScores(gameName, authorName, scores);
+    }
+
     /**
      * Loads all the scores for a given game
      * @param gameName name of the game to get scores for
@@ -530,12 +980,66 @@ public class DataManager implements ExternalData {
         return myDatabaseEngine.loadScores(gameName, authorName);
     }
 
+    /**
+     * Loads the best scores for a given game, from memory whenever possible so that it costs the same no matter how
+     * many scores the game has
+     * @param gameName name of the game to get scores for
+     * @param authorName name of the author of the game
+     * @param limit maximum number of scores to load
+     * @return the best scores for the game, highest first
+     * @throws SQLException if statement fails
+     */
+    @Override
+    public List<UserScore> loadTopScores(String gameName, String authorName, int limit) throws SQLException {
+        return myDatabaseEngine.loadTopScores(gameName, authorName, limit);
+    }
+
+    /**
+     * Loads one page of the scores for a given game, highest first. Pages continue after the last score of the
+     * previous page instead of skipping over a number of rows, so every page is as cheap as the first
+     * @param gameName name of the game to get scores for
+     * @param authorName name of the author of the game
+     * @param after last score of the previous page as it was returned, null for the first page
+     * @param limit maximum number of scores on the page
+     * @return the scores that rank right after the previous page
+     * @throws SQLException if statement fails
+     */
+    @Override
+    public List<UserScore> loadScorePage(String gameName, String authorName, UserScore after, int limit) throws SQLException {
+        return myDatabaseEngine.loadScorePage(gameName, authorName, after, limit);
+    }
+
+    /**
+     * Loads the best score of a user for a given game
+     * @param userName name of the user
+     * @param gameName name of the game
+     * @param authorName name of the author of the game
+     * @return the best score of the user, null if the user has no score for the game
+     * @throws SQLException if statement fails
+     */
+    @Override
+    public Double loadBestScore(String userName, String gameName, String authorName) throws SQLException {
+        return myDatabaseEngine.loadBestScore(userName, gameName, authorName);
+    }
+
+    /**
+     * Reads the leaderboard of a game from the database again instead of waiting for the copy in memory to expire,
+     * e.g. after scores were changed outside of this program
+     * @param gameName name of the game
+     * @param authorName name of the author of the game
+     * @throws SQLException if statement fails
+     */
+    @Override
+    public void rebuildLeaderboard(String gameName, String authorName) throws SQLException {
+        myDatabaseEngine.rebuildLeaderboard(gameName, authorName);
+    }
+
     /**
      * Just used for testing purposes to remove score
      * @param userName name of the user
      * @param gameName game name
      * @param authorName author name
-     * @throws SQLException if statement fails
+     * @throws SQLException if statement fails or scores of the game journaled before haven't reached the database
      */
     public void removeScores(String userName, String gameName, String authorName) throws SQLException {
         myDatabaseEngine.removeScores(userName, gameName, authorName);
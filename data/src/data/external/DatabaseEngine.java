@@ -1,45 +1,56 @@
 package data.external;
 
-import data.internal.AssetQuerier;
-import data.internal.CheckpointQuerier;
-import data.internal.GameInformationQuerier;
-import data.internal.Querier;
-import data.internal.RatingsQuerier;
-import data.internal.StatisticsQuerier;
-import data.internal.UserQuerier;
+import data.internal.CheckpointRetention;
+import data.internal.GameCatalog;
+import data.internal.LeaderboardCache;
+import data.internal.LocalBackend;
+import data.internal.MySQLBackend;
+import data.internal.StorageBackend;
+import data.internal.ThumbnailCache;
+import data.internal.WriteBehindJournal;
 
 import java.io.File;
 import java.io.InputStream;
-import java.sql.*;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
- * The DatabaseEngine establishes the connection to the database and has several Querier objects that it delegates
- * the responsibilities of querying the database to.  The DatabaseEngine is designed to be used as a singleton so a
- * connection to the database can be established at the beginning of the program and closed at the end of the project
- * to avoid resource leaks and constantly having to open and close the connection.
+ * The DatabaseEngine gives the DataManager access to the StorageBackend that everything is saved to and loaded from.
+ * By default that is the remote MySQL database, but a local backend stored on disk can be used instead, e.g. for
+ * offline play or load tests.  The DatabaseEngine is designed to be used as a singleton so the backend can be opened
+ * at the beginning of the program and closed at the end of the project to avoid resource leaks and constantly having
+ * to open and close connections.  Scores, ratings and checkpoints saved while the MySQL database is used are written
+ * to a journal on the local disk first and replayed to the database in the background, so saving them neither waits
+ * for the network nor loses them while the database can't be reached.  Reads of the scores, ratings and checkpoints
+ * of a game wait a few seconds at most for the writes to the game still in the journal, so that they see what was
+ * just saved, and removals fail rather than let a write replayed after them bring back what was removed.
  */
 public class DatabaseEngine {
 
-    private static final String JDBC_DRIVER = "jdbc:mysql://";
-    private static final String IP_ADDRESS = "67.159.94.60";
-    private static final String PORT_NUMBER = "3306";
-    private static final String DATABASE_NAME = "vooga_byteme";
-    private static final String SERVER_TIMEZONE = "serverTimezone=UTC";
-    private static final String DATABASE_URL = JDBC_DRIVER + IP_ADDRESS + ":" + PORT_NUMBER + "/" + DATABASE_NAME +
-            "?" + SERVER_TIMEZONE;
-    private static final String USERNAME = "vooga";
-    private static final String PASSWORD = "byteMe!";
-
-    private Connection myConnection;
-    private GameInformationQuerier myGameInformationQuerier;
-    private AssetQuerier myAssetQuerier;
-    private UserQuerier myUserQuerier;
-    private RatingsQuerier myRatingsQuerier;
-    private CheckpointQuerier myCheckpointQuerier;
-    private StatisticsQuerier myStatisticsQuerier;
-    private List<Querier> myQueriers;
+    /**
+     * The kinds of StorageBackend the DatabaseEngine can be opened with
+     */
+    public enum StorageType {
+        MYSQL,
+        LOCAL
+    }
+
+    private static final String STORAGE_PROPERTY = "byteme.storage";
+    private static final String WRITES_PENDING = "Journaled writes haven't reached the database yet, not removing from ";
+    private static final String EVERY_GAME = "any game";
+
+    private StorageBackend myBackend;
+    private LeaderboardCache myLeaderboards;
+    private GameCatalog myCatalog;
+    private ThumbnailCache myThumbnails;
+    private CheckpointRetention myCheckpointRetention;
+    private WriteBehindJournal myJournal;
+    private List<Consumer<String>> myProfileListeners = new CopyOnWriteArrayList<>();
 
     private static DatabaseEngine myInstance = new DatabaseEngine();
 
@@ -58,181 +69,424 @@ public class DatabaseEngine {
     }
 
     /**
-     * Opens the connection to the database, should be called at the very beginning of the program
+     * Opens the backend chosen by the byteme.storage system property (mysql or local), the MySQL database if it is
+     * not set, should be called at the very beginning of the program
      *
      * @return true if successfully opened connection to the database
      */
     public boolean open() {
+        String storageType = System.getProperty(STORAGE_PROPERTY, StorageType.MYSQL.name());
         try {
-            myConnection = DriverManager.getConnection(DATABASE_URL, USERNAME, PASSWORD);
-            initializeQueriers();
-            return true;
-        } catch (SQLException exception) {
-            System.out.println("Couldn't connect to database" + exception.getMessage());
+            return open(StorageType.valueOf(storageType.toUpperCase()));
+        } catch (IllegalArgumentException e) {
+            System.out.println("Unknown storage type " + storageType);
             return false;
         }
     }
 
-    private void initializeQueriers() throws SQLException {
-        myAssetQuerier = new AssetQuerier(myConnection);
-        myGameInformationQuerier = new GameInformationQuerier(myConnection);
-        myUserQuerier = new UserQuerier(myConnection);
-        myRatingsQuerier = new RatingsQuerier(myConnection);
-        myCheckpointQuerier = new CheckpointQuerier(myConnection);
-        myStatisticsQuerier = new StatisticsQuerier(myConnection);
-        myQueriers = List.of(myAssetQuerier, myGameInformationQuerier, myUserQuerier, myRatingsQuerier,
-                myCheckpointQuerier, myStatisticsQuerier);
+    /**
+     * Opens the given kind of backend, should be called at the very beginning of the program
+     *
+     * @param storageType kind of backend to save to and load from
+     * @return true if successfully opened the backend
+     */
+    public boolean open(StorageType storageType) {
+        close();
+        if (storageType == StorageType.LOCAL) {
+            myBackend = new LocalBackend();
+        } else {
+            myBackend = new MySQLBackend();
+        }
+        myLeaderboards = new LeaderboardCache(myBackend);
+        myCatalog = new GameCatalog(myBackend);
+        myThumbnails = new ThumbnailCache(myBackend);
+        myCheckpointRetention = new CheckpointRetention(myBackend);
+        boolean opened = myBackend.open();
+        if (storageType == StorageType.MYSQL) {
+            myJournal = new WriteBehindJournal(myBackend, myCheckpointRetention, myLeaderboards);
+            if (!myJournal.open()) {
+                myJournal = null;
+            }
+        }
+        return opened;
     }
 
     /**
      * Closes the resources associated with the database, should be called from the stop method
      */
     public void close() {
-        try {
-            for (Querier querier : myQueriers) {
-                querier.closeStatements();
-            }
-            if (myConnection != null) {
-                myConnection.close();
-            }
-        } catch (SQLException exception) {
-            System.out.println("Couldn't close the connection");
+        if (myJournal != null) {
+            myJournal.close();
+            myJournal = null;
+        }
+        if (myBackend != null) {
+            myBackend.close();
         }
     }
 
+    /**
+     * Returns the current state and counters of the connection pool, e.g. to tell if it is too small
+     *
+     * @return metrics of the connection pool, or null if the MySQL database is not being used
+     */
+    public ConnectionPoolMetrics getPoolMetrics() {
+        if (myBackend instanceof MySQLBackend) {
+            return ((MySQLBackend) myBackend).getPoolMetrics();
+        }
+        return null;
+    }
+
+    /**
+     * Returns the counters of every statement executed on the database so far, e.g. to find out whether asset, game
+     * information or checkpoint queries cause most of the load.  They are also available over JMX and printed
+     * periodically, as set by the byteme.query system properties
+     *
+     * @return counters of every statement, the one that took the most time in total first, or null if the MySQL
+     * database is not being used
+     */
+    public List<StatementMetrics> getQueryMetrics() {
+        if (myBackend instanceof MySQLBackend) {
+            return ((MySQLBackend) myBackend).getQueryMetrics();
+        }
+        return null;
+    }
+
+    /**
+     * Returns how much of the scores, ratings and checkpoints saved hasn't reached the database yet, e.g. to tell the
+     * player that they are still waiting for the database
+     *
+     * @return size in bytes of the journaled writes that haven't been replayed, 0 if writes aren't journaled
+     */
+    public long getPendingWriteBytes() {
+        if (myJournal != null) {
+            return myJournal.getPendingBytes();
+        }
+        return 0;
+    }
+
     void updateGameEntryData(String gameName, String authorName, String myRawXML) throws SQLException {
-        myGameInformationQuerier.updateGameEntryData(gameName, authorName, myRawXML);
+        myBackend.updateGameEntryData(gameName, authorName, myRawXML);
+    }
+
+    List<GameCenterData> loadGameInfoObjects() throws SQLException {
+        return myCatalog.getGames();
+    }
+
+    List<GameCenterData> loadGameInfoObjects(String userName) throws SQLException {
+        return myCatalog.getGames(userName);
+    }
+
+    List<GameCenterData> getCachedGameInfoObjects() {
+        return myCatalog.getCachedGames();
     }
 
-    List<String> loadAllGameInformationXMLs() throws SQLException {
-        return myGameInformationQuerier.loadAllSerializedGameInformationObjects();
+    List<GameCenterData> getCachedGameInfoObjects(String userName) {
+        return myCatalog.getCachedGames(userName);
     }
 
     void updateGameEntryInfo(String gameName, String authorName, String myRawXML) throws SQLException {
-        myGameInformationQuerier.updateGameEntryInfo(gameName, authorName, myRawXML);
+        myBackend.updateGameEntryInfo(gameName, authorName, myRawXML);
+    }
+
+    void updateGameEntryInfo(String gameName, String authorName, String myRawXML, GameCenterData gameInfo)
+            throws SQLException {
+        updateGameEntryInfo(gameName, authorName, myRawXML);
+        myCatalog.put(gameName, authorName, gameInfo);
     }
 
     void saveImage(String imageName, File imageToSave) {
-        myAssetQuerier.saveImage(imageName, imageToSave);
+        myBackend.saveImage(imageName, imageToSave);
+        myThumbnails.imagesChanged(List.of(imageName));
     }
 
     void saveSound(String soundName, File soundToSave) {
-        myAssetQuerier.saveSound(soundName, soundToSave);
+        myBackend.saveSound(soundName, soundToSave);
+    }
+
+    int saveImages(Map<String, File> imagesToSave) throws SQLException {
+        int saved = myBackend.saveImages(imagesToSave);
+        myThumbnails.imagesChanged(imagesToSave.keySet());
+        return saved;
+    }
+
+    int saveSounds(Map<String, File> soundsToSave) throws SQLException {
+        return myBackend.saveSounds(soundsToSave);
     }
 
     InputStream loadSound(String soundName) {
-        return myAssetQuerier.loadSound(soundName);
+        return myBackend.loadSound(soundName);
     }
 
     InputStream loadImage(String imageName) {
-        return myAssetQuerier.loadImage(imageName);
+        return myBackend.loadImage(imageName);
+    }
+
+    InputStream loadImageThumbnail(String imageName, int size) throws SQLException {
+        return myThumbnails.getImageThumbnail(imageName, size);
     }
 
     boolean createUser(String userName, String password) throws SQLException {
-        return myUserQuerier.createUser(userName, password);
+        return myBackend.createUser(userName, password);
     }
 
     boolean authenticateUser(String userName, String password) {
-        return myUserQuerier.authenticateUser(userName, password);
+        return myBackend.authenticateUser(userName, password);
     }
 
     boolean removeUser(String userName) throws SQLException {
-        return myUserQuerier.removeUser(userName);
+        flushJournal(null, null);
+        boolean removed = myBackend.removeUser(userName);
+        myThumbnails.profilePicChanged(userName);
+        profileChanged(userName);
+        return removed;
     }
 
     boolean removeGame(String gameName, String authorName) throws SQLException {
-        return myGameInformationQuerier.removeGame(gameName, authorName);
+        flushJournal(gameName, authorName);
+        boolean removed = myBackend.removeGame(gameName, authorName);
+        myCatalog.remove(gameName, authorName);
+        return removed;
+    }
+
+    List<GameCenterData> searchGames(String query, int limit) throws SQLException {
+        if (!myCatalog.isLoaded()) {
+            myCatalog.refresh();
+        }
+        return myCatalog.getSearchIndex().search(query, limit);
     }
 
     boolean removeImage(String imageName) throws SQLException {
-        return myAssetQuerier.removeImage(imageName);
+        boolean removed = myBackend.removeImage(imageName);
+        myThumbnails.imagesChanged(List.of(imageName));
+        return removed;
     }
 
     boolean removeSound(String soundName) throws SQLException {
-        return myAssetQuerier.removeSound(soundName);
+        return myBackend.removeSound(soundName);
     }
 
     String loadGameData(String gameName, String authorName) throws SQLException {
-        return myGameInformationQuerier.loadGameData(gameName, authorName);
+        return myBackend.loadGameData(gameName, authorName);
+    }
+
+    void saveGameLevels(String gameName, String authorName, List<String> levelXMLs) throws SQLException {
+        myBackend.saveGameLevels(gameName, authorName, levelXMLs);
+    }
+
+    void saveChunkedGameData(String gameName, String authorName, List<String> levelXMLs, String manifestXML)
+            throws SQLException {
+        myBackend.saveChunkedGameData(gameName, authorName, levelXMLs, manifestXML);
+    }
+
+    String loadGameLevel(String gameName, String authorName, int levelNumber) throws SQLException {
+        return myBackend.loadGameLevel(gameName, authorName, levelNumber);
+    }
+
+    int countGameLevels(String gameName, String authorName) throws SQLException {
+        return myBackend.countGameLevels(gameName, authorName);
     }
 
     String loadGameInfo(String gameName, String authorName) throws SQLException {
-        return myGameInformationQuerier.loadGameInformation(gameName, authorName);
+        return myBackend.loadGameInfo(gameName, authorName);
     }
 
     Map<String, InputStream> loadAllImages(String prefix) throws SQLException {
-        return myAssetQuerier.loadAllImages(prefix);
+        return myBackend.loadAllImages(prefix);
     }
 
     Map<String, InputStream> loadAllSounds(String prefix) throws SQLException {
-        return myAssetQuerier.loadAllSounds(prefix);
+        return myBackend.loadAllSounds(prefix);
+    }
+
+    AssetIterator iterateImages(String prefix) throws SQLException {
+        return myBackend.iterateImages(prefix);
+    }
+
+    AssetIterator iterateSounds(String prefix) throws SQLException {
+        return myBackend.iterateSounds(prefix);
     }
 
     List<String> loadAllGameNames(String userName) throws SQLException {
-        return myGameInformationQuerier.loadAllGameNames(userName);
+        return myBackend.loadAllGameNames(userName);
     }
 
     boolean updatePassword(String userName, String newPassword) throws SQLException {
-        return myUserQuerier.updatePassword(userName, newPassword);
+        return myBackend.updatePassword(userName, newPassword);
     }
 
     void addGameRating(GameRating rating) throws SQLException {
-        myRatingsQuerier.addGameRating(rating);
+        if (myJournal == null || !myJournal.addGameRating(rating)) {
+            myBackend.addGameRating(rating);
+        }
+    }
+
+    int addGameRatings(Collection<GameRating> ratings) throws SQLException {
+        awaitJournal(null, null);
+        return myBackend.addGameRatings(ratings);
     }
 
     double getAverageRating(String gameName) throws SQLException {
-        return myRatingsQuerier.getAverageRating(gameName);
+        awaitJournal(gameName, null);
+        return myBackend.getAverageRating(gameName);
     }
 
     List<GameRating> getAllRatings(String gameName) throws SQLException {
-        return myRatingsQuerier.getAllRatings(gameName);
+        awaitJournal(gameName, null);
+        return myBackend.getAllRatings(gameName);
+    }
+
+    List<GameRating> getRatingPage(String gameName, GameRating after, int limit) throws SQLException {
+        awaitJournal(gameName, null);
+        return myBackend.getRatingPage(gameName, after, limit);
+    }
+
+    RatingSummary getRatingSummary(String gameName) throws SQLException {
+        awaitJournal(gameName, null);
+        RatingSummary summary = myBackend.getRatingSummary(gameName);
+        myCatalog.getSearchIndex().setRating(gameName, summary);
+        return summary;
+    }
+
+    Map<String, RatingSummary> getAllRatingSummaries() throws SQLException {
+        awaitJournal(null, null);
+        Map<String, RatingSummary> summaries = myBackend.getAllRatingSummaries();
+        myCatalog.getSearchIndex().setRatings(summaries);
+        return summaries;
     }
 
-    List<String> loadAllGameInformationXMLs(String userName) throws SQLException {
-        return myGameInformationQuerier.loadAllSerializedGameInformationObjects(userName);
+    int rebuildRatingTotals() throws SQLException {
+        return myBackend.rebuildRatingTotals();
     }
 
-    void removeRating(String gameName, String authorName) throws SQLException{
-        myRatingsQuerier.removeAllGameRatings(gameName, authorName);
+    void removeRating(String gameName, String authorName) throws SQLException {
+        flushJournal(gameName, authorName);
+        myBackend.removeRating(gameName, authorName);
     }
 
     Map<Timestamp, String> getCheckpoints(String userName, String gameName, String authorName) throws SQLException {
-        return myCheckpointQuerier.getCheckpoints(userName, gameName, authorName);
+        awaitJournal(gameName, authorName);
+        return myBackend.getCheckpoints(userName, gameName, authorName);
     }
 
-    void saveCheckpoint(String userName, String gameName, String authorName, String rawXML) throws SQLException {
-        myCheckpointQuerier.saveCheckpoint(userName,gameName, authorName, rawXML);
+    List<CheckpointInfo> getCheckpointInfo(String userName, String gameName, String authorName) throws SQLException {
+        awaitJournal(gameName, authorName);
+        return myBackend.getCheckpointInfo(userName, gameName, authorName);
+    }
+
+    String loadCheckpoint(String userName, String gameName, String authorName, Timestamp time) throws SQLException {
+        awaitJournal(gameName, authorName);
+        return myBackend.loadCheckpoint(userName, gameName, authorName, time);
+    }
+
+    void saveCheckpoint(String userName, String gameName, String authorName, String rawXML, Integer levelNumber,
+                        Double score, boolean full) throws SQLException {
+        if (myJournal == null
+                || !myJournal.saveCheckpoint(userName, gameName, authorName, rawXML, levelNumber, score, full)) {
+            myBackend.saveCheckpoint(userName, gameName, authorName, rawXML, levelNumber, score, full, null);
+            myCheckpointRetention.prune(userName, gameName, authorName);
+        }
     }
 
     void deleteCheckpoint(String userName, String gameName, String authorName) throws SQLException {
-        myCheckpointQuerier.deleteCheckpoints(userName, gameName, authorName);
+        flushJournal(gameName, authorName);
+        myBackend.deleteCheckpoint(userName, gameName, authorName);
     }
 
     void setProfilePic(String userName, File profilePic) throws SQLException {
-        myUserQuerier.setProfilePic(userName, profilePic);
+        myBackend.setProfilePic(userName, profilePic);
+        myThumbnails.profilePicChanged(userName);
+        profileChanged(userName);
     }
 
     void setBio(String userName, String bio) throws SQLException {
-        myUserQuerier.setBio(userName, bio);
+        myBackend.setBio(userName, bio);
+        profileChanged(userName);
+    }
+
+    void addProfileListener(Consumer<String> listener) {
+        myProfileListeners.add(listener);
+    }
+
+    void removeProfileListener(Consumer<String> listener) {
+        myProfileListeners.remove(listener);
+    }
+
+    private void profileChanged(String userName) {
+        for (Consumer<String> listener : myProfileListeners) {
+            listener.accept(userName);
+        }
     }
 
     InputStream getProfilePic(String userName) throws SQLException {
-        return myUserQuerier.getProfilePic(userName);
+        return myBackend.getProfilePic(userName);
+    }
+
+    InputStream getProfilePicThumbnail(String userName, int size) throws SQLException {
+        return myThumbnails.getProfilePicThumbnail(userName, size);
     }
 
     String getBio(String userName) throws SQLException {
-        return myUserQuerier.getBio(userName);
+        return myBackend.getBio(userName);
     }
 
     void saveScore(String userName, String gameName, String authorName, Double score) throws SQLException {
-        myStatisticsQuerier.saveScore(userName, gameName, authorName, score);
+        // journaled scores are added to the leaderboard once they are replayed
+        if (myJournal == null || !myJournal.saveScore(userName, gameName, authorName, score)) {
+            myBackend.saveScore(userName, gameName, authorName, score);
+            myLeaderboards.recordScores(gameName, authorName, List.of(new UserScore(userName, score)));
+        }
+    }
+
+    int saveScores(String gameName, String authorName, Collection<UserScore> scores) throws SQLException {
+        awaitJournal(gameName, authorName);
+        int saved = myBackend.saveScores(gameName, authorName, scores);
+        myLeaderboards.recordScores(gameName, authorName, scores);
+        return saved;
+    }
+
+    List<UserScore> loadTopScores(String gameName, String authorName, int limit) throws SQLException {
+        awaitJournal(gameName, authorName);
+        return myLeaderboards.getTopScores(gameName, authorName, limit);
+    }
+
+    List<UserScore> loadScorePage(String gameName, String authorName, UserScore after, int limit) throws SQLException {
+        awaitJournal(gameName, authorName);
+        return myBackend.loadScorePage(gameName, authorName, after, limit);
+    }
+
+    Double loadBestScore(String userName, String gameName, String authorName) throws SQLException {
+        awaitJournal(gameName, authorName);
+        return myBackend.loadBestScore(userName, gameName, authorName);
+    }
+
+    void rebuildLeaderboard(String gameName, String authorName) throws SQLException {
+        awaitJournal(gameName, authorName);
+        myLeaderboards.rebuild(gameName, authorName);
     }
 
     List<UserScore> loadScores(String gameName, String authorName) throws SQLException {
-        return myStatisticsQuerier.loadScores(gameName, authorName);
+        awaitJournal(gameName, authorName);
+        return myBackend.loadScores(gameName, authorName);
     }
 
     void removeScores(String userName, String gameName, String authorName) throws SQLException {
-        myStatisticsQuerier.removeScores(userName, gameName, authorName);
+        flushJournal(gameName, authorName);
+        myBackend.removeScores(userName, gameName, authorName);
+        myLeaderboards.invalidate(gameName, authorName);
+    }
+
+    // Gives the writes to a game still in the journal a few seconds to reach the database before it is read, and reads
+    // it anyway if they don't, e.g. while the database can't be reached
+    private void awaitJournal(String gameName, String authorName) {
+        if (myJournal != null) {
+            myJournal.flush(gameName, authorName);
+        }
+    }
+
+    // Makes sure the writes to a game still in the journal have reached the database before removing from it
+    private void flushJournal(String gameName, String authorName) throws SQLException {
+        if (myJournal != null && !myJournal.flush(gameName, authorName)) {
+            throw new SQLException(WRITES_PENDING + (gameName == null ? EVERY_GAME : gameName));
+        }
     }
 }
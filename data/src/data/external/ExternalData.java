@@ -5,8 +5,10 @@ import java.io.FileNotFoundException;
 import java.io.InputStream;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 public interface ExternalData {
 
@@ -26,6 +28,22 @@ public interface ExternalData {
      */
     Object loadObjectFromXML(String path) throws FileNotFoundException;
 
+    /**
+     * Serializes an object in memory, in the same format that is used for saving to the database
+     *
+     * @param objectToSerialize the object that should be serialized
+     * @return the serialized object
+     */
+    String serialize(Object objectToSerialize);
+
+    /**
+     * Deserializes an object held in memory
+     *
+     * @param rawXML serialized object previously produced by serialize, or raw xml
+     * @return a new deserialized object that needs to be cast
+     */
+    Object deserialize(String rawXML);
+
     /**
      * Save a Game of name gameName to the path created_games/gameName/game_data.xml
      *
@@ -53,12 +71,27 @@ public interface ExternalData {
     GameCenterData loadGameInfo(String gameName, String authorName) throws SQLException;
 
     /**
-     * Loads and deserializes all the game info objects from the database to pass to the game center
+     * Loads and deserializes all the game info objects from the database to pass to the game center.  The objects are
+     * kept in memory and only the game info saved since the last call is read and deserialized again, so the returned
+     * objects are shared between calls and should not be modified.  If the database can't be reached the objects from
+     * the last call are returned
      *
      * @return deserialized game center data objects
      */
     List<GameCenterData> loadAllGameInfoObjects();
 
+    /**
+     * Searches the titles, author names and descriptions of all the games for every word of a query.  The search runs
+     * on an index kept in memory, so it is fast enough to run as the user types.  Every word of the query matches the
+     * words that start with it, and games are ranked by where their words matched and then by their ratings, as of the
+     * last time the ratings of all the games were loaded
+     *
+     * @param query words to look for, the last one may be only partly typed
+     * @param limit maximum number of games to return
+     * @return the best matching games, best match first, empty if the query has no words
+     */
+    List<GameCenterData> searchGames(String query, int limit);
+
     /**
      * Saves an image to the database
      *
@@ -75,6 +108,22 @@ public interface ExternalData {
      */
     void saveSound(String soundName, File soundToSave);
 
+    /**
+     * Saves many images to the database at once, skipping the ones that are already saved unchanged
+     *
+     * @param imagesToSave map of the names of the images to save to the image files
+     * @return number of images that actually had to be uploaded
+     */
+    int saveImages(Map<String, File> imagesToSave);
+
+    /**
+     * Saves many sounds to the database at once, skipping the ones that are already saved unchanged
+     *
+     * @param soundsToSave map of the names of the sounds to save to the sound files
+     * @return number of sounds that actually had to be uploaded
+     */
+    int saveSounds(Map<String, File> soundsToSave);
+
     /**
      * Loads a sound from the database
      *
@@ -91,6 +140,17 @@ public interface ExternalData {
      */
     InputStream loadImage(String imageName);
 
+    /**
+     * Loads a scaled down copy of an image that fits in a square of at least size pixels, made and saved the first time
+     * it is asked for, so that images shown small don't have to be transferred and decoded at full size.  The image
+     * itself is loaded instead if size is bigger than any thumbnail or the thumbnail can't be made
+     *
+     * @param imageName name of the image to be loaded
+     * @param size      width and height in pixels the image is shown at
+     * @return an input stream of image data to be converted to an image object
+     */
+    InputStream loadImageThumbnail(String imageName, int size);
+
     /**
      * Creates a new user in the database
      *
@@ -150,6 +210,37 @@ public interface ExternalData {
      */
     Object loadGameData(String gameName, String authorName) throws SQLException;
 
+    /**
+     * Loads the deserialized game object from the database without any of the levels that are saved individually
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author that wrote the game
+     * @return deserialized game manifest that needs to be cast, or the whole game if it was saved as a single payload
+     * @throws SQLException if operation fails
+     */
+    Object loadGameManifest(String gameName, String authorName) throws SQLException;
+
+    /**
+     * Loads a single deserialized level of a game that was saved as a ChunkedGame
+     *
+     * @param gameName    name of the game
+     * @param authorName  name of the author that wrote the game
+     * @param levelNumber number of the level to load, starting at 1
+     * @return deserialized level that needs to be cast, or null if there is no such level saved
+     * @throws SQLException if operation fails
+     */
+    Object loadGameLevel(String gameName, String authorName, int levelNumber) throws SQLException;
+
+    /**
+     * Returns the number of levels saved individually for a game
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author that wrote the game
+     * @return number of individually saved levels, 0 if the game was saved as a single payload
+     * @throws SQLException if operation fails
+     */
+    int loadLevelCount(String gameName, String authorName) throws SQLException;
+
     /**
      * Loads all the images involved in a game specified by prefix
      *
@@ -166,6 +257,24 @@ public interface ExternalData {
      */
     Map<String, InputStream> loadAllSounds(String prefix) throws SQLException;
 
+    /**
+     * Reads all the images involved in a game specified by prefix one at a time, without holding all of them in memory
+     *
+     * @param prefix the gameName + the authorName
+     * @return an iterator of the image names and data, to be used in a try-with-resources block
+     * @throws SQLException if the images can't be queried
+     */
+    AssetIterator iterateImages(String prefix) throws SQLException;
+
+    /**
+     * Reads all the sounds involved in a game specified by prefix one at a time, without holding all of them in memory
+     *
+     * @param prefix the gameName + the authorName
+     * @return an iterator of the sound names and data, to be used in a try-with-resources block
+     * @throws SQLException if the sounds can't be queried
+     */
+    AssetIterator iterateSounds(String prefix) throws SQLException;
+
     /**
      * Loads all the names of the games that a user has created
      *
@@ -191,6 +300,14 @@ public interface ExternalData {
      */
     void addRating(GameRating rating) throws SQLException;
 
+    /**
+     * Adds many ratings to the database at once, replacing earlier ratings of the same users for the same games
+     * @param ratings GameRating objects that contain the rating information
+     * @return number of ratings added
+     * @throws SQLException if statement fails, in which case none of the ratings are added
+     */
+    int addRatings(Collection<GameRating> ratings) throws SQLException;
+
     /**
      * Returns the average rating for a game
      * @param gameName name to retrieve the average rating for
@@ -208,7 +325,44 @@ public interface ExternalData {
     List<GameRating> getAllRatings(String gameName) throws SQLException;
 
     /**
-     * Loads a list of all GameCenterData objects for the games authored by a specific user
+     * Returns one page of the ratings for a specific game, newest first. Pages continue after the last rating of the
+     * previous page instead of skipping over a number of rows, so every page is as cheap as the first
+     * @param gameName name of the game to get the ratings for
+     * @param after last rating of the previous page, null for the first page
+     * @param limit maximum number of ratings on the page
+     * @return the ratings that were made right before the ones on the previous page
+     * @throws SQLException if statement fails
+     */
+    List<GameRating> getRatingPage(String gameName, GameRating after, int limit) throws SQLException;
+
+    /**
+     * Returns the number of ratings, the average rating and how many ratings gave each number of stars for a game,
+     * without loading the ratings themselves
+     * @param gameName name of the game
+     * @return the totals of the ratings of the game
+     * @throws SQLException if statement fails
+     */
+    RatingSummary getRatingSummary(String gameName) throws SQLException;
+
+    /**
+     * Returns the totals of the ratings of every game that has been rated with a single query, so that the ratings of
+     * every game in the game center can be shown at once
+     * @return map of the game names to the totals of their ratings, games without ratings are left out
+     * @throws SQLException if statement fails
+     */
+    Map<String, RatingSummary> getAllRatingSummaries() throws SQLException;
+
+    /**
+     * Utility method for recomputing the stored rating totals of every game from the ratings themselves, e.g. right
+     * after the totals were added to the database. Safe to run more than once
+     * @return number of games whose totals were computed
+     * @throws SQLException if statement fails
+     */
+    int rebuildRatingTotals() throws SQLException;
+
+    /**
+     * Loads a list of all GameCenterData objects for the games authored by a specific user, from the same in memory
+     * catalog as loadAllGameInfoObjects()
      * @param userName user whose games to retrieve
      * @return a list of all GameCenterData objects for the games authored by a specific user
      */
@@ -234,6 +388,43 @@ public interface ExternalData {
      */
     void saveCheckpoint(String userName, String gameName, String authorName, Object checkpoint) throws SQLException;
 
+    /**
+     * Saves a checkpoint to the database together with the level number and score it was saved at, which are listed
+     * by getCheckpointInfo. Old checkpoints are pruned afterwards
+     * @param userName of the person playing the game
+     * @param gameName of the game that's checkpoint should be saved
+     * @param authorName author of the game that is being played
+     * @param checkpoint the object that should be serialized as a checkpoint
+     * @param levelNumber number of the level the checkpoint was saved in
+     * @param score score when the checkpoint was saved, null if the game has no score
+     * @throws SQLException if statement fails
+     */
+    void saveCheckpoint(String userName, String gameName, String authorName, Object checkpoint, int levelNumber,
+                        Double score) throws SQLException;
+
+    /**
+     * Describes the checkpoints of a user for a game without loading or deserializing any of them
+     * @param userName of the person playing the game
+     * @param gameName of the game whose checkpoints should be listed
+     * @param authorName author of the game that is being played
+     * @return time, level number, score and size of every checkpoint, newest first
+     * @throws SQLException if statement fails
+     */
+    List<CheckpointInfo> getCheckpointInfo(String userName, String gameName, String authorName) throws SQLException;
+
+    /**
+     * Loads and deserializes one checkpoint of a user for a game, e.g. one chosen from getCheckpointInfo.  A
+     * ChainedCheckpoint is restored from the checkpoints of its chain, and the restored state is returned instead
+     * @param userName of the person playing the game
+     * @param gameName of the game whose checkpoint should be loaded
+     * @param authorName author of the game that is being played
+     * @param time time the checkpoint was saved, as given by getCheckpointInfo
+     * @return the deserialized checkpoint or the state restored from its chain, null if there is none saved at that
+     * time
+     * @throws SQLException if statement fails
+     */
+    Object loadCheckpoint(String userName, String gameName, String authorName, Timestamp time) throws SQLException;
+
     /**
      * Sets the profile pic for a user in the database
      * @param userName user's username
@@ -249,6 +440,19 @@ public interface ExternalData {
      */
     void setBio(String userName, String bio) throws SQLException;
 
+    /**
+     * Registers a listener that is told the name of a user whenever the profile picture or bio of that user is changed
+     * or the user is removed, e.g. so that copies of them kept elsewhere can be dropped
+     * @param listener called with the name of the user, on the thread that made the change
+     */
+    void addProfileListener(Consumer<String> listener);
+
+    /**
+     * Stops telling a listener about changed profiles
+     * @param listener listener that was registered with addProfileListener
+     */
+    void removeProfileListener(Consumer<String> listener);
+
     /**
      * Retrieves the profile picture of a user as an InputStream from the database
      * @param userName user name of the user whose profile pic should be retrieved
@@ -257,6 +461,16 @@ public interface ExternalData {
      */
     InputStream getProfilePic(String userName) throws SQLException;
 
+    /**
+     * Retrieves a scaled down copy of the profile picture of a user that fits in a square of at least size pixels,
+     * falling back to the profile picture itself like loadImageThumbnail
+     * @param userName user name of the user whose profile pic should be retrieved
+     * @param size width and height in pixels the picture is shown at
+     * @return an InputStream of the profile picture for that user
+     * @throws SQLException if statement fails
+     */
+    InputStream getProfilePicThumbnail(String userName, int size) throws SQLException;
+
     /**
      * Retrieves the bio of a user in the database
      * @param userName user whose bio should be retrieved
@@ -274,6 +488,16 @@ public interface ExternalData {
      */
     void saveScore(String userName, String gameName, String authorName, Double score);
 
+    /**
+     * Saves many scores of a game to the database at once, e.g. when importing the results of a tournament
+     * @param gameName name of the game
+     * @param authorName author of the game
+     * @param scores scores of the users that played the game
+     * @return number of scores saved
+     * @throws SQLException if statement fails, in which case none of the scores are saved
+     */
+    int saveScores(String gameName, String authorName, Collection<UserScore> scores) throws SQLException;
+
     /**
      * Loads all the scores for a given game
      * @param gameName name of the game to get scores for
@@ -282,4 +506,46 @@ public interface ExternalData {
      */
     List<UserScore> loadScores(String gameName, String authorName) throws SQLException;
 
+    /**
+     * Loads the best scores for a given game, from memory whenever possible so that it costs the same no matter how
+     * many scores the game has
+     * @param gameName name of the game to get scores for
+     * @param authorName name of the author of the game
+     * @param limit maximum number of scores to load
+     * @return the best scores for the game, highest first
+     * @throws SQLException if statement fails
+     */
+    List<UserScore> loadTopScores(String gameName, String authorName, int limit) throws SQLException;
+
+    /**
+     * Loads one page of the scores for a given game, highest first. Pages continue after the last score of the
+     * previous page instead of skipping over a number of rows, so every page is as cheap as the first
+     * @param gameName name of the game to get scores for
+     * @param authorName name of the author of the game
+     * @param after last score of the previous page as it was returned, null for the first page
+     * @param limit maximum number of scores on the page
+     * @return the scores that rank right after the previous page
+     * @throws SQLException if statement fails
+     */
+    List<UserScore> loadScorePage(String gameName, String authorName, UserScore after, int limit) throws SQLException;
+
+    /**
+     * Loads the best score of a user for a given game
+     * @param userName name of the user
+     * @param gameName name of the game
+     * @param authorName name of the author of the game
+     * @return the best score of the user, null if the user has no score for the game
+     * @throws SQLException if statement fails
+     */
+    Double loadBestScore(String userName, String gameName, String authorName) throws SQLException;
+
+    /**
+     * Reads the leaderboard of a game from the database again instead of waiting for the copy in memory to expire,
+     * e.g. after scores were changed outside of this program
+     * @param gameName name of the game
+     * @param authorName name of the author of the game
+     * @throws SQLException if statement fails
+     */
+    void rebuildLeaderboard(String gameName, String authorName) throws SQLException;
+
 }
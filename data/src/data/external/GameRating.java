@@ -1,5 +1,6 @@
 package data.external;
 
+import java.sql.Timestamp;
 import java.util.Arrays;
 
 /**
@@ -11,6 +12,7 @@ public class GameRating {
     private String myAuthorName;
     private int myNumberOfStars;
     private String myComment;
+    private Timestamp myTime;
 
     /**
      * GameRating constructor
@@ -28,6 +30,21 @@ public class GameRating {
         myComment = comment;
     }
 
+    /**
+     * GameRating constructor for a rating whose time is known, e.g. one loaded from the database
+     * @param username username
+     * @param gameName game name
+     * @param authorName author name
+     * @param numberOfStars rating
+     * @param comment comment
+     * @param time when the rating was last changed
+     */
+    public GameRating(String username, String gameName, String authorName, int numberOfStars, String comment,
+                      Timestamp time) {
+        this(username, gameName, authorName, numberOfStars, comment);
+        myTime = time;
+    }
+
     /**
      * Getter for the user name
      * @return user name
@@ -36,6 +53,14 @@ public class GameRating {
         return myUsername;
     }
 
+    /**
+     * Getter for the time the rating was last changed
+     * @return time of the rating, null if it hasn't been saved yet
+     */
+    public Timestamp getTime() {
+        return myTime;
+    }
+
     /**
      * Getter for the game name
      * @return game name
@@ -0,0 +1,43 @@
+package data.external;
+
+import java.util.List;
+
+/**
+ * Management interface of the statistics kept about every SQL statement sent to the database, registered with the
+ * platform MBean server as data:type=QueryMetrics so that they can be watched with e.g. jconsole while the program runs
+ */
+public interface QueryMetricsMXBean {
+
+    /**
+     * Returns the counters of every statement executed so far
+     *
+     * @return counters of every statement, the one that took the most time in total first
+     */
+    List<StatementMetrics> getStatementMetrics();
+
+    /**
+     * Describes the counters of every statement executed so far in a few lines of text
+     *
+     * @return the report
+     */
+    String getReport();
+
+    /**
+     * Returns how long an execution has to take to be printed as a slow query
+     *
+     * @return threshold in milliseconds
+     */
+    long getSlowQueryMillis();
+
+    /**
+     * Sets how long an execution has to take to be printed as a slow query
+     *
+     * @param slowQueryMillis threshold in milliseconds
+     */
+    void setSlowQueryMillis(long slowQueryMillis);
+
+    /**
+     * Sets every counter back to zero, e.g. before measuring a single scenario
+     */
+    void reset();
+}
@@ -0,0 +1,54 @@
+package data.external;
+
+/**
+ * Packages the totals of all the ratings of a game, so that the average rating and how many players gave each number
+ * of stars can be shown without loading the ratings themselves
+ */
+public class RatingSummary {
+
+    public static final int MAX_STARS = 5;
+
+    private int myCount;
+    private long mySum;
+    private int[] myStarCounts;
+
+    /**
+     * RatingSummary constructor
+     * @param count number of ratings
+     * @param sum total number of stars of all the ratings
+     * @param starCounts number of ratings that gave 1 to MAX_STARS stars, the first entry is for 1 star
+     */
+    public RatingSummary(int count, long sum, int[] starCounts) {
+        myCount = count;
+        mySum = sum;
+        myStarCounts = starCounts.clone();
+    }
+
+    /**
+     * Getter for the number of ratings
+     * @return number of ratings
+     */
+    public int getCount() {
+        return myCount;
+    }
+
+    /**
+     * Returns the average number of stars
+     * @return the average rating, 0 if the game hasn't been rated
+     */
+    public double getAverage() {
+        if (myCount == 0) {
+            return 0;
+        }
+        return (double) mySum / myCount;
+    }
+
+    /**
+     * Returns how many ratings gave a number of stars
+     * @param stars number of stars from 1 to MAX_STARS
+     * @return number of ratings with that many stars
+     */
+    public int getStarCount(int stars) {
+        return myStarCounts[stars - 1];
+    }
+}
@@ -0,0 +1,153 @@
+package data.external;
+
+import java.util.List;
+
+/**
+ * Packages the counters of one SQL statement at one point in time, e.g. to find out which queries the database spends
+ * its time on
+ */
+public class StatementMetrics {
+
+    /**
+     * Upper bounds in milliseconds of the buckets of the latency histogram, the last bucket holds everything slower
+     */
+    public static final List<Long> BUCKET_MILLIS = List.of(1L, 2L, 5L, 10L, 20L, 50L, 100L, 200L, 500L, 1000L, 2000L,
+            5000L);
+
+    private static final double NANOS_PER_MILLI = 1000000.0;
+
+    private String mySQL;
+    private long myCalls;
+    private long myErrors;
+    private long myTotalNanos;
+    private long myMaxNanos;
+    private long myRows;
+    private long myBytes;
+    private long[] myHistogram;
+
+    /**
+     * StatementMetrics constructor
+     * @param sql sql of the statement
+     * @param calls number of times the statement was executed so far
+     * @param errors number of executions that failed so far
+     * @param totalNanos total time spent executing the statement so far
+     * @param maxNanos longest time a single execution took
+     * @param rows number of rows read from the results of the statement, or changed by it
+     * @param bytes number of bytes of strings, byte arrays and streams read from the results of the statement
+     * @param histogram number of executions per bucket of BUCKET_MILLIS, with one more bucket for slower ones
+     */
+    public StatementMetrics(String sql, long calls, long errors, long totalNanos, long maxNanos, long rows, long bytes,
+                            long[] histogram) {
+        mySQL = sql;
+        myCalls = calls;
+        myErrors = errors;
+        myTotalNanos = totalNanos;
+        myMaxNanos = maxNanos;
+        myRows = rows;
+        myBytes = bytes;
+        myHistogram = histogram.clone();
+    }
+
+    /**
+     * Getter for the sql of the statement
+     * @return sql
+     */
+    public String getSQL() {
+        return mySQL;
+    }
+
+    /**
+     * Getter for the number of executions
+     * @return executions so far
+     */
+    public long getCalls() {
+        return myCalls;
+    }
+
+    /**
+     * Getter for the number of failed executions
+     * @return failed executions so far
+     */
+    public long getErrors() {
+        return myErrors;
+    }
+
+    /**
+     * Getter for the total time spent executing the statement
+     * @return total time in milliseconds
+     */
+    public double getTotalMillis() {
+        return myTotalNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Getter for the average time an execution took
+     * @return average time in milliseconds
+     */
+    public double getAverageMillis() {
+        if (myCalls == 0) {
+            return 0;
+        }
+        return myTotalNanos / NANOS_PER_MILLI / myCalls;
+    }
+
+    /**
+     * Getter for the longest time an execution took
+     * @return longest time in milliseconds
+     */
+    public double getMaxMillis() {
+        return myMaxNanos / NANOS_PER_MILLI;
+    }
+
+    /**
+     * Estimates the time that a given share of the executions took at most, from the latency histogram
+     * @param percentile share of the executions, between 0 and 100
+     * @return upper bound of the histogram bucket the percentile falls into in milliseconds, the longest time for the
+     * last bucket
+     */
+    public double getPercentileMillis(double percentile) {
+        long executions = 0;
+        for (long count : myHistogram) {
+            executions += count;
+        }
+        long seen = 0;
+        for (int i = 0; i < BUCKET_MILLIS.size(); i++) {
+            seen += myHistogram[i];
+            if (seen > 0 && seen >= executions * percentile / 100) {
+                return Math.min(BUCKET_MILLIS.get(i), getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * Getter for the number of rows read or changed
+     * @return rows so far
+     */
+    public long getRows() {
+        return myRows;
+    }
+
+    /**
+     * Getter for the number of bytes read from the results
+     * @return bytes so far
+     */
+    public long getBytes() {
+        return myBytes;
+    }
+
+    /**
+     * Getter for the latency histogram
+     * @return number of executions per bucket of BUCKET_MILLIS, with one more bucket for slower ones
+     */
+    public long[] getHistogram() {
+        return myHistogram.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("calls=%d errors=%d totalMs=%.1f avgMs=%.3f p95Ms=%.0f maxMs=%.1f rows=%d bytes=%d %s",
+                myCalls, myErrors, getTotalMillis(), getAverageMillis(), getPercentileMillis(95), getMaxMillis(),
+                myRows, myBytes, mySQL);
+    }
+}
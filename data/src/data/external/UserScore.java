@@ -5,8 +5,15 @@ package data.external;
  */
 public class UserScore implements Comparable<UserScore> {
 
+    /**
+     * ID of a score that hasn't been read back from the database, which ranks after the saved scores of the same user
+     * with the same score
+     */
+    public static final long UNSAVED_ID = Long.MAX_VALUE;
+
     private String myUserName;
     private Double myScore;
+    private long myScoreID;
 
     /**
      * UserScore constructor
@@ -14,8 +21,19 @@ public class UserScore implements Comparable<UserScore> {
      * @param score score
      */
     public UserScore(String userName, Double score) {
+        this(userName, score, UNSAVED_ID);
+    }
+
+    /**
+     * UserScore constructor for a score read from the database
+     * @param userName user name
+     * @param score score
+     * @param scoreID ID the score was saved under, which tells apart equal scores of the same user
+     */
+    public UserScore(String userName, Double score, long scoreID) {
         myUserName = userName;
         myScore = score;
+        myScoreID = scoreID;
     }
 
     /**
@@ -34,6 +52,14 @@ public class UserScore implements Comparable<UserScore> {
         return myScore;
     }
 
+    /**
+     * Getter for the ID the score was saved under
+     * @return score ID, UNSAVED_ID if the score wasn't read from the database
+     */
+    public long getScoreID() {
+        return myScoreID;
+    }
+
     /**
      * Allows for sorting from high to low
      * @param o other object to compare to
@@ -1,17 +1,20 @@
 package data.internal;
 
+import data.external.AssetIterator;
+
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -28,12 +31,21 @@ public class AssetQuerier extends Querier {
     private static final String SOUND_DATA_COLUMN = "SoundData";
 
     private static final String SQL_WILDCARD = "%";
+    // Tells the driver to stream the rows of a result set one at a time instead of reading all of them into memory
+    private static final int STREAM_ROWS = Integer.MIN_VALUE;
 
     private static final String LOAD_ALL_ASSETS = "SELECT %s, %s FROM %s WHERE %s LIKE ?";
+    // The data is only bound once and reused for the update, so that it is only sent once
+    private static final String UPDATE_WITH_INSERTED_VALUE = "%s %s %s = VALUES(%s)";
+    // The server only hashes the saved asset when its length matches, which is the only case where the hash is needed
+    private static final String FINGERPRINT_ASSET = "SELECT LENGTH(%s), IF(LENGTH(%s) = ?, SHA2(%s, 256), NULL) FROM %s " +
+            "WHERE %s = ?";
     private static final String IMAGES_INSERT = String.format(INSERT_TWO_VALUES, IMAGES_TABLE_NAME, IMAGE_NAME_COLUMN, IMAGE_DATA_COLUMN);
     private static final String SOUNDS_INSERT = String.format(INSERT_TWO_VALUES, SOUNDS_TABLE_NAME, SOUND_NAME_COLUMN, SOUND_DATA_COLUMN);
-    private static final String UPDATE_IMAGES = String.format(UPDATE_ONE_COLUMN, IMAGES_INSERT, ON_DUPLICATE_UPDATE, IMAGE_DATA_COLUMN);
-    private static final String UPDATE_SOUNDS = String.format(UPDATE_ONE_COLUMN, SOUNDS_INSERT, ON_DUPLICATE_UPDATE, SOUND_DATA_COLUMN);
+    private static final String UPDATE_IMAGES = String.format(UPDATE_WITH_INSERTED_VALUE, IMAGES_INSERT, ON_DUPLICATE_UPDATE, IMAGE_DATA_COLUMN, IMAGE_DATA_COLUMN);
+    private static final String UPDATE_SOUNDS = String.format(UPDATE_WITH_INSERTED_VALUE, SOUNDS_INSERT, ON_DUPLICATE_UPDATE, SOUND_DATA_COLUMN, SOUND_DATA_COLUMN);
+    private static final String FINGERPRINT_IMAGE = String.format(FINGERPRINT_ASSET, IMAGE_DATA_COLUMN, IMAGE_DATA_COLUMN, IMAGE_DATA_COLUMN, IMAGES_TABLE_NAME, IMAGE_NAME_COLUMN);
+    private static final String FINGERPRINT_SOUND = String.format(FINGERPRINT_ASSET, SOUND_DATA_COLUMN, SOUND_DATA_COLUMN, SOUND_DATA_COLUMN, SOUNDS_TABLE_NAME, SOUND_NAME_COLUMN);
     private static final String LOAD_SOUND = String.format(SELECT_ONE_COLUMN_ONE_CONDITION, SOUND_DATA_COLUMN, SOUNDS_TABLE_NAME, SOUND_NAME_COLUMN);
     private static final String LOAD_IMAGE = String.format(SELECT_ONE_COLUMN_ONE_CONDITION, IMAGE_DATA_COLUMN, IMAGES_TABLE_NAME, IMAGE_NAME_COLUMN);
     private static final String REMOVE_IMAGE = String.format(DELETE_ONE_CONDITION, IMAGES_TABLE_NAME, IMAGE_NAME_COLUMN);
@@ -44,90 +56,100 @@ public class AssetQuerier extends Querier {
     private static final String COULD_NOT_LOAD_ASSET = "Could not load asset: ";
     private static final String COULD_NOT_SAVE_THE_ASSET = "Could not save the asset: ";
     private static final String COULD_NOT_FIND_THE_FILE = "Could not find the file: ";
+    private static final String HASH_ALGORITHM = "SHA-256";
+    private static final String HEX_FORMAT = "%02x";
+    private static final int CHUNK_SIZE = 64 * 1024;
 
 
-    private PreparedStatement myUpdateImagesStatement;
-    private PreparedStatement myUpdateSoundsStatement;
-    private PreparedStatement myLoadImageStatement;
-    private PreparedStatement myLoadSoundStatement;
-    private PreparedStatement myRemoveImageStatement;
-    private PreparedStatement myRemoveSoundStatement;
-    private PreparedStatement myLoadAllImagesStatement;
-    private PreparedStatement myLoadAllSoundsStatement;
-
     /**
-     * AssetQuerier constructor calls super constructor to initialize prepared statements
+     * AssetQuerier constructor
      *
-     * @param connection connection to the database provided by database engine
-     * @throws SQLException if cannot connect or prepare the statements
+     * @param connectionPool pool of connections to the database provided by database engine
      */
-    public AssetQuerier(Connection connection) throws SQLException {
-        super(connection);
-    }
-
-    @Override
-    protected void prepareStatements() throws SQLException {
-        myUpdateImagesStatement = myConnection.prepareStatement(UPDATE_IMAGES);
-        myUpdateSoundsStatement = myConnection.prepareStatement(UPDATE_SOUNDS);
-        myLoadImageStatement = myConnection.prepareStatement(LOAD_IMAGE);
-        myLoadSoundStatement = myConnection.prepareStatement(LOAD_SOUND);
-        myRemoveImageStatement = myConnection.prepareStatement(REMOVE_IMAGE);
-        myRemoveSoundStatement = myConnection.prepareStatement(REMOVE_SOUND);
-        myLoadAllImagesStatement = myConnection.prepareStatement(LOAD_ALL_IMAGES);
-        myLoadAllSoundsStatement = myConnection.prepareStatement(LOAD_ALL_SOUNDS);
-        myPreparedStatements = List.of(myUpdateImagesStatement, myUpdateSoundsStatement, myLoadImageStatement,
-                myLoadSoundStatement, myRemoveImageStatement, myRemoveSoundStatement, myLoadAllSoundsStatement,
-                myLoadAllImagesStatement);
+    public AssetQuerier(ConnectionPool connectionPool) {
+        super(connectionPool);
     }
 
     /**
-     * Saves an image to the database
+     * Saves an image to the database, unless the exact same image is already saved under that name
      *
      * @param imageName   the name of the image to save
      * @param imageToSave the image file that should be saved
      */
     public void saveImage(String imageName, File imageToSave) {
-        saveAsset(imageName, imageToSave, myUpdateImagesStatement);
+        try {
+            saveAssets(Map.of(imageName, imageToSave), FINGERPRINT_IMAGE, UPDATE_IMAGES);
+        } catch (SQLException e) {
+            System.out.println(COULD_NOT_SAVE_THE_ASSET + e.getMessage());
+        }
     }
 
     /**
-     * Saves a sound to the database
+     * Saves a sound to the database, unless the exact same sound is already saved under that name
      *
      * @param soundName   name of the sound to be saved
      * @param soundToSave sound file to be saved
      */
     public void saveSound(String soundName, File soundToSave) {
-        saveAsset(soundName, soundToSave, myUpdateSoundsStatement);
+        try {
+            saveAssets(Map.of(soundName, soundToSave), FINGERPRINT_SOUND, UPDATE_SOUNDS);
+        } catch (SQLException e) {
+            System.out.println(COULD_NOT_SAVE_THE_ASSET + e.getMessage());
+        }
+    }
+
+    /**
+     * Saves many images to the database in one transaction, skipping the ones that are already saved unchanged
+     *
+     * @param imagesToSave map of the image names to the image files
+     * @return number of images that were uploaded
+     * @throws SQLException if the transaction fails, in which case none of the images are saved
+     */
+    public int saveImages(Map<String, File> imagesToSave) throws SQLException {
+        return saveAssets(imagesToSave, FINGERPRINT_IMAGE, UPDATE_IMAGES);
+    }
+
+    /**
+     * Saves many sounds to the database in one transaction, skipping the ones that are already saved unchanged
+     *
+     * @param soundsToSave map of the sound names to the sound files
+     * @return number of sounds that were uploaded
+     * @throws SQLException if the transaction fails, in which case none of the sounds are saved
+     */
+    public int saveSounds(Map<String, File> soundsToSave) throws SQLException {
+        return saveAssets(soundsToSave, FINGERPRINT_SOUND, UPDATE_SOUNDS);
     }
 
     /**
      * Loads an image from the database
      *
      * @param imageName name of the image to be loaded
-     * @return an input stream of image data to be converted to an image object
+     * @return an input stream of image data to be converted to an image object, null if there is no such image
      */
     public InputStream loadImage(String imageName) {
-        return loadAsset(imageName, IMAGE_DATA_COLUMN, myLoadImageStatement);
+        return loadAsset(imageName, IMAGE_DATA_COLUMN, LOAD_IMAGE);
     }
 
     /**
      * Loads a sound from the database
      *
      * @param soundName name of the sound to be loaded
-     * @return an input stream of sound data to be converted to a media object
+     * @return an input stream of sound data to be converted to a media object, null if there is no such sound
      */
     public InputStream loadSound(String soundName) {
-        return loadAsset(soundName, SOUND_DATA_COLUMN, myLoadSoundStatement);
+        return loadAsset(soundName, SOUND_DATA_COLUMN, LOAD_SOUND);
     }
 
-    private InputStream loadAsset(String assetName, String columnName, PreparedStatement statement) {
-        try {
+    // A stream of a BLOB is only readable while its result set and connection are open, so the asset is read while
+    // they are and handed back as a stream over the bytes that were read
+    private InputStream loadAsset(String assetName, String columnName, String sql) {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(sql);
             statement.setString(1, assetName);
-            ResultSet resultSet = statement.executeQuery();
-            if (resultSet.next()) {
-                InputStream imageInputStream = resultSet.getBinaryStream(columnName);
-                resultSet.close();
-                return imageInputStream;
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return toStream(resultSet.getBytes(columnName));
+                }
             }
         } catch (SQLException e) {
             System.out.println(COULD_NOT_LOAD_ASSET + e.getMessage());
@@ -136,62 +158,163 @@ public class AssetQuerier extends Querier {
     }
 
 
-    private void saveAsset(String assetName, File assetToSave, PreparedStatement statement) {
-        try (FileInputStream fileInputStream = new FileInputStream(assetToSave);
-            BufferedInputStream assetData = new BufferedInputStream(fileInputStream);
-
-            FileInputStream fileInputStream1 = new FileInputStream(assetToSave);
-            FileInputStream fileInputStream2 = new FileInputStream(assetToSave);
+    private int saveAssets(Map<String, File> assetsToSave, String fingerprintSQL, String updateSQL) throws SQLException {
+        int uploaded = 0;
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            Connection transaction = connection.getConnection();
+            transaction.setAutoCommit(false);
+            for (Map.Entry<String, File> asset : assetsToSave.entrySet()) {
+                if (saveAsset(connection, asset.getKey(), asset.getValue(), fingerprintSQL, updateSQL)) {
+                    uploaded++;
+                }
+            }
+            transaction.commit();
+            transaction.setAutoCommit(true);
+        }
+        return uploaded;
+    }
 
-            BufferedInputStream bufferedInputStream = new BufferedInputStream(fileInputStream1);
-            BufferedInputStream bufferedInputStream1 = new BufferedInputStream(fileInputStream2)) {
+    // Most saves re-upload assets that haven't changed, so the length of the saved asset is compared first and the
+    // file is only hashed when the lengths match. Either way the file is read once, unless it has the same length as
+    // the saved asset but different contents
+    private boolean saveAsset(PooledConnection connection, String assetName, File assetToSave, String fingerprintSQL,
+                              String updateSQL) throws SQLException {
+        long length = assetToSave.length();
+        try {
+            if (isAlreadySaved(connection, assetName, assetToSave, length, fingerprintSQL)) {
+                return false;
+            }
+            try (InputStream assetData = new BufferedInputStream(new FileInputStream(assetToSave), CHUNK_SIZE)) {
+                PreparedStatement statement = connection.prepare(updateSQL);
+                statement.setString(1, assetName);
+                statement.setBinaryStream(2, assetData, length);
+                statement.executeUpdate();
+                return true;
+            }
+        } catch (IOException e) {
+            System.out.println(COULD_NOT_FIND_THE_FILE + assetToSave.toString());
+            return false;
+        }
+    }
 
-            System.out.println(assetData);
-            statement.setString(1, assetName);
-            statement.setBinaryStream(2, bufferedInputStream);
-            statement.setBinaryStream(3, bufferedInputStream1);
-            statement.executeUpdate();
+    private boolean isAlreadySaved(PooledConnection connection, String assetName, File assetToSave, long length,
+                                   String fingerprintSQL) throws SQLException, IOException {
+        PreparedStatement statement = connection.prepare(fingerprintSQL);
+        statement.setLong(1, length);
+        statement.setString(2, assetName);
+        String savedHash;
+        try (ResultSet resultSet = statement.executeQuery()) {
+            if (!resultSet.next() || resultSet.getLong(1) != length) {
+                return false;
+            }
+            savedHash = resultSet.getString(2);
+        }
+        return hash(assetToSave).equalsIgnoreCase(savedHash);
+    }
 
-        } catch (SQLException e) {
-            System.out.println(COULD_NOT_SAVE_THE_ASSET + e.getMessage());
-        } catch (FileNotFoundException e) {
-            System.out.println(COULD_NOT_FIND_THE_FILE + assetToSave.toString());
-        } catch (IOException e) {
-            System.out.println(e.getMessage());
+    private String hash(File file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // every Java platform is required to support SHA-256
+        }
+        try (InputStream input = new FileInputStream(file)) {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            int read;
+            while ((read = input.read(chunk)) != -1) {
+                digest.update(chunk, 0, read);
+            }
         }
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format(HEX_FORMAT, b));
+        }
+        return hex.toString();
     }
 
     /**
-     * Loads all the images involved in a game specified by prefix
+     * Loads all the sounds involved in a game specified by prefix.  Every sound is held in memory until the map is
+     * dropped, iterateSounds reads them one at a time instead
      *
      * @param prefix the gameName + the authorName
      * @return a map of the sound names to the input stream data
      */
     public Map<String, InputStream> loadAllSounds(String prefix) throws SQLException {
-        return loadAllAssets(prefix, myLoadAllSoundsStatement, SOUND_NAME_COLUMN, SOUND_DATA_COLUMN);
+        return loadAllAssets(prefix, LOAD_ALL_SOUNDS, SOUND_NAME_COLUMN, SOUND_DATA_COLUMN);
     }
 
     /**
-     * Loads all the images involved in a game specified by prefix
+     * Loads all the images involved in a game specified by prefix.  Every image is held in memory until the map is
+     * dropped, iterateImages reads them one at a time instead
      *
      * @param prefix the gameName + the authorName
      * @return a map of the image names to the input stream data
      */
     public Map<String, InputStream> loadAllImages(String prefix) throws SQLException {
-        return loadAllAssets(prefix, myLoadAllImagesStatement, IMAGE_NAME_COLUMN, IMAGE_DATA_COLUMN);
+        return loadAllAssets(prefix, LOAD_ALL_IMAGES, IMAGE_NAME_COLUMN, IMAGE_DATA_COLUMN);
     }
 
-    private Map<String, InputStream> loadAllAssets(String prefix, PreparedStatement statement,
-                                                   String assetNameColumn, String assetDataColumn) throws SQLException {
-        statement.setString(1, prefix + SQL_WILDCARD);
-        ResultSet resultSet = statement.executeQuery();
+    /**
+     * Streams all the images involved in a game specified by prefix from the database one at a time
+     *
+     * @param prefix the gameName + the authorName
+     * @return an iterator of the image names and data that holds a connection until it is exhausted or closed
+     * @throws SQLException if the query fails
+     */
+    public AssetIterator iterateImages(String prefix) throws SQLException {
+        return iterateAssets(prefix, LOAD_ALL_IMAGES, IMAGE_NAME_COLUMN, IMAGE_DATA_COLUMN);
+    }
+
+    /**
+     * Streams all the sounds involved in a game specified by prefix from the database one at a time
+     *
+     * @param prefix the gameName + the authorName
+     * @return an iterator of the sound names and data that holds a connection until it is exhausted or closed
+     * @throws SQLException if the query fails
+     */
+    public AssetIterator iterateSounds(String prefix) throws SQLException {
+        return iterateAssets(prefix, LOAD_ALL_SOUNDS, SOUND_NAME_COLUMN, SOUND_DATA_COLUMN);
+    }
+
+    private Map<String, InputStream> loadAllAssets(String prefix, String sql, String assetNameColumn,
+                                                   String assetDataColumn) throws SQLException {
         Map<String, InputStream> allAssets = new HashMap<>();
-        while (resultSet.next()) {
-            allAssets.put(resultSet.getString(assetNameColumn), resultSet.getBinaryStream(assetDataColumn));
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setString(1, prefix + SQL_WILDCARD);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    allAssets.put(resultSet.getString(assetNameColumn), toStream(resultSet.getBytes(assetDataColumn)));
+                }
+            }
         }
         return allAssets;
     }
 
+    // The connection and the streamed result set are owned by the iterator from here on, and only given back here if
+    // the query itself fails
+    private AssetIterator iterateAssets(String prefix, String sql, String assetNameColumn, String assetDataColumn)
+            throws SQLException {
+        PooledConnection connection = myConnectionPool.borrow();
+        try {
+            PreparedStatement statement = connection.prepareStreaming(sql, STREAM_ROWS);
+            statement.setString(1, prefix + SQL_WILDCARD);
+            statement.closeOnCompletion();
+            return new ResultSetAssetIterator(connection, statement.executeQuery(), assetNameColumn, assetDataColumn);
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+    }
+
+    private InputStream toStream(byte[] assetData) {
+        if (assetData == null) {
+            return null;
+        }
+        return new ByteArrayInputStream(assetData);
+    }
+
     /**
      * Removes an image from the database for testing purposes
      * @param imageName image to remove
@@ -199,8 +322,7 @@ public class AssetQuerier extends Querier {
      * @throws SQLException if statement fails
      */
     public boolean removeImage(String imageName) throws SQLException {
-        myRemoveImageStatement.setString(1, imageName);
-        return myRemoveImageStatement.executeUpdate() > 0;
+        return removeAsset(imageName, REMOVE_IMAGE);
     }
 
     /**
@@ -210,7 +332,14 @@ public class AssetQuerier extends Querier {
      * @throws SQLException if statement fails
      */
     public boolean removeSound(String soundName) throws SQLException {
-        myRemoveSoundStatement.setString(1, soundName);
-        return myRemoveSoundStatement.executeUpdate() > 0;
+        return removeAsset(soundName, REMOVE_SOUND);
+    }
+
+    private boolean removeAsset(String assetName, String sql) throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(sql);
+            statement.setString(1, assetName);
+            return statement.executeUpdate() > 0;
+        }
     }
 }
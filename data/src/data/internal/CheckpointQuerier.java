@@ -1,10 +1,14 @@
 package data.internal;
 
-import java.sql.Connection;
+import data.external.CheckpointInfo;
+
+import java.nio.charset.StandardCharsets;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,31 +24,27 @@ public class CheckpointQuerier extends Querier{
     private static final String AUTHOR_NAME_COLUMN = "AuthorName";
     private static final String LEVEL_COLUMN = "LevelObjectXML";
     private static final String CHECKPOINT_TIME_COLUMN = "CheckpointTime";
+    private static final String LEVEL_NUMBER_COLUMN = "LevelNumber";
+    private static final String SCORE_COLUMN = "Score";
+    private static final String PAYLOAD_SIZE_COLUMN = "PayloadSize";
+    private static final String FULL_COLUMN = "IsFull";
+    private static final String CHECKPOINT_CONDITIONS = String.format("%s = ? AND %s = ? AND %s = ?", USER_NAME_COLUMN, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN);
 
-    private static final String SAVE_CHECKPOINT = String.format("INSERT INTO %s (%s, %s, %s, %s) VALUES (?, ?, ?, ?)", CHECKPOINTS_TABLE_NAME, USER_NAME_COLUMN, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, LEVEL_COLUMN);
+    private static final String SAVE_CHECKPOINT = String.format("INSERT INTO %s (%s, %s, %s, %s, %s, %s, %s, %s, %s) VALUES (?, ?, ?, ?, ?, ?, ?, ?, COALESCE(?, CURRENT_TIMESTAMP(3)))", CHECKPOINTS_TABLE_NAME, USER_NAME_COLUMN, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, LEVEL_COLUMN, LEVEL_NUMBER_COLUMN, SCORE_COLUMN, PAYLOAD_SIZE_COLUMN, FULL_COLUMN, CHECKPOINT_TIME_COLUMN);
+    // checkpoints saved before sizes were kept are measured instead, which is the only case that touches the payloads
+    private static final String LOAD_CHECKPOINT_INFO = String.format("SELECT %s, %s, %s, %s, COALESCE(%s, LENGTH(%s)) AS %s FROM %s WHERE %s ORDER BY %s DESC", CHECKPOINT_TIME_COLUMN, LEVEL_NUMBER_COLUMN, SCORE_COLUMN, FULL_COLUMN, PAYLOAD_SIZE_COLUMN, LEVEL_COLUMN, PAYLOAD_SIZE_COLUMN, CHECKPOINTS_TABLE_NAME, CHECKPOINT_CONDITIONS, CHECKPOINT_TIME_COLUMN);
+    private static final String LOAD_ONE_CHECKPOINT = String.format("SELECT %s FROM %s WHERE %s AND %s = ? LIMIT 1", LEVEL_COLUMN, CHECKPOINTS_TABLE_NAME, CHECKPOINT_CONDITIONS, CHECKPOINT_TIME_COLUMN);
+    private static final String REMOVE_CHECKPOINTS_BEFORE = String.format("DELETE FROM %s WHERE %s AND %s < ?", CHECKPOINTS_TABLE_NAME, CHECKPOINT_CONDITIONS, CHECKPOINT_TIME_COLUMN);
     private static final String LOAD_CHECKPOINT = String.format("SELECT %s, %s FROM %s WHERE %s = ? AND %s = ? AND %s = ?", LEVEL_COLUMN, CHECKPOINT_TIME_COLUMN, CHECKPOINTS_TABLE_NAME, USER_NAME_COLUMN, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN);
     private static final String DELETE_CHECKPOINTS = String.format("DELETE FROM %s WHERE %s = ? AND %s = ? AND %s = ?", CHECKPOINTS_TABLE_NAME, USER_NAME_COLUMN, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN);
 
-    private PreparedStatement mySaveStatement;
-    private PreparedStatement myLoadStatement;
-    private PreparedStatement myDeleteStatement;
-
     /**
-     * Querier constructor that stores a connection and initializes the prepared statements
+     * CheckpointQuerier constructor
      *
-     * @param connection connection to the database
-     * @throws SQLException if statements cannot be prepared
+     * @param connectionPool pool of connections to the database
      */
-    public CheckpointQuerier(Connection connection) throws SQLException {
-        super(connection);
-    }
-
-    @Override
-    protected void prepareStatements() throws SQLException {
-        mySaveStatement = myConnection.prepareStatement(SAVE_CHECKPOINT);
-        myLoadStatement = myConnection.prepareStatement(LOAD_CHECKPOINT);
-        myDeleteStatement = myConnection.prepareStatement(DELETE_CHECKPOINTS);
-        myPreparedStatements = List.of(mySaveStatement, myLoadStatement, myDeleteStatement);
+    public CheckpointQuerier(ConnectionPool connectionPool) {
+        super(connectionPool);
     }
 
     /**
@@ -57,12 +57,16 @@ public class CheckpointQuerier extends Querier{
      */
     public Map<Timestamp, String> getCheckpoints(String userName, String gameName, String authorName) throws SQLException {
         Map<Timestamp, String> checkpoints = new HashMap<>();
-        myLoadStatement.setString(1, userName);
-        myLoadStatement.setString(2, gameName);
-        myLoadStatement.setString(3, authorName);
-        ResultSet resultSet = myLoadStatement.executeQuery();
-        while (resultSet.next()){
-            checkpoints.put(resultSet.getTimestamp(CHECKPOINT_TIME_COLUMN), resultSet.getString(LEVEL_COLUMN));
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(LOAD_CHECKPOINT);
+            statement.setString(1, userName);
+            statement.setString(2, gameName);
+            statement.setString(3, authorName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    checkpoints.put(resultSet.getTimestamp(CHECKPOINT_TIME_COLUMN), resultSet.getString(LEVEL_COLUMN));
+                }
+            }
         }
         return checkpoints;
     }
@@ -73,14 +77,96 @@ public class CheckpointQuerier extends Querier{
      * @param gameName of the game that's checkpoint should be loaded
      * @param authorName author of the game that is being played
      * @param rawXML the string of rawXML that is a serialized checkpoint
+     * @param levelNumber number of the level the checkpoint was saved in, null if unknown
+     * @param score score when the checkpoint was saved, null if unknown
+     * @param full false if the checkpoint only holds changes to the checkpoints of its chain before it
+     * @param time time the checkpoint was made, null for now
+     * @throws SQLException if statement fails
+     */
+    public void saveCheckpoint(String userName, String gameName, String authorName, String rawXML, Integer levelNumber,
+                               Double score, boolean full, Timestamp time) throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(SAVE_CHECKPOINT);
+            statement.setString(1, userName);
+            statement.setString(2, gameName);
+            statement.setString(3, authorName);
+            statement.setString(4, rawXML);
+            statement.setObject(5, levelNumber, Types.INTEGER);
+            statement.setObject(6, score, Types.DOUBLE);
+            statement.setLong(7, rawXML.getBytes(StandardCharsets.UTF_8).length);
+            statement.setBoolean(8, full);
+            statement.setTimestamp(9, time);
+            statement.execute();
+        }
+    }
+
+    /**
+     * Describes the checkpoints of a user for a game without loading them
+     * @param userName of the person playing the game
+     * @param gameName of the game
+     * @param authorName author of the game
+     * @return time, level number, score, size and kind of every checkpoint, newest first
+     * @throws SQLException if statement fails
+     */
+    public List<CheckpointInfo> getCheckpointInfo(String userName, String gameName, String authorName) throws SQLException {
+        List<CheckpointInfo> checkpoints = new ArrayList<>();
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(LOAD_CHECKPOINT_INFO);
+            setCheckpointConditions(statement, userName, gameName, authorName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    int levelNumber = resultSet.getInt(LEVEL_NUMBER_COLUMN);
+                    boolean noLevelNumber = resultSet.wasNull();
+                    double score = resultSet.getDouble(SCORE_COLUMN);
+                    boolean noScore = resultSet.wasNull();
+                    checkpoints.add(new CheckpointInfo(resultSet.getTimestamp(CHECKPOINT_TIME_COLUMN),
+                            noLevelNumber ? null : levelNumber, noScore ? null : score,
+                            resultSet.getLong(PAYLOAD_SIZE_COLUMN), resultSet.getBoolean(FULL_COLUMN)));
+                }
+            }
+        }
+        return checkpoints;
+    }
+
+    /**
+     * Loads one checkpoint of a user for a game
+     * @param userName of the person playing the game
+     * @param gameName of the game
+     * @param authorName author of the game
+     * @param time time the checkpoint was saved
+     * @return the serialized checkpoint, null if there is none saved at that time
      * @throws SQLException if statement fails
      */
-    public void saveCheckpoint(String userName, String gameName, String authorName, String rawXML) throws SQLException {
-        mySaveStatement.setString(1, userName);
-        mySaveStatement.setString(2, gameName);
-        mySaveStatement.setString(3, authorName);
-        mySaveStatement.setString(4, rawXML);
-        mySaveStatement.execute();
+    public String loadCheckpoint(String userName, String gameName, String authorName, Timestamp time) throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(LOAD_ONE_CHECKPOINT);
+            setCheckpointConditions(statement, userName, gameName, authorName);
+            statement.setTimestamp(4, time);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getString(LEVEL_COLUMN);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Removes the checkpoints of a user for a game that were saved before a given time
+     * @param userName of the person playing the game
+     * @param gameName of the game
+     * @param authorName author of the game
+     * @param time checkpoints saved before this time are removed
+     * @return number of checkpoints removed
+     * @throws SQLException if statement fails
+     */
+    public int removeCheckpointsBefore(String userName, String gameName, String authorName, Timestamp time) throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(REMOVE_CHECKPOINTS_BEFORE);
+            setCheckpointConditions(statement, userName, gameName, authorName);
+            statement.setTimestamp(4, time);
+            return statement.executeUpdate();
+        }
     }
 
     /**
@@ -91,9 +177,19 @@ public class CheckpointQuerier extends Querier{
      * @throws SQLException if statement fails
      */
     public void deleteCheckpoints(String userName, String gameName, String authorName) throws  SQLException {
-        myDeleteStatement.setString(1, userName);
-        myDeleteStatement.setString(2, gameName);
-        myDeleteStatement.setString(3, authorName);
-        myDeleteStatement.execute();
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(DELETE_CHECKPOINTS);
+            statement.setString(1, userName);
+            statement.setString(2, gameName);
+            statement.setString(3, authorName);
+            statement.execute();
+        }
+    }
+
+    private void setCheckpointConditions(PreparedStatement statement, String userName, String gameName,
+                                         String authorName) throws SQLException {
+        statement.setString(1, userName);
+        statement.setString(2, gameName);
+        statement.setString(3, authorName);
     }
 }
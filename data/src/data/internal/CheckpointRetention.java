@@ -0,0 +1,115 @@
+package data.internal;
+
+import data.external.CheckpointInfo;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides which checkpoints are no longer worth keeping and removes them, so that the checkpoints of a user for a game
+ * don't pile up without bound.  Only the newest checkpoints of every user and game are kept, and of those, checkpoints
+ * older than a maximum age are removed as well.  The newest checkpoint is always kept, however old it is, so a player
+ * coming back to a game can always continue it.  Delta checkpoints can only be restored along with the checkpoints of
+ * their chain before them, so only whole chains are removed: everything older than the oldest full checkpoint that is
+ * still needed is removed, and the rest of its chain is kept even if it is over the number or age kept.  This assumes
+ * the checkpoints of a chain are saved one after another, as they are while a game is played
+ */
+public class CheckpointRetention {
+
+    /**
+     * System property that sets how many of the newest checkpoints of every user and game are kept
+     */
+    public static final String KEEP_PROPERTY = "byteme.checkpoints.keep";
+    /**
+     * System property that sets after how many days a checkpoint is removed, 0 to keep checkpoints however old
+     */
+    public static final String MAX_AGE_PROPERTY = "byteme.checkpoints.maxAgeDays";
+
+    private static final int DEFAULT_KEEP = 50;
+    private static final long DEFAULT_MAX_AGE_DAYS = 90;
+
+    private static final String COULD_NOT_PRUNE_CHECKPOINTS = "Could not prune checkpoints: ";
+
+    private StorageBackend myBackend;
+    private int myKeep;
+    private long myMaxAgeMillis;
+
+    /**
+     * Creates the retention policy set by the byteme.checkpoints system properties
+     *
+     * @param backend backend the checkpoints are saved in
+     */
+    public CheckpointRetention(StorageBackend backend) {
+        this(backend, Integer.getInteger(KEEP_PROPERTY, DEFAULT_KEEP), Long.getLong(MAX_AGE_PROPERTY, DEFAULT_MAX_AGE_DAYS));
+    }
+
+    /**
+     * Creates a retention policy
+     *
+     * @param backend    backend the checkpoints are saved in
+     * @param keep       how many of the newest checkpoints of every user and game are kept
+     * @param maxAgeDays after how many days a checkpoint is removed, 0 to keep checkpoints however old
+     */
+    public CheckpointRetention(StorageBackend backend, int keep, long maxAgeDays) {
+        myBackend = backend;
+        myKeep = Math.max(1, keep);
+        myMaxAgeMillis = TimeUnit.DAYS.toMillis(Math.max(0, maxAgeDays));
+    }
+
+    /**
+     * Removes the checkpoints of a user for a game that are no longer kept, e.g. after a new one was saved.  Only the
+     * descriptions of the checkpoints are read to decide, and nothing is written if every checkpoint is kept.  Failures
+     * are printed, since the checkpoints are simply pruned the next time
+     *
+     * @param userName   user playing the game
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @return number of checkpoints removed
+     */
+    public int prune(String userName, String gameName, String authorName) {
+        try {
+            Timestamp cutoff = cutoff(myBackend.getCheckpointInfo(userName, gameName, authorName));
+            return cutoff == null ? 0 : myBackend.removeCheckpointsBefore(userName, gameName, authorName, cutoff);
+        } catch (SQLException e) {
+            System.out.println(COULD_NOT_PRUNE_CHECKPOINTS + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Finds the time before which checkpoints are removed
+     *
+     * @param checkpoints descriptions of the checkpoints of a user for a game, newest first
+     * @return checkpoints saved before this time are removed, null if every checkpoint is kept
+     */
+    Timestamp cutoff(List<CheckpointInfo> checkpoints) {
+        if (checkpoints.isEmpty()) {
+            return null;
+        }
+        long newest = checkpoints.get(0).getTime().getTime();
+        long cutoff = Long.MIN_VALUE;
+        if (checkpoints.size() > myKeep) {
+            // checkpoints saved at the same time as the oldest one kept are kept as well
+            cutoff = checkpoints.get(myKeep - 1).getTime().getTime();
+        }
+        if (myMaxAgeMillis > 0) {
+            cutoff = Math.max(cutoff, Math.min(newest, System.currentTimeMillis() - myMaxAgeMillis));
+        }
+        // keep the full checkpoint the oldest kept checkpoint builds on, and with it the rest of its chain
+        int oldestKept = 0;
+        while (oldestKept + 1 < checkpoints.size() && checkpoints.get(oldestKept + 1).getTime().getTime() >= cutoff) {
+            oldestKept++;
+        }
+        int chainStart = oldestKept;
+        while (chainStart < checkpoints.size() && !checkpoints.get(chainStart).isFull()) {
+            chainStart++;
+        }
+        if (chainStart < checkpoints.size()) {
+            cutoff = Math.min(cutoff, checkpoints.get(chainStart).getTime().getTime());
+        }
+        long oldest = checkpoints.get(checkpoints.size() - 1).getTime().getTime();
+        return oldest < cutoff ? new Timestamp(cutoff) : null;
+    }
+}
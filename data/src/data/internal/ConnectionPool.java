@@ -0,0 +1,221 @@
+package data.internal;
+
+import data.external.ConnectionPoolMetrics;
+
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded pool of connections to the database that lets several threads query the database at the same time
+ * Connections are opened as they are needed up to the maximum size, are checked out by one thread for one operation
+ * and returned after it, and are validated before being handed out again if they sat idle for a while
+ */
+public class ConnectionPool {
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    private static final long IDLE_MILLIS_BEFORE_VALIDATION = 30000;
+    private static final long CHECKOUT_TIMEOUT_MILLIS = 30000;
+
+    private static final String COULD_NOT_GET_CONNECTION = "Timed out waiting for a database connection";
+    private static final String POOL_CLOSED = "The connection pool is closed";
+
+    private String myURL;
+    private String myUsername;
+    private String myPassword;
+    private int myMaxSize;
+    private BlockingQueue<PooledConnection> myIdleConnections;
+    private AtomicInteger myOpenConnections;
+    private AtomicInteger myBorrowedConnections;
+    private AtomicLong myCheckouts;
+    private AtomicLong myCheckoutWaitNanos;
+    private AtomicLong myTimeouts;
+    private AtomicLong myCreatedConnections;
+    private AtomicLong myDiscardedConnections;
+    private QueryStatistics myQueryStatistics;
+    // notified whenever a connection is returned or discarded, so that waiting threads can take it or open a new one
+    private final Object myReturns = new Object();
+    private volatile boolean myClosed;
+
+    /**
+     * ConnectionPool constructor, does not open any connection yet
+     *
+     * @param url      url of the database
+     * @param username user name to connect with
+     * @param password password to connect with
+     * @param maxSize  maximum number of connections open at the same time
+     */
+    public ConnectionPool(String url, String username, String password, int maxSize) {
+        myURL = url;
+        myUsername = username;
+        myPassword = password;
+        myMaxSize = maxSize;
+        myIdleConnections = new LinkedBlockingQueue<>();
+        myOpenConnections = new AtomicInteger();
+        myBorrowedConnections = new AtomicInteger();
+        myCheckouts = new AtomicLong();
+        myCheckoutWaitNanos = new AtomicLong();
+        myTimeouts = new AtomicLong();
+        myCreatedConnections = new AtomicLong();
+        myDiscardedConnections = new AtomicLong();
+        myQueryStatistics = new QueryStatistics();
+    }
+
+    /**
+     * Checks out a connection, opening a new one if none is idle and the pool is not full, or waiting for one to be
+     * returned otherwise
+     *
+     * @return a connection for the calling thread only, to be closed when the operation is done
+     * @throws SQLException if no connection could be opened or none was returned in time
+     */
+    public PooledConnection borrow() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            PooledConnection connection = nextHealthyConnection();
+            myBorrowedConnections.incrementAndGet();
+            myCheckouts.incrementAndGet();
+            return connection;
+        } finally {
+            myCheckoutWaitNanos.addAndGet(System.nanoTime() - start);
+        }
+    }
+
+    private PooledConnection nextHealthyConnection() throws SQLException {
+        while (true) {
+            if (myClosed) {
+                throw new SQLException(POOL_CLOSED);
+            }
+            PooledConnection connection = myIdleConnections.poll();
+            if (connection == null) {
+                connection = openIfNotFull();
+            }
+            if (connection == null) {
+                connection = waitForReturnedConnection();
+            }
+            if (isHealthy(connection)) {
+                return connection;
+            }
+            discard(connection);
+        }
+    }
+
+    private PooledConnection openIfNotFull() throws SQLException {
+        int open = myOpenConnections.get();
+        while (open < myMaxSize) {
+            if (myOpenConnections.compareAndSet(open, open + 1)) {
+                try {
+                    PooledConnection connection = new PooledConnection(
+                            DriverManager.getConnection(myURL, myUsername, myPassword), this);
+                    myCreatedConnections.incrementAndGet();
+                    return connection;
+                } catch (SQLException e) {
+                    myOpenConnections.decrementAndGet();
+                    throw e;
+                }
+            }
+            open = myOpenConnections.get();
+        }
+        return null;
+    }
+
+    // A discarded connection makes room for a new one, so the pool is checked for room as well as for returned
+    // connections every time the waiting thread is woken up
+    private PooledConnection waitForReturnedConnection() throws SQLException {
+        long deadline = System.currentTimeMillis() + CHECKOUT_TIMEOUT_MILLIS;
+        try {
+            while (true) {
+                PooledConnection connection = myIdleConnections.poll();
+                if (connection == null) {
+                    connection = openIfNotFull();
+                }
+                if (connection != null) {
+                    return connection;
+                }
+                if (myClosed) {
+                    throw new SQLException(POOL_CLOSED);
+                }
+                synchronized (myReturns) {
+                    long left = deadline - System.currentTimeMillis();
+                    if (left <= 0) {
+                        myTimeouts.incrementAndGet();
+                        throw new SQLException(COULD_NOT_GET_CONNECTION);
+                    }
+                    if (myIdleConnections.isEmpty() && myOpenConnections.get() >= myMaxSize) {
+                        myReturns.wait(left);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException(COULD_NOT_GET_CONNECTION, e);
+        }
+    }
+
+    private void notifyWaiting() {
+        synchronized (myReturns) {
+            myReturns.notifyAll();
+        }
+    }
+
+    // Connections that were just used are trusted, the ones that sat idle long enough for the server to drop them
+    // are validated with a round trip first
+    private boolean isHealthy(PooledConnection connection) {
+        if (System.currentTimeMillis() - connection.getLastReturned() < IDLE_MILLIS_BEFORE_VALIDATION) {
+            return true;
+        }
+        return connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+    }
+
+    void giveBack(PooledConnection connection) {
+        myBorrowedConnections.decrementAndGet();
+        if (myClosed || !connection.reset()) {
+            discard(connection);
+            return;
+        }
+        connection.markReturned();
+        myIdleConnections.offer(connection);
+        notifyWaiting();
+    }
+
+    private void discard(PooledConnection connection) {
+        connection.closeConnection();
+        myOpenConnections.decrementAndGet();
+        myDiscardedConnections.incrementAndGet();
+        notifyWaiting();
+    }
+
+    /**
+     * Closes all the idle connections, connections that are still borrowed are closed as soon as they are returned
+     */
+    public void close() {
+        myClosed = true;
+        PooledConnection connection;
+        while ((connection = myIdleConnections.poll()) != null) {
+            discard(connection);
+        }
+        notifyWaiting();
+    }
+
+    /**
+     * Returns the statistics of the statements executed on the connections of the pool
+     *
+     * @return statistics of every statement
+     */
+    public QueryStatistics getQueryStatistics() {
+        return myQueryStatistics;
+    }
+
+    /**
+     * Returns the current state and the counters of the pool
+     *
+     * @return metrics of the pool
+     */
+    public ConnectionPoolMetrics getMetrics() {
+        return new ConnectionPoolMetrics(myMaxSize, myOpenConnections.get(), myBorrowedConnections.get(),
+                myCheckouts.get(), myCheckoutWaitNanos.get(), myTimeouts.get(), myCreatedConnections.get(),
+                myDiscardedConnections.get());
+    }
+}
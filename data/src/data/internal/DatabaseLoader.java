@@ -3,9 +3,12 @@ package data.internal;
 import data.external.DataManager;
 import data.external.DatabaseEngine;
 import data.external.GameRating;
+import data.external.UserScore;
 
 import java.io.File;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -20,6 +23,8 @@ public class DatabaseLoader {
     private static final List<String> COMMENTS = List.of("Great!", "Awesome", "Mediocre", "This game sucks", "I would" +
             " rather take 308 again than play this game");
     private static final List<String> AUTHORS = List.of("ICouldAlwaysEat", "DimaFayyad", "fzero", "harry");
+    // sizes the game cards and game pages of the game center show the covers at
+    private static final List<Integer> GAME_CENTER_THUMBNAIL_SIZES = List.of(200, 500);
     private static final Map<String, String> gameToAuthor = Map.of(
             "ICouldAlwaysEat", "2F2R",
             "DimaFayyad", "game1",
@@ -104,6 +109,10 @@ public class DatabaseLoader {
         for (String image : imagesToLoad) {
             File imageFile = new File("center/data/game_information/images/" + image);
             dm.saveImage("center/data/game_information/images/" + image, imageFile);
+            // makes the thumbnails shown by the game cards and game pages now, instead of when the first player asks
+            for (int size : GAME_CENTER_THUMBNAIL_SIZES) {
+                dm.loadImageThumbnail("center/data/game_information/images/" + image, size);
+            }
         }
     }
 
@@ -116,27 +125,42 @@ public class DatabaseLoader {
         }
     }
 
-    private static void loadScores() {
+    private static void loadScores() throws SQLException {
         DataManager dm = new DataManager();
+        Map<String, List<UserScore>> scoresByAuthor = new HashMap<>();
         for (int i = 0; i < 100; i++) {
             int author = (int) (Math.random() * AUTHORS.size());
-            int comment = (int) (Math.random() * COMMENTS.size());
             int user = (int) (Math.random() * USER_NAMES.size());
-            String authorName = AUTHORS.get(author);
-            dm.saveScore(USER_NAMES.get(user), gameToAuthor.get(authorName), authorName, Math.random() * 1000);
+            scoresByAuthor.computeIfAbsent(AUTHORS.get(author), authorName -> new ArrayList<>())
+                    .add(new UserScore(USER_NAMES.get(user), Math.random() * 1000));
+        }
+        for (Map.Entry<String, List<UserScore>> scores : scoresByAuthor.entrySet()) {
+            String authorName = scores.getKey();
+            dm.saveScores(gameToAuthor.get(authorName), authorName, scores.getValue());
         }
-
     }
 
     private static void loadRatings() throws SQLException {
         DataManager dm = new DataManager();
+        List<GameRating> ratings = new ArrayList<>();
         for (int i = 0; i<100; i++) {
             int author = (int) (Math.random() * AUTHORS.size());
             int comment = (int) (Math.random() * COMMENTS.size());
             int user = (int) (Math.random() * USER_NAMES.size());
             String authorName = AUTHORS.get(author);
-            dm.addRating(new GameRating(USER_NAMES.get(user), gameToAuthor.get(authorName), authorName,
+            ratings.add(new GameRating(USER_NAMES.get(user), gameToAuthor.get(authorName), authorName,
                     1 + (int)  (Math.random() * 5), COMMENTS.get(comment)));
         }
+        dm.addRatings(ratings);
+    }
+
+    private static void migrateSavedGames() {
+        DataManager dm = new DataManager();
+        System.out.println(dm.migrateSavedGames());
+    }
+
+    private static void rebuildRatingTotals() throws SQLException {
+        DataManager dm = new DataManager();
+        System.out.println(dm.rebuildRatingTotals());
     }
 }
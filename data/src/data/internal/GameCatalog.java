@@ -0,0 +1,209 @@
+package data.internal;
+
+import com.thoughtworks.xstream.XStreamException;
+import data.external.GameCenterData;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the game information of every game in memory, keyed by game name and author name, so that the game center
+ * only parses each game once instead of every time it lists the games.  Every refresh only reads the game information
+ * saved since the newest one it has already seen, plus the names of the games so that removed games are dropped, and
+ * parses what it read in parallel.  Every change to the catalog is also applied to its GameSearchIndex.  Saves that
+ * commit more than a few seconds after they started may be missed by the refreshes (see OVERLAP_MILLIS), which clear
+ * fixes by reading every game again
+ */
+public class GameCatalog {
+
+    // Games saved just before the newest save seen so far may have been committed after it was read, so every refresh
+    // reads this far back again.  InfoModified is stamped when a save starts, not when it commits, so a save that takes
+    // longer than this to commit is missed by every refresh until the game is saved again or the catalog is cleared
+    private static final long OVERLAP_MILLIS = 5000;
+
+    private StorageBackend myBackend;
+    private PayloadCodec myPayloadCodec;
+    private Map<GamePrimaryKey, GameCenterData> myGames;
+    private GameSearchIndex mySearchIndex;
+    private Timestamp myNewestSave;
+    private boolean myLoaded;
+
+    /**
+     * Creates an empty catalog of the games saved in backend, which is filled the first time it is asked for games
+     *
+     * @param backend backend the games are saved in
+     */
+    public GameCatalog(StorageBackend backend) {
+        myBackend = backend;
+        myPayloadCodec = new PayloadCodec();
+        myGames = new LinkedHashMap<>();
+        mySearchIndex = new GameSearchIndex();
+    }
+
+    /**
+     * Getter for the search index over the games in the catalog, which can be searched while the catalog refreshes
+     *
+     * @return search index of the catalog
+     */
+    public GameSearchIndex getSearchIndex() {
+        return mySearchIndex;
+    }
+
+    /**
+     * Tells if the catalog has been filled yet
+     *
+     * @return true once the first refresh succeeded
+     */
+    public synchronized boolean isLoaded() {
+        return myLoaded;
+    }
+
+    /**
+     * Adds or replaces a game that was just saved, so that it shows up before the next refresh
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param game       game information that was saved
+     */
+    public synchronized void put(String gameName, String authorName, GameCenterData game) {
+        put(new GamePrimaryKey(gameName, authorName), game);
+    }
+
+    /**
+     * Drops a game that was just removed
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     */
+    public synchronized void remove(String gameName, String authorName) {
+        remove(new GamePrimaryKey(gameName, authorName));
+    }
+
+    /**
+     * Brings the catalog up to date and returns the game information of every game
+     *
+     * @return the game information of every game that could be parsed
+     * @throws SQLException if the catalog can't be brought up to date, in which case getCachedGames still has the
+     *                      games from the last refresh
+     */
+    public synchronized List<GameCenterData> getGames() throws SQLException {
+        refresh();
+        return getCachedGames();
+    }
+
+    /**
+     * Brings the catalog up to date and returns the game information of every game written by an author
+     *
+     * @param authorName name of the author
+     * @return the game information of every game of the author that could be parsed
+     * @throws SQLException if the catalog can't be brought up to date
+     */
+    public synchronized List<GameCenterData> getGames(String authorName) throws SQLException {
+        refresh();
+        return getCachedGames(authorName);
+    }
+
+    /**
+     * Returns the game information of every game as of the last refresh, without reading anything
+     *
+     * @return the game information of every game that could be parsed
+     */
+    public synchronized List<GameCenterData> getCachedGames() {
+        return new ArrayList<>(myGames.values());
+    }
+
+    /**
+     * Returns the game information of every game written by an author as of the last refresh, without reading
+     * anything
+     *
+     * @param authorName name of the author
+     * @return the game information of every game of the author that could be parsed
+     */
+    public synchronized List<GameCenterData> getCachedGames(String authorName) {
+        List<GameCenterData> games = new ArrayList<>();
+        for (Map.Entry<GamePrimaryKey, GameCenterData> game : myGames.entrySet()) {
+            if (game.getKey().getAuthorName().equals(authorName)) {
+                games.add(game.getValue());
+            }
+        }
+        return games;
+    }
+
+    /**
+     * Reads the game information saved since the last refresh and drops the games that were removed
+     *
+     * @throws SQLException if reading fails, in which case the catalog is left as it was
+     */
+    public synchronized void refresh() throws SQLException {
+        Timestamp since = null;
+        if (myLoaded && myNewestSave != null) {
+            since = new Timestamp(myNewestSave.getTime() - OVERLAP_MILLIS);
+        }
+        List<SerializedGameInfo> changed = myBackend.loadGameInfoChangedSince(since);
+        Set<GamePrimaryKey> savedGames = myLoaded ? new HashSet<>(myBackend.loadGameInfoKeys()) : null;
+        Map<GamePrimaryKey, GameCenterData> parsed = changed.parallelStream()
+                .map(this::decode)
+                .filter(game -> game.getValue() != null)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (first, second) -> second));
+        for (SerializedGameInfo gameInfo : changed) {
+            if (!parsed.containsKey(gameInfo.getKey())) {
+                remove(gameInfo.getKey());
+            }
+            if (gameInfo.getModified() != null && (myNewestSave == null || gameInfo.getModified().after(myNewestSave))) {
+                myNewestSave = gameInfo.getModified();
+            }
+        }
+        for (Map.Entry<GamePrimaryKey, GameCenterData> game : parsed.entrySet()) {
+            put(game.getKey(), game.getValue());
+        }
+        if (savedGames != null) {
+            for (GamePrimaryKey key : new ArrayList<>(myGames.keySet())) {
+                if (!savedGames.contains(key)) {
+                    remove(key);
+                }
+            }
+        }
+        myLoaded = true;
+    }
+
+    /**
+     * Forgets every game, so that the next refresh reads all of them again
+     */
+    public synchronized void clear() {
+        for (GamePrimaryKey key : myGames.keySet()) {
+            mySearchIndex.remove(key);
+        }
+        myGames.clear();
+        myNewestSave = null;
+        myLoaded = false;
+    }
+
+    private void put(GamePrimaryKey key, GameCenterData game) {
+        myGames.put(key, game);
+        mySearchIndex.put(key, game);
+    }
+
+    private void remove(GamePrimaryKey key) {
+        myGames.remove(key);
+        mySearchIndex.remove(key);
+    }
+
+    // Invalid game information, including information saved by a newer version of the game, is left out of the catalog
+    private Map.Entry<GamePrimaryKey, GameCenterData> decode(SerializedGameInfo gameInfo) {
+        GameCenterData game = null;
+        try {
+            game = (GameCenterData) myPayloadCodec.decode(gameInfo.getPayload());
+        } catch (XStreamException | ClassCastException e) {
+            // left out below
+        }
+        return new AbstractMap.SimpleImmutableEntry<>(gameInfo.getKey(), game);
+    }
+}
@@ -1,12 +1,11 @@
 package data.internal;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * A Querier used to access the GameInformation table to save and load game information
@@ -18,48 +17,31 @@ public class GameInformationQuerier extends Querier {
     private static final String GAME_DATA_COLUMN = "GameData";
     private static final String GAME_INFO_COLUMN = "GameInfo";
     private static final String AUTHOR_NAME_COLUMN = "AuthorName";
+    private static final String INFO_MODIFIED_COLUMN = "InfoModified";
+    private static final String NOW = "CURRENT_TIMESTAMP(3)";
 
     private static final String SELECT_TWO_CONDITIONS_NOT_NULL = "SELECT %s FROM %s WHERE %s = ? AND %s = ? AND %s IS" + " NOT NULL;";
     private static final String GAME_DATA_INSERT = String.format(INSERT_THREE_VALUES, GAME_INFORMATION_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, GAME_DATA_COLUMN);
     private static final String GAME_INFO_INSERT = String.format(INSERT_THREE_VALUES, GAME_INFORMATION_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, GAME_INFO_COLUMN);
     private static final String UPDATE_GAME_DATA = String.format(UPDATE_ONE_COLUMN, GAME_DATA_INSERT, ON_DUPLICATE_UPDATE, GAME_DATA_COLUMN);
-    private static final String UPDATE_GAME_INFO = String.format(UPDATE_ONE_COLUMN, GAME_INFO_INSERT, ON_DUPLICATE_UPDATE, GAME_INFO_COLUMN);
+    private static final String GAME_INFO_INSERT_STAMPED = String.format("INSERT INTO %s (%s, %s, %s, %s) VALUES (?, ?, ?, %s)", GAME_INFORMATION_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, GAME_INFO_COLUMN, INFO_MODIFIED_COLUMN, NOW);
+    private static final String UPDATE_GAME_INFO = String.format(UPDATE_ONE_COLUMN, GAME_INFO_INSERT_STAMPED, ON_DUPLICATE_UPDATE, GAME_INFO_COLUMN) + String.format(", %s = %s", INFO_MODIFIED_COLUMN, NOW);
     private static final String LOAD_GAME_DATA = String.format(SELECT_TWO_CONDITIONS_NOT_NULL, GAME_DATA_COLUMN, GAME_INFORMATION_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, GAME_DATA_COLUMN);
     private static final String LOAD_GAME_INFORMATION = String.format(SELECT_TWO_CONDITIONS_NOT_NULL, GAME_INFO_COLUMN, GAME_INFORMATION_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, GAME_INFO_COLUMN);
-    private static final String FIND_ALL_GAMES = String.format(SELECT_TWO_WHOLE_COLUMNS, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, GAME_INFORMATION_TABLE_NAME);
     private static final String REMOVE_GAME = String.format(DELETE_TWO_CONDITIONS, GAME_INFORMATION_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN);
+    private static final String SELECT_ALL_GAME_INFO = String.format("SELECT %s, %s, %s, %s FROM %s WHERE %s IS NOT NULL", GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, GAME_INFO_COLUMN, INFO_MODIFIED_COLUMN, GAME_INFORMATION_TABLE_NAME, GAME_INFO_COLUMN);
+    private static final String LOAD_AUTHOR_GAME_INFO = String.format("%s AND %s = ?", SELECT_ALL_GAME_INFO, AUTHOR_NAME_COLUMN);
+    private static final String LOAD_CHANGED_GAME_INFO = String.format("%s AND %s >= ?", SELECT_ALL_GAME_INFO, INFO_MODIFIED_COLUMN);
+    private static final String LOAD_GAME_INFO_KEYS = String.format("SELECT %s, %s FROM %s WHERE %s IS NOT NULL", GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, GAME_INFORMATION_TABLE_NAME, GAME_INFO_COLUMN);
     private static final String LOAD_GAME_NAMES = String.format(SELECT_ONE_COLUMN_ONE_CONDITION, GAME_NAME_COLUMN, GAME_INFORMATION_TABLE_NAME, AUTHOR_NAME_COLUMN);
 
-    private PreparedStatement myUpdateGameEntryDataStatement;
-    private PreparedStatement myUpdateGameEntryInfoStatement;
-    private PreparedStatement myLoadGameDataStatement;
-    private PreparedStatement myLoadGameInformationStatement;
-    private PreparedStatement myFindAllGameNamesStatement;
-    private PreparedStatement myRemoveGameStatement;
-    private PreparedStatement myLoadGameNamesStatement;
-
     /**
      * GameInformationQuerier constructor
      *
-     * @param connection connection to the database
-     * @throws SQLException if statements cannot be prepared
+     * @param connectionPool pool of connections to the database
      */
-    public GameInformationQuerier(Connection connection) throws SQLException {
-        super(connection);
-    }
-
-    @Override
-    protected void prepareStatements() throws SQLException {
-        myUpdateGameEntryDataStatement = myConnection.prepareStatement(UPDATE_GAME_DATA);
-        myUpdateGameEntryInfoStatement = myConnection.prepareStatement(UPDATE_GAME_INFO);
-        myLoadGameDataStatement = myConnection.prepareStatement(LOAD_GAME_DATA);
-        myLoadGameInformationStatement = myConnection.prepareStatement(LOAD_GAME_INFORMATION);
-        myFindAllGameNamesStatement = myConnection.prepareStatement(FIND_ALL_GAMES);
-        myRemoveGameStatement = myConnection.prepareStatement(REMOVE_GAME);
-        myLoadGameNamesStatement = myConnection.prepareStatement(LOAD_GAME_NAMES);
-        myPreparedStatements = List.of(myUpdateGameEntryDataStatement, myUpdateGameEntryInfoStatement,
-                myLoadGameDataStatement, myLoadGameInformationStatement, myFindAllGameNamesStatement,
-                myRemoveGameStatement, myLoadGameNamesStatement);
+    public GameInformationQuerier(ConnectionPool connectionPool) {
+        super(connectionPool);
     }
 
     /**
@@ -69,7 +51,7 @@ public class GameInformationQuerier extends Querier {
      * @return the deserialized game data that should then be cast to a game object
      */
     public String loadGameData(String gameName, String authorName) throws SQLException {
-        return loadXML(gameName, authorName, myLoadGameDataStatement, GAME_DATA_COLUMN);
+        return loadXML(gameName, authorName, LOAD_GAME_DATA, GAME_DATA_COLUMN);
     }
 
     /**
@@ -79,7 +61,7 @@ public class GameInformationQuerier extends Querier {
      * @return rawXML of a serialized Game Center Data object for the game specified by gameName and authorName
      */
     public String loadGameInformation(String gameName, String authorName) throws SQLException{
-        return loadXML(gameName, authorName, myLoadGameInformationStatement, GAME_INFO_COLUMN);
+        return loadXML(gameName, authorName, LOAD_GAME_INFORMATION, GAME_INFO_COLUMN);
     }
 
     /**
@@ -88,35 +70,83 @@ public class GameInformationQuerier extends Querier {
      * @return raw xml of game info objects
      */
     public List<String> loadAllSerializedGameInformationObjects() throws SQLException {
-        List<String> gameInformations = new ArrayList<>();
-        List<GamePrimaryKey> games = getGameNames();
-        for (GamePrimaryKey game : games) {
-            String gameInfoXML = loadGameInformation(game.getGameName(), game.getAuthorName());
-            if (gameInfoXML != null) {
-                gameInformations.add(gameInfoXML);
+        return payloads(loadSerializedGameInfo(SELECT_ALL_GAME_INFO, null));
+    }
+
+    /**
+     * Loads the game information saved since a point in time, or of every game if since is null, in one query.  Game
+     * information saved before the InfoModified column existed is only loaded when since is null
+     *
+     * @param since earliest save time to load, null to load everything
+     * @return serialized game information together with the game it belongs to and when it was saved
+     * @throws SQLException if statement fails
+     */
+    public List<SerializedGameInfo> loadGameInformationChangedSince(Timestamp since) throws SQLException {
+        if (since == null) {
+            return loadSerializedGameInfo(SELECT_ALL_GAME_INFO, null);
+        }
+        return loadSerializedGameInfo(LOAD_CHANGED_GAME_INFO, since);
+    }
+
+    /**
+     * Loads the game name and author name of every game that has game information, without the information itself
+     *
+     * @return keys of every game with game information
+     * @throws SQLException if statement fails
+     */
+    public List<GamePrimaryKey> loadGameInformationKeys() throws SQLException {
+        return getGameNames();
+    }
+
+    private List<SerializedGameInfo> loadSerializedGameInfo(String sql, Object parameter) throws SQLException {
+        List<SerializedGameInfo> gameInformations = new ArrayList<>();
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(sql);
+            if (parameter != null) {
+                statement.setObject(1, parameter);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    gameInformations.add(new SerializedGameInfo(resultSet.getString(GAME_NAME_COLUMN),
+                            resultSet.getString(AUTHOR_NAME_COLUMN), resultSet.getString(GAME_INFO_COLUMN),
+                            resultSet.getTimestamp(INFO_MODIFIED_COLUMN)));
+                }
             }
         }
         return gameInformations;
     }
 
+    private List<String> payloads(List<SerializedGameInfo> gameInformations) {
+        List<String> payloads = new ArrayList<>();
+        for (SerializedGameInfo gameInformation : gameInformations) {
+            payloads.add(gameInformation.getPayload());
+        }
+        return payloads;
+    }
+
     private List<GamePrimaryKey> getGameNames() throws SQLException {
         List<GamePrimaryKey> games = new ArrayList<>();
-        ResultSet resultSet = myFindAllGameNamesStatement.executeQuery();
-        while (resultSet.next()) {
-            String gameName = resultSet.getString(GAME_NAME_COLUMN);
-            String authorName = resultSet.getString(AUTHOR_NAME_COLUMN);
-            games.add(new GamePrimaryKey(gameName, authorName));
+        try (PooledConnection connection = myConnectionPool.borrow();
+             ResultSet resultSet = connection.prepare(LOAD_GAME_INFO_KEYS).executeQuery()) {
+            while (resultSet.next()) {
+                String gameName = resultSet.getString(GAME_NAME_COLUMN);
+                String authorName = resultSet.getString(AUTHOR_NAME_COLUMN);
+                games.add(new GamePrimaryKey(gameName, authorName));
+            }
         }
         return games;
     }
 
-    private String loadXML(String gameName, String authorName, PreparedStatement preparedStatement,
-                           String columnName) throws SQLException {
-        preparedStatement.setString(1, gameName);
-        preparedStatement.setString(2, authorName);
-        ResultSet resultSet = preparedStatement.executeQuery();
-        if (resultSet.next()) {
-            return resultSet.getString(columnName);
+    private String loadXML(String gameName, String authorName, String sql, String columnName) throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement preparedStatement = connection.prepare(sql);
+            preparedStatement.setString(1, gameName);
+            preparedStatement.setString(2, authorName);
+            try (ResultSet resultSet = preparedStatement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getString(columnName);
+                }
+            }
         }
         return null;
     }
@@ -130,11 +160,34 @@ public class GameInformationQuerier extends Querier {
      * @throws SQLException if statement fails
      */
     public void updateGameEntryData(String gameName, String authorName, String myRawXML) throws SQLException {
-        prepareAndExecuteUpdate(myUpdateGameEntryDataStatement, gameName, authorName, myRawXML);
+        prepareAndExecuteUpdate(UPDATE_GAME_DATA, gameName, authorName, myRawXML);
+    }
+
+    /**
+     * Updates data entry for a game on a connection that the caller manages, e.g. to save the manifest of a game in
+     * the same transaction as its levels
+     *
+     * @param connection connection to save the game on
+     * @param gameName   game name
+     * @param authorName author name
+     * @param myRawXML   serialized game object
+     * @throws SQLException if statement fails
+     */
+    void updateGameEntryData(PooledConnection connection, String gameName, String authorName, String myRawXML)
+            throws SQLException {
+        executeUpdate(connection, UPDATE_GAME_DATA, gameName, authorName, myRawXML);
     }
 
-    private void prepareAndExecuteUpdate(PreparedStatement statement, String gameName, String authorName,
+    private void prepareAndExecuteUpdate(String sql, String gameName, String authorName,
                                          String myRawXML) throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            executeUpdate(connection, sql, gameName, authorName, myRawXML);
+        }
+    }
+
+    private void executeUpdate(PooledConnection connection, String sql, String gameName, String authorName,
+                               String myRawXML) throws SQLException {
+        PreparedStatement statement = connection.prepare(sql);
         statement.setString(1, gameName);
         statement.setString(2, authorName);
         statement.setString(3, myRawXML);
@@ -151,7 +204,7 @@ public class GameInformationQuerier extends Querier {
      * @throws SQLException if statement fails
      */
     public void updateGameEntryInfo(String gameName, String authorName, String myRawXML) throws SQLException {
-        prepareAndExecuteUpdate(myUpdateGameEntryInfoStatement, gameName, authorName, myRawXML);
+        prepareAndExecuteUpdate(UPDATE_GAME_INFO, gameName, authorName, myRawXML);
     }
 
     /**
@@ -163,9 +216,12 @@ public class GameInformationQuerier extends Querier {
      * @throws SQLException if statement fails
      */
     public boolean removeGame(String gameName, String authorName) throws SQLException {
-        myRemoveGameStatement.setString(1, gameName);
-        myRemoveGameStatement.setString(2, authorName);
-        return myRemoveGameStatement.executeUpdate() > 0;
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(REMOVE_GAME);
+            statement.setString(1, gameName);
+            statement.setString(2, authorName);
+            return statement.executeUpdate() > 0;
+        }
     }
 
     /**
@@ -176,10 +232,14 @@ public class GameInformationQuerier extends Querier {
      */
     public List<String> loadAllGameNames(String userName) throws SQLException {
         List<String> gameNames = new ArrayList<>();
-        myLoadGameNamesStatement.setString(1, userName);
-        ResultSet resultSet = myLoadGameNamesStatement.executeQuery();
-        while (resultSet.next()) {
-            gameNames.add(resultSet.getString(GAME_NAME_COLUMN));
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(LOAD_GAME_NAMES);
+            statement.setString(1, userName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    gameNames.add(resultSet.getString(GAME_NAME_COLUMN));
+                }
+            }
         }
         return gameNames;
     }
@@ -189,16 +249,6 @@ public class GameInformationQuerier extends Querier {
      * @return raw xml of game info objects
      */
     public List<String> loadAllSerializedGameInformationObjects(String userName) throws SQLException {
-        List<String> serializedGameInfoObjects = new ArrayList<>();
-        List<GamePrimaryKey> games = getGameNames();
-        for (GamePrimaryKey game : games) {
-            if (game.getAuthorName().equals(userName)) {
-                String gameInfoXML = loadGameInformation(game.getGameName(), userName);
-                if (gameInfoXML != null) {
-                    serializedGameInfoObjects.add(gameInfoXML);
-                }
-            }
-        }
-        return serializedGameInfoObjects;
+        return payloads(loadSerializedGameInfo(LOAD_AUTHOR_GAME_INFO, userName));
     }
 }
@@ -0,0 +1,144 @@
+package data.internal;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Querier used to access the GameLevels table, which stores the serialized levels of a game one row per level so
+ * that they can be loaded individually instead of as part of the whole game
+ */
+public class GameLevelQuerier extends Querier {
+
+    private static final String GAME_LEVELS_TABLE_NAME = "GameLevels";
+    private static final String GAME_NAME_COLUMN = "GameName";
+    private static final String AUTHOR_NAME_COLUMN = "AuthorName";
+    private static final String LEVEL_NUMBER_COLUMN = "LevelNumber";
+    private static final String LEVEL_DATA_COLUMN = "LevelData";
+    private static final String LEVEL_COUNT = "levelcount";
+
+    private static final String LEVEL_INSERT = String.format("INSERT INTO %s (%s, %s, %s, %s) VALUES (?, ?, ?, ?)", GAME_LEVELS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, LEVEL_NUMBER_COLUMN, LEVEL_DATA_COLUMN);
+    private static final String UPDATE_LEVEL = String.format(UPDATE_ONE_COLUMN, LEVEL_INSERT, ON_DUPLICATE_UPDATE, LEVEL_DATA_COLUMN);
+    private static final String LOAD_LEVEL = String.format("SELECT %s FROM %s WHERE %s = ? AND %s = ? AND %s = ?", LEVEL_DATA_COLUMN, GAME_LEVELS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, LEVEL_NUMBER_COLUMN);
+    private static final String COUNT_LEVELS = String.format("SELECT COUNT(*) AS %s FROM %s WHERE %s = ? AND %s = ?", LEVEL_COUNT, GAME_LEVELS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN);
+    private static final String REMOVE_LEVELS_AFTER = String.format("DELETE FROM %s WHERE %s = ? AND %s = ? AND %s > ?", GAME_LEVELS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, LEVEL_NUMBER_COLUMN);
+
+    /**
+     * GameLevelQuerier constructor
+     *
+     * @param connectionPool pool of connections to the database
+     */
+    public GameLevelQuerier(ConnectionPool connectionPool) {
+        super(connectionPool);
+    }
+
+    /**
+     * Saves the serialized levels of a game, replacing any levels previously saved for it
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param levelXMLs  serialized levels of the game in order, the first one is saved as level 1
+     * @throws SQLException if statement fails
+     */
+    public void saveGameLevels(String gameName, String authorName, List<String> levelXMLs) throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            saveGameLevels(connection, gameName, authorName, levelXMLs);
+        }
+    }
+
+    /**
+     * Saves the serialized levels of a game on a connection that the caller manages, e.g. to save them in the same
+     * transaction as the manifest of the game
+     *
+     * @param connection connection to save the levels on
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param levelXMLs  serialized levels of the game in order, the first one is saved as level 1
+     * @throws SQLException if statement fails
+     */
+    void saveGameLevels(PooledConnection connection, String gameName, String authorName, List<String> levelXMLs)
+            throws SQLException {
+        List<Integer> levelNumbers = new ArrayList<>();
+        for (int levelNumber = 1; levelNumber <= levelXMLs.size(); levelNumber++) {
+            levelNumbers.add(levelNumber);
+        }
+        executeInBatches(connection, UPDATE_LEVEL, levelNumbers, (statement, levelNumber) -> {
+            statement.setString(1, gameName);
+            statement.setString(2, authorName);
+            statement.setInt(3, levelNumber);
+            statement.setString(4, levelXMLs.get(levelNumber - 1));
+            statement.setString(5, levelXMLs.get(levelNumber - 1));
+        });
+        removeLevelsAfter(connection, gameName, authorName, levelXMLs.size());
+    }
+
+    /**
+     * Loads the raw xml of a single level of a game
+     *
+     * @param gameName    name of the game
+     * @param authorName  name of the author of the game
+     * @param levelNumber number of the level to load, starting at 1
+     * @return raw xml of the level, or null if the game has no such level
+     * @throws SQLException if statement fails
+     */
+    public String loadGameLevel(String gameName, String authorName, int levelNumber) throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(LOAD_LEVEL);
+            statement.setString(1, gameName);
+            statement.setString(2, authorName);
+            statement.setInt(3, levelNumber);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getString(LEVEL_DATA_COLUMN);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Counts the levels saved for a game
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @return number of levels saved for the game, 0 if the game was saved as a single payload
+     * @throws SQLException if statement fails
+     */
+    public int countGameLevels(String gameName, String authorName) throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(COUNT_LEVELS);
+            statement.setString(1, gameName);
+            statement.setString(2, authorName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getInt(LEVEL_COUNT);
+                }
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Removes all the levels saved for a game
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @throws SQLException if statement fails
+     */
+    public void removeGameLevels(String gameName, String authorName) throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            removeLevelsAfter(connection, gameName, authorName, 0);
+        }
+    }
+
+    private void removeLevelsAfter(PooledConnection connection, String gameName, String authorName,
+                                   int lastLevelNumber) throws SQLException {
+        PreparedStatement statement = connection.prepare(REMOVE_LEVELS_AFTER);
+        statement.setString(1, gameName);
+        statement.setString(2, authorName);
+        statement.setInt(3, lastLevelNumber);
+        statement.executeUpdate();
+    }
+}
@@ -1,5 +1,7 @@
 package data.internal;
 
+import java.util.Objects;
+
 /**
  * Packages a primary key for a game as the game name and the author name
  */
@@ -40,4 +42,9 @@ public class GamePrimaryKey {
                 this.myGameName.equals(((GamePrimaryKey) obj).myGameName) &&
                 this.myAuthorName.equals(((GamePrimaryKey) obj).myAuthorName);
     }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(myGameName, myAuthorName);
+    }
 }
@@ -0,0 +1,193 @@
+package data.internal;
+
+import data.external.GameCenterData;
+import data.external.RatingSummary;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * An inverted index over the title, author name and description of every game in the GameCatalog, so that games can be
+ * searched as the user types without going to the database.  Every word of a query matches the words of a game that
+ * start with it, and a game only matches if every word of the query does.  Matches are ranked by where the words were
+ * found (title before author before description, whole words before prefixes) and then by how well the game is rated
+ */
+public class GameSearchIndex {
+
+    private static final String WORD_SEPARATORS = "[^\\p{L}\\p{N}]+";
+    private static final int TITLE_WEIGHT = 3;
+    private static final int AUTHOR_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final int WHOLE_WORD_BONUS = 2;
+    // A game with this many ratings gets half of the boost of its average rating, so a single rating can't outrank text
+    private static final double RATING_CONFIDENCE = 5;
+    private static final double RATING_WEIGHT = 1;
+
+    private NavigableMap<String, Map<GamePrimaryKey, Integer>> myPostings;
+    private Map<GamePrimaryKey, Set<String>> myWords;
+    private Map<GamePrimaryKey, GameCenterData> myGames;
+    private Map<String, RatingSummary> myRatings;
+
+    /**
+     * Creates an empty index
+     */
+    public GameSearchIndex() {
+        myPostings = new TreeMap<>();
+        myWords = new HashMap<>();
+        myGames = new HashMap<>();
+        myRatings = new HashMap<>();
+    }
+
+    /**
+     * Adds a game to the index, replacing what was indexed for it before
+     *
+     * @param key  game name and author name of the game
+     * @param game game information to index
+     */
+    public synchronized void put(GamePrimaryKey key, GameCenterData game) {
+        remove(key);
+        Map<String, Integer> words = new HashMap<>();
+        addWords(words, game.getTitle(), TITLE_WEIGHT);
+        addWords(words, game.getAuthorName(), AUTHOR_WEIGHT);
+        addWords(words, game.getDescription(), DESCRIPTION_WEIGHT);
+        for (Map.Entry<String, Integer> word : words.entrySet()) {
+            myPostings.computeIfAbsent(word.getKey(), w -> new HashMap<>()).put(key, word.getValue());
+        }
+        myWords.put(key, new HashSet<>(words.keySet()));
+        myGames.put(key, game);
+    }
+
+    /**
+     * Removes a game from the index
+     *
+     * @param key game name and author name of the game
+     */
+    public synchronized void remove(GamePrimaryKey key) {
+        Set<String> words = myWords.remove(key);
+        if (words == null) {
+            return;
+        }
+        for (String word : words) {
+            Map<GamePrimaryKey, Integer> postings = myPostings.get(word);
+            postings.remove(key);
+            if (postings.isEmpty()) {
+                myPostings.remove(word);
+            }
+        }
+        myGames.remove(key);
+    }
+
+    /**
+     * Replaces the rating totals used to rank the games
+     *
+     * @param ratings rating totals by game name
+     */
+    public synchronized void setRatings(Map<String, RatingSummary> ratings) {
+        myRatings = new HashMap<>(ratings);
+    }
+
+    /**
+     * Replaces the rating totals of one game
+     *
+     * @param gameName name of the game
+     * @param rating   rating totals of the game
+     */
+    public synchronized void setRating(String gameName, RatingSummary rating) {
+        myRatings.put(gameName, rating);
+    }
+
+    /**
+     * Finds the games that match every word of a query, best match first
+     *
+     * @param query words to look for, the last one typically only partly typed
+     * @param limit maximum number of games to return
+     * @return the best matching games, empty if the query has no words
+     */
+    public synchronized List<GameCenterData> search(String query, int limit) {
+        Map<GamePrimaryKey, Double> scores = null;
+        for (String term : split(query)) {
+            Map<GamePrimaryKey, Double> termScores = scoreTerm(term);
+            if (scores == null) {
+                scores = termScores;
+            } else {
+                scores.keySet().retainAll(termScores.keySet());
+                scores.replaceAll((key, score) -> score + termScores.get(key));
+            }
+            if (scores.isEmpty()) {
+                break;
+            }
+        }
+        if (scores == null) {
+            return new ArrayList<>();
+        }
+        List<Map.Entry<GamePrimaryKey, Double>> ranked = new ArrayList<>();
+        for (Map.Entry<GamePrimaryKey, Double> score : scores.entrySet()) {
+            ranked.add(Map.entry(score.getKey(), score.getValue() + ratingBoost(myGames.get(score.getKey()))));
+        }
+        ranked.sort(Map.Entry.<GamePrimaryKey, Double>comparingByValue(Comparator.reverseOrder())
+                .thenComparing(entry -> entry.getKey().getGameName()));
+        List<GameCenterData> games = new ArrayList<>();
+        for (int i = 0; i < Math.min(limit, ranked.size()); i++) {
+            games.add(myGames.get(ranked.get(i).getKey()));
+        }
+        return games;
+    }
+
+    /**
+     * Returns how many games are in the index
+     *
+     * @return number of indexed games
+     */
+    public synchronized int size() {
+        return myGames.size();
+    }
+
+    // Every indexed word that starts with the term counts, with the best one per game
+    private Map<GamePrimaryKey, Double> scoreTerm(String term) {
+        Map<GamePrimaryKey, Double> scores = new HashMap<>();
+        for (Map.Entry<String, Map<GamePrimaryKey, Integer>> word :
+                myPostings.subMap(term, true, term + Character.MAX_VALUE, true).entrySet()) {
+            int bonus = word.getKey().equals(term) ? WHOLE_WORD_BONUS : 1;
+            for (Map.Entry<GamePrimaryKey, Integer> posting : word.getValue().entrySet()) {
+                scores.merge(posting.getKey(), (double) posting.getValue() * bonus, Math::max);
+            }
+        }
+        return scores;
+    }
+
+    private double ratingBoost(GameCenterData game) {
+        RatingSummary rating = myRatings.get(game.getTitle());
+        if (rating == null || rating.getCount() == 0) {
+            return 0;
+        }
+        double confidence = rating.getCount() / (rating.getCount() + RATING_CONFIDENCE);
+        return RATING_WEIGHT * confidence * rating.getAverage() / RatingSummary.MAX_STARS;
+    }
+
+    private void addWords(Map<String, Integer> words, String text, int weight) {
+        for (String word : split(text)) {
+            words.merge(word, weight, Math::max);
+        }
+    }
+
+    private List<String> split(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split(WORD_SEPARATORS)) {
+            if (!word.isEmpty()) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
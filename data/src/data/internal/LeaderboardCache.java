@@ -0,0 +1,175 @@
+package data.internal;
+
+import data.external.UserScore;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the best scores of every game that has been looked at in memory, so that showing the leaderboard of a game
+ * costs the same no matter how many scores have been saved for it.  The leaderboard of a game is read from the
+ * backend the first time it is asked for, kept up to date as scores are saved through this program, and read again
+ * once it is older than the maximum age so that scores saved by other players show up too
+ */
+public class LeaderboardCache {
+
+    /**
+     * System property that sets how many of the best scores of each game are kept in memory
+     */
+    public static final String SIZE_PROPERTY = "byteme.leaderboard.size";
+    /**
+     * System property that sets after how many seconds a leaderboard is read from the backend again
+     */
+    public static final String MAX_AGE_PROPERTY = "byteme.leaderboard.maxAge";
+    /**
+     * Order of a leaderboard: highest score first, ties broken by user name and then by the ID the score was saved
+     * under, so that no two saved scores rank the same and every page has a well defined last entry to continue after
+     */
+    public static final Comparator<UserScore> RANKING = Comparator.<UserScore>naturalOrder()
+            .thenComparing(UserScore::getUserName).thenComparingLong(UserScore::getScoreID);
+
+    private static final int DEFAULT_SIZE = 100;
+    private static final long DEFAULT_MAX_AGE_SECONDS = 60;
+    private static final long MILLIS_PER_SECOND = 1000;
+
+    private StorageBackend myBackend;
+    private int mySize;
+    private long myMaxAgeMillis;
+    private Map<GamePrimaryKey, Leaderboard> myLeaderboards;
+
+    /**
+     * Creates an empty cache of the leaderboards saved in backend, sized by the byteme.leaderboard system properties
+     *
+     * @param backend backend the scores are saved in
+     */
+    public LeaderboardCache(StorageBackend backend) {
+        this(backend, Integer.getInteger(SIZE_PROPERTY, DEFAULT_SIZE),
+                Long.getLong(MAX_AGE_PROPERTY, DEFAULT_MAX_AGE_SECONDS));
+    }
+
+    /**
+     * Creates an empty cache of the leaderboards saved in backend
+     *
+     * @param backend       backend the scores are saved in
+     * @param size          how many of the best scores of each game are kept in memory
+     * @param maxAgeSeconds after how many seconds a leaderboard is read from the backend again
+     */
+    public LeaderboardCache(StorageBackend backend, int size, long maxAgeSeconds) {
+        myBackend = backend;
+        mySize = Math.max(1, size);
+        myMaxAgeMillis = maxAgeSeconds * MILLIS_PER_SECOND;
+        myLeaderboards = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the best scores of a game, from memory unless more scores are asked for than are kept
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param limit      maximum number of scores to return
+     * @return the best scores of the game in the order of RANKING
+     * @throws SQLException if the leaderboard has to be read and that fails
+     */
+    public List<UserScore> getTopScores(String gameName, String authorName, int limit) throws SQLException {
+        if (limit > mySize) {
+            return myBackend.loadScorePage(gameName, authorName, null, limit);
+        }
+        Leaderboard leaderboard = myLeaderboards.get(new GamePrimaryKey(gameName, authorName));
+        if (leaderboard == null || leaderboard.isOlderThan(myMaxAgeMillis)) {
+            leaderboard = rebuild(gameName, authorName);
+        }
+        return leaderboard.getTop(limit);
+    }
+
+    /**
+     * Reads the best scores of a game from the backend again, replacing what is kept in memory
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @return the rebuilt leaderboard
+     * @throws SQLException if reading the scores fails
+     */
+    public Leaderboard rebuild(String gameName, String authorName) throws SQLException {
+        Leaderboard leaderboard = new Leaderboard(myBackend.loadScorePage(gameName, authorName, null, mySize), mySize);
+        myLeaderboards.put(new GamePrimaryKey(gameName, authorName), leaderboard);
+        return leaderboard;
+    }
+
+    /**
+     * Adds scores that were just saved to the leaderboard of their game if it is in memory.  A leaderboard that isn't
+     * in memory yet will include them when it is read
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param scores     scores that were saved
+     */
+    public void recordScores(String gameName, String authorName, Collection<UserScore> scores) {
+        Leaderboard leaderboard = myLeaderboards.get(new GamePrimaryKey(gameName, authorName));
+        if (leaderboard != null) {
+            leaderboard.addAll(scores);
+        }
+    }
+
+    /**
+     * Drops the leaderboard of a game from memory, e.g. after scores were removed
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     */
+    public void invalidate(String gameName, String authorName) {
+        myLeaderboards.remove(new GamePrimaryKey(gameName, authorName));
+    }
+
+    /**
+     * The best scores of one game, sorted by RANKING and never longer than the size of the cache
+     */
+    public static class Leaderboard {
+
+        private List<UserScore> myScores;
+        private int mySize;
+        private long myBuiltAt;
+
+        private Leaderboard(List<UserScore> bestScores, int size) {
+            myScores = new ArrayList<>(bestScores);
+            myScores.sort(RANKING);
+            mySize = size;
+            myBuiltAt = System.currentTimeMillis();
+        }
+
+        /**
+         * Returns the best scores on the leaderboard
+         *
+         * @param limit maximum number of scores to return
+         * @return copy of the best limit scores
+         */
+        public synchronized List<UserScore> getTop(int limit) {
+            return new ArrayList<>(myScores.subList(0, Math.min(limit, myScores.size())));
+        }
+
+        // A score that ranks below every kept score when the leaderboard is full can't be on it
+        private synchronized void addAll(Collection<UserScore> scores) {
+            for (UserScore score : scores) {
+                int position = Collections.binarySearch(myScores, score, RANKING);
+                if (position < 0) {
+                    position = -position - 1;
+                }
+                if (position < mySize) {
+                    myScores.add(position, score);
+                    if (myScores.size() > mySize) {
+                        myScores.remove(myScores.size() - 1);
+                    }
+                }
+            }
+        }
+
+        private boolean isOlderThan(long maxAgeMillis) {
+            return System.currentTimeMillis() - myBuiltAt > maxAgeMillis;
+        }
+    }
+}
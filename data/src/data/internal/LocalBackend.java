@@ -0,0 +1,977 @@
+package data.internal;
+
+import data.external.AssetIterator;
+import data.external.CheckpointInfo;
+import data.external.GameRating;
+import data.external.RatingSummary;
+import data.external.UserScore;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.NoSuchAlgorithmException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Timestamp;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * A StorageBackend that keeps everything in a directory on the local disk instead of the remote database, so that
+ * games can be played offline and load tests do not touch the shared database
+ * Every table of the database is a directory, and every row a file named after its (encoded) key:
+ * <pre>
+ * games/gameName/authorName/game_data.xml, game_info.xml, levels/levelNumber.xml
+ * images/imageName, sounds/soundName
+ * users/userName/password, bio, profile_picture
+ * ratings/gameName/authorName/userName.properties
+ * checkpoints/userName/gameName/authorName/time.xml, time.properties
+ * statistics/gameName/authorName/userName.scores
+ * thumbnails/sourceName/size
+ * </pre>
+ * The directories are created by the schema bootstrap when the backend is opened for the first time
+ */
+public class LocalBackend implements StorageBackend {
+
+    private static final String DEFAULT_DIRECTORY = "local_database";
+    private static final String SCHEMA_VERSION_FILE = "schema_version";
+    private static final String SCHEMA_VERSION = "1";
+    private static final List<String> TABLES = List.of("games", "images", "sounds", "users", "ratings", "checkpoints",
+            "statistics", "thumbnails");
+
+    private static final String GAMES = "games";
+    private static final String IMAGES = "images";
+    private static final String SOUNDS = "sounds";
+    private static final String USERS = "users";
+    private static final String RATINGS = "ratings";
+    private static final String CHECKPOINTS = "checkpoints";
+    private static final String STATISTICS = "statistics";
+    private static final String THUMBNAILS = "thumbnails";
+
+    private static final String GAME_DATA_FILE = "game_data.xml";
+    private static final String GAME_INFO_FILE = "game_info.xml";
+    private static final String LEVELS_DIRECTORY = "levels";
+    private static final String PASSWORD_FILE = "password";
+    private static final String BIO_FILE = "bio";
+    private static final String PROFILE_PIC_FILE = "profile_picture";
+    private static final String XML_EXTENSION = ".xml";
+    private static final String RATING_EXTENSION = ".properties";
+    private static final String CHECKPOINT_DESCRIPTION_EXTENSION = ".properties";
+    private static final String SCORES_EXTENSION = ".scores";
+    private static final String TEMPORARY_EXTENSION = ".tmp";
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final String RATING_KEY = "Rating";
+    private static final String COMMENTS_KEY = "Comments";
+    private static final String LEVEL_NUMBER_KEY = "LevelNumber";
+    private static final String SCORE_KEY = "Score";
+    private static final String FULL_KEY = "Full";
+
+    private static final String COULD_NOT_OPEN = "Couldn't open local database: ";
+    private static final String UNKNOWN_SCHEMA = "Local database has unknown schema version ";
+    private static final String COULD_NOT_SAVE_THE_ASSET = "Could not save the asset: ";
+    private static final String COULD_NOT_LOAD_ASSET = "Could not load asset: ";
+    private static final String USER_EXISTS = "User already exists: ";
+    private static final String NO_SUCH_USER = "No such user: ";
+
+    private Path myRoot;
+
+    /**
+     * LocalBackend constructor that keeps the data in the local_database directory of the working directory
+     */
+    public LocalBackend() {
+        this(new File(DEFAULT_DIRECTORY));
+    }
+
+    /**
+     * LocalBackend constructor
+     *
+     * @param directory directory to keep the data in, created if it does not exist
+     */
+    public LocalBackend(File directory) {
+        myRoot = directory.toPath();
+    }
+
+    @Override
+    public synchronized boolean open() {
+        try {
+            return bootstrapSchema();
+        } catch (IOException e) {
+            System.out.println(COULD_NOT_OPEN + e.getMessage());
+            return false;
+        }
+    }
+
+    // Creates every table of an empty local database, and refuses to open one written with a different layout
+    private boolean bootstrapSchema() throws IOException {
+        Path versionFile = myRoot.resolve(SCHEMA_VERSION_FILE);
+        if (Files.exists(versionFile)) {
+            String version = Files.readString(versionFile, StandardCharsets.UTF_8).trim();
+            if (!version.equals(SCHEMA_VERSION)) {
+                System.out.println(UNKNOWN_SCHEMA + version);
+                return false;
+            }
+        }
+        for (String table : TABLES) {
+            Files.createDirectories(myRoot.resolve(table));
+        }
+        if (!Files.exists(versionFile)) {
+            Files.writeString(versionFile, SCHEMA_VERSION, StandardCharsets.UTF_8);
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        // every operation closes its own files
+    }
+
+    @Override
+    public synchronized void updateGameEntryData(String gameName, String authorName, String myRawXML) throws SQLException {
+        writeString(gameDirectory(gameName, authorName).resolve(GAME_DATA_FILE), myRawXML);
+    }
+
+    @Override
+    public synchronized void updateGameEntryInfo(String gameName, String authorName, String myRawXML) throws SQLException {
+        writeString(gameDirectory(gameName, authorName).resolve(GAME_INFO_FILE), myRawXML);
+    }
+
+    @Override
+    public synchronized List<String> loadAllGameInformationXMLs() throws SQLException {
+        List<String> gameInformations = new ArrayList<>();
+        for (Path game : list(myRoot.resolve(GAMES))) {
+            for (Path author : list(game)) {
+                addIfPresent(gameInformations, readString(author.resolve(GAME_INFO_FILE)));
+            }
+        }
+        return gameInformations;
+    }
+
+    @Override
+    public synchronized List<String> loadAllGameInformationXMLs(String userName) throws SQLException {
+        List<String> gameInformations = new ArrayList<>();
+        for (Path game : list(myRoot.resolve(GAMES))) {
+            addIfPresent(gameInformations, readString(game.resolve(encode(userName)).resolve(GAME_INFO_FILE)));
+        }
+        return gameInformations;
+    }
+
+    @Override
+    public synchronized List<SerializedGameInfo> loadGameInfoChangedSince(Timestamp since) throws SQLException {
+        List<SerializedGameInfo> gameInformations = new ArrayList<>();
+        for (Path game : list(myRoot.resolve(GAMES))) {
+            for (Path author : list(game)) {
+                Path gameInfo = author.resolve(GAME_INFO_FILE);
+                if (Files.exists(gameInfo)) {
+                    Timestamp modified = lastModified(gameInfo);
+                    if (since == null || !modified.before(since)) {
+                        gameInformations.add(new SerializedGameInfo(decode(game), decode(author),
+                                readString(gameInfo), modified));
+                    }
+                }
+            }
+        }
+        return gameInformations;
+    }
+
+    @Override
+    public synchronized List<GamePrimaryKey> loadGameInfoKeys() throws SQLException {
+        List<GamePrimaryKey> games = new ArrayList<>();
+        for (Path game : list(myRoot.resolve(GAMES))) {
+            for (Path author : list(game)) {
+                if (Files.exists(author.resolve(GAME_INFO_FILE))) {
+                    games.add(new GamePrimaryKey(decode(game), decode(author)));
+                }
+            }
+        }
+        return games;
+    }
+
+    @Override
+    public synchronized String loadGameData(String gameName, String authorName) throws SQLException {
+        return readString(gameDirectory(gameName, authorName).resolve(GAME_DATA_FILE));
+    }
+
+    @Override
+    public synchronized String loadGameInfo(String gameName, String authorName) throws SQLException {
+        return readString(gameDirectory(gameName, authorName).resolve(GAME_INFO_FILE));
+    }
+
+    @Override
+    public synchronized void saveGameLevels(String gameName, String authorName, List<String> levelXMLs) throws SQLException {
+        Path levels = gameDirectory(gameName, authorName).resolve(LEVELS_DIRECTORY);
+        for (int i = 0; i < levelXMLs.size(); i++) {
+            writeString(levels.resolve((i + 1) + XML_EXTENSION), levelXMLs.get(i));
+        }
+        for (Path level : list(levels)) {
+            if (fileNumber(level) > levelXMLs.size()) {
+                delete(level);
+            }
+        }
+    }
+
+    // Files can't be written in one transaction, but the manifest is only written once every level has been
+    @Override
+    public synchronized void saveChunkedGameData(String gameName, String authorName, List<String> levelXMLs,
+                                                 String manifestXML) throws SQLException {
+        saveGameLevels(gameName, authorName, levelXMLs);
+        updateGameEntryData(gameName, authorName, manifestXML);
+    }
+
+    @Override
+    public synchronized String loadGameLevel(String gameName, String authorName, int levelNumber) throws SQLException {
+        return readString(gameDirectory(gameName, authorName).resolve(LEVELS_DIRECTORY).resolve(levelNumber + XML_EXTENSION));
+    }
+
+    @Override
+    public synchronized int countGameLevels(String gameName, String authorName) throws SQLException {
+        int levelCount = 0;
+        for (Path level : list(gameDirectory(gameName, authorName).resolve(LEVELS_DIRECTORY))) {
+            if (level.getFileName().toString().endsWith(XML_EXTENSION)) {
+                levelCount++;
+            }
+        }
+        return levelCount;
+    }
+
+    @Override
+    public synchronized List<String> loadAllGameNames(String userName) throws SQLException {
+        List<String> gameNames = new ArrayList<>();
+        for (Path game : list(myRoot.resolve(GAMES))) {
+            if (Files.exists(game.resolve(encode(userName)))) {
+                gameNames.add(decode(game));
+            }
+        }
+        return gameNames;
+    }
+
+    @Override
+    public synchronized boolean removeGame(String gameName, String authorName) throws SQLException {
+        return delete(gameDirectory(gameName, authorName));
+    }
+
+    @Override
+    public synchronized void saveImage(String imageName, File imageToSave) {
+        saveAsset(myRoot.resolve(IMAGES).resolve(encode(imageName)), imageToSave);
+    }
+
+    @Override
+    public synchronized void saveSound(String soundName, File soundToSave) {
+        saveAsset(myRoot.resolve(SOUNDS).resolve(encode(soundName)), soundToSave);
+    }
+
+    private void saveAsset(Path asset, File assetToSave) {
+        try {
+            copyFile(assetToSave.toPath(), asset);
+        } catch (IOException e) {
+            System.out.println(COULD_NOT_SAVE_THE_ASSET + e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized int saveImages(Map<String, File> imagesToSave) throws SQLException {
+        return saveAssets(myRoot.resolve(IMAGES), imagesToSave);
+    }
+
+    @Override
+    public synchronized int saveSounds(Map<String, File> soundsToSave) throws SQLException {
+        return saveAssets(myRoot.resolve(SOUNDS), soundsToSave);
+    }
+
+    private int saveAssets(Path table, Map<String, File> assetsToSave) throws SQLException {
+        int saved = 0;
+        try {
+            for (Map.Entry<String, File> asset : assetsToSave.entrySet()) {
+                Path savedAsset = table.resolve(encode(asset.getKey()));
+                if (!isSameContent(savedAsset, asset.getValue().toPath())) {
+                    copyFile(asset.getValue().toPath(), savedAsset);
+                    saved++;
+                }
+            }
+        } catch (IOException e) {
+            throw new SQLException(COULD_NOT_SAVE_THE_ASSET + e.getMessage(), e);
+        }
+        return saved;
+    }
+
+    // Copies to a temporary file first and moves it into place, like writeString, so that a crash during the copy
+    // never leaves half an asset behind
+    private void copyFile(Path source, Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY_EXTENSION);
+        Files.copy(source, temporary, StandardCopyOption.REPLACE_EXISTING);
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private boolean isSameContent(Path savedAsset, Path assetToSave) throws IOException {
+        if (!Files.exists(savedAsset) || Files.size(savedAsset) != Files.size(assetToSave)) {
+            return false;
+        }
+        try (InputStream saved = Files.newInputStream(savedAsset); InputStream toSave = Files.newInputStream(assetToSave)) {
+            byte[] savedChunk = new byte[CHUNK_SIZE];
+            byte[] chunkToSave = new byte[CHUNK_SIZE];
+            int read;
+            while ((read = saved.readNBytes(savedChunk, 0, CHUNK_SIZE)) > 0) {
+                if (toSave.readNBytes(chunkToSave, 0, CHUNK_SIZE) != read
+                        || !Arrays.equals(savedChunk, 0, read, chunkToSave, 0, read)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public synchronized InputStream loadImage(String imageName) {
+        return loadAsset(myRoot.resolve(IMAGES).resolve(encode(imageName)));
+    }
+
+    @Override
+    public synchronized InputStream loadSound(String soundName) {
+        return loadAsset(myRoot.resolve(SOUNDS).resolve(encode(soundName)));
+    }
+
+    private InputStream loadAsset(Path asset) {
+        try {
+            return readBytes(asset);
+        } catch (SQLException e) {
+            System.out.println(COULD_NOT_LOAD_ASSET + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized Map<String, InputStream> loadAllImages(String prefix) throws SQLException {
+        return loadAllAssets(myRoot.resolve(IMAGES), prefix);
+    }
+
+    @Override
+    public synchronized Map<String, InputStream> loadAllSounds(String prefix) throws SQLException {
+        return loadAllAssets(myRoot.resolve(SOUNDS), prefix);
+    }
+
+    private Map<String, InputStream> loadAllAssets(Path table, String prefix) throws SQLException {
+        Map<String, InputStream> allAssets = new HashMap<>();
+        for (Path asset : list(table)) {
+            String assetName = decode(asset);
+            if (assetName.startsWith(prefix)) {
+                allAssets.put(assetName, readBytes(asset));
+            }
+        }
+        return allAssets;
+    }
+
+    @Override
+    public synchronized AssetIterator iterateImages(String prefix) throws SQLException {
+        return iterateAssets(myRoot.resolve(IMAGES), prefix);
+    }
+
+    @Override
+    public synchronized AssetIterator iterateSounds(String prefix) throws SQLException {
+        return iterateAssets(myRoot.resolve(SOUNDS), prefix);
+    }
+
+    // Only the names are listed up front, each file is opened when the iterator gets to it
+    private AssetIterator iterateAssets(Path table, String prefix) throws SQLException {
+        List<Path> assets = list(table);
+        assets.removeIf(asset -> !decode(asset).startsWith(prefix));
+        return new FileAssetIterator(assets);
+    }
+
+    @Override
+    public synchronized boolean removeImage(String imageName) throws SQLException {
+        return delete(myRoot.resolve(IMAGES).resolve(encode(imageName)));
+    }
+
+    @Override
+    public synchronized boolean removeSound(String soundName) throws SQLException {
+        return delete(myRoot.resolve(SOUNDS).resolve(encode(soundName)));
+    }
+
+    @Override
+    public synchronized boolean createUser(String userName, String password) throws SQLException {
+        Path user = userDirectory(userName);
+        if (Files.exists(user)) {
+            throw new SQLIntegrityConstraintViolationException(USER_EXISTS + userName);
+        }
+        writeString(user.resolve(PASSWORD_FILE), hash(password));
+        return true;
+    }
+
+    @Override
+    public synchronized boolean authenticateUser(String userName, String password) {
+        try {
+            String storedHash = readString(userDirectory(userName).resolve(PASSWORD_FILE));
+            return storedHash != null && storedHash.equals(hash(password));
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized boolean updatePassword(String userName, String newPassword) throws SQLException {
+        Path user = userDirectory(userName);
+        if (!Files.exists(user)) {
+            return false;
+        }
+        writeString(user.resolve(PASSWORD_FILE), hash(newPassword));
+        return true;
+    }
+
+    @Override
+    public synchronized boolean removeUser(String userName) throws SQLException {
+        return delete(userDirectory(userName));
+    }
+
+    @Override
+    public synchronized void setProfilePic(String userName, File profilePic) throws SQLException {
+        Path user = userDirectory(userName);
+        if (Files.exists(user)) {
+            try {
+                Files.copy(profilePic.toPath(), user.resolve(PROFILE_PIC_FILE), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void setBio(String userName, String bio) throws SQLException {
+        Path user = userDirectory(userName);
+        if (Files.exists(user)) {
+            writeString(user.resolve(BIO_FILE), bio);
+        }
+    }
+
+    @Override
+    public synchronized InputStream getProfilePic(String userName) throws SQLException {
+        return readBytes(existingUserDirectory(userName).resolve(PROFILE_PIC_FILE));
+    }
+
+    @Override
+    public synchronized byte[] loadThumbnail(String sourceName, int size) throws SQLException {
+        Path thumbnail = myRoot.resolve(THUMBNAILS).resolve(encode(sourceName)).resolve(Integer.toString(size));
+        if (!Files.exists(thumbnail)) {
+            return null;
+        }
+        try {
+            return Files.readAllBytes(thumbnail);
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized void saveThumbnail(String sourceName, int size, byte[] thumbnail) throws SQLException {
+        Path file = myRoot.resolve(THUMBNAILS).resolve(encode(sourceName)).resolve(Integer.toString(size));
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY_EXTENSION);
+            Files.write(temporary, thumbnail);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized int removeThumbnails(Collection<String> sourceNames) throws SQLException {
+        int removed = 0;
+        for (String sourceName : sourceNames) {
+            if (delete(myRoot.resolve(THUMBNAILS).resolve(encode(sourceName)))) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized String getBio(String userName) throws SQLException {
+        return readString(existingUserDirectory(userName).resolve(BIO_FILE));
+    }
+
+    @Override
+    public synchronized void addGameRating(GameRating rating) throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty(RATING_KEY, Integer.toString(rating.getNumberOfStars()));
+        if (rating.getComment() != null) {
+            properties.setProperty(COMMENTS_KEY, rating.getComment());
+        }
+        Path ratingFile = myRoot.resolve(RATINGS).resolve(encode(rating.getGameName()))
+                .resolve(encode(rating.getAuthorName())).resolve(encode(rating.getUsername()) + RATING_EXTENSION);
+        try {
+            Files.createDirectories(ratingFile.getParent());
+            try (Writer writer = Files.newBufferedWriter(ratingFile, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+            if (rating.getTime() != null) {
+                Files.setLastModifiedTime(ratingFile, FileTime.fromMillis(rating.getTime().getTime()));
+            }
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public synchronized int addGameRatings(Collection<GameRating> ratings) throws SQLException {
+        for (GameRating rating : ratings) {
+            addGameRating(rating);
+        }
+        return ratings.size();
+    }
+
+    @Override
+    public synchronized double getAverageRating(String gameName) throws SQLException {
+        return getRatingSummary(gameName).getAverage();
+    }
+
+    @Override
+    public synchronized List<GameRating> getAllRatings(String gameName) throws SQLException {
+        List<GameRating> gameRatings = new ArrayList<>();
+        for (Path author : list(myRoot.resolve(RATINGS).resolve(encode(gameName)))) {
+            for (Path ratingFile : list(author)) {
+                Properties properties = new Properties();
+                try (Reader reader = Files.newBufferedReader(ratingFile, StandardCharsets.UTF_8)) {
+                    properties.load(reader);
+                } catch (IOException e) {
+                    throw new SQLException(e.getMessage(), e);
+                }
+                String userName = decode(ratingFile);
+                gameRatings.add(new GameRating(userName.substring(0, userName.length() - RATING_EXTENSION.length()),
+                        gameName, decode(author), Integer.parseInt(properties.getProperty(RATING_KEY)),
+                        properties.getProperty(COMMENTS_KEY), lastModified(ratingFile)));
+            }
+        }
+        return gameRatings;
+    }
+
+    @Override
+    public synchronized List<GameRating> getRatingPage(String gameName, GameRating after, int limit) throws SQLException {
+        Comparator<GameRating> newestFirst = Comparator.comparing(GameRating::getTime).reversed()
+                .thenComparing(GameRating::getUsername);
+        List<GameRating> gameRatings = getAllRatings(gameName);
+        gameRatings.sort(newestFirst);
+        int start = 0;
+        if (after != null) {
+            while (start < gameRatings.size() && newestFirst.compare(gameRatings.get(start), after) <= 0) {
+                start++;
+            }
+        }
+        return new ArrayList<>(gameRatings.subList(start, Math.min(gameRatings.size(), start + limit)));
+    }
+
+    // The local database is small enough that its totals are computed from the ratings whenever they are asked for
+    @Override
+    public synchronized RatingSummary getRatingSummary(String gameName) throws SQLException {
+        return summarize(getAllRatings(gameName));
+    }
+
+    @Override
+    public synchronized Map<String, RatingSummary> getAllRatingSummaries() throws SQLException {
+        Map<String, RatingSummary> summaries = new HashMap<>();
+        for (Path game : list(myRoot.resolve(RATINGS))) {
+            RatingSummary summary = getRatingSummary(decode(game));
+            if (summary.getCount() > 0) {
+                summaries.put(decode(game), summary);
+            }
+        }
+        return summaries;
+    }
+
+    @Override
+    public synchronized int rebuildRatingTotals() throws SQLException {
+        return getAllRatingSummaries().size();
+    }
+
+    private RatingSummary summarize(List<GameRating> ratings) {
+        int[] starCounts = new int[RatingSummary.MAX_STARS];
+        long sum = 0;
+        for (GameRating rating : ratings) {
+            sum += rating.getNumberOfStars();
+            int stars = rating.getNumberOfStars();
+            if (stars >= 1 && stars <= RatingSummary.MAX_STARS) {
+                starCounts[stars - 1]++;
+            }
+        }
+        return new RatingSummary(ratings.size(), sum, starCounts);
+    }
+
+    @Override
+    public synchronized void removeRating(String gameName, String authorName) throws SQLException {
+        delete(myRoot.resolve(RATINGS).resolve(encode(gameName)).resolve(encode(authorName)));
+    }
+
+    @Override
+    public synchronized void saveCheckpoint(String userName, String gameName, String authorName, String rawXML,
+                                            Integer levelNumber, Double score, boolean full, Timestamp madeAt)
+            throws SQLException {
+        Path checkpoints = checkpointDirectory(userName, gameName, authorName);
+        long time = madeAt == null ? System.currentTimeMillis() : madeAt.getTime();
+        while (Files.exists(checkpoints.resolve(time + XML_EXTENSION))) {
+            time++;
+        }
+        // the description is written first, so that every checkpoint that can be listed has one
+        Properties properties = new Properties();
+        if (levelNumber != null) {
+            properties.setProperty(LEVEL_NUMBER_KEY, levelNumber.toString());
+        }
+        if (score != null) {
+            properties.setProperty(SCORE_KEY, score.toString());
+        }
+        properties.setProperty(FULL_KEY, Boolean.toString(full));
+        StringWriter description = new StringWriter();
+        try {
+            properties.store(description, null);
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+        writeString(checkpoints.resolve(time + CHECKPOINT_DESCRIPTION_EXTENSION), description.toString());
+        writeString(checkpoints.resolve(time + XML_EXTENSION), rawXML);
+    }
+
+    @Override
+    public synchronized Map<Timestamp, String> getCheckpoints(String userName, String gameName, String authorName) throws SQLException {
+        Map<Timestamp, String> checkpoints = new HashMap<>();
+        for (Path checkpoint : listCheckpoints(userName, gameName, authorName)) {
+            checkpoints.put(new Timestamp(fileNumber(checkpoint)), readString(checkpoint));
+        }
+        return checkpoints;
+    }
+
+    @Override
+    public synchronized List<CheckpointInfo> getCheckpointInfo(String userName, String gameName, String authorName) throws SQLException {
+        List<CheckpointInfo> checkpoints = new ArrayList<>();
+        for (Path checkpoint : listCheckpoints(userName, gameName, authorName)) {
+            Properties properties = new Properties();
+            String description = readString(checkpointDescription(checkpoint));
+            try {
+                if (description != null) {
+                    properties.load(new StringReader(description));
+                }
+                String levelNumber = properties.getProperty(LEVEL_NUMBER_KEY);
+                String score = properties.getProperty(SCORE_KEY);
+                checkpoints.add(new CheckpointInfo(new Timestamp(fileNumber(checkpoint)),
+                        levelNumber == null ? null : Integer.valueOf(levelNumber),
+                        score == null ? null : Double.valueOf(score), Files.size(checkpoint),
+                        !Boolean.FALSE.toString().equals(properties.getProperty(FULL_KEY))));
+            } catch (IOException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }
+        checkpoints.sort(Comparator.comparing(CheckpointInfo::getTime).reversed());
+        return checkpoints;
+    }
+
+    @Override
+    public synchronized String loadCheckpoint(String userName, String gameName, String authorName, Timestamp time) throws SQLException {
+        return readString(checkpointDirectory(userName, gameName, authorName).resolve(time.getTime() + XML_EXTENSION));
+    }
+
+    @Override
+    public synchronized int removeCheckpointsBefore(String userName, String gameName, String authorName, Timestamp time) throws SQLException {
+        int removed = 0;
+        for (Path checkpoint : listCheckpoints(userName, gameName, authorName)) {
+            if (fileNumber(checkpoint) < time.getTime()) {
+                delete(checkpoint);
+                delete(checkpointDescription(checkpoint));
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized void deleteCheckpoint(String userName, String gameName, String authorName) throws SQLException {
+        delete(checkpointDirectory(userName, gameName, authorName));
+    }
+
+    @Override
+    public synchronized void saveScore(String userName, String gameName, String authorName, Double score) throws SQLException {
+        Path scores = scoresFile(userName, gameName, authorName);
+        try {
+            Files.createDirectories(scores.getParent());
+            Files.writeString(scores, score + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    // The scores are grouped by user so that each user's file is only appended to once
+    @Override
+    public synchronized int saveScores(String gameName, String authorName, Collection<UserScore> scores) throws SQLException {
+        Map<String, StringBuilder> scoresByUser = new HashMap<>();
+        for (UserScore score : scores) {
+            scoresByUser.computeIfAbsent(score.getUserName(), userName -> new StringBuilder())
+                    .append(score.getScore()).append(System.lineSeparator());
+        }
+        for (Map.Entry<String, StringBuilder> userScores : scoresByUser.entrySet()) {
+            Path scoresFile = scoresFile(userScores.getKey(), gameName, authorName);
+            try {
+                Files.createDirectories(scoresFile.getParent());
+                Files.writeString(scoresFile, userScores.getValue(), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            } catch (IOException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }
+        return scores.size();
+    }
+
+    // The line a score is saved on in its user's file serves as its ID, the same way the ScoreID tells apart equal
+    // scores of a user in the database
+    @Override
+    public synchronized List<UserScore> loadScores(String gameName, String authorName) throws SQLException {
+        List<UserScore> userScores = new ArrayList<>();
+        for (Path scores : list(myRoot.resolve(STATISTICS).resolve(encode(gameName)).resolve(encode(authorName)))) {
+            String userName = decode(scores);
+            userName = userName.substring(0, userName.length() - SCORES_EXTENSION.length());
+            try {
+                List<String> lines = Files.readAllLines(scores, StandardCharsets.UTF_8);
+                for (int line = 0; line < lines.size(); line++) {
+                    if (!lines.get(line).isBlank()) {
+                        userScores.add(new UserScore(userName, Double.parseDouble(lines.get(line)), line));
+                    }
+                }
+            } catch (IOException e) {
+                throw new SQLException(e.getMessage(), e);
+            }
+        }
+        Collections.sort(userScores);
+        return userScores;
+    }
+
+    @Override
+    public synchronized List<UserScore> loadScorePage(String gameName, String authorName, UserScore after, int limit) throws SQLException {
+        List<UserScore> userScores = loadScores(gameName, authorName);
+        userScores.sort(LeaderboardCache.RANKING);
+        int start = 0;
+        if (after != null) {
+            while (start < userScores.size() && LeaderboardCache.RANKING.compare(userScores.get(start), after) <= 0) {
+                start++;
+            }
+        }
+        return new ArrayList<>(userScores.subList(start, Math.min(userScores.size(), start + limit)));
+    }
+
+    @Override
+    public synchronized Double loadBestScore(String userName, String gameName, String authorName) throws SQLException {
+        Double bestScore = null;
+        for (UserScore score : loadScores(gameName, authorName)) {
+            if (score.getUserName().equals(userName) && (bestScore == null || score.getScore() > bestScore)) {
+                bestScore = score.getScore();
+            }
+        }
+        return bestScore;
+    }
+
+    @Override
+    public synchronized void removeScores(String userName, String gameName, String authorName) throws SQLException {
+        delete(scoresFile(userName, gameName, authorName));
+    }
+
+    private Path gameDirectory(String gameName, String authorName) {
+        return myRoot.resolve(GAMES).resolve(encode(gameName)).resolve(encode(authorName));
+    }
+
+    private Path userDirectory(String userName) {
+        return myRoot.resolve(USERS).resolve(encode(userName));
+    }
+
+    private Path existingUserDirectory(String userName) throws SQLException {
+        Path user = userDirectory(userName);
+        if (!Files.exists(user)) {
+            throw new SQLException(NO_SUCH_USER + userName);
+        }
+        return user;
+    }
+
+    private Path checkpointDirectory(String userName, String gameName, String authorName) {
+        return myRoot.resolve(CHECKPOINTS).resolve(encode(userName)).resolve(encode(gameName)).resolve(encode(authorName));
+    }
+
+    private List<Path> listCheckpoints(String userName, String gameName, String authorName) throws SQLException {
+        List<Path> checkpoints = list(checkpointDirectory(userName, gameName, authorName));
+        checkpoints.removeIf(file -> !file.getFileName().toString().endsWith(XML_EXTENSION));
+        return checkpoints;
+    }
+
+    private Path checkpointDescription(Path checkpoint) {
+        return checkpoint.resolveSibling(fileNumber(checkpoint) + CHECKPOINT_DESCRIPTION_EXTENSION);
+    }
+
+    private Path scoresFile(String userName, String gameName, String authorName) {
+        return myRoot.resolve(STATISTICS).resolve(encode(gameName)).resolve(encode(authorName))
+                .resolve(encode(userName) + SCORES_EXTENSION);
+    }
+
+    // Keys become file names, so everything that could be read as a path (separators, "." and "..") is escaped
+    private String encode(String key) {
+        return URLEncoder.encode(key, StandardCharsets.UTF_8).replace(".", "%2E").replace("*", "%2A");
+    }
+
+    private String decode(Path file) {
+        return URLDecoder.decode(file.getFileName().toString(), StandardCharsets.UTF_8);
+    }
+
+    private long fileNumber(Path file) {
+        String fileName = file.getFileName().toString();
+        return Long.parseLong(fileName.substring(0, fileName.length() - XML_EXTENSION.length()));
+    }
+
+    private String hash(String password) throws SQLException {
+        try {
+            return UserQuerier.generateHashedPassword(password);
+        } catch (NoSuchAlgorithmException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    private void addIfPresent(List<String> list, String value) {
+        if (value != null) {
+            list.add(value);
+        }
+    }
+
+    private List<Path> list(Path directory) throws SQLException {
+        List<Path> files = listAll(directory);
+        files.removeIf(file -> file.getFileName().toString().endsWith(TEMPORARY_EXTENSION));
+        return files;
+    }
+
+    private List<Path> listAll(Path directory) throws SQLException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+        files.sort(Comparator.naturalOrder());
+        return files;
+    }
+
+    private String readString(Path file) throws SQLException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    private Timestamp lastModified(Path file) throws SQLException {
+        try {
+            return new Timestamp(Files.getLastModifiedTime(file).toMillis());
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    private InputStream readBytes(Path file) throws SQLException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return new ByteArrayInputStream(Files.readAllBytes(file));
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    // Writes to a temporary file first and moves it into place, so that a crash never leaves half a row behind
+    private void writeString(Path file, String value) throws SQLException {
+        try {
+            Files.createDirectories(file.getParent());
+            Path temporary = file.resolveSibling(file.getFileName() + TEMPORARY_EXTENSION);
+            Files.writeString(temporary, value, StandardCharsets.UTF_8);
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    private boolean delete(Path file) throws SQLException {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try {
+            for (Path child : listAll(file)) {
+                delete(child);
+            }
+            Files.deleteIfExists(file);
+            return true;
+        } catch (IOException e) {
+            throw new SQLException(e.getMessage(), e);
+        }
+    }
+
+    // Streams the files of a table one at a time, closing the stream of each asset when it moves on to the next
+    private class FileAssetIterator implements AssetIterator {
+
+        private Iterator<Path> myAssets;
+        private InputStream myCurrentAsset;
+
+        private FileAssetIterator(List<Path> assets) {
+            myAssets = assets.iterator();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return myAssets.hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, InputStream> next() {
+            close();
+            Path asset = myAssets.next();
+            try {
+                myCurrentAsset = Files.newInputStream(asset);
+            } catch (IOException e) {
+                throw new IllegalStateException(COULD_NOT_LOAD_ASSET + e.getMessage(), new SQLException(e));
+            }
+            return new AbstractMap.SimpleImmutableEntry<>(decode(asset), myCurrentAsset);
+        }
+
+        @Override
+        public void close() {
+            if (myCurrentAsset == null) {
+                return;
+            }
+            try {
+                myCurrentAsset.close();
+            } catch (IOException e) {
+                // nothing was written, so there is nothing to lose
+            }
+            myCurrentAsset = null;
+        }
+    }
+}
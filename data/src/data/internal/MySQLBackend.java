@@ -0,0 +1,416 @@
+package data.internal;
+
+import data.external.AssetIterator;
+import data.external.CheckpointInfo;
+import data.external.ConnectionPoolMetrics;
+import data.external.GameRating;
+import data.external.RatingSummary;
+import data.external.StatementMetrics;
+import data.external.UserScore;
+
+import java.io.File;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The StorageBackend for the remote MySQL database shared by every copy of the program
+ * It keeps a pool of connections to the database and has several Querier objects that it delegates the
+ * responsibilities of querying the database to.  Every query borrows its own connection from the pool, so the
+ * backend can be used from several threads at the same time.
+ * The tables, columns and indexes the queriers rely on are created in an existing database by
+ * data/resources/schema_upgrade.sql
+ */
+public class MySQLBackend implements StorageBackend {
+
+    private static final String JDBC_DRIVER = "jdbc:mysql://";
+    private static final String IP_ADDRESS = "67.159.94.60";
+    private static final String PORT_NUMBER = "3306";
+    private static final String DATABASE_NAME = "vooga_byteme";
+    private static final String SERVER_TIMEZONE = "serverTimezone=UTC";
+    // Server side prepared statements send streamed parameters, such as the data of an asset, to the server in chunks
+    // instead of buffering all of it in memory first
+    private static final String SERVER_PREPARED_STATEMENTS = "useServerPrepStmts=true";
+    // Lets the driver send a batch of inserts as one multi-row insert instead of one statement per row
+    private static final String REWRITE_BATCHES = "rewriteBatchedStatements=true";
+    private static final String DATABASE_URL = JDBC_DRIVER + IP_ADDRESS + ":" + PORT_NUMBER + "/" + DATABASE_NAME +
+            "?" + SERVER_TIMEZONE + "&" + SERVER_PREPARED_STATEMENTS + "&" + REWRITE_BATCHES;
+    private static final String USERNAME = "vooga";
+    private static final String PASSWORD = "byteMe!";
+    private static final int MAX_CONNECTIONS = 8;
+
+    private ConnectionPool myConnectionPool;
+    private GameInformationQuerier myGameInformationQuerier;
+    private GameLevelQuerier myGameLevelQuerier;
+    private AssetQuerier myAssetQuerier;
+    private UserQuerier myUserQuerier;
+    private RatingsQuerier myRatingsQuerier;
+    private CheckpointQuerier myCheckpointQuerier;
+    private StatisticsQuerier myStatisticsQuerier;
+    private ThumbnailQuerier myThumbnailQuerier;
+
+    @Override
+    public boolean open() {
+        close();
+        myConnectionPool = new ConnectionPool(DATABASE_URL, USERNAME, PASSWORD, MAX_CONNECTIONS);
+        // connections are opened when they are needed, so the backend works once the database can be reached again
+        initializeQueriers();
+        myConnectionPool.getQueryStatistics().start();
+        try {
+            // borrowing validates the connection, so giving it straight back is enough to tell the database is there
+            myConnectionPool.borrow().close();
+            return true;
+        } catch (SQLException exception) {
+            System.out.println("Couldn't connect to database" + exception.getMessage());
+            return false;
+        }
+    }
+
+    private void initializeQueriers() {
+        myAssetQuerier = new AssetQuerier(myConnectionPool);
+        myGameInformationQuerier = new GameInformationQuerier(myConnectionPool);
+        myGameLevelQuerier = new GameLevelQuerier(myConnectionPool);
+        myUserQuerier = new UserQuerier(myConnectionPool);
+        myRatingsQuerier = new RatingsQuerier(myConnectionPool);
+        myCheckpointQuerier = new CheckpointQuerier(myConnectionPool);
+        myStatisticsQuerier = new StatisticsQuerier(myConnectionPool);
+        myThumbnailQuerier = new ThumbnailQuerier(myConnectionPool);
+    }
+
+    @Override
+    public void close() {
+        if (myConnectionPool != null) {
+            myConnectionPool.getQueryStatistics().stop();
+            myConnectionPool.close();
+        }
+    }
+
+    /**
+     * Returns the current state and counters of the connection pool, e.g. to tell if it is too small
+     *
+     * @return metrics of the connection pool, or null if the DatabaseEngine was never opened
+     */
+    public ConnectionPoolMetrics getPoolMetrics() {
+        if (myConnectionPool == null) {
+            return null;
+        }
+        return myConnectionPool.getMetrics();
+    }
+
+    /**
+     * Returns the counters of every statement executed on the database so far, e.g. to find out which queries the
+     * database spends its time on
+     *
+     * @return counters of every statement, the one that took the most time in total first, or null if not open
+     */
+    public List<StatementMetrics> getQueryMetrics() {
+        if (myConnectionPool == null) {
+            return null;
+        }
+        return myConnectionPool.getQueryStatistics().getStatementMetrics();
+    }
+
+    @Override
+    public void updateGameEntryData(String gameName, String authorName, String myRawXML) throws SQLException {
+        myGameInformationQuerier.updateGameEntryData(gameName, authorName, myRawXML);
+    }
+
+    @Override
+    public List<String> loadAllGameInformationXMLs() throws SQLException {
+        return myGameInformationQuerier.loadAllSerializedGameInformationObjects();
+    }
+
+    @Override
+    public void updateGameEntryInfo(String gameName, String authorName, String myRawXML) throws SQLException {
+        myGameInformationQuerier.updateGameEntryInfo(gameName, authorName, myRawXML);
+    }
+
+    @Override
+    public void saveImage(String imageName, File imageToSave) {
+        myAssetQuerier.saveImage(imageName, imageToSave);
+    }
+
+    @Override
+    public void saveSound(String soundName, File soundToSave) {
+        myAssetQuerier.saveSound(soundName, soundToSave);
+    }
+
+    @Override
+    public int saveImages(Map<String, File> imagesToSave) throws SQLException {
+        return myAssetQuerier.saveImages(imagesToSave);
+    }
+
+    @Override
+    public int saveSounds(Map<String, File> soundsToSave) throws SQLException {
+        return myAssetQuerier.saveSounds(soundsToSave);
+    }
+
+    @Override
+    public InputStream loadSound(String soundName) {
+        return myAssetQuerier.loadSound(soundName);
+    }
+
+    @Override
+    public InputStream loadImage(String imageName) {
+        return myAssetQuerier.loadImage(imageName);
+    }
+
+    @Override
+    public boolean createUser(String userName, String password) throws SQLException {
+        return myUserQuerier.createUser(userName, password);
+    }
+
+    @Override
+    public boolean authenticateUser(String userName, String password) {
+        return myUserQuerier.authenticateUser(userName, password);
+    }
+
+    @Override
+    public boolean removeUser(String userName) throws SQLException {
+        return myUserQuerier.removeUser(userName);
+    }
+
+    @Override
+    public boolean removeGame(String gameName, String authorName) throws SQLException {
+        myGameLevelQuerier.removeGameLevels(gameName, authorName);
+        return myGameInformationQuerier.removeGame(gameName, authorName);
+    }
+
+    @Override
+    public boolean removeImage(String imageName) throws SQLException {
+        return myAssetQuerier.removeImage(imageName);
+    }
+
+    @Override
+    public boolean removeSound(String soundName) throws SQLException {
+        return myAssetQuerier.removeSound(soundName);
+    }
+
+    @Override
+    public String loadGameData(String gameName, String authorName) throws SQLException {
+        return myGameInformationQuerier.loadGameData(gameName, authorName);
+    }
+
+    @Override
+    public void saveGameLevels(String gameName, String authorName, List<String> levelXMLs) throws SQLException {
+        myGameLevelQuerier.saveGameLevels(gameName, authorName, levelXMLs);
+    }
+
+    @Override
+    public void saveChunkedGameData(String gameName, String authorName, List<String> levelXMLs, String manifestXML)
+            throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            Connection transaction = connection.getConnection();
+            transaction.setAutoCommit(false);
+            myGameLevelQuerier.saveGameLevels(connection, gameName, authorName, levelXMLs);
+            myGameInformationQuerier.updateGameEntryData(connection, gameName, authorName, manifestXML);
+            transaction.commit();
+            transaction.setAutoCommit(true);
+        }
+    }
+
+    @Override
+    public String loadGameLevel(String gameName, String authorName, int levelNumber) throws SQLException {
+        return myGameLevelQuerier.loadGameLevel(gameName, authorName, levelNumber);
+    }
+
+    @Override
+    public int countGameLevels(String gameName, String authorName) throws SQLException {
+        return myGameLevelQuerier.countGameLevels(gameName, authorName);
+    }
+
+    @Override
+    public String loadGameInfo(String gameName, String authorName) throws SQLException {
+        return myGameInformationQuerier.loadGameInformation(gameName, authorName);
+    }
+
+    @Override
+    public Map<String, InputStream> loadAllImages(String prefix) throws SQLException {
+        return myAssetQuerier.loadAllImages(prefix);
+    }
+
+    @Override
+    public Map<String, InputStream> loadAllSounds(String prefix) throws SQLException {
+        return myAssetQuerier.loadAllSounds(prefix);
+    }
+
+    @Override
+    public AssetIterator iterateImages(String prefix) throws SQLException {
+        return myAssetQuerier.iterateImages(prefix);
+    }
+
+    @Override
+    public AssetIterator iterateSounds(String prefix) throws SQLException {
+        return myAssetQuerier.iterateSounds(prefix);
+    }
+
+    @Override
+    public List<String> loadAllGameNames(String userName) throws SQLException {
+        return myGameInformationQuerier.loadAllGameNames(userName);
+    }
+
+    @Override
+    public boolean updatePassword(String userName, String newPassword) throws SQLException {
+        return myUserQuerier.updatePassword(userName, newPassword);
+    }
+
+    @Override
+    public void addGameRating(GameRating rating) throws SQLException {
+        myRatingsQuerier.addGameRating(rating);
+    }
+
+    @Override
+    public int addGameRatings(Collection<GameRating> ratings) throws SQLException {
+        return myRatingsQuerier.addGameRatings(ratings);
+    }
+
+    @Override
+    public double getAverageRating(String gameName) throws SQLException {
+        return myRatingsQuerier.getAverageRating(gameName);
+    }
+
+    @Override
+    public List<GameRating> getAllRatings(String gameName) throws SQLException {
+        return myRatingsQuerier.getAllRatings(gameName);
+    }
+
+    @Override
+    public List<GameRating> getRatingPage(String gameName, GameRating after, int limit) throws SQLException {
+        return myRatingsQuerier.getRatingPage(gameName, after, limit);
+    }
+
+    @Override
+    public RatingSummary getRatingSummary(String gameName) throws SQLException {
+        return myRatingsQuerier.getRatingSummary(gameName);
+    }
+
+    @Override
+    public Map<String, RatingSummary> getAllRatingSummaries() throws SQLException {
+        return myRatingsQuerier.getAllRatingSummaries();
+    }
+
+    @Override
+    public int rebuildRatingTotals() throws SQLException {
+        return myRatingsQuerier.rebuildRatingTotals();
+    }
+
+    @Override
+    public List<String> loadAllGameInformationXMLs(String userName) throws SQLException {
+        return myGameInformationQuerier.loadAllSerializedGameInformationObjects(userName);
+    }
+
+    @Override
+    public List<SerializedGameInfo> loadGameInfoChangedSince(Timestamp since) throws SQLException {
+        return myGameInformationQuerier.loadGameInformationChangedSince(since);
+    }
+
+    @Override
+    public List<GamePrimaryKey> loadGameInfoKeys() throws SQLException {
+        return myGameInformationQuerier.loadGameInformationKeys();
+    }
+
+    @Override
+    public void removeRating(String gameName, String authorName) throws SQLException{
+        myRatingsQuerier.removeAllGameRatings(gameName, authorName);
+    }
+
+    @Override
+    public Map<Timestamp, String> getCheckpoints(String userName, String gameName, String authorName) throws SQLException {
+        return myCheckpointQuerier.getCheckpoints(userName, gameName, authorName);
+    }
+
+    @Override
+    public void saveCheckpoint(String userName, String gameName, String authorName, String rawXML, Integer levelNumber,
+                               Double score, boolean full, Timestamp time) throws SQLException {
+        myCheckpointQuerier.saveCheckpoint(userName, gameName, authorName, rawXML, levelNumber, score, full, time);
+    }
+
+    @Override
+    public List<CheckpointInfo> getCheckpointInfo(String userName, String gameName, String authorName) throws SQLException {
+        return myCheckpointQuerier.getCheckpointInfo(userName, gameName, authorName);
+    }
+
+    @Override
+    public String loadCheckpoint(String userName, String gameName, String authorName, Timestamp time) throws SQLException {
+        return myCheckpointQuerier.loadCheckpoint(userName, gameName, authorName, time);
+    }
+
+    @Override
+    public int removeCheckpointsBefore(String userName, String gameName, String authorName, Timestamp time) throws SQLException {
+        return myCheckpointQuerier.removeCheckpointsBefore(userName, gameName, authorName, time);
+    }
+
+    @Override
+    public void deleteCheckpoint(String userName, String gameName, String authorName) throws SQLException {
+        myCheckpointQuerier.deleteCheckpoints(userName, gameName, authorName);
+    }
+
+    @Override
+    public void setProfilePic(String userName, File profilePic) throws SQLException {
+        myUserQuerier.setProfilePic(userName, profilePic);
+    }
+
+    @Override
+    public void setBio(String userName, String bio) throws SQLException {
+        myUserQuerier.setBio(userName, bio);
+    }
+
+    @Override
+    public InputStream getProfilePic(String userName) throws SQLException {
+        return myUserQuerier.getProfilePic(userName);
+    }
+
+    @Override
+    public byte[] loadThumbnail(String sourceName, int size) throws SQLException {
+        return myThumbnailQuerier.loadThumbnail(sourceName, size);
+    }
+
+    @Override
+    public void saveThumbnail(String sourceName, int size, byte[] thumbnail) throws SQLException {
+        myThumbnailQuerier.saveThumbnail(sourceName, size, thumbnail);
+    }
+
+    @Override
+    public int removeThumbnails(Collection<String> sourceNames) throws SQLException {
+        return myThumbnailQuerier.removeThumbnails(sourceNames);
+    }
+
+    @Override
+    public String getBio(String userName) throws SQLException {
+        return myUserQuerier.getBio(userName);
+    }
+
+    @Override
+    public void saveScore(String userName, String gameName, String authorName, Double score) throws SQLException {
+        myStatisticsQuerier.saveScore(userName, gameName, authorName, score);
+    }
+
+    @Override
+    public int saveScores(String gameName, String authorName, Collection<UserScore> scores) throws SQLException {
+        return myStatisticsQuerier.saveScores(gameName, authorName, scores);
+    }
+
+    @Override
+    public List<UserScore> loadScorePage(String gameName, String authorName, UserScore after, int limit) throws SQLException {
+        return myStatisticsQuerier.loadScorePage(gameName, authorName, after, limit);
+    }
+
+    @Override
+    public Double loadBestScore(String userName, String gameName, String authorName) throws SQLException {
+        return myStatisticsQuerier.loadBestScore(userName, gameName, authorName);
+    }
+
+    @Override
+    public List<UserScore> loadScores(String gameName, String authorName) throws SQLException {
+        return myStatisticsQuerier.loadScores(gameName, authorName);
+    }
+
+    @Override
+    public void removeScores(String userName, String gameName, String authorName) throws SQLException {
+        myStatisticsQuerier.removeScores(userName, gameName, authorName);
+    }
+}
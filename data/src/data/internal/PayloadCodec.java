@@ -0,0 +1,175 @@
+package data.internal;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.XStreamException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Base64;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Turns the objects the DataManager stores (games, levels, game center data and checkpoints) into the text payloads
+ * kept in the database and back again.  Payloads are written in a compact binary format: XStream's binary token
+ * stream, which walks the same object graph as the xml but writes every element name only once and never builds a
+ * DOM, deflated and encoded as Base64 so that it fits in the existing text columns.  Every binary payload starts with a
+ * header naming the version of the format it was written in, followed from version 2 on by a header byte saying
+ * whether the body is compressed.  Payloads without a header are xml written before the binary format existed, so rows
+ * saved in any format can always be read.  Xml is read and written by a streaming StAX parser instead of a DOM
+ */
+public class PayloadCodec {
+
+    /**
+     * Format that new payloads are written in, chosen with the byteme.payload system property
+     */
+    public enum Format {
+        BINARY, XML
+    }
+
+    /**
+     * Compression of the body of new binary payloads, chosen with the byteme.payload.compression system property, and
+     * the header byte that marks it
+     */
+    public enum Compression {
+        NONE((byte) 0), DEFLATE((byte) 1);
+
+        private byte myHeader;
+
+        Compression(byte header) {
+            myHeader = header;
+        }
+    }
+
+    public static final String FORMAT_PROPERTY = "byteme.payload";
+    public static final String COMPRESSION_PROPERTY = "byteme.payload.compression";
+    private static final String BINARY_HEADER = "#vb";
+    private static final String HEADER_END = ":";
+    private static final int UNCOMPRESSED_BINARY_VERSION = 1;
+    private static final int CURRENT_BINARY_VERSION = 2;
+    private static final String UNSUPPORTED_VERSION = "Payload was written in binary format version %s, which is " +
+            "newer than this version of the game can read";
+    private static final String MALFORMED_HEADER = "Payload has a malformed binary header";
+    private static final String MALFORMED_BODY = "Payload has a malformed Base64 body";
+    private static final String UNKNOWN_COMPRESSION = "Payload is compressed in an unknown way: ";
+    private static final String COULDNT_ENCODE = "Couldn't encode payload";
+
+    private XStream myXMLSerializer;
+    private XStream myBinarySerializer;
+    private Format myFormat;
+    private Compression myCompression;
+
+    /**
+     * Creates a codec that writes new payloads in the format and with the compression chosen by the byteme.payload and
+     * byteme.payload.compression system properties, deflated binary by default
+     */
+    public PayloadCodec() {
+        this(Format.valueOf(System.getProperty(FORMAT_PROPERTY, Format.BINARY.name()).toUpperCase()),
+                Compression.valueOf(System.getProperty(COMPRESSION_PROPERTY, Compression.DEFLATE.name()).toUpperCase()));
+    }
+
+    /**
+     * Creates a codec that writes new payloads in format, compressing binary payloads with compression.  Xml payloads
+     * are never compressed so that they stay readable by versions of the game that only know xml
+     *
+     * @param format      format of the payloads written by this codec
+     * @param compression compression of the binary payloads written by this codec
+     */
+    public PayloadCodec(Format format, Compression compression) {
+        myXMLSerializer = Serializers.getXMLSerializer();
+        myBinarySerializer = Serializers.getBinarySerializer();
+        myFormat = format;
+        myCompression = compression;
+    }
+
+    /**
+     * Serializes an object into a payload in the format of this codec
+     *
+     * @param object object to serialize
+     * @return the payload
+     */
+    public String encode(Object object) {
+        if (myFormat == Format.XML) {
+            return myXMLSerializer.toXML(object);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(myCompression.myHeader);
+        try (OutputStream body = myCompression == Compression.DEFLATE ? new DeflaterOutputStream(bytes) : bytes) {
+            myBinarySerializer.toXML(object, body);
+        } catch (IOException e) {
+            throw new XStreamException(COULDNT_ENCODE, e);
+        }
+        return BINARY_HEADER + CURRENT_BINARY_VERSION + HEADER_END + Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Deserializes a payload written in any format
+     *
+     * @param payload payload previously produced by encode, or raw xml
+     * @return the deserialized object that needs to be cast
+     * @throws XStreamException if the payload can't be deserialized
+     */
+    public Object decode(String payload) {
+        if (!isBinary(payload)) {
+            return myXMLSerializer.fromXML(payload);
+        }
+        int headerEnd = payload.indexOf(HEADER_END);
+        int version;
+        try {
+            version = Integer.parseInt(payload.substring(BINARY_HEADER.length(), headerEnd));
+        } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+            throw new XStreamException(MALFORMED_HEADER, e);
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(payload.substring(headerEnd + 1));
+        } catch (IllegalArgumentException e) {
+            throw new XStreamException(MALFORMED_BODY, e);
+        }
+        return decodeBinary(version, bytes);
+    }
+
+    /**
+     * Returns whether a payload is written in the current binary format, so that payloads in older formats can be
+     * found and rewritten
+     *
+     * @param payload payload to check
+     * @return true if the payload doesn't need to be migrated
+     */
+    public boolean isCurrent(String payload) {
+        return payload.startsWith(BINARY_HEADER + CURRENT_BINARY_VERSION + HEADER_END);
+    }
+
+    private boolean isBinary(String payload) {
+        return payload.startsWith(BINARY_HEADER);
+    }
+
+    // Every version of the binary format that has ever been written must stay readable here, older versions are
+    // read into the current classes and pick up the current format the next time they are saved
+    private Object decodeBinary(int version, byte[] bytes) {
+        if (version == UNCOMPRESSED_BINARY_VERSION) {
+            return myBinarySerializer.fromXML(new ByteArrayInputStream(bytes));
+        }
+        if (version == CURRENT_BINARY_VERSION) {
+            return myBinarySerializer.fromXML(openBody(bytes));
+        }
+        throw new XStreamException(String.format(UNSUPPORTED_VERSION, version));
+    }
+
+    private InputStream openBody(byte[] bytes) {
+        if (bytes.length == 0) {
+            throw new XStreamException(MALFORMED_HEADER);
+        }
+        InputStream body = new ByteArrayInputStream(bytes, 1, bytes.length - 1);
+        if (bytes[0] == Compression.DEFLATE.myHeader) {
+            return new InflaterInputStream(body);
+        }
+        if (bytes[0] == Compression.NONE.myHeader) {
+            return body;
+        }
+        throw new XStreamException(UNKNOWN_COMPRESSION + bytes[0]);
+    }
+}
@@ -0,0 +1,126 @@
+package data.internal;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A connection borrowed from the ConnectionPool by a single thread for a single operation
+ * Keeps the statements prepared on its connection so that the same sql is only prepared once per connection, and
+ * goes back to the pool when closed, which is why it should be used in a try-with-resources block
+ * Every statement it prepares is recorded in the QueryStatistics of its pool
+ */
+public class PooledConnection implements AutoCloseable {
+
+    private Connection myConnection;
+    private ConnectionPool myPool;
+    private Map<String, PreparedStatement> myStatements;
+    private long myLastReturned;
+
+    PooledConnection(Connection connection, ConnectionPool pool) {
+        myConnection = connection;
+        myPool = pool;
+        myStatements = new HashMap<>();
+        myLastReturned = System.currentTimeMillis();
+    }
+
+    /**
+     * Returns the statement for the sql on this connection, preparing it the first time it is asked for
+     *
+     * @param sql the sql of the statement
+     * @return the prepared statement with its parameters cleared
+     * @throws SQLException if statement cannot be prepared
+     */
+    public PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = myStatements.get(sql);
+        if (statement == null || statement.isClosed()) {
+            statement = myPool.getQueryStatistics().instrument(sql, myConnection.prepareStatement(sql));
+            myStatements.put(sql, statement);
+        } else {
+            statement.clearParameters();
+        }
+        return statement;
+    }
+
+    /**
+     * Prepares a statement whose result set is streamed from the server instead of read all at once, e.g. to go
+     * through rows that are too big to keep in memory together.  The statement is not kept, and should be closed
+     * once its result set has been read
+     *
+     * @param sql       the sql of the statement
+     * @param fetchSize how many rows the server sends at a time
+     * @return the prepared statement
+     * @throws SQLException if statement cannot be prepared
+     */
+    public PreparedStatement prepareStreaming(String sql, int fetchSize) throws SQLException {
+        PreparedStatement statement = myConnection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY);
+        statement.setFetchSize(fetchSize);
+        return myPool.getQueryStatistics().instrument(sql, statement);
+    }
+
+    /**
+     * Gives access to the connection itself, e.g. to run several statements in one transaction
+     *
+     * @return the borrowed connection
+     */
+    public Connection getConnection() {
+        return myConnection;
+    }
+
+    /**
+     * Returns the connection to the pool
+     */
+    @Override
+    public void close() {
+        myPool.giveBack(this);
+    }
+
+    long getLastReturned() {
+        return myLastReturned;
+    }
+
+    void markReturned() {
+        myLastReturned = System.currentTimeMillis();
+    }
+
+    // Leaves the connection the way the next borrower expects it, even if an operation stopped halfway through a
+    // transaction
+    boolean reset() {
+        try {
+            if (myConnection.isClosed()) {
+                return false;
+            }
+            if (!myConnection.getAutoCommit()) {
+                myConnection.rollback();
+                myConnection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    boolean isValid(int timeoutSeconds) {
+        try {
+            return !myConnection.isClosed() && myConnection.isValid(timeoutSeconds);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closeConnection() {
+        try {
+            for (PreparedStatement statement : myStatements.values()) {
+                statement.close();
+            }
+            myConnection.close();
+        } catch (SQLException e) {
+            // the connection is being discarded either way
+        }
+        myStatements.clear();
+    }
+}
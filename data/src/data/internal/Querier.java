@@ -3,7 +3,7 @@ package data.internal;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
-import java.util.List;
+import java.util.Collection;
 
 /**
  * Querier objects are used to query the database.  Querier objects should have defined tables and general areas of
@@ -20,34 +20,86 @@ public abstract class Querier {
     protected static final String INSERT_THREE_VALUES = "INSERT INTO %s (%s, %s, %s) VALUES (?, ?, ?)";
     protected static final String UPDATE_ONE_COLUMN = "%s %s %s = ?";
 
-    protected Connection myConnection;
-    protected List<PreparedStatement> myPreparedStatements;
+    /**
+     * System property that sets how many rows are sent to the database per batch by bulk writes
+     */
+    public static final String BATCH_SIZE_PROPERTY = "byteme.batch.size";
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    protected static final int BATCH_SIZE = Math.max(1, Integer.getInteger(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE));
+
+    protected ConnectionPool myConnectionPool;
 
     /**
-     * Querier constructor that stores a connection and initializes the prepared statements
-     * @param connection connection to the database
-     * @throws SQLException if statements cannot be prepared
+     * Sets the parameters of a prepared statement to the values of one row of a bulk write
+     *
+     * @param <T> type of the rows
      */
-    public Querier(Connection connection) throws SQLException{
-        myConnection = connection;
-        prepareStatements();
+    @FunctionalInterface
+    protected interface RowBinder<T> {
+        void bind(PreparedStatement statement, T row) throws SQLException;
     }
 
     /**
-     * Prepares all the sql statements to be run by the concrete Querier class
-     * @throws SQLException if statements cannot be prepared
+     * Querier constructor that stores the pool that every operation borrows its connection from
+     * Since no statement is shared between operations, a Querier can be used from several threads at the same time
+     * @param connectionPool pool of connections to the database
      */
-    protected abstract void prepareStatements() throws SQLException;
+    public Querier(ConnectionPool connectionPool) {
+        myConnectionPool = connectionPool;
+    }
 
     /**
-     * Closes all the open prepared statements to manage resources and prevent resource leaks
-     * @throws SQLException if statements cannot be closed properly
+     * Writes many rows with one statement in a single transaction, sending them to the database BATCH_SIZE rows at a
+     * time instead of one round trip per row
+     *
+     * @param sql    statement that writes one row
+     * @param rows   rows to write
+     * @param binder sets the parameters of the statement for a row
+     * @param <T>    type of the rows
+     * @return number of rows written
+     * @throws SQLException if any batch fails, in which case none of the rows are written
      */
-    public void closeStatements() throws SQLException{
-        for (PreparedStatement statement : myPreparedStatements){
-            if (statement != null){
-                statement.close();
+    protected <T> int executeInBatches(String sql, Collection<T> rows, RowBinder<T> binder) throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            Connection transaction = connection.getConnection();
+            transaction.setAutoCommit(false);
+            int batched = executeInBatches(connection, sql, rows, binder);
+            transaction.commit();
+            transaction.setAutoCommit(true);
+            return batched;
+        }
+    }
+
+    /**
+     * Writes many rows with one statement BATCH_SIZE rows at a time on a connection that the caller manages, e.g. to
+     * write them as part of a larger transaction
+     *
+     * @param connection connection to write the rows on
+     * @param sql        statement that writes one row
+     * @param rows       rows to write
+     * @param binder     sets the parameters of the statement for a row
+     * @param <T>        type of the rows
+     * @return number of rows written
+     * @throws SQLException if any batch fails
+     */
+    protected <T> int executeInBatches(PooledConnection connection, String sql, Collection<T> rows,
+                                       RowBinder<T> binder) throws SQLException {
+        PreparedStatement statement = connection.prepare(sql);
+        int batched = 0;
+        for (T row : rows) {
+            binder.bind(statement, row);
+            statement.addBatch();
+            batched++;
+            if (batched % BATCH_SIZE == 0) {
+                statement.executeBatch();
             }
         }
+        if (batched % BATCH_SIZE != 0) {
+            statement.executeBatch();
+        }
+        return batched;
     }
 }
@@ -0,0 +1,400 @@
+package data.internal;
+
+import data.external.QueryMetricsMXBean;
+import data.external.StatementMetrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps call counts, a latency histogram, the rows and the bytes read of every SQL statement sent to the database, so
+ * that it can be told which queries the database spends its time on.  Statements are instrumented as they are
+ * prepared by a PooledConnection, and the result sets they return count the rows and bytes read from them.
+ * Executions slower than a threshold are printed as they happen, and a report of every statement can be printed
+ * periodically and is available over JMX
+ */
+public class QueryStatistics implements QueryMetricsMXBean {
+
+    /**
+     * System property that sets after how many milliseconds an execution is printed as a slow query
+     */
+    public static final String SLOW_QUERY_PROPERTY = "byteme.query.slowMillis";
+    /**
+     * System property that sets every how many seconds the report is printed, 0 to never print it
+     */
+    public static final String REPORT_PROPERTY = "byteme.query.reportSeconds";
+    /**
+     * Name the statistics are registered with the platform MBean server under
+     */
+    public static final String OBJECT_NAME = "data:type=QueryMetrics";
+
+    private static final long DEFAULT_SLOW_QUERY_MILLIS = 500;
+    private static final long DEFAULT_REPORT_SECONDS = 300;
+    private static final long NANOS_PER_MILLI = 1000000;
+    private static final int REPORTED_STATEMENTS = 15;
+    private static final Set<String> EXECUTE_METHODS = Set.of("execute", "executeQuery", "executeUpdate",
+            "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+    private static final String GET_RESULT_SET = "getResultSet";
+    private static final String NEXT = "next";
+    private static final String GET_STRING = "getString";
+    private static final String GET_BYTES = "getBytes";
+    private static final String GET_BINARY_STREAM = "getBinaryStream";
+
+    private static final String SLOW_QUERY = "Slow query (%.1f ms): %s";
+    private static final String REPORT_HEADER = "Query statistics, most time spent first:";
+    private static final String COULD_NOT_REGISTER = "Could not register query metrics: ";
+
+    private Map<String, StatementStatistics> myStatements;
+    private volatile long mySlowQueryMillis;
+    private long myReportSeconds;
+    private ScheduledExecutorService myReporter;
+    private long myReportedCalls;
+
+    private static class StatementStatistics {
+        private LongAdder myCalls = new LongAdder();
+        private LongAdder myErrors = new LongAdder();
+        private LongAdder myTotalNanos = new LongAdder();
+        private AtomicLong myMaxNanos = new AtomicLong();
+        private LongAdder myRows = new LongAdder();
+        private LongAdder myBytes = new LongAdder();
+        private AtomicLongArray myHistogram = new AtomicLongArray(StatementMetrics.BUCKET_MILLIS.size() + 1);
+
+        void recordExecution(long nanos, boolean failed) {
+            myCalls.increment();
+            if (failed) {
+                myErrors.increment();
+            }
+            myTotalNanos.add(nanos);
+            myMaxNanos.accumulateAndGet(nanos, Math::max);
+            int bucket = 0;
+            while (bucket < StatementMetrics.BUCKET_MILLIS.size()
+                    && nanos > StatementMetrics.BUCKET_MILLIS.get(bucket) * NANOS_PER_MILLI) {
+                bucket++;
+            }
+            myHistogram.incrementAndGet(bucket);
+        }
+
+        void reset() {
+            myCalls.reset();
+            myErrors.reset();
+            myTotalNanos.reset();
+            myMaxNanos.set(0);
+            myRows.reset();
+            myBytes.reset();
+            for (int i = 0; i < myHistogram.length(); i++) {
+                myHistogram.set(i, 0);
+            }
+        }
+
+        StatementMetrics toMetrics(String sql) {
+            long[] histogram = new long[myHistogram.length()];
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] = myHistogram.get(i);
+            }
+            return new StatementMetrics(sql, myCalls.sum(), myErrors.sum(), myTotalNanos.sum(), myMaxNanos.get(),
+                    myRows.sum(), myBytes.sum(), histogram);
+        }
+    }
+
+    /**
+     * Creates empty statistics with the slow query threshold and the report interval set by the byteme.query system
+     * properties
+     */
+    public QueryStatistics() {
+        this(Long.getLong(SLOW_QUERY_PROPERTY, DEFAULT_SLOW_QUERY_MILLIS),
+                Long.getLong(REPORT_PROPERTY, DEFAULT_REPORT_SECONDS));
+    }
+
+    /**
+     * Creates empty statistics
+     *
+     * @param slowQueryMillis after how many milliseconds an execution is printed as a slow query
+     * @param reportSeconds   every how many seconds the report is printed once started, 0 to never print it
+     */
+    public QueryStatistics(long slowQueryMillis, long reportSeconds) {
+        myStatements = new ConcurrentHashMap<>();
+        mySlowQueryMillis = slowQueryMillis;
+        myReportSeconds = reportSeconds;
+    }
+
+    /**
+     * Wraps a prepared statement so that its executions and the result sets it returns are recorded
+     *
+     * @param sql       sql the statement was prepared with
+     * @param statement statement to wrap
+     * @return a statement that behaves like the given one
+     */
+    public PreparedStatement instrument(String sql, PreparedStatement statement) {
+        StatementStatistics statistics = myStatements.computeIfAbsent(sql, key -> new StatementStatistics());
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new StatementHandler(sql, statement, statistics));
+    }
+
+    /**
+     * Registers the statistics with the platform MBean server and starts printing the report periodically, if
+     * enabled.  Statistics registered before are replaced
+     */
+    public synchronized void start() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            System.out.println(COULD_NOT_REGISTER + e.getMessage());
+        }
+        if (myReportSeconds > 0 && myReporter == null) {
+            myReporter = Executors.newSingleThreadScheduledExecutor(task -> {
+                Thread thread = new Thread(task);
+                thread.setDaemon(true);
+                return thread;
+            });
+            myReporter.scheduleAtFixedRate(this::printReport, myReportSeconds, myReportSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Stops printing the report and unregisters the statistics from the platform MBean server
+     */
+    public synchronized void stop() {
+        if (myReporter != null) {
+            myReporter.shutdownNow();
+            myReporter = null;
+        }
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            // the statistics just stop being visible over JMX a little later
+        }
+    }
+
+    @Override
+    public List<StatementMetrics> getStatementMetrics() {
+        List<StatementMetrics> metrics = new ArrayList<>();
+        for (Map.Entry<String, StatementStatistics> statement : myStatements.entrySet()) {
+            metrics.add(statement.getValue().toMetrics(statement.getKey()));
+        }
+        metrics.sort(Comparator.comparingDouble(StatementMetrics::getTotalMillis).reversed());
+        return metrics;
+    }
+
+    @Override
+    public String getReport() {
+        StringBuilder report = new StringBuilder(REPORT_HEADER);
+        List<StatementMetrics> metrics = getStatementMetrics();
+        for (StatementMetrics statement : metrics.subList(0, Math.min(REPORTED_STATEMENTS, metrics.size()))) {
+            report.append(System.lineSeparator()).append(statement);
+        }
+        return report.toString();
+    }
+
+    @Override
+    public long getSlowQueryMillis() {
+        return mySlowQueryMillis;
+    }
+
+    @Override
+    public void setSlowQueryMillis(long slowQueryMillis) {
+        mySlowQueryMillis = slowQueryMillis;
+    }
+
+    // The statements that were already prepared keep counting into the same counters
+    @Override
+    public void reset() {
+        for (StatementStatistics statement : myStatements.values()) {
+            statement.reset();
+        }
+    }
+
+    // Nothing is printed while the database is not being used
+    private void printReport() {
+        long calls = 0;
+        for (StatementStatistics statement : myStatements.values()) {
+            calls += statement.myCalls.sum();
+        }
+        if (calls != myReportedCalls) {
+            myReportedCalls = calls;
+            System.out.println(getReport());
+        }
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private class StatementHandler implements InvocationHandler {
+        private String mySQL;
+        private PreparedStatement myStatement;
+        private StatementStatistics myStatistics;
+
+        StatementHandler(String sql, PreparedStatement statement, StatementStatistics statistics) {
+            mySQL = sql;
+            myStatement = statement;
+            myStatistics = statistics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!EXECUTE_METHODS.contains(method.getName())) {
+                Object result = QueryStatistics.invoke(myStatement, method, args);
+                return method.getName().equals(GET_RESULT_SET) ? countRows(result) : result;
+            }
+            long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                Object result = QueryStatistics.invoke(myStatement, method, args);
+                failed = false;
+                return countRows(result);
+            } finally {
+                long nanos = System.nanoTime() - start;
+                myStatistics.recordExecution(nanos, failed);
+                if (nanos > mySlowQueryMillis * NANOS_PER_MILLI) {
+                    System.out.println(String.format(SLOW_QUERY, nanos / (double) NANOS_PER_MILLI, mySQL));
+                }
+            }
+        }
+
+        // Updates count the rows they changed, queries the rows read from their result sets
+        private Object countRows(Object result) {
+            if (result instanceof ResultSet) {
+                return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                        new ResultSetHandler((ResultSet) result, myStatistics));
+            }
+            if (result instanceof Integer || result instanceof Long) {
+                myStatistics.myRows.add(Math.max(0, ((Number) result).longValue()));
+            } else if (result instanceof int[]) {
+                for (int rows : (int[]) result) {
+                    myStatistics.myRows.add(Math.max(0, rows));
+                }
+            }
+            return result;
+        }
+    }
+
+    private static class ResultSetHandler implements InvocationHandler {
+        private ResultSet myResultSet;
+        private StatementStatistics myStatistics;
+
+        ResultSetHandler(ResultSet resultSet, StatementStatistics statistics) {
+            myResultSet = resultSet;
+            myStatistics = statistics;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = QueryStatistics.invoke(myResultSet, method, args);
+            switch (method.getName()) {
+                case NEXT:
+                    if (Boolean.TRUE.equals(result)) {
+                        myStatistics.myRows.increment();
+                    }
+                    break;
+                case GET_STRING:
+                    if (result != null) {
+                        myStatistics.myBytes.add(utf8Length((String) result));
+                    }
+                    break;
+                case GET_BYTES:
+                    if (result != null) {
+                        myStatistics.myBytes.add(((byte[]) result).length);
+                    }
+                    break;
+                case GET_BINARY_STREAM:
+                    if (result != null) {
+                        return new CountingInputStream((InputStream) result, myStatistics.myBytes);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            return result;
+        }
+    }
+
+    // Strings are counted by their length in UTF-8, the encoding the database sends them in, without copying them
+    static long utf8Length(String value) {
+        long length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+        private LongAdder myBytes;
+
+        CountingInputStream(InputStream in, LongAdder bytes) {
+            super(in);
+            myBytes = bytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int read = super.read();
+            if (read >= 0) {
+                myBytes.increment();
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                myBytes.add(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long count) throws IOException {
+            long skipped = super.skip(count);
+            myBytes.add(skipped);
+            return skipped;
+        }
+    }
+}
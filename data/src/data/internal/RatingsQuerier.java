@@ -1,17 +1,26 @@
 package data.internal;
 
 import data.external.GameRating;
+import data.external.RatingSummary;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
- * A Querier that is used to manage saving and loading ratings
+ * A Querier that is used to manage saving and loading ratings.  Next to the ratings themselves, the GameRatingTotals
+ * table keeps the number of ratings, the total number of stars and how many ratings gave each number of stars for
+ * every game, and is updated in the same transaction as the ratings, so that average ratings never have to be
+ * computed from the ratings.  rebuildRatingTotals fills it in from the ratings, e.g. right after it is created
  */
 public class RatingsQuerier extends Querier {
 
@@ -21,49 +30,98 @@ public class RatingsQuerier extends Querier {
     private static final String USER_NAME_COLUMN = "UserName";
     private static final String RATING_COLUMN = "Rating";
     private static final String COMMENTS_COLUMN = "Comments";
+    private static final String RATING_TIME_COLUMN = "RatingTime";
     private static final String AVERAGE = "average";
 
-    private static final String UPDATE_GAME_RATINGS = String.format(" %s = ?, %s = ?", RATING_COLUMN, COMMENTS_COLUMN);
-    private static final String INSERT_GAME_RATINGS = String.format("INSERT INTO %s (%s, %s, %s, %s, %s) VALUES (?, ?, ?, ?, ?)", GAME_RATINGS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, USER_NAME_COLUMN, RATING_COLUMN, COMMENTS_COLUMN);
+    private static final String TOTALS_TABLE_NAME = "GameRatingTotals";
+    private static final String COUNT_COLUMN = "RatingCount";
+    private static final String SUM_COLUMN = "RatingSum";
+    private static final String STARS_COLUMN = "Stars%d";
 
-    private static final String AVERAGE_RATINGS_STATEMENT = String.format("SELECT AVG(%s) AS %s FROM %s WHERE %s = ?",
-            RATING_COLUMN, AVERAGE, GAME_RATINGS_TABLE_NAME, GAME_NAME_COLUMN);
+    private static final String UPDATE_GAME_RATINGS = String.format(" %s = ?, %s = ?, %s = VALUES(%s)", RATING_COLUMN, COMMENTS_COLUMN, RATING_TIME_COLUMN, RATING_TIME_COLUMN);
+    private static final String INSERT_GAME_RATINGS = String.format("INSERT INTO %s (%s, %s, %s, %s, %s, %s) VALUES (?, ?, ?, ?, ?, COALESCE(?, CURRENT_TIMESTAMP))", GAME_RATINGS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, USER_NAME_COLUMN, RATING_COLUMN, COMMENTS_COLUMN, RATING_TIME_COLUMN);
+
+    private static final String AVERAGE_RATINGS_STATEMENT = String.format("SELECT SUM(%s) / SUM(%s) AS %s FROM %s WHERE %s = ?",
+            SUM_COLUMN, COUNT_COLUMN, AVERAGE, TOTALS_TABLE_NAME, GAME_NAME_COLUMN);
     private static final String ALL_RATINGS_STATEMENT = String.format("SELECT * FROM %s WHERE %s = ?", GAME_RATINGS_TABLE_NAME, GAME_NAME_COLUMN);
     private static final String UPDATE_RATING_STATEMENT = String.format("%s %s %s", INSERT_GAME_RATINGS, ON_DUPLICATE_UPDATE, UPDATE_GAME_RATINGS);
     private static final String REMOVE_RATING_STATEMENT = String.format(DELETE_TWO_CONDITIONS, GAME_RATINGS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN);
+    // Pages continue after the time and user of the last rating of the previous page, so that every page only reads
+    // the rows it returns from an index on (GameName, RatingTime DESC, UserName)
+    private static final String NEWEST_RATINGS_STATEMENT = String.format("SELECT * FROM %s WHERE %s = ? ORDER BY %s DESC, %s LIMIT ?", GAME_RATINGS_TABLE_NAME, GAME_NAME_COLUMN, RATING_TIME_COLUMN, USER_NAME_COLUMN);
+    private static final String RATINGS_AFTER_STATEMENT = String.format("SELECT * FROM %s WHERE %s = ? AND (%s < ? OR (%s = ? AND %s > ?)) ORDER BY %s DESC, %s LIMIT ?", GAME_RATINGS_TABLE_NAME, GAME_NAME_COLUMN, RATING_TIME_COLUMN, RATING_TIME_COLUMN, USER_NAME_COLUMN, RATING_TIME_COLUMN, USER_NAME_COLUMN);
+    private static final String PREVIOUS_RATING_STATEMENT = String.format("SELECT %s FROM %s WHERE %s = ? AND %s = ? AND %s = ? FOR UPDATE", RATING_COLUMN, GAME_RATINGS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, USER_NAME_COLUMN);
 
-    private PreparedStatement myAverageRatingsStatement;
-    private PreparedStatement myAllRatingsStatement;
-    private PreparedStatement myUpdateRatingStatement;
-    private PreparedStatement myRemoveRatingsStatement;
-
-    public RatingsQuerier(Connection connection) throws SQLException {
-        super(connection);
-    }
+    private static final String TOTALS_COLUMNS = String.join(", ", COUNT_COLUMN, SUM_COLUMN, starColumns("%s"));
+    private static final String LOCK_TOTALS = String.format("SELECT %s FROM %s WHERE %s = ? AND %s = ? FOR UPDATE", COUNT_COLUMN, TOTALS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN);
+    private static final String ADJUST_TOTALS = String.format("UPDATE %s SET %s = %s + ?, %s = %s + ?, %s WHERE %s = ? AND %s = ?", TOTALS_TABLE_NAME, COUNT_COLUMN, COUNT_COLUMN, SUM_COLUMN, SUM_COLUMN, starColumns("%1$s = %1$s + ?"), GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN);
+    private static final String COMPUTE_TOTALS = String.format("INSERT INTO %s (%s, %s, %s) SELECT %s, %s, COUNT(*), SUM(%s), %s FROM %s", TOTALS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, TOTALS_COLUMNS, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, RATING_COLUMN, starSums(), GAME_RATINGS_TABLE_NAME);
+    private static final String REFRESH_TOTALS = String.format("%s WHERE %s = ? AND %s = ? GROUP BY %s, %s %s %s = VALUES(%s), %s = VALUES(%s), %s", COMPUTE_TOTALS, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, ON_DUPLICATE_UPDATE, COUNT_COLUMN, COUNT_COLUMN, SUM_COLUMN, SUM_COLUMN, starColumns("%1$s = VALUES(%1$s)"));
+    private static final String REBUILD_TOTALS = String.format("%s GROUP BY %s, %s", COMPUTE_TOTALS, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN);
+    private static final String CLEAR_TOTALS = String.format("DELETE FROM %s", TOTALS_TABLE_NAME);
+    private static final String REMOVE_TOTALS = String.format(DELETE_TWO_CONDITIONS, TOTALS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN);
+    private static final String SUMMARY_STATEMENT = String.format("SELECT SUM(%s), SUM(%s), %s FROM %s WHERE %s = ?", COUNT_COLUMN, SUM_COLUMN, starColumns("SUM(%s)"), TOTALS_TABLE_NAME, GAME_NAME_COLUMN);
+    private static final String ALL_SUMMARIES_STATEMENT = String.format("SELECT %s, SUM(%s), SUM(%s), %s FROM %s GROUP BY %s", GAME_NAME_COLUMN, COUNT_COLUMN, SUM_COLUMN, starColumns("SUM(%s)"), TOTALS_TABLE_NAME, GAME_NAME_COLUMN);
 
-    @Override
-    protected void prepareStatements() throws SQLException {
-        myAverageRatingsStatement = myConnection.prepareStatement(AVERAGE_RATINGS_STATEMENT);
-        myAllRatingsStatement = myConnection.prepareStatement(ALL_RATINGS_STATEMENT);
-        myUpdateRatingStatement = myConnection.prepareStatement(UPDATE_RATING_STATEMENT);
-        myRemoveRatingsStatement = myConnection.prepareStatement(REMOVE_RATING_STATEMENT);
-        myPreparedStatements = List.of(myAverageRatingsStatement, myAllRatingsStatement, myUpdateRatingStatement, myRemoveRatingsStatement);
+    /**
+     * RatingsQuerier constructor
+     *
+     * @param connectionPool pool of connections to the database
+     */
+    public RatingsQuerier(ConnectionPool connectionPool) {
+        super(connectionPool);
     }
 
     /**
-     * Adds a rating to the database for a specific game
+     * Adds a rating to the database for a specific game and updates the totals of the game in the same transaction
      * @param rating GameRating object that contains the rating information
      * @throws SQLException if statement fails
      */
     public void addGameRating(GameRating rating) throws SQLException {
-        myUpdateRatingStatement.setString(1, rating.getGameName());
-        myUpdateRatingStatement.setString(2, rating.getAuthorName());
-        myUpdateRatingStatement.setString(3, rating.getUsername());
-        myUpdateRatingStatement.setInt(4, rating.getNumberOfStars());
-        myUpdateRatingStatement.setString(5, rating.getComment());
-        myUpdateRatingStatement.setInt(6, rating.getNumberOfStars());
-        myUpdateRatingStatement.setString(7, rating.getComment());
-        myUpdateRatingStatement.execute();
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            Connection transaction = connection.getConnection();
+            transaction.setAutoCommit(false);
+            boolean hasTotals = lockTotals(connection, rating.getGameName(), rating.getAuthorName());
+            Integer previousStars = loadPreviousStars(connection, rating);
+            PreparedStatement statement = connection.prepare(UPDATE_RATING_STATEMENT);
+            bindRating(statement, rating);
+            statement.execute();
+            if (hasTotals && isStarCount(previousStars) && isStarCount(rating.getNumberOfStars())) {
+                adjustTotals(connection, rating, previousStars);
+            } else {
+                refreshTotals(connection, rating.getGameName(), rating.getAuthorName());
+            }
+            transaction.commit();
+            transaction.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Adds many ratings to the database in batches inside one transaction, replacing earlier ratings of the same users,
+     * and recomputes the totals of every game that was rated in the same transaction
+     * @param ratings GameRating objects that contain the rating information
+     * @return number of ratings added
+     * @throws SQLException if statement fails, in which case none of the ratings are added
+     */
+    public int addGameRatings(Collection<GameRating> ratings) throws SQLException {
+        if (ratings.isEmpty()) {
+            return 0;
+        }
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            Connection transaction = connection.getConnection();
+            transaction.setAutoCommit(false);
+            int added = executeInBatches(connection, UPDATE_RATING_STATEMENT, ratings, this::bindRating);
+            Set<GamePrimaryKey> ratedGames = new HashSet<>();
+            for (GameRating rating : ratings) {
+                ratedGames.add(new GamePrimaryKey(rating.getGameName(), rating.getAuthorName()));
+            }
+            for (GamePrimaryKey game : ratedGames) {
+                refreshTotals(connection, game.getGameName(), game.getAuthorName());
+            }
+            transaction.commit();
+            transaction.setAutoCommit(true);
+            return added;
+        }
     }
 
     /**
@@ -74,16 +132,43 @@ public class RatingsQuerier extends Querier {
      */
     public List<GameRating> getAllRatings(String gameName) throws SQLException {
         List<GameRating> gameRatings = new LinkedList<>();
-        myAllRatingsStatement.setString(1, gameName);
-        ResultSet resultSet = myAllRatingsStatement.executeQuery();
-        while (resultSet.next()) {
-            gameRatings.add(new GameRating(resultSet.getString(USER_NAME_COLUMN),
-                    resultSet.getString(GAME_NAME_COLUMN), resultSet.getString(AUTHOR_NAME_COLUMN),
-                    resultSet.getInt(RATING_COLUMN), resultSet.getString(COMMENTS_COLUMN)));
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(ALL_RATINGS_STATEMENT);
+            statement.setString(1, gameName);
+            readRatings(statement, gameRatings);
         }
         return gameRatings;
     }
 
+    /**
+     * Returns one page of the ratings for a specific game, newest first
+     * @param gameName name of the game to get the ratings for
+     * @param after last rating of the previous page, null for the first page
+     * @param limit maximum number of ratings on the page
+     * @return the ratings that were made right before the ones on the previous page
+     * @throws SQLException if statement fails
+     */
+    public List<GameRating> getRatingPage(String gameName, GameRating after, int limit) throws SQLException {
+        List<GameRating> page = new ArrayList<>();
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement;
+            if (after == null) {
+                statement = connection.prepare(NEWEST_RATINGS_STATEMENT);
+                statement.setString(1, gameName);
+                statement.setInt(2, limit);
+            } else {
+                statement = connection.prepare(RATINGS_AFTER_STATEMENT);
+                statement.setString(1, gameName);
+                statement.setTimestamp(2, after.getTime());
+                statement.setTimestamp(3, after.getTime());
+                statement.setString(4, after.getUsername());
+                statement.setInt(5, limit);
+            }
+            readRatings(statement, page);
+        }
+        return page;
+    }
+
     /**
      * Returns the average rating for a game
      * @param gameName name to retrieve the average rating for
@@ -91,14 +176,74 @@ public class RatingsQuerier extends Querier {
      * @throws SQLException if statement fails
      */
     public double getAverageRating(String gameName) throws SQLException {
-        myAverageRatingsStatement.setString(1, gameName);
-        ResultSet resultSet = myAverageRatingsStatement.executeQuery();
-        if (resultSet.next()) {
-            return resultSet.getDouble(AVERAGE);
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(AVERAGE_RATINGS_STATEMENT);
+            statement.setString(1, gameName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getDouble(AVERAGE);
+                }
+            }
         }
         return -1.0D;
     }
 
+    /**
+     * Returns the totals of the ratings for a game
+     * @param gameName name of the game
+     * @return the number of ratings, total stars and number of ratings per number of stars of the game
+     * @throws SQLException if statement fails
+     */
+    public RatingSummary getRatingSummary(String gameName) throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(SUMMARY_STATEMENT);
+            statement.setString(1, gameName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return readSummary(resultSet, 1);
+                }
+            }
+        }
+        return new RatingSummary(0, 0, new int[RatingSummary.MAX_STARS]);
+    }
+
+    /**
+     * Returns the totals of the ratings for every game that has been rated in one query, e.g. to show the ratings of
+     * every game in the game center
+     * @return map of the game names to the totals of their ratings
+     * @throws SQLException if statement fails
+     */
+    public Map<String, RatingSummary> getAllRatingSummaries() throws SQLException {
+        Map<String, RatingSummary> summaries = new HashMap<>();
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(ALL_SUMMARIES_STATEMENT);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    summaries.put(resultSet.getString(GAME_NAME_COLUMN), readSummary(resultSet, 2));
+                }
+            }
+        }
+        return summaries;
+    }
+
+    /**
+     * Recomputes the totals of every game from the ratings, e.g. after the totals table was created or the ratings
+     * were changed by hand
+     * @return number of games whose totals were computed
+     * @throws SQLException if statement fails, in which case the old totals are kept
+     */
+    public int rebuildRatingTotals() throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            Connection transaction = connection.getConnection();
+            transaction.setAutoCommit(false);
+            connection.prepare(CLEAR_TOTALS).executeUpdate();
+            int games = connection.prepare(REBUILD_TOTALS).executeUpdate();
+            transaction.commit();
+            transaction.setAutoCommit(true);
+            return games;
+        }
+    }
+
     /**
      * Used for testing purposes
      * @param gameName name of the game
@@ -106,8 +251,120 @@ public class RatingsQuerier extends Querier {
      * @throws SQLException if statement fails
      */
     public void removeAllGameRatings(String gameName, String authorName) throws SQLException {
-        myRemoveRatingsStatement.setString(1, gameName);
-        myRemoveRatingsStatement.setString(2, authorName);
-        myRemoveRatingsStatement.executeUpdate();
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            Connection transaction = connection.getConnection();
+            transaction.setAutoCommit(false);
+            for (String sql : List.of(REMOVE_RATING_STATEMENT, REMOVE_TOTALS)) {
+                PreparedStatement statement = connection.prepare(sql);
+                statement.setString(1, gameName);
+                statement.setString(2, authorName);
+                statement.executeUpdate();
+            }
+            transaction.commit();
+            transaction.setAutoCommit(true);
+        }
+    }
+
+    private void bindRating(PreparedStatement statement, GameRating rating) throws SQLException {
+        statement.setString(1, rating.getGameName());
+        statement.setString(2, rating.getAuthorName());
+        statement.setString(3, rating.getUsername());
+        statement.setInt(4, rating.getNumberOfStars());
+        statement.setString(5, rating.getComment());
+        statement.setTimestamp(6, rating.getTime());
+        statement.setInt(7, rating.getNumberOfStars());
+        statement.setString(8, rating.getComment());
+    }
+
+    private void readRatings(PreparedStatement statement, List<GameRating> gameRatings) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                gameRatings.add(new GameRating(resultSet.getString(USER_NAME_COLUMN),
+                        resultSet.getString(GAME_NAME_COLUMN), resultSet.getString(AUTHOR_NAME_COLUMN),
+                        resultSet.getInt(RATING_COLUMN), resultSet.getString(COMMENTS_COLUMN),
+                        resultSet.getTimestamp(RATING_TIME_COLUMN)));
+            }
+        }
+    }
+
+    // Locking the totals of the game first makes ratings of the same game wait for each other, so that no update to
+    // the totals is lost
+    private boolean lockTotals(PooledConnection connection, String gameName, String authorName) throws SQLException {
+        PreparedStatement statement = connection.prepare(LOCK_TOTALS);
+        statement.setString(1, gameName);
+        statement.setString(2, authorName);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            return resultSet.next();
+        }
+    }
+
+    private Integer loadPreviousStars(PooledConnection connection, GameRating rating) throws SQLException {
+        PreparedStatement statement = connection.prepare(PREVIOUS_RATING_STATEMENT);
+        statement.setString(1, rating.getGameName());
+        statement.setString(2, rating.getAuthorName());
+        statement.setString(3, rating.getUsername());
+        try (ResultSet resultSet = statement.executeQuery()) {
+            if (resultSet.next()) {
+                return resultSet.getInt(RATING_COLUMN);
+            }
+        }
+        return null;
+    }
+
+    // A user that rates a game again replaces their rating, so it only moves one rating between star counts
+    private void adjustTotals(PooledConnection connection, GameRating rating, Integer previousStars) throws SQLException {
+        int[] starChanges = new int[RatingSummary.MAX_STARS];
+        starChanges[rating.getNumberOfStars() - 1]++;
+        int countChange = 1;
+        int sumChange = rating.getNumberOfStars();
+        if (previousStars != null) {
+            starChanges[previousStars - 1]--;
+            countChange = 0;
+            sumChange -= previousStars;
+        }
+        PreparedStatement statement = connection.prepare(ADJUST_TOTALS);
+        statement.setInt(1, countChange);
+        statement.setInt(2, sumChange);
+        for (int i = 0; i < RatingSummary.MAX_STARS; i++) {
+            statement.setInt(i + 3, starChanges[i]);
+        }
+        statement.setString(RatingSummary.MAX_STARS + 3, rating.getGameName());
+        statement.setString(RatingSummary.MAX_STARS + 4, rating.getAuthorName());
+        statement.executeUpdate();
+    }
+
+    private void refreshTotals(PooledConnection connection, String gameName, String authorName) throws SQLException {
+        PreparedStatement statement = connection.prepare(REFRESH_TOTALS);
+        statement.setString(1, gameName);
+        statement.setString(2, authorName);
+        statement.executeUpdate();
+    }
+
+    private boolean isStarCount(Integer stars) {
+        return stars == null || (stars >= 1 && stars <= RatingSummary.MAX_STARS);
+    }
+
+    private RatingSummary readSummary(ResultSet resultSet, int firstColumn) throws SQLException {
+        int[] starCounts = new int[RatingSummary.MAX_STARS];
+        for (int i = 0; i < RatingSummary.MAX_STARS; i++) {
+            starCounts[i] = resultSet.getInt(firstColumn + 2 + i);
+        }
+        return new RatingSummary(resultSet.getInt(firstColumn), resultSet.getLong(firstColumn + 1), starCounts);
+    }
+
+    private static String starColumns(String format) {
+        List<String> columns = new ArrayList<>();
+        for (int stars = 1; stars <= RatingSummary.MAX_STARS; stars++) {
+            columns.add(String.format(format, String.format(STARS_COLUMN, stars)));
+        }
+        return String.join(", ", columns);
+    }
+
+    private static String starSums() {
+        List<String> sums = new ArrayList<>();
+        for (int stars = 1; stars <= RatingSummary.MAX_STARS; stars++) {
+            sums.add(String.format("SUM(%s = %d)", RATING_COLUMN, stars));
+        }
+        return String.join(", ", sums);
     }
 }
@@ -0,0 +1,87 @@
+package data.internal;
+
+import data.external.AssetIterator;
+
+import java.io.InputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.AbstractMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An AssetIterator over the rows of a result set that is streamed from the server one row at a time.  It owns the
+ * connection the result set was read on and gives it back to the pool as soon as the last row has been read or the
+ * iterator is closed, whichever comes first
+ */
+class ResultSetAssetIterator implements AssetIterator {
+
+    private static final String COULD_NOT_READ_ASSET = "Could not read the next asset";
+
+    private PooledConnection myConnection;
+    private ResultSet myResultSet;
+    private String myNameColumn;
+    private String myDataColumn;
+    private Boolean myHasNext;
+
+    ResultSetAssetIterator(PooledConnection connection, ResultSet resultSet, String nameColumn, String dataColumn) {
+        myConnection = connection;
+        myResultSet = resultSet;
+        myNameColumn = nameColumn;
+        myDataColumn = dataColumn;
+    }
+
+    @Override
+    public boolean hasNext() {
+        // the stream of the current asset stays readable until the caller asks for the next one
+        if (myHasNext == null) {
+            myHasNext = advance();
+        }
+        return myHasNext;
+    }
+
+    @Override
+    public Map.Entry<String, InputStream> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        myHasNext = null;
+        try {
+            return new AbstractMap.SimpleImmutableEntry<>(myResultSet.getString(myNameColumn),
+                    myResultSet.getBinaryStream(myDataColumn));
+        } catch (SQLException e) {
+            close();
+            throw new IllegalStateException(COULD_NOT_READ_ASSET, e);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (myConnection == null) {
+            return;
+        }
+        try {
+            myResultSet.close();
+        } catch (SQLException e) {
+            // the connection is given back either way and reset by the pool
+        }
+        myConnection.close();
+        myConnection = null;
+    }
+
+    private boolean advance() {
+        if (myConnection == null) {
+            return false;
+        }
+        try {
+            if (myResultSet.next()) {
+                return true;
+            }
+        } catch (SQLException e) {
+            close();
+            throw new IllegalStateException(COULD_NOT_READ_ASSET, e);
+        }
+        close();
+        return false;
+    }
+}
@@ -0,0 +1,55 @@
+package data.internal;
+
+import java.sql.Timestamp;
+
+/**
+ * Packages the serialized game information of one game together with when it was last saved, as read by the
+ * GameCatalog from a StorageBackend
+ */
+public class SerializedGameInfo {
+
+    private GamePrimaryKey myKey;
+    private String myPayload;
+    private Timestamp myModified;
+
+    /**
+     * SerializedGameInfo constructor
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param payload    serialized game information
+     * @param modified   when the game information was last saved, null if that isn't known
+     */
+    public SerializedGameInfo(String gameName, String authorName, String payload, Timestamp modified) {
+        myKey = new GamePrimaryKey(gameName, authorName);
+        myPayload = payload;
+        myModified = modified;
+    }
+
+    /**
+     * Getter for the game name and author name of the game
+     *
+     * @return key of the game
+     */
+    public GamePrimaryKey getKey() {
+        return myKey;
+    }
+
+    /**
+     * Getter for the serialized game information
+     *
+     * @return payload to decode
+     */
+    public String getPayload() {
+        return myPayload;
+    }
+
+    /**
+     * Getter for when the game information was last saved
+     *
+     * @return time of the last save, null if that isn't known
+     */
+    public Timestamp getModified() {
+        return myModified;
+    }
+}
@@ -0,0 +1,65 @@
+package data.internal;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.io.binary.BinaryStreamDriver;
+import com.thoughtworks.xstream.io.xml.StaxDriver;
+
+import java.lang.invoke.SerializedLambda;
+import java.util.Map;
+
+/**
+ * Holds the XStream serializers shared by every DataManager.  Building an XStream and warming up its reflection and
+ * converter caches is expensive, and an XStream is safe to use from several threads once it is configured, so each
+ * serializer is configured once here and then reused for the lifetime of the program.  Every serializer:
+ * - only deserializes the classes of the game (engine, runner and data external packages), java.util and the
+ * types XStream's default security allows, so a tampered row can't make the game instantiate anything else
+ * - writes short aliases for the packages of the game, and still reads the full class names written before the
+ * aliases existed
+ */
+public final class Serializers {
+
+    private static final String[] ALLOWED_PACKAGES = {"engine.external.**", "runner.external.**", "data.external.**",
+            "java.util.**"};
+    // Actions are built from serializable lambdas
+    private static final Class<?>[] ALLOWED_TYPES = {SerializedLambda.class};
+    private static final Map<String, String> PACKAGE_ALIASES = Map.of(
+            "e", "engine.external",
+            "r", "runner.external",
+            "d", "data.external"
+    );
+
+    private static final XStream XML_SERIALIZER = configure(new XStream(new StaxDriver()));
+    private static final XStream BINARY_SERIALIZER = configure(new XStream(new BinaryStreamDriver()));
+
+    private Serializers() {
+        // only holds the shared serializers
+    }
+
+    /**
+     * Returns the shared serializer that reads and writes xml with a streaming StAX parser
+     *
+     * @return the shared xml serializer
+     */
+    public static XStream getXMLSerializer() {
+        return XML_SERIALIZER;
+    }
+
+    /**
+     * Returns the shared serializer that reads and writes XStream's binary token stream
+     *
+     * @return the shared binary serializer
+     */
+    public static XStream getBinarySerializer() {
+        return BINARY_SERIALIZER;
+    }
+
+    private static XStream configure(XStream serializer) {
+        XStream.setupDefaultSecurity(serializer);
+        serializer.allowTypesByWildcard(ALLOWED_PACKAGES);
+        serializer.allowTypes(ALLOWED_TYPES);
+        for (Map.Entry<String, String> alias : PACKAGE_ALIASES.entrySet()) {
+            serializer.aliasPackage(alias.getKey(), alias.getValue());
+        }
+        return serializer;
+    }
+}
@@ -1,10 +1,11 @@
 package data.internal;
 
 import data.external.UserScore;
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -19,25 +20,25 @@ public class StatisticsQuerier extends Querier {
     private static final String AUTHOR_NAME_COLUMN = "AuthorName";
     private static final String SCORE_COLUMN = "Score";
     private static final String TIME_COLUMN = "ScoreTime";
+    private static final String ID_COLUMN = "ScoreID";
 
     private static final String SAVE_SCORE = String.format("INSERT INTO %s (%s, %s, %s, %s) VALUES (?, ?, ?, ?)", STATISTICS_TABLE_NAME, USER_NAME_COLUMN, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, SCORE_COLUMN);
-    private static final String LOAD_SCORE = String.format("SELECT %s, %s FROM %s WHERE %s = ? AND %s = ? ORDER BY %s DESC", USER_NAME_COLUMN, SCORE_COLUMN, STATISTICS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, SCORE_COLUMN);
+    private static final String LOAD_SCORE = String.format("SELECT %s, %s, %s FROM %s WHERE %s = ? AND %s = ? ORDER BY %s DESC", USER_NAME_COLUMN, SCORE_COLUMN, ID_COLUMN, STATISTICS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, SCORE_COLUMN);
+    // Pages are read by where the previous page ended instead of by offset, so that every page only reads the rows it
+    // returns from an index on (GameName, AuthorName, Score DESC, UserName, ScoreID).  The auto increment ScoreID
+    // breaks ties between equal scores of the same user, so that no row is skipped or repeated between pages
+    private static final String LOAD_TOP_SCORES = String.format("SELECT %s, %s, %s FROM %s WHERE %s = ? AND %s = ? ORDER BY %s DESC, %s, %s LIMIT ?", USER_NAME_COLUMN, SCORE_COLUMN, ID_COLUMN, STATISTICS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, SCORE_COLUMN, USER_NAME_COLUMN, ID_COLUMN);
+    private static final String LOAD_SCORES_AFTER = String.format("SELECT %s, %s, %s FROM %s WHERE %s = ? AND %s = ? AND (%s < ? OR (%s = ? AND (%s > ? OR (%s = ? AND %s > ?)))) ORDER BY %s DESC, %s, %s LIMIT ?", USER_NAME_COLUMN, SCORE_COLUMN, ID_COLUMN, STATISTICS_TABLE_NAME, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN, SCORE_COLUMN, SCORE_COLUMN, USER_NAME_COLUMN, USER_NAME_COLUMN, ID_COLUMN, SCORE_COLUMN, USER_NAME_COLUMN, ID_COLUMN);
+    private static final String LOAD_BEST_SCORE = String.format("SELECT MAX(%s) FROM %s WHERE %s = ? AND %s = ? AND %s = ?", SCORE_COLUMN, STATISTICS_TABLE_NAME, USER_NAME_COLUMN, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN);
     private static final String REMOVE_SCORES = String.format("DELETE FROM %s WHERE %s = ? AND %s = ? AND %s = ?", STATISTICS_TABLE_NAME, USER_NAME_COLUMN, GAME_NAME_COLUMN, AUTHOR_NAME_COLUMN);
 
-    private PreparedStatement mySaveScoreStatement;
-    private PreparedStatement myLoadScoresStatement;
-    private PreparedStatement myRemoveScoresStatement;
-
-    public StatisticsQuerier(Connection connection) throws SQLException{
-        super(connection);
-    }
-
-    @Override
-    protected void prepareStatements() throws SQLException {
-        mySaveScoreStatement = myConnection.prepareStatement(SAVE_SCORE);
-        myLoadScoresStatement = myConnection.prepareStatement(LOAD_SCORE);
-        myRemoveScoresStatement = myConnection.prepareStatement(REMOVE_SCORES);
-        myPreparedStatements = List.of(mySaveScoreStatement, myLoadScoresStatement);
+    /**
+     * StatisticsQuerier constructor
+     *
+     * @param connectionPool pool of connections to the database
+     */
+    public StatisticsQuerier(ConnectionPool connectionPool) {
+        super(connectionPool);
     }
 
     /**
@@ -48,11 +49,32 @@ public class StatisticsQuerier extends Querier {
      * @param score score for the game
      */
     public void saveScore(String userName, String gameName, String authorName, Double score) throws SQLException {
-        mySaveScoreStatement.setString(1, userName);
-        mySaveScoreStatement.setString(2, gameName);
-        mySaveScoreStatement.setString(3, authorName);
-        mySaveScoreStatement.setDouble(4, score);
-        mySaveScoreStatement.execute();
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(SAVE_SCORE);
+            bindScore(statement, gameName, authorName, new UserScore(userName, score));
+            statement.execute();
+        }
+    }
+
+    /**
+     * Saves many scores of a game to the database in batches inside one transaction
+     * @param gameName name of the game
+     * @param authorName author of the game
+     * @param scores scores of the users that played the game
+     * @return number of scores saved
+     * @throws SQLException if statement fails, in which case none of the scores are saved
+     */
+    public int saveScores(String gameName, String authorName, Collection<UserScore> scores) throws SQLException {
+        return executeInBatches(SAVE_SCORE, scores, (statement, score) -> bindScore(statement, gameName, authorName,
+                score));
+    }
+
+    private void bindScore(PreparedStatement statement, String gameName, String authorName, UserScore score)
+            throws SQLException {
+        statement.setString(1, score.getUserName());
+        statement.setString(2, gameName);
+        statement.setString(3, authorName);
+        statement.setDouble(4, score.getScore());
     }
 
     /**
@@ -63,15 +85,86 @@ public class StatisticsQuerier extends Querier {
      */
     public List<UserScore> loadScores(String gameName, String authorName) throws SQLException {
         List<UserScore> usersScoresList = new LinkedList<>();
-        myLoadScoresStatement.setString(1, gameName);
-        myLoadScoresStatement.setString(2, authorName);
-        ResultSet resultSet = myLoadScoresStatement.executeQuery();
-        while (resultSet.next()) {
-            usersScoresList.add(new UserScore(resultSet.getString(USER_NAME_COLUMN), resultSet.getDouble(SCORE_COLUMN)));
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(LOAD_SCORE);
+            statement.setString(1, gameName);
+            statement.setString(2, authorName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    usersScoresList.add(readScore(resultSet));
+                }
+            }
         }
         return usersScoresList;
     }
 
+    /**
+     * Loads one page of the scores for a given game, best first
+     * @param gameName name of the game to get scores for
+     * @param authorName name of the author of the game
+     * @param after last score of the previous page, null for the first page
+     * @param limit maximum number of scores on the page
+     * @return the scores that rank right after the previous page, ordered by score and then by user name
+     * @throws SQLException if statement fails
+     */
+    public List<UserScore> loadScorePage(String gameName, String authorName, UserScore after, int limit) throws SQLException {
+        List<UserScore> page = new ArrayList<>();
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement;
+            if (after == null) {
+                statement = connection.prepare(LOAD_TOP_SCORES);
+                statement.setString(1, gameName);
+                statement.setString(2, authorName);
+                statement.setInt(3, limit);
+            } else {
+                statement = connection.prepare(LOAD_SCORES_AFTER);
+                statement.setString(1, gameName);
+                statement.setString(2, authorName);
+                statement.setDouble(3, after.getScore());
+                statement.setDouble(4, after.getScore());
+                statement.setString(5, after.getUserName());
+                statement.setString(6, after.getUserName());
+                statement.setLong(7, after.getScoreID());
+                statement.setInt(8, limit);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    page.add(readScore(resultSet));
+                }
+            }
+        }
+        return page;
+    }
+
+    private UserScore readScore(ResultSet resultSet) throws SQLException {
+        return new UserScore(resultSet.getString(USER_NAME_COLUMN), resultSet.getDouble(SCORE_COLUMN),
+                resultSet.getLong(ID_COLUMN));
+    }
+
+    /**
+     * Loads the best score of a user for a given game
+     * @param userName name of the user
+     * @param gameName name of the game
+     * @param authorName name of the author of the game
+     * @return the best score, null if the user has no score for the game
+     * @throws SQLException if statement fails
+     */
+    public Double loadBestScore(String userName, String gameName, String authorName) throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(LOAD_BEST_SCORE);
+            statement.setString(1, userName);
+            statement.setString(2, gameName);
+            statement.setString(3, authorName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    double bestScore = resultSet.getDouble(1);
+                    return resultSet.wasNull() ? null : bestScore;
+                }
+            }
+        }
+        return null;
+    }
+
     /**
      * Removes high scores for a user from the database, used for testing purposes
      * @param userName name of the user
@@ -80,9 +173,12 @@ public class StatisticsQuerier extends Querier {
      * @throws SQLException if statement fails
      */
     public void removeScores(String userName, String gameName, String authorName) throws SQLException {
-        myRemoveScoresStatement.setString(1, userName);
-        myRemoveScoresStatement.setString(2, gameName);
-        myRemoveScoresStatement.setString(3, authorName);
-        myRemoveScoresStatement.execute();
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(REMOVE_SCORES);
+            statement.setString(1, userName);
+            statement.setString(2, gameName);
+            statement.setString(3, authorName);
+            statement.execute();
+        }
     }
 }
@@ -0,0 +1,597 @@
+package data.internal;
+
+import data.external.AssetIterator;
+import data.external.CheckpointInfo;
+import data.external.GameRating;
+import data.external.RatingSummary;
+import data.external.UserScore;
+
+import java.io.File;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A place where the DatabaseEngine stores and loads everything the DataManager saves, in serialized form
+ * Implementations report failures as SQLExceptions whether or not they are backed by a SQL database, so that the
+ * DataManager handles every backend the same way
+ */
+public interface StorageBackend {
+
+    /**
+     * Opens the backend, should be called before any other method
+     *
+     * @return true if the backend is ready to be used
+     */
+    boolean open();
+
+    /**
+     * Closes the resources associated with the backend
+     */
+    void close();
+
+    /**
+     * Saves the serialized game data of a game, replacing the existing data if there is any
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param myRawXML   serialized game object
+     * @throws SQLException if operation fails
+     */
+    void updateGameEntryData(String gameName, String authorName, String myRawXML) throws SQLException;
+
+    /**
+     * Saves the serialized game information of a game, replacing the existing information if there is any
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param myRawXML   serialized game center data object
+     * @throws SQLException if operation fails
+     */
+    void updateGameEntryInfo(String gameName, String authorName, String myRawXML) throws SQLException;
+
+    /**
+     * Loads the serialized game information of every game
+     *
+     * @return raw xml of the game center data objects
+     * @throws SQLException if operation fails
+     */
+    List<String> loadAllGameInformationXMLs() throws SQLException;
+
+    /**
+     * Loads the serialized game information of every game authored by a user
+     *
+     * @param userName author of the games
+     * @return raw xml of the game center data objects
+     * @throws SQLException if operation fails
+     */
+    List<String> loadAllGameInformationXMLs(String userName) throws SQLException;
+
+    /**
+     * Loads the serialized game information saved since a point in time, together with the game it belongs to and
+     * when it was saved
+     *
+     * @param since earliest save time to load, null to load the game information of every game
+     * @return serialized game information saved at or after since
+     * @throws SQLException if operation fails
+     */
+    List<SerializedGameInfo> loadGameInfoChangedSince(Timestamp since) throws SQLException;
+
+    /**
+     * Loads the game name and author name of every game that has game information
+     *
+     * @return keys of every game with game information
+     * @throws SQLException if operation fails
+     */
+    List<GamePrimaryKey> loadGameInfoKeys() throws SQLException;
+
+    /**
+     * Loads the serialized game data of a game
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @return raw xml of the game object, or null if there is none
+     * @throws SQLException if operation fails
+     */
+    String loadGameData(String gameName, String authorName) throws SQLException;
+
+    /**
+     * Loads the serialized game information of a game
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @return raw xml of the game center data object, or null if there is none
+     * @throws SQLException if operation fails
+     */
+    String loadGameInfo(String gameName, String authorName) throws SQLException;
+
+    /**
+     * Saves the serialized levels of a game, replacing any levels previously saved for it
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param levelXMLs  serialized levels in order, the first one is saved as level 1
+     * @throws SQLException if operation fails
+     */
+    void saveGameLevels(String gameName, String authorName, List<String> levelXMLs) throws SQLException;
+
+    /**
+     * Saves the serialized levels of a game together with its manifest, so that the manifest is never saved with
+     * levels that don't match it.  The database does so in one transaction
+     *
+     * @param gameName    name of the game
+     * @param authorName  name of the author of the game
+     * @param levelXMLs   serialized levels in order, the first one is saved as level 1
+     * @param manifestXML serialized manifest of the game
+     * @throws SQLException if operation fails, in which case the database keeps the game as it was
+     */
+    void saveChunkedGameData(String gameName, String authorName, List<String> levelXMLs, String manifestXML)
+            throws SQLException;
+
+    /**
+     * Loads a single serialized level of a game
+     *
+     * @param gameName    name of the game
+     * @param authorName  name of the author of the game
+     * @param levelNumber number of the level, starting at 1
+     * @return raw xml of the level, or null if there is none
+     * @throws SQLException if operation fails
+     */
+    String loadGameLevel(String gameName, String authorName, int levelNumber) throws SQLException;
+
+    /**
+     * Counts the levels saved individually for a game
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @return number of levels saved for the game
+     * @throws SQLException if operation fails
+     */
+    int countGameLevels(String gameName, String authorName) throws SQLException;
+
+    /**
+     * Loads the names of all the games authored by a user
+     *
+     * @param userName author of the games
+     * @return names of the games
+     * @throws SQLException if operation fails
+     */
+    List<String> loadAllGameNames(String userName) throws SQLException;
+
+    /**
+     * Removes a game along with its levels
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @return true if the game was removed
+     * @throws SQLException if operation fails
+     */
+    boolean removeGame(String gameName, String authorName) throws SQLException;
+
+    /**
+     * Saves an image, replacing the image of the same name if there is one
+     *
+     * @param imageName   name of the image
+     * @param imageToSave image file
+     */
+    void saveImage(String imageName, File imageToSave);
+
+    /**
+     * Saves a sound, replacing the sound of the same name if there is one
+     *
+     * @param soundName   name of the sound
+     * @param soundToSave sound file
+     */
+    void saveSound(String soundName, File soundToSave);
+
+    /**
+     * Saves many images at once, replacing the images of the same names and skipping the ones that are saved unchanged
+     *
+     * @param imagesToSave map of the image names to the image files
+     * @return number of images that actually had to be saved
+     * @throws SQLException if operation fails
+     */
+    int saveImages(Map<String, File> imagesToSave) throws SQLException;
+
+    /**
+     * Saves many sounds at once, replacing the sounds of the same names and skipping the ones that are saved unchanged
+     *
+     * @param soundsToSave map of the sound names to the sound files
+     * @return number of sounds that actually had to be saved
+     * @throws SQLException if operation fails
+     */
+    int saveSounds(Map<String, File> soundsToSave) throws SQLException;
+
+    /**
+     * Loads an image
+     *
+     * @param imageName name of the image
+     * @return image data, or null if there is no such image
+     */
+    InputStream loadImage(String imageName);
+
+    /**
+     * Loads a sound
+     *
+     * @param soundName name of the sound
+     * @return sound data, or null if there is no such sound
+     */
+    InputStream loadSound(String soundName);
+
+    /**
+     * Loads all the images whose name starts with prefix
+     *
+     * @param prefix the gameName + the authorName
+     * @return map of the image names to the image data
+     * @throws SQLException if operation fails
+     */
+    Map<String, InputStream> loadAllImages(String prefix) throws SQLException;
+
+    /**
+     * Loads all the sounds whose name starts with prefix
+     *
+     * @param prefix the gameName + the authorName
+     * @return map of the sound names to the sound data
+     * @throws SQLException if operation fails
+     */
+    Map<String, InputStream> loadAllSounds(String prefix) throws SQLException;
+
+    /**
+     * Reads all the images whose name starts with prefix one at a time
+     *
+     * @param prefix the gameName + the authorName
+     * @return iterator of the image names and data, which must be closed if it isn't exhausted
+     * @throws SQLException if operation fails
+     */
+    AssetIterator iterateImages(String prefix) throws SQLException;
+
+    /**
+     * Reads all the sounds whose name starts with prefix one at a time
+     *
+     * @param prefix the gameName + the authorName
+     * @return iterator of the sound names and data, which must be closed if it isn't exhausted
+     * @throws SQLException if operation fails
+     */
+    AssetIterator iterateSounds(String prefix) throws SQLException;
+
+    /**
+     * Removes an image
+     *
+     * @param imageName name of the image
+     * @return true if the image was removed
+     * @throws SQLException if operation fails
+     */
+    boolean removeImage(String imageName) throws SQLException;
+
+    /**
+     * Removes a sound
+     *
+     * @param soundName name of the sound
+     * @return true if the sound was removed
+     * @throws SQLException if operation fails
+     */
+    boolean removeSound(String soundName) throws SQLException;
+
+    /**
+     * Creates a new user
+     *
+     * @param userName user name of the new user
+     * @param password password of the new user
+     * @return true if the user was created
+     * @throws SQLException if operation fails, e.g. because the user already exists
+     */
+    boolean createUser(String userName, String password) throws SQLException;
+
+    /**
+     * Authenticates a user's login attempt
+     *
+     * @param userName entered user name
+     * @param password entered password
+     * @return true if valid user name and password combination
+     */
+    boolean authenticateUser(String userName, String password);
+
+    /**
+     * Changes the password of a user
+     *
+     * @param userName    user whose password should be changed
+     * @param newPassword new password
+     * @return true if the password was changed
+     * @throws SQLException if operation fails
+     */
+    boolean updatePassword(String userName, String newPassword) throws SQLException;
+
+    /**
+     * Removes a user
+     *
+     * @param userName user to remove
+     * @return true if the user was removed
+     * @throws SQLException if operation fails
+     */
+    boolean removeUser(String userName) throws SQLException;
+
+    /**
+     * Sets the profile picture of a user
+     *
+     * @param userName   user name
+     * @param profilePic picture file
+     * @throws SQLException if operation fails
+     */
+    void setProfilePic(String userName, File profilePic) throws SQLException;
+
+    /**
+     * Sets the bio of a user
+     *
+     * @param userName user name
+     * @param bio      bio
+     * @throws SQLException if operation fails
+     */
+    void setBio(String userName, String bio) throws SQLException;
+
+    /**
+     * Loads the profile picture of a user
+     *
+     * @param userName user name
+     * @return picture data
+     * @throws SQLException if operation fails or the user does not exist
+     */
+    InputStream getProfilePic(String userName) throws SQLException;
+
+    /**
+     * Loads a saved thumbnail
+     *
+     * @param sourceName name of the image or profile picture the thumbnail was made from
+     * @param size       the thumbnail fits in a square of this many pixels
+     * @return the encoded thumbnail, or null if there is none
+     * @throws SQLException if operation fails
+     */
+    byte[] loadThumbnail(String sourceName, int size) throws SQLException;
+
+    /**
+     * Saves a thumbnail, replacing the one of the same size made from the same source
+     *
+     * @param sourceName name of the image or profile picture the thumbnail was made from
+     * @param size       the thumbnail fits in a square of this many pixels
+     * @param thumbnail  the encoded thumbnail
+     * @throws SQLException if operation fails
+     */
+    void saveThumbnail(String sourceName, int size, byte[] thumbnail) throws SQLException;
+
+    /**
+     * Removes every thumbnail made from any of the sources
+     *
+     * @param sourceNames names of the images or profile pictures whose thumbnails should be removed
+     * @return number of sources whose thumbnails were removed
+     * @throws SQLException if operation fails
+     */
+    int removeThumbnails(Collection<String> sourceNames) throws SQLException;
+
+    /**
+     * Loads the bio of a user
+     *
+     * @param userName user name
+     * @return bio
+     * @throws SQLException if operation fails or the user does not exist
+     */
+    String getBio(String userName) throws SQLException;
+
+    /**
+     * Saves a rating, replacing the rating the same user gave the same game if there is one
+     *
+     * @param rating rating to save, timed now unless it already has a time
+     * @throws SQLException if operation fails
+     */
+    void addGameRating(GameRating rating) throws SQLException;
+
+    /**
+     * Adds or replaces many ratings at once
+     *
+     * @param ratings ratings to add
+     * @return number of ratings added
+     * @throws SQLException if operation fails, in which case none of the ratings are added
+     */
+    int addGameRatings(Collection<GameRating> ratings) throws SQLException;
+
+    /**
+     * Returns the average rating of a game
+     *
+     * @param gameName name of the game
+     * @return average rating
+     * @throws SQLException if operation fails
+     */
+    double getAverageRating(String gameName) throws SQLException;
+
+    /**
+     * Loads all the ratings of a game
+     *
+     * @param gameName name of the game
+     * @return ratings of the game
+     * @throws SQLException if operation fails
+     */
+    List<GameRating> getAllRatings(String gameName) throws SQLException;
+
+    /**
+     * Returns one page of the ratings of a game, newest first
+     *
+     * @param gameName name of the game
+     * @param after    last rating of the previous page, null for the first page
+     * @param limit    maximum number of ratings on the page
+     * @return the ratings that were made right before the ones on the previous page
+     * @throws SQLException if operation fails
+     */
+    List<GameRating> getRatingPage(String gameName, GameRating after, int limit) throws SQLException;
+
+    /**
+     * Returns the totals of the ratings of a game
+     *
+     * @param gameName name of the game
+     * @return the totals of the ratings of the game
+     * @throws SQLException if operation fails
+     */
+    RatingSummary getRatingSummary(String gameName) throws SQLException;
+
+    /**
+     * Returns the totals of the ratings of every game that has been rated
+     *
+     * @return map of the game names to the totals of their ratings
+     * @throws SQLException if operation fails
+     */
+    Map<String, RatingSummary> getAllRatingSummaries() throws SQLException;
+
+    /**
+     * Recomputes the stored totals of the ratings of every game from the ratings
+     *
+     * @return number of games whose totals were computed
+     * @throws SQLException if operation fails
+     */
+    int rebuildRatingTotals() throws SQLException;
+
+    /**
+     * Removes all the ratings of a game
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @throws SQLException if operation fails
+     */
+    void removeRating(String gameName, String authorName) throws SQLException;
+
+    /**
+     * Saves a serialized checkpoint
+     *
+     * @param userName    user playing the game
+     * @param gameName    name of the game
+     * @param authorName  name of the author of the game
+     * @param rawXML      serialized checkpoint
+     * @param levelNumber number of the level the checkpoint was saved in, null if unknown
+     * @param score       score when the checkpoint was saved, null if unknown
+     * @param full        false if the checkpoint only holds changes to the checkpoints of its chain before it
+     * @param time        time the checkpoint was made, null for now
+     * @throws SQLException if operation fails
+     */
+    void saveCheckpoint(String userName, String gameName, String authorName, String rawXML, Integer levelNumber,
+                        Double score, boolean full, Timestamp time) throws SQLException;
+
+    /**
+     * Loads the serialized checkpoints of a user for a game
+     *
+     * @param userName   user playing the game
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @return map from the time of each checkpoint to the serialized checkpoint
+     * @throws SQLException if operation fails
+     */
+    Map<Timestamp, String> getCheckpoints(String userName, String gameName, String authorName) throws SQLException;
+
+    /**
+     * Describes the checkpoints of a user for a game without loading the serialized checkpoints
+     *
+     * @param userName   user playing the game
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @return time, level number, score, size and kind of every checkpoint, newest first
+     * @throws SQLException if operation fails
+     */
+    List<CheckpointInfo> getCheckpointInfo(String userName, String gameName, String authorName) throws SQLException;
+
+    /**
+     * Loads one serialized checkpoint of a user for a game
+     *
+     * @param userName   user playing the game
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param time       time the checkpoint was saved
+     * @return the serialized checkpoint, null if there is none saved at that time
+     * @throws SQLException if operation fails
+     */
+    String loadCheckpoint(String userName, String gameName, String authorName, Timestamp time) throws SQLException;
+
+    /**
+     * Removes the checkpoints of a user for a game that were saved before a given time
+     *
+     * @param userName   user playing the game
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param time       checkpoints saved before this time are removed
+     * @return number of checkpoints removed
+     * @throws SQLException if operation fails
+     */
+    int removeCheckpointsBefore(String userName, String gameName, String authorName, Timestamp time) throws SQLException;
+
+    /**
+     * Removes the checkpoints of a user for a game
+     *
+     * @param userName   user playing the game
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @throws SQLException if operation fails
+     */
+    void deleteCheckpoint(String userName, String gameName, String authorName) throws SQLException;
+
+    /**
+     * Saves a score
+     *
+     * @param userName   user playing the game
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param score      score
+     * @throws SQLException if operation fails
+     */
+    void saveScore(String userName, String gameName, String authorName, Double score) throws SQLException;
+
+    /**
+     * Saves many scores of a game at once
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param scores     scores of the users that played the game
+     * @return number of scores saved
+     * @throws SQLException if operation fails
+     */
+    int saveScores(String gameName, String authorName, Collection<UserScore> scores) throws SQLException;
+
+    /**
+     * Loads all the scores of a game, highest first
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @return scores of the game
+     * @throws SQLException if operation fails
+     */
+    List<UserScore> loadScores(String gameName, String authorName) throws SQLException;
+
+    /**
+     * Loads one page of the scores of a game in the order of LeaderboardCache.RANKING
+     *
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @param after      last score of the previous page, null for the first page
+     * @param limit      maximum number of scores on the page
+     * @return the scores that rank right after the previous page
+     * @throws SQLException if operation fails
+     */
+    List<UserScore> loadScorePage(String gameName, String authorName, UserScore after, int limit) throws SQLException;
+
+    /**
+     * Loads the best score of a user for a game
+     *
+     * @param userName   user name
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @return the best score, null if the user has no score for the game
+     * @throws SQLException if operation fails
+     */
+    Double loadBestScore(String userName, String gameName, String authorName) throws SQLException;
+
+    /**
+     * Removes the scores of a user for a game
+     *
+     * @param userName   user name
+     * @param gameName   name of the game
+     * @param authorName name of the author of the game
+     * @throws SQLException if operation fails
+     */
+    void removeScores(String userName, String gameName, String authorName) throws SQLException;
+}
@@ -0,0 +1,241 @@
+package data.internal;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hands out scaled down copies of images and profile pictures, so that showing a picture small doesn't require
+ * transferring and decoding it at full size.  Thumbnails come in a few fixed sizes, each fitting in a square of that
+ * many pixels, and are made the first time they are asked for.  Every thumbnail that is made is saved with the backend
+ * so that it is only made once, and the most recently used ones are also kept in memory.  The thumbnails of a picture
+ * are removed whenever the picture is saved again or removed
+ */
+public class ThumbnailCache {
+
+    /**
+     * The sizes thumbnails are made in, a request for any other size gets the next bigger one
+     */
+    public static final List<Integer> SIZES = List.of(64, 128, 256, 512);
+
+    private static final String IMAGE_SOURCE = "image/";
+    private static final String PROFILE_PIC_SOURCE = "profile/";
+    private static final String KEY_SEPARATOR = "@";
+    private static final String FORMAT = "png";
+    private static final long DEFAULT_MEMORY_BYTES = 16 * 1024 * 1024;
+    private static final int HALF = 2;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    private static final String COULD_NOT_MAKE_THUMBNAIL = "Could not make thumbnail: ";
+    private static final String COULD_NOT_REMOVE_THUMBNAILS = "Could not remove thumbnails: ";
+
+    private StorageBackend myBackend;
+    private long myMemoryBytes;
+    private long myUsedBytes;
+    private Map<String, byte[]> myThumbnails;
+
+    /**
+     * Loads a picture a thumbnail is made from
+     */
+    @FunctionalInterface
+    private interface SourceLoader {
+        InputStream load() throws SQLException;
+    }
+
+    /**
+     * Creates an empty cache of the thumbnails saved in backend that keeps up to 16 MB of thumbnails in memory
+     *
+     * @param backend backend the pictures and their thumbnails are saved in
+     */
+    public ThumbnailCache(StorageBackend backend) {
+        this(backend, DEFAULT_MEMORY_BYTES);
+    }
+
+    /**
+     * Creates an empty cache of the thumbnails saved in backend
+     *
+     * @param backend     backend the pictures and their thumbnails are saved in
+     * @param memoryBytes how many bytes of thumbnails are kept in memory
+     */
+    public ThumbnailCache(StorageBackend backend, long memoryBytes) {
+        myBackend = backend;
+        myMemoryBytes = memoryBytes;
+        myThumbnails = new LinkedHashMap<>(INITIAL_CAPACITY, LOAD_FACTOR, true);
+    }
+
+    /**
+     * Returns the thumbnail of an image
+     *
+     * @param imageName name of the image
+     * @param size      the thumbnail fits in a square of at least this many pixels
+     * @return the encoded thumbnail, or null if size is bigger than any thumbnail or the image is missing or can't be
+     * decoded, in which case the image itself should be used
+     * @throws SQLException if loading or saving the thumbnail fails
+     */
+    public InputStream getImageThumbnail(String imageName, int size) throws SQLException {
+        return getThumbnail(IMAGE_SOURCE + imageName, size, () -> myBackend.loadImage(imageName));
+    }
+
+    /**
+     * Returns the thumbnail of the profile picture of a user
+     *
+     * @param userName name of the user
+     * @param size     the thumbnail fits in a square of at least this many pixels
+     * @return the encoded thumbnail, or null if size is bigger than any thumbnail or the user has no profile picture
+     * that can be decoded, in which case the profile picture itself should be used
+     * @throws SQLException if loading or saving the thumbnail fails
+     */
+    public InputStream getProfilePicThumbnail(String userName, int size) throws SQLException {
+        return getThumbnail(PROFILE_PIC_SOURCE + userName, size, () -> myBackend.getProfilePic(userName));
+    }
+
+    /**
+     * Removes the thumbnails of images that were saved again or removed
+     *
+     * @param imageNames names of the images
+     */
+    public void imagesChanged(Collection<String> imageNames) {
+        Set<String> sources = new HashSet<>();
+        for (String imageName : imageNames) {
+            sources.add(IMAGE_SOURCE + imageName);
+        }
+        removeThumbnails(sources);
+    }
+
+    /**
+     * Removes the thumbnails of the profile picture of a user, e.g. after it was replaced
+     *
+     * @param userName name of the user
+     */
+    public void profilePicChanged(String userName) {
+        removeThumbnails(Set.of(PROFILE_PIC_SOURCE + userName));
+    }
+
+    /**
+     * Returns the size of the thumbnail that is handed out for a requested size
+     *
+     * @param size requested size
+     * @return the smallest thumbnail size that is at least size, or -1 if size is bigger than every thumbnail size
+     */
+    public static int thumbnailSize(int size) {
+        for (int thumbnailSize : SIZES) {
+            if (thumbnailSize >= size) {
+                return thumbnailSize;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Scales a picture down so that it fits in a square, keeping its proportions.  Pictures that already fit are only
+     * re-encoded
+     *
+     * @param picture encoded picture in any format ImageIO can read
+     * @param size    the thumbnail fits in a square of this many pixels
+     * @return the thumbnail encoded as PNG, or null if the picture can't be decoded
+     * @throws IOException if reading the picture fails
+     */
+    public static byte[] makeThumbnail(InputStream picture, int size) throws IOException {
+        BufferedImage image = ImageIO.read(picture);
+        if (image == null) {
+            return null;
+        }
+        double scale = Math.min(1, size / (double) Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+        // halving first keeps bilinear scaling from skipping over most of the pixels of big pictures
+        while (image.getWidth() / HALF >= width && image.getHeight() / HALF >= height) {
+            image = scale(image, image.getWidth() / HALF, image.getHeight() / HALF);
+        }
+        image = scale(image, width, height);
+        ByteArrayOutputStream thumbnail = new ByteArrayOutputStream();
+        ImageIO.write(image, FORMAT, thumbnail);
+        return thumbnail.toByteArray();
+    }
+
+    private InputStream getThumbnail(String source, int size, SourceLoader loader) throws SQLException {
+        int thumbnailSize = thumbnailSize(size);
+        if (thumbnailSize < 0) {
+            return null;
+        }
+        String key = source + KEY_SEPARATOR + thumbnailSize;
+        byte[] thumbnail = getFromMemory(key);
+        if (thumbnail == null) {
+            thumbnail = myBackend.loadThumbnail(source, thumbnailSize);
+            if (thumbnail == null) {
+                thumbnail = makeThumbnail(loader, thumbnailSize);
+                if (thumbnail == null) {
+                    return null;
+                }
+                myBackend.saveThumbnail(source, thumbnailSize, thumbnail);
+            }
+            putInMemory(key, thumbnail);
+        }
+        return new ByteArrayInputStream(thumbnail);
+    }
+
+    private byte[] makeThumbnail(SourceLoader loader, int size) throws SQLException {
+        try (InputStream picture = loader.load()) {
+            return picture == null ? null : makeThumbnail(picture, size);
+        } catch (IOException e) {
+            System.out.println(COULD_NOT_MAKE_THUMBNAIL + e.getMessage());
+            return null;
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage image, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        graphics.drawImage(image, 0, 0, width, height, null);
+        graphics.dispose();
+        return scaled;
+    }
+
+    private void removeThumbnails(Set<String> sources) {
+        synchronized (this) {
+            Iterator<Map.Entry<String, byte[]>> thumbnails = myThumbnails.entrySet().iterator();
+            while (thumbnails.hasNext()) {
+                Map.Entry<String, byte[]> thumbnail = thumbnails.next();
+                if (sources.contains(thumbnail.getKey().substring(0, thumbnail.getKey().lastIndexOf(KEY_SEPARATOR)))) {
+                    myUsedBytes -= thumbnail.getValue().length;
+                    thumbnails.remove();
+                }
+            }
+        }
+        try {
+            myBackend.removeThumbnails(sources);
+        } catch (SQLException e) {
+            System.out.println(COULD_NOT_REMOVE_THUMBNAILS + e.getMessage());
+        }
+    }
+
+    private synchronized byte[] getFromMemory(String key) {
+        return myThumbnails.get(key);
+    }
+
+    // The least recently used thumbnails are dropped until the new one fits
+    private synchronized void putInMemory(String key, byte[] thumbnail) {
+        byte[] replaced = myThumbnails.put(key, thumbnail);
+        myUsedBytes += thumbnail.length - (replaced == null ? 0 : replaced.length);
+        Iterator<byte[]> oldest = myThumbnails.values().iterator();
+        while (myUsedBytes > myMemoryBytes && oldest.hasNext()) {
+            myUsedBytes -= oldest.next().length;
+            oldest.remove();
+        }
+    }
+}
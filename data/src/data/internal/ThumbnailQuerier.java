@@ -0,0 +1,88 @@
+package data.internal;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+
+/**
+ * A Querier used to access the Thumbnails table, which keeps scaled down copies of images and profile pictures so that
+ * they don't have to be transferred and decoded at full size just to be shown small
+ */
+public class ThumbnailQuerier extends Querier {
+
+    private static final String THUMBNAILS_TABLE_NAME = "Thumbnails";
+    private static final String SOURCE_NAME_COLUMN = "SourceName";
+    private static final String SIZE_COLUMN = "Size";
+    private static final String THUMBNAIL_DATA_COLUMN = "ThumbnailData";
+
+    private static final String LOAD_THUMBNAIL = String.format("SELECT %s FROM %s WHERE %s = ? AND %s = ?",
+            THUMBNAIL_DATA_COLUMN, THUMBNAILS_TABLE_NAME, SOURCE_NAME_COLUMN, SIZE_COLUMN);
+    private static final String THUMBNAIL_INSERT = String.format(INSERT_THREE_VALUES, THUMBNAILS_TABLE_NAME,
+            SOURCE_NAME_COLUMN, SIZE_COLUMN, THUMBNAIL_DATA_COLUMN);
+    private static final String SAVE_THUMBNAIL = String.format("%s %s %s = VALUES(%s)", THUMBNAIL_INSERT,
+            ON_DUPLICATE_UPDATE, THUMBNAIL_DATA_COLUMN, THUMBNAIL_DATA_COLUMN);
+    private static final String REMOVE_THUMBNAILS = String.format(DELETE_ONE_CONDITION, THUMBNAILS_TABLE_NAME,
+            SOURCE_NAME_COLUMN);
+
+    /**
+     * ThumbnailQuerier constructor
+     *
+     * @param connectionPool pool of connections to the database
+     */
+    public ThumbnailQuerier(ConnectionPool connectionPool) {
+        super(connectionPool);
+    }
+
+    /**
+     * Loads a saved thumbnail
+     *
+     * @param sourceName name of the image or profile picture the thumbnail was made from
+     * @param size       the thumbnail fits in a square of this many pixels
+     * @return the encoded thumbnail, null if there is none
+     * @throws SQLException if statement fails
+     */
+    public byte[] loadThumbnail(String sourceName, int size) throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(LOAD_THUMBNAIL);
+            statement.setString(1, sourceName);
+            statement.setInt(2, size);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getBytes(THUMBNAIL_DATA_COLUMN);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Saves a thumbnail, replacing the one of the same size made from the same source
+     *
+     * @param sourceName name of the image or profile picture the thumbnail was made from
+     * @param size       the thumbnail fits in a square of this many pixels
+     * @param thumbnail  the encoded thumbnail
+     * @throws SQLException if statement fails
+     */
+    public void saveThumbnail(String sourceName, int size, byte[] thumbnail) throws SQLException {
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(SAVE_THUMBNAIL);
+            statement.setString(1, sourceName);
+            statement.setInt(2, size);
+            statement.setBytes(3, thumbnail);
+            statement.executeUpdate();
+        }
+    }
+
+    /**
+     * Removes every thumbnail made from any of the sources, e.g. because the sources were replaced
+     *
+     * @param sourceNames names of the images or profile pictures whose thumbnails should be removed
+     * @return number of sources whose thumbnails were removed
+     * @throws SQLException if statement fails
+     */
+    public int removeThumbnails(Collection<String> sourceNames) throws SQLException {
+        return executeInBatches(REMOVE_THUMBNAILS, sourceNames, (statement, sourceName) ->
+                statement.setString(1, sourceName));
+    }
+}
@@ -8,12 +8,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
-import java.util.Map;
 
 /**
  * Querier class to access and query the User table to perform user authentication
@@ -43,36 +40,13 @@ public class UserQuerier extends Querier {
     private static final String COULD_NOT_GENERATE_HASH = "Could not generate hash: ";
     private static final String COULD_NOT_LOAD_IMAGE = "COULD NOT LOAD IMAGE ";
 
-    private PreparedStatement myGetPasswordStatement;
-    private PreparedStatement myCreateUserStatement;
-    private PreparedStatement myDeleteUserStatement;
-    private PreparedStatement mySetUserBioStatement;
-    private PreparedStatement myGetUserBioStatement;
-    private PreparedStatement mySetUserProfilePicStatement;
-    private PreparedStatement myGetUserProfilePicStatement;
-
-
     /**
      * UserQuerier constructor
      *
-     * @param connection connection to the database
-     * @throws SQLException if cannot prepare statements
+     * @param connectionPool pool of connections to the database
      */
-    public UserQuerier(Connection connection) throws SQLException {
-        super(connection);
-    }
-
-    @Override
-    protected void prepareStatements() throws SQLException {
-        myGetPasswordStatement = myConnection.prepareStatement(GET_HASHED_PASSWORD);
-        myCreateUserStatement = myConnection.prepareStatement(CREATE_USER);
-        myDeleteUserStatement = myConnection.prepareStatement(DELETE_USER);
-        mySetUserBioStatement = myConnection.prepareStatement(SET_BIO);
-        myGetUserBioStatement = myConnection.prepareStatement(GET_BIO);
-        mySetUserProfilePicStatement = myConnection.prepareStatement(SET_PROFILE_PIC);
-        myGetUserProfilePicStatement = myConnection.prepareStatement(GET_PROFILE_PIC);
-        myPreparedStatements = List.of(myGetPasswordStatement, myCreateUserStatement, myDeleteUserStatement,
-                mySetUserBioStatement, mySetUserProfilePicStatement, myGetUserBioStatement, myGetUserProfilePicStatement);
+    public UserQuerier(ConnectionPool connectionPool) {
+        super(connectionPool);
     }
 
     /**
@@ -104,14 +78,17 @@ public class UserQuerier extends Querier {
      * @throws SQLException if statement fails
      */
     public boolean createUser(String userName, String password) throws SQLException {
-        myCreateUserStatement.setString(1, userName);
-        try {
-            myCreateUserStatement.setString(2, generateHashedPassword(password));
-        } catch (NoSuchAlgorithmException e) {
-            System.out.println(COULD_NOT_GENERATE_HASH + e.getMessage());
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(CREATE_USER);
+            statement.setString(1, userName);
+            try {
+                statement.setString(2, generateHashedPassword(password));
+            } catch (NoSuchAlgorithmException e) {
+                System.out.println(COULD_NOT_GENERATE_HASH + e.getMessage());
+            }
+            int updates = statement.executeUpdate();
+            return updates == 1;
         }
-        int updates = myCreateUserStatement.executeUpdate();
-        return updates == 1;
     }
 
     /**
@@ -129,18 +106,22 @@ public class UserQuerier extends Querier {
     }
 
     private String retrieveStoredHash(String userName) throws SQLException {
-        myGetPasswordStatement.setString(1, userName);
-        ResultSet resultSet = myGetPasswordStatement.executeQuery();
-        if (resultSet.next()) {
-            return resultSet.getString(PASSWORD_COLUMN);
-        } else {
-            return "";
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(GET_HASHED_PASSWORD);
+            statement.setString(1, userName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getString(PASSWORD_COLUMN);
+                } else {
+                    return "";
+                }
+            }
         }
     }
 
     // Hashing process adapted from: https://howtodoinjava.com/security/how-to-generate-secure-password-hash-md5-sha-pbkdf2-bcrypt-examples/
     // Author: Lokesh Gupta
-    private String generateHashedPassword(String password) throws NoSuchAlgorithmException {
+    static String generateHashedPassword(String password) throws NoSuchAlgorithmException {
         MessageDigest messageDigest = MessageDigest.getInstance(HASH_ALGORITHM);
         byte[] bytes = messageDigest.digest(password.getBytes());
         StringBuilder stringBuilder = new StringBuilder();
@@ -158,9 +139,12 @@ public class UserQuerier extends Querier {
      * @throws SQLException if statement fails
      */
     public boolean removeUser(String userName) throws SQLException {
-        myDeleteUserStatement.setString(1, userName);
-        int affectedRows = myDeleteUserStatement.executeUpdate();
-        return affectedRows > 0;
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(DELETE_USER);
+            statement.setString(1, userName);
+            int affectedRows = statement.executeUpdate();
+            return affectedRows > 0;
+        }
     }
 
     /**
@@ -171,10 +155,12 @@ public class UserQuerier extends Querier {
      */
     public void setProfilePic(String userName, File profilePic) throws SQLException {
         System.out.println("Called set profile pic");
-        try (BufferedInputStream bufferedInputStream = new BufferedInputStream(new FileInputStream(profilePic))) {
-            mySetUserProfilePicStatement.setBinaryStream(1, bufferedInputStream);
-            mySetUserProfilePicStatement.setString(2, userName);
-            mySetUserProfilePicStatement.execute();
+        try (PooledConnection connection = myConnectionPool.borrow();
+             BufferedInputStream bufferedInputStream = new BufferedInputStream(new FileInputStream(profilePic))) {
+            PreparedStatement statement = connection.prepare(SET_PROFILE_PIC);
+            statement.setBinaryStream(1, bufferedInputStream);
+            statement.setString(2, userName);
+            statement.execute();
             System.out.println("Statement executed");
         } catch (IOException e) {
             System.out.println(COULD_NOT_LOAD_IMAGE + e.getMessage());
@@ -187,9 +173,12 @@ public class UserQuerier extends Querier {
      * @throws SQLException if statement fails
      */
     public void setBio(String userName, String bio) throws SQLException {
-        mySetUserBioStatement.setString(1, bio);
-        mySetUserBioStatement.setString(2, userName);
-        mySetUserBioStatement.execute();
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(SET_BIO);
+            statement.setString(1, bio);
+            statement.setString(2, userName);
+            statement.execute();
+        }
     }
 
     /**
@@ -199,12 +188,16 @@ public class UserQuerier extends Querier {
      * @throws SQLException if statement fails
      */
     public InputStream getProfilePic(String userName) throws SQLException {
-        myGetUserProfilePicStatement.setString(1, userName);
-        ResultSet resultSet = myGetUserProfilePicStatement.executeQuery();
-        if (resultSet.next()){
-            return resultSet.getBinaryStream(PROFILE_PIC_COLUMN);
-        } else {
-            throw new SQLException();
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(GET_PROFILE_PIC);
+            statement.setString(1, userName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getBinaryStream(PROFILE_PIC_COLUMN);
+                } else {
+                    throw new SQLException();
+                }
+            }
         }
     }
 
@@ -215,12 +208,16 @@ public class UserQuerier extends Querier {
      * @throws SQLException if statement fails
      */
     public String getBio(String userName) throws SQLException {
-        myGetUserBioStatement.setString(1, userName);
-        ResultSet resultSet = myGetUserBioStatement.executeQuery();
-        if (resultSet.next()){
-            return resultSet.getString(BIO_COLUMN);
-        } else {
-            throw new SQLException();
+        try (PooledConnection connection = myConnectionPool.borrow()) {
+            PreparedStatement statement = connection.prepare(GET_BIO);
+            statement.setString(1, userName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return resultSet.getString(BIO_COLUMN);
+                } else {
+                    throw new SQLException();
+                }
+            }
         }
     }
 
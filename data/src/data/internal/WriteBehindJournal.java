@@ -0,0 +1,768 @@
+package data.internal;
+
+import data.external.GameRating;
+import data.external.UserScore;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Records scores, ratings and checkpoints in an append-only file on the local disk before they are written to the
+ * database, so that saving them never waits for the network and nothing is lost while the database is slow or
+ * unreachable.  A background thread replays the journal to the backend in order, writing runs of scores of the same
+ * game and runs of ratings in one batch, and waits exponentially longer between attempts while the database can't be
+ * reached.  Writes the database rejects (e.g. the score of a game that was removed) are printed and skipped, so they
+ * don't hold up the ones behind them.
+ * <p>
+ * How far the journal has been replayed is kept in a second file next to it, and the journal is emptied once all of it
+ * has been replayed.  Whatever is left when the program stops is replayed the next time it is opened.  A write is only
+ * replayed twice if the program stops between the database accepting it and the replayed position being saved.
+ * flush waits for the writes to a game to be replayed, so that reading the game right after saving to it sees what
+ * was saved, and removing from it doesn't let a write replayed later bring back what was removed.  Replayed scores
+ * are added to the leaderboards kept in memory once the database has accepted them.
+ * Every entry records when it was journaled, so ratings and checkpoints replayed after an outage keep the time they
+ * were saved rather than the time they reached the database.
+ * <p>
+ * An entry that fails its checksum, e.g. after a disk error, is copied to a file next to the journal ending in
+ * .corrupt, reported and skipped, and the entries after it are still replayed.  Only bytes at the end of the journal
+ * that no complete entry follows, e.g. an entry cut short by the program stopping, are cut off, after being copied
+ * there as well.  If the journal itself can't be read or the replayed position can't be saved, new writes go to the
+ * database directly while what is left keeps being retried
+ */
+public class WriteBehindJournal {
+
+    /**
+     * System property that sets the file the journal is kept in
+     */
+    public static final String FILE_PROPERTY = "byteme.journal.file";
+    /**
+     * System property that sets how many scores or ratings are written to the database in one batch at most
+     */
+    public static final String BATCH_SIZE_PROPERTY = "byteme.journal.batchSize";
+    /**
+     * System property that sets the longest time in seconds to wait between attempts to reach the database
+     */
+    public static final String MAX_BACKOFF_PROPERTY = "byteme.journal.maxBackoffSeconds";
+
+    private static final String DEFAULT_FILE = "write_journal";
+    private static final String POSITION_EXTENSION = ".position";
+    private static final String CORRUPT_EXTENSION = ".corrupt";
+    private static final int DEFAULT_BATCH_SIZE = 100;
+    private static final long DEFAULT_MAX_BACKOFF_SECONDS = 60;
+    private static final long INITIAL_BACKOFF_MILLIS = 500;
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+    private static final long FLUSH_TIMEOUT_MILLIS = 5000;
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final String CONNECTION_ERROR_STATE = "08";
+
+    private static final byte SCORE = 1;
+    private static final byte RATING = 2;
+    private static final byte CHECKPOINT = 3;
+
+    private static final String COULD_NOT_OPEN = "Couldn't open the write journal, writing to the database directly: ";
+    private static final String IN_USE = "The write journal is used by another program: ";
+    private static final String COULD_NOT_JOURNAL = "Couldn't write to the journal, writing to the database directly: ";
+    private static final String COULD_NOT_REPLAY = "Couldn't replay the write journal: ";
+    private static final String DATABASE_UNAVAILABLE = "Database unavailable, keeping writes in the journal: ";
+    private static final String DATABASE_AVAILABLE = "Database available again, replaying the journal";
+    private static final String REJECTED = "Skipping journaled write the database rejected: ";
+    private static final String DISCARDED_TAIL = "Moved %d bytes of incomplete writes at the end of the journal to %s%n";
+    private static final String SKIPPED_CORRUPT = "Moved %d bytes of corrupt writes in the journal to %s%n";
+    private static final String CORRUPT_ENTRY = "corrupt entry at ";
+
+    private StorageBackend myBackend;
+    private CheckpointRetention myCheckpointRetention;
+    private LeaderboardCache myLeaderboards;
+    private File myFile;
+    private File myPositionFile;
+    private File myCorruptFile;
+    private int myBatchSize;
+    private long myMaxBackoffMillis;
+
+    private FileChannel myAppender;
+    private FileLock myLock;
+    private Thread myFlusher;
+    private boolean myClosed;
+    private boolean myUnavailable;
+    private boolean myBroken;
+    private boolean myBackingOff;
+    private long myEnd;
+    private long myReplayed;
+    // positions counted from when the journal was opened, which keep growing when it is emptied
+    private long myEmptied;
+    private Map<GamePrimaryKey, Long> myLastWrites = new HashMap<>();
+    private long myFailures;
+
+    /**
+     * Thrown when the bytes at a position in the journal aren't a complete entry
+     */
+    private static class CorruptEntryException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        private CorruptEntryException(long position) {
+            super(CORRUPT_ENTRY + position);
+        }
+    }
+
+    /**
+     * Entry of the journal, along with where it ends in the journal file
+     */
+    private static class Entry {
+        private byte myType;
+        private String myUserName;
+        private String myGameName;
+        private String myAuthorName;
+        private Double myScore;
+        private int myStars;
+        private String myText;
+        private Integer myLevelNumber;
+        private boolean myFull;
+        private long myTime;
+        private long myEnd;
+
+        private boolean belongsWith(Entry other) {
+            if (myType != other.myType || myType == CHECKPOINT) {
+                return false;
+            }
+            return myType == RATING || (myGameName.equals(other.myGameName)
+                    && myAuthorName.equals(other.myAuthorName));
+        }
+
+        // journals written before entries recorded their time leave it at 0, which is replayed as now
+        private Timestamp time() {
+            return myTime == 0 ? null : new Timestamp(myTime);
+        }
+
+        private String describe() {
+            return String.format("%s of %s for %s by %s", myType == SCORE ? "score" : myType == RATING ? "rating" :
+                    "checkpoint", myUserName, myGameName, myAuthorName);
+        }
+    }
+
+    /**
+     * Creates the journal set by the byteme.journal system properties
+     *
+     * @param backend             backend the journaled writes are replayed to
+     * @param checkpointRetention policy applied after every replayed checkpoint
+     * @param leaderboards        leaderboards every replayed score is added to
+     */
+    public WriteBehindJournal(StorageBackend backend, CheckpointRetention checkpointRetention,
+                              LeaderboardCache leaderboards) {
+        this(backend, checkpointRetention, leaderboards, new File(System.getProperty(FILE_PROPERTY, DEFAULT_FILE)),
+                Integer.getInteger(BATCH_SIZE_PROPERTY, DEFAULT_BATCH_SIZE),
+                Long.getLong(MAX_BACKOFF_PROPERTY, DEFAULT_MAX_BACKOFF_SECONDS));
+    }
+
+    /**
+     * Creates a journal
+     *
+     * @param backend             backend the journaled writes are replayed to
+     * @param checkpointRetention policy applied after every replayed checkpoint
+     * @param leaderboards        leaderboards every replayed score is added to
+     * @param file                file the journal is kept in, created if it does not exist
+     * @param batchSize           how many scores or ratings are written to the database in one batch at most
+     * @param maxBackoffSeconds   longest time to wait between attempts to reach the database
+     */
+    public WriteBehindJournal(StorageBackend backend, CheckpointRetention checkpointRetention,
+                              LeaderboardCache leaderboards, File file, int batchSize, long maxBackoffSeconds) {
+        myBackend = backend;
+        myCheckpointRetention = checkpointRetention;
+        myLeaderboards = leaderboards;
+        myFile = file;
+        myPositionFile = new File(file.getPath() + POSITION_EXTENSION);
+        myCorruptFile = new File(file.getPath() + CORRUPT_EXTENSION);
+        myBatchSize = Math.max(1, batchSize);
+        myMaxBackoffMillis = Math.max(INITIAL_BACKOFF_MILLIS, TimeUnit.SECONDS.toMillis(maxBackoffSeconds));
+    }
+
+    /**
+     * Opens the journal and starts replaying what is left in it from the last time it was open
+     *
+     * @return true if the journal can be written to, false if writes should go to the database directly
+     */
+    public synchronized boolean open() {
+        try {
+            myAppender = FileChannel.open(myFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            myLock = myAppender.tryLock();
+            if (myLock == null) {
+                System.out.println(IN_USE + myFile);
+                myAppender.close();
+                myAppender = null;
+                return false;
+            }
+            myEmptied = 0;
+            myLastWrites.clear();
+            myReplayed = readPosition();
+            if (myReplayed > myAppender.size()) {
+                // the journal was emptied but the program stopped before the position was saved
+                myReplayed = 0;
+            }
+            try (RandomAccessFile reader = new RandomAccessFile(myFile, "r")) {
+                myEnd = findEnd(reader, myReplayed);
+                if (myEnd < reader.length()) {
+                    quarantine(reader, myEnd, reader.length());
+                    System.out.printf(DISCARDED_TAIL, reader.length() - myEnd, myCorruptFile);
+                    myAppender.truncate(myEnd);
+                }
+            }
+            myAppender.position(myEnd);
+        } catch (IOException e) {
+            System.out.println(COULD_NOT_OPEN + e.getMessage());
+            closeQuietly();
+            return false;
+        }
+        myClosed = false;
+        myUnavailable = false;
+        myBroken = false;
+        myFlusher = new Thread(this::replay, "write-behind-journal");
+        myFlusher.setDaemon(true);
+        myFlusher.start();
+        return true;
+    }
+
+    /**
+     * Replays as much of the journal as the database accepts within a few seconds, unless it is known to be
+     * unreachable, and closes the journal.  Whatever is left is replayed the next time it is opened
+     */
+    public void close() {
+        Thread flusher;
+        synchronized (this) {
+            if (myAppender == null) {
+                return;
+            }
+            long deadline = System.currentTimeMillis() + CLOSE_TIMEOUT_MILLIS;
+            try {
+                while (myReplayed < myEnd && !myUnavailable && !myBackingOff && myFlusher.isAlive()
+                        && System.currentTimeMillis() < deadline) {
+                    notifyAll();
+                    wait(Math.max(1, deadline - System.currentTimeMillis()));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            myClosed = true;
+            notifyAll();
+            flusher = myFlusher;
+        }
+        try {
+            flusher.join(CLOSE_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            closeQuietly();
+        }
+    }
+
+    /**
+     * Returns how much of the journal hasn't been written to the database yet, e.g. to tell the player that scores
+     * are still waiting for the database
+     *
+     * @return size in bytes of the writes that haven't been replayed
+     */
+    public synchronized long getPendingBytes() {
+        return myEnd - myReplayed;
+    }
+
+    /**
+     * Waits until the writes to a game journaled so far have been replayed, e.g. before reading the game so that what
+     * was just saved is seen, or before removing from it so that a write replayed later doesn't bring it back.  While
+     * the database can't be reached, this returns right away rather than waiting for the next attempt
+     *
+     * @param gameName   name of the game, null to wait for every journaled write
+     * @param authorName author of the game, null for the games of every author with that name
+     * @return true if the writes have been replayed, false if the database can't be reached, the journal is closed or
+     * the writes weren't replayed within a few seconds
+     */
+    public synchronized boolean flush(String gameName, String authorName) {
+        long target = lastWrite(gameName, authorName);
+        long failures = myFailures;
+        long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT_MILLIS;
+        try {
+            while (myEmptied + myReplayed < target) {
+                if (myAppender == null || myClosed || !myFlusher.isAlive() || myBackingOff || myFailures != failures
+                        || System.currentTimeMillis() >= deadline) {
+                    return false;
+                }
+                wait(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    // Where the last journaled write to the games ends, counted from when the journal was opened
+    private long lastWrite(String gameName, String authorName) {
+        if (gameName == null) {
+            return myEmptied + myEnd;
+        }
+        if (authorName != null) {
+            return myLastWrites.getOrDefault(new GamePrimaryKey(gameName, authorName), 0L);
+        }
+        long last = 0;
+        for (Map.Entry<GamePrimaryKey, Long> write : myLastWrites.entrySet()) {
+            if (write.getKey().getGameName().equals(gameName)) {
+                last = Math.max(last, write.getValue());
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Journals the score of a game and a user
+     *
+     * @param userName   person playing the game
+     * @param gameName   name of the game
+     * @param authorName author of the game
+     * @param score      score for the game
+     * @return true if the score was journaled, false if it has to be written to the database directly
+     */
+    public boolean saveScore(String userName, String gameName, String authorName, Double score) {
+        return append(SCORE, userName, gameName, authorName, score, 0, null, null, true);
+    }
+
+    /**
+     * Journals a rating of a game
+     *
+     * @param rating rating to be added to the database
+     * @return true if the rating was journaled, false if it has to be written to the database directly
+     */
+    public boolean addGameRating(GameRating rating) {
+        return append(RATING, rating.getUsername(), rating.getGameName(), rating.getAuthorName(), null,
+                rating.getNumberOfStars(), rating.getComment(), null, true);
+    }
+
+    /**
+     * Journals a checkpoint
+     *
+     * @param userName    user playing the game
+     * @param gameName    name of the game
+     * @param authorName  name of the author of the game
+     * @param rawXML      serialized checkpoint
+     * @param levelNumber number of the level the checkpoint was saved in, null if unknown
+     * @param score       score when the checkpoint was saved, null if unknown
+     * @param full        false if the checkpoint only holds changes to the checkpoints of its chain before it
+     * @return true if the checkpoint was journaled, false if it has to be written to the database directly
+     */
+    public boolean saveCheckpoint(String userName, String gameName, String authorName, String rawXML,
+                                  Integer levelNumber, Double score, boolean full) {
+        return append(CHECKPOINT, userName, gameName, authorName, score, 0, rawXML, levelNumber, full);
+    }
+
+    // Appends an entry and forces it to disk before returning, so that it survives the program stopping right after
+    private synchronized boolean append(byte type, String userName, String gameName, String authorName, Double score,
+                                       int stars, String text, Integer levelNumber, boolean full) {
+        if (myAppender == null || myClosed || myBroken) {
+            return false;
+        }
+        try {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(body);
+            out.writeByte(type);
+            writeString(out, userName);
+            writeString(out, gameName);
+            writeString(out, authorName);
+            out.writeBoolean(score != null);
+            out.writeDouble(score == null ? 0 : score);
+            out.writeInt(stars);
+            writeString(out, text);
+            out.writeBoolean(levelNumber != null);
+            out.writeInt(levelNumber == null ? 0 : levelNumber);
+            out.writeBoolean(full);
+            out.writeLong(System.currentTimeMillis());
+            byte[] bytes = body.toByteArray();
+            ByteBuffer entry = ByteBuffer.allocate(HEADER_BYTES + bytes.length);
+            entry.putInt(bytes.length).putInt(checksum(bytes)).put(bytes).flip();
+            while (entry.hasRemaining()) {
+                myAppender.write(entry);
+            }
+            myAppender.force(false);
+            myEnd = myAppender.position();
+            myLastWrites.put(new GamePrimaryKey(gameName, authorName), myEmptied + myEnd);
+            notifyAll();
+            return true;
+        } catch (IOException e) {
+            System.out.println(COULD_NOT_JOURNAL + e.getMessage());
+            return false;
+        }
+    }
+
+    // Runs on the flusher thread until the journal is closed
+    private void replay() {
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        try (RandomAccessFile reader = new RandomAccessFile(myFile, "r")) {
+            while (true) {
+                long from;
+                long to;
+                synchronized (this) {
+                    while (!myClosed && myReplayed == myEnd) {
+                        wait();
+                    }
+                    if (myClosed) {
+                        return;
+                    }
+                    from = myReplayed;
+                    to = myEnd;
+                }
+                try {
+                    try {
+                        writeBatch(readBatch(reader, from, to));
+                    } catch (CorruptEntryException e) {
+                        skipCorrupt(reader, from, to);
+                    }
+                    backoff = INITIAL_BACKOFF_MILLIS;
+                } catch (SQLException e) {
+                    synchronized (this) {
+                        if (!myUnavailable) {
+                            System.out.println(DATABASE_UNAVAILABLE + e.getMessage());
+                            myUnavailable = true;
+                        }
+                        myFailures++;
+                        notifyAll();
+                        backOff(backoff);
+                    }
+                    backoff = Math.min(backoff * 2, myMaxBackoffMillis);
+                } catch (IOException e) {
+                    synchronized (this) {
+                        if (!myBroken) {
+                            System.out.println(COULD_NOT_REPLAY + e.getMessage());
+                            myBroken = true;
+                        }
+                        myFailures++;
+                        notifyAll();
+                        backOff(backoff);
+                    }
+                    backoff = Math.min(backoff * 2, myMaxBackoffMillis);
+                }
+            }
+        } catch (IOException e) {
+            System.out.println(COULD_NOT_REPLAY + e.getMessage());
+            synchronized (this) {
+                myBroken = true;
+                notifyAll();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Waits before the next attempt unless the journal is closed, and isn't cut short by new writes.  In the meantime
+    // flush doesn't wait for the next attempt
+    private synchronized void backOff(long backoff) throws InterruptedException {
+        long until = System.currentTimeMillis() + backoff;
+        myBackingOff = true;
+        try {
+            while (!myClosed && System.currentTimeMillis() < until) {
+                wait(Math.max(1, until - System.currentTimeMillis()));
+            }
+        } finally {
+            myBackingOff = false;
+        }
+    }
+
+    // Reads the entries at the start of the journal that can be written in one batch
+    private List<Entry> readBatch(RandomAccessFile reader, long from, long to) throws IOException {
+        List<Entry> batch = new ArrayList<>();
+        long position = from;
+        reader.seek(position);
+        while (position < to && batch.size() < myBatchSize) {
+            Entry entry;
+            try {
+                entry = readEntry(reader, position, to);
+            } catch (CorruptEntryException e) {
+                if (batch.isEmpty()) {
+                    throw e;
+                }
+                break;
+            }
+            if (!batch.isEmpty() && !entry.belongsWith(batch.get(0))) {
+                break;
+            }
+            batch.add(entry);
+            position = entry.myEnd;
+        }
+        return batch;
+    }
+
+    // Moves the corrupt bytes at the start of the journal aside, up to the next complete entry
+    private void skipCorrupt(RandomAccessFile reader, long from, long to) throws IOException {
+        long next = resync(reader, from, to);
+        quarantine(reader, from, next);
+        System.out.printf(SKIPPED_CORRUPT, next - from, myCorruptFile);
+        replayedUpTo(next);
+    }
+
+    // Writes a batch, or if the database rejects it, its entries one at a time to skip only the ones it rejects
+    private void writeBatch(List<Entry> batch) throws SQLException, IOException {
+        try {
+            write(batch);
+        } catch (SQLException e) {
+            if (isUnavailable(e)) {
+                throw e;
+            }
+            for (Entry entry : batch) {
+                try {
+                    writeEntry(entry);
+                } catch (SQLException rejected) {
+                    if (isUnavailable(rejected)) {
+                        throw rejected;
+                    }
+                    System.out.println(REJECTED + entry.describe() + ": " + rejected.getMessage());
+                }
+                replayedUpTo(entry.myEnd);
+            }
+        }
+        replayedUpTo(batch.get(batch.size() - 1).myEnd);
+    }
+
+    private void write(List<Entry> batch) throws SQLException {
+        Entry first = batch.get(0);
+        if (batch.size() == 1) {
+            writeEntry(first);
+        } else if (first.myType == SCORE) {
+            List<UserScore> scores = new ArrayList<>();
+            for (Entry entry : batch) {
+                scores.add(new UserScore(entry.myUserName, entry.myScore));
+            }
+            myBackend.saveScores(first.myGameName, first.myAuthorName, scores);
+            myLeaderboards.recordScores(first.myGameName, first.myAuthorName, scores);
+        } else {
+            List<GameRating> ratings = new ArrayList<>();
+            for (Entry entry : batch) {
+                ratings.add(new GameRating(entry.myUserName, entry.myGameName, entry.myAuthorName, entry.myStars,
+                        entry.myText, entry.time()));
+            }
+            myBackend.addGameRatings(ratings);
+        }
+    }
+
+    private void writeEntry(Entry entry) throws SQLException {
+        try {
+            if (entry.myType == SCORE) {
+                myBackend.saveScore(entry.myUserName, entry.myGameName, entry.myAuthorName, entry.myScore);
+                myLeaderboards.recordScores(entry.myGameName, entry.myAuthorName,
+                        List.of(new UserScore(entry.myUserName, entry.myScore)));
+            } else if (entry.myType == RATING) {
+                myBackend.addGameRating(new GameRating(entry.myUserName, entry.myGameName, entry.myAuthorName,
+                        entry.myStars, entry.myText, entry.time()));
+            } else {
+                myBackend.saveCheckpoint(entry.myUserName, entry.myGameName, entry.myAuthorName, entry.myText,
+                        entry.myLevelNumber, entry.myScore, entry.myFull, entry.time());
+                myCheckpointRetention.prune(entry.myUserName, entry.myGameName, entry.myAuthorName);
+            }
+        } catch (RuntimeException e) {
+            // e.g. a score without a value, which would never be accepted
+            throw new SQLException(e);
+        }
+    }
+
+    // Saves how far the journal has been replayed, and empties it once all of it has been
+    private synchronized void replayedUpTo(long position) throws IOException {
+        if (position <= myReplayed || myAppender == null) {
+            return;
+        }
+        if (myUnavailable) {
+            System.out.println(DATABASE_AVAILABLE);
+            myUnavailable = false;
+        }
+        myReplayed = position;
+        long replayed = myEmptied + myReplayed;
+        myLastWrites.values().removeIf(end -> end <= replayed);
+        if (myReplayed == myEnd) {
+            myEmptied += myEnd;
+            myAppender.truncate(0);
+            myAppender.position(0);
+            myReplayed = 0;
+            myEnd = 0;
+        }
+        writePosition(myReplayed);
+        notifyAll();
+    }
+
+    // Connection problems and timeouts are worth retrying, anything else means the database rejected the write
+    private boolean isUnavailable(SQLException e) {
+        String state = e.getSQLState();
+        return e instanceof SQLTransientException || e instanceof SQLRecoverableException
+                || e instanceof SQLNonTransientConnectionException
+                || (state == null && e.getCause() == null)
+                || (state != null && state.startsWith(CONNECTION_ERROR_STATE));
+    }
+
+    // Finds the end of the last complete entry.  Corrupt entries with complete ones after them are left in place to be
+    // skipped when they are replayed, so that only bytes no complete entry follows are left out
+    private long findEnd(RandomAccessFile reader, long from) throws IOException {
+        long position = from;
+        while (true) {
+            try {
+                Entry entry = readEntry(reader, position, reader.length());
+                myLastWrites.put(new GamePrimaryKey(entry.myGameName, entry.myAuthorName), entry.myEnd);
+                position = entry.myEnd;
+            } catch (CorruptEntryException e) {
+                long next = resync(reader, position, reader.length());
+                if (next == reader.length()) {
+                    return position;
+                }
+                position = next;
+            }
+        }
+    }
+
+    // Finds the first complete entry after a corrupt one, or the limit if there is none
+    private long resync(RandomAccessFile reader, long corrupt, long limit) throws IOException {
+        for (long position = corrupt + 1; position < limit; position++) {
+            try {
+                readEntry(reader, position, limit);
+                return position;
+            } catch (CorruptEntryException e) {
+                // keep looking
+            }
+        }
+        return limit;
+    }
+
+    // Appends the bytes between two positions of the journal to the file next to it that keeps corrupt entries
+    private void quarantine(RandomAccessFile reader, long from, long to) throws IOException {
+        byte[] bytes = new byte[(int) Math.min(to - from, 1 << 16)];
+        reader.seek(from);
+        try (FileOutputStream out = new FileOutputStream(myCorruptFile, true)) {
+            for (long left = to - from; left > 0; ) {
+                int read = reader.read(bytes, 0, (int) Math.min(left, bytes.length));
+                if (read < 0) {
+                    break;
+                }
+                out.write(bytes, 0, read);
+                left -= read;
+            }
+            out.getFD().sync();
+        }
+    }
+
+    // Reads the entry at a position, which has to end before the limit
+    private Entry readEntry(RandomAccessFile reader, long position, long limit) throws IOException {
+        if (limit - position < HEADER_BYTES) {
+            throw new CorruptEntryException(position);
+        }
+        reader.seek(position);
+        int length = reader.readInt();
+        int checksum = reader.readInt();
+        if (length < 0 || length > limit - position - HEADER_BYTES) {
+            throw new CorruptEntryException(position);
+        }
+        byte[] bytes = new byte[length];
+        reader.readFully(bytes);
+        if (checksum(bytes) != checksum) {
+            throw new CorruptEntryException(position);
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+        Entry entry = new Entry();
+        try {
+            entry.myType = in.readByte();
+            entry.myUserName = readString(in);
+            entry.myGameName = readString(in);
+            entry.myAuthorName = readString(in);
+            boolean hasScore = in.readBoolean();
+            double score = in.readDouble();
+            entry.myScore = hasScore ? score : null;
+            entry.myStars = in.readInt();
+            entry.myText = readString(in);
+            boolean hasLevelNumber = in.readBoolean();
+            int levelNumber = in.readInt();
+            entry.myLevelNumber = hasLevelNumber ? levelNumber : null;
+            entry.myFull = in.readBoolean();
+            entry.myTime = in.available() >= Long.BYTES ? in.readLong() : 0;
+        } catch (IOException e) {
+            throw new CorruptEntryException(position);
+        }
+        if (entry.myType < SCORE || entry.myType > CHECKPOINT) {
+            throw new CorruptEntryException(position);
+        }
+        entry.myEnd = position + HEADER_BYTES + length;
+        return entry;
+    }
+
+    private long readPosition() throws IOException {
+        if (!myPositionFile.exists()) {
+            return 0;
+        }
+        try (RandomAccessFile position = new RandomAccessFile(myPositionFile, "r")) {
+            return position.length() < Long.BYTES ? 0 : position.readLong();
+        }
+    }
+
+    private void writePosition(long replayed) throws IOException {
+        try (RandomAccessFile position = new RandomAccessFile(myPositionFile, "rw")) {
+            position.writeLong(replayed);
+            position.getChannel().force(false);
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            if (myLock != null) {
+                myLock.release();
+            }
+            if (myAppender != null) {
+                myAppender.close();
+            }
+        } catch (IOException e) {
+            // nothing is lost, everything written was already forced to disk
+        }
+        myLock = null;
+        myAppender = null;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > in.available()) {
+            throw new EOFException();
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int checksum(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
@@ -1,11 +1,18 @@
 package data.internal;
 
+import com.thoughtworks.xstream.XStream;
+
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 /**
  * Class used to handle XML reading and writing for the DataManager
@@ -73,4 +80,36 @@ public class XMLHandler {
         }
         return rawXML.toString();
     }
+
+    /**
+     * Serializes an object straight into a file of xml at the specified path, without building the whole xml in memory
+     * first
+     * @param path path of where to write
+     * @param objectToWrite object to serialize
+     * @param serializer serializer that writes the xml, should use a streaming driver
+     */
+    public void writeToXML(String path, Object objectToWrite, XStream serializer) {
+        try (Writer writer = Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8)) {
+            serializer.toXML(objectToWrite, writer);
+        } catch (IOException exception) {
+            System.out.println(WRITE_FAILED); //Debugging information, method only used internally
+        }
+    }
+
+    /**
+     * Deserializes an object straight from a file of xml at the specified path, without reading the whole file into
+     * memory first
+     * @param path location of the file
+     * @param serializer serializer that reads the xml, should use a streaming driver
+     * @return the deserialized object
+     * @throws FileNotFoundException if file is not found
+     */
+    public Object readFromXML(String path, XStream serializer) throws FileNotFoundException {
+        try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+            return serializer.fromXML(reader);
+        } catch (IOException e) {
+            System.out.println(CANNOT_READ_XML_FILE);
+            throw new FileNotFoundException();
+        }
+    }
 }
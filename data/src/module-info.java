@@ -4,4 +4,5 @@ module data {
     requires transitive java.sql;
     requires mysql.connector.java;
     requires javafx.graphics;
+    requires java.desktop;
 }
\ No newline at end of file
@@ -0,0 +1,52 @@
+package data.internal;
+
+import data.external.CheckpointInfo;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests which checkpoints CheckpointRetention removes, in particular that delta chains are only removed as a whole
+ */
+public class CheckpointRetentionTest {
+
+    private static final long START = System.currentTimeMillis() - 1000000;
+
+    private List<CheckpointInfo> myCheckpoints = new ArrayList<>();
+
+    @Test
+    void keepsEverythingUnderTheLimit() {
+        addCheckpoints(true, false, true);
+        assertNull(new CheckpointRetention(null, 5, 0).cutoff(myCheckpoints));
+    }
+
+    @Test
+    void removesOldFullCheckpoints() {
+        addCheckpoints(true, true, true, true);
+        assertEquals(new Timestamp(START + 2), new CheckpointRetention(null, 2, 0).cutoff(myCheckpoints));
+    }
+
+    @Test
+    void keepsTheChainOfTheOldestKeptCheckpoint() {
+        // saved oldest first: a full checkpoint with two deltas, then a full checkpoint with one delta
+        addCheckpoints(true, false, false, true, false);
+        assertNull(new CheckpointRetention(null, 3, 0).cutoff(myCheckpoints));
+        assertEquals(new Timestamp(START + 3), new CheckpointRetention(null, 2, 0).cutoff(myCheckpoints));
+    }
+
+    @Test
+    void keepsTheChainOfTheNewestCheckpointHoweverOld() {
+        addCheckpoints(true, true, false, false);
+        assertEquals(new Timestamp(START + 1), new CheckpointRetention(null, 1, 1).cutoff(myCheckpoints));
+    }
+
+    private void addCheckpoints(boolean... full) {
+        for (int i = 0; i < full.length; i++) {
+            myCheckpoints.add(0, new CheckpointInfo(new Timestamp(START + i), 1, null, 0, full[i]));
+        }
+    }
+}
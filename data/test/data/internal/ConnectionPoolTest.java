@@ -0,0 +1,137 @@
+package data.internal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.DriverManager;
+import java.sql.DriverPropertyInfo;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests how the pool hands out connections when it is full, using a driver whose connections only pretend to connect
+ */
+public class ConnectionPoolTest {
+
+    private static final String URL = "jdbc:connectionpooltest:";
+    private static final AtomicBoolean CONNECTIONS_BROKEN = new AtomicBoolean();
+
+    private ConnectionPool myPool;
+
+    /**
+     * Driver for URL that opens connections which are closed only while CONNECTIONS_BROKEN is set
+     */
+    private static class StubDriver implements Driver {
+        @Override
+        public Connection connect(String url, Properties info) {
+            if (!acceptsURL(url)) {
+                return null;
+            }
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                            case "isClosed":
+                                return CONNECTIONS_BROKEN.get();
+                            case "isValid":
+                            case "getAutoCommit":
+                                return true;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+
+        @Override
+        public boolean acceptsURL(String url) {
+            return url.startsWith(URL);
+        }
+
+        @Override
+        public DriverPropertyInfo[] getPropertyInfo(String url, Properties info) {
+            return new DriverPropertyInfo[0];
+        }
+
+        @Override
+        public int getMajorVersion() {
+            return 1;
+        }
+
+        @Override
+        public int getMinorVersion() {
+            return 0;
+        }
+
+        @Override
+        public boolean jdbcCompliant() {
+            return false;
+        }
+
+        @Override
+        public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+            throw new SQLFeatureNotSupportedException();
+        }
+    }
+
+    @BeforeAll
+    static void registerDriver() throws SQLException {
+        DriverManager.registerDriver(new StubDriver());
+    }
+
+    @BeforeEach
+    void setUp() {
+        CONNECTIONS_BROKEN.set(false);
+        myPool = new ConnectionPool(URL, "user", "password", 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        myPool.close();
+    }
+
+    @Test
+    void waitingBorrowerGetsReturnedConnection() throws Exception {
+        PooledConnection first = myPool.borrow();
+        CompletableFuture<PooledConnection> waiting = borrowLater();
+        first.close();
+        assertSame(first, waiting.get(2, TimeUnit.SECONDS));
+        assertEquals(1, myPool.getMetrics().getCreatedConnections());
+    }
+
+    @Test
+    void waitingBorrowerOpensNewConnectionWhenOneIsDiscarded() throws Exception {
+        PooledConnection first = myPool.borrow();
+        CompletableFuture<PooledConnection> waiting = borrowLater();
+        CONNECTIONS_BROKEN.set(true);
+        first.close();
+        CONNECTIONS_BROKEN.set(false);
+        assertNotSame(first, waiting.get(2, TimeUnit.SECONDS));
+        assertEquals(2, myPool.getMetrics().getCreatedConnections());
+        assertEquals(1, myPool.getMetrics().getDiscardedConnections());
+    }
+
+    private CompletableFuture<PooledConnection> borrowLater() throws InterruptedException {
+        CompletableFuture<PooledConnection> borrowed = CompletableFuture.supplyAsync(() -> {
+            try {
+                return myPool.borrow();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        // gives the borrower time to start waiting for the only connection
+        Thread.sleep(200);
+        assertFalse(borrowed.isDone());
+        return borrowed;
+    }
+}
@@ -0,0 +1,108 @@
+package data.internal;
+
+import data.external.GameCenterData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the catalog follows the games saved in and removed from a LocalBackend, along with its search index
+ */
+public class GameCatalogTest {
+
+    private Path myDirectory;
+    private LocalBackend myBackend;
+    private GameCatalog myCatalog;
+    private PayloadCodec myPayloadCodec;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        myDirectory = Files.createTempDirectory(getClass().getSimpleName());
+        myBackend = new LocalBackend(myDirectory.toFile());
+        assertTrue(myBackend.open());
+        myCatalog = new GameCatalog(myBackend);
+        myPayloadCodec = new PayloadCodec();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(myDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    void readsSavedGames() throws SQLException {
+        save("Snake", "alice", "Eat apples");
+        save("Pong", "bob", "Bounce the ball");
+        assertFalse(myCatalog.isLoaded());
+        assertEquals(List.of("Pong", "Snake"), titles(myCatalog.getGames()));
+        assertEquals(List.of("Snake"), titles(myCatalog.getGames("alice")));
+        assertTrue(myCatalog.isLoaded());
+    }
+
+    @Test
+    void picksUpNewAndChangedGames() throws SQLException {
+        save("Snake", "alice", "Eat apples");
+        myCatalog.refresh();
+        save("Pong", "bob", "Bounce the ball");
+        save("Snake", "alice", "Eat mice");
+        assertEquals(List.of("Pong", "Snake"), titles(myCatalog.getGames()));
+        assertEquals(List.of("Snake"), titles(myCatalog.getSearchIndex().search("mice", 10)));
+        assertTrue(myCatalog.getSearchIndex().search("apples", 10).isEmpty());
+    }
+
+    @Test
+    void dropsRemovedGames() throws SQLException {
+        save("Snake", "alice", "Eat apples");
+        save("Pong", "bob", "Bounce the ball");
+        myCatalog.refresh();
+        myBackend.removeGame("Snake", "alice");
+        assertEquals(List.of("Pong"), titles(myCatalog.getGames()));
+        assertTrue(myCatalog.getSearchIndex().search("snake", 10).isEmpty());
+        assertEquals(1, myCatalog.getSearchIndex().size());
+    }
+
+    @Test
+    void leavesOutInvalidGameInformation() throws SQLException {
+        save("Snake", "alice", "Eat apples");
+        myBackend.updateGameEntryInfo("Broken", "bob", "#vb9:AAAA");
+        assertEquals(List.of("Snake"), titles(myCatalog.getGames()));
+    }
+
+    @Test
+    void keepsCachedGamesUntilCleared() throws SQLException {
+        save("Snake", "alice", "Eat apples");
+        myCatalog.refresh();
+        myCatalog.remove("Snake", "alice");
+        assertTrue(myCatalog.getCachedGames().isEmpty());
+        myCatalog.clear();
+        assertFalse(myCatalog.isLoaded());
+        assertEquals(List.of("Snake"), titles(myCatalog.getGames()));
+    }
+
+    private void save(String title, String author, String description) throws SQLException {
+        myBackend.updateGameEntryInfo(title, author,
+                myPayloadCodec.encode(new GameCenterData(title, description, null, author)));
+    }
+
+    private List<String> titles(List<GameCenterData> games) {
+        List<String> titles = new ArrayList<>();
+        for (GameCenterData game : games) {
+            titles.add(game.getTitle());
+        }
+        titles.sort(Comparator.naturalOrder());
+        return titles;
+    }
+}
@@ -0,0 +1,89 @@
+package data.internal;
+
+import data.external.GameCenterData;
+import data.external.RatingSummary;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests how the search index matches and ranks games and keeps up with games being added and removed
+ */
+public class GameSearchIndexTest {
+
+    private GameSearchIndex myIndex;
+
+    @BeforeEach
+    void setUp() {
+        myIndex = new GameSearchIndex();
+        put("Space Invaders", "alice", "Shoot the aliens before they land");
+        put("Mario Clone", "bob", "Jump on enemies in space");
+        put("Snake", "spacey", "Eat apples and grow");
+    }
+
+    @Test
+    void matchesWordsByPrefix() {
+        assertEquals(List.of("Snake"), titles(myIndex.search("app", 10)));
+        assertEquals(List.of("Snake"), titles(myIndex.search("APPLES", 10)));
+        assertTrue(titles(myIndex.search("zzz", 10)).isEmpty());
+        assertTrue(titles(myIndex.search("  ", 10)).isEmpty());
+    }
+
+    @Test
+    void matchesEveryWordOfTheQuery() {
+        assertEquals(List.of("Space Invaders"), titles(myIndex.search("space ali", 10)));
+        assertEquals(List.of("Mario Clone"), titles(myIndex.search("jump spa", 10)));
+    }
+
+    @Test
+    void ranksTitleBeforeAuthorBeforeDescription() {
+        assertEquals(List.of("Space Invaders", "Snake", "Mario Clone"), titles(myIndex.search("spac", 10)));
+        assertEquals(List.of("Space Invaders"), titles(myIndex.search("spac", 1)));
+    }
+
+    @Test
+    void ranksWholeWordsBeforePrefixes() {
+        put("Spacewar", "carol", "");
+        assertEquals("Space Invaders", titles(myIndex.search("space", 10)).get(0));
+    }
+
+    @Test
+    void breaksTiesByRating() {
+        put("Tetris", "dave", "Falling blocks");
+        put("Blocks", "erin", "Falling tetris");
+        put("Tetris", "frank", "Falling blocks");
+        myIndex.setRatings(Map.of("Tetris", new RatingSummary(10, 50, new int[]{0, 0, 0, 0, 10})));
+        myIndex.setRating("Blocks", new RatingSummary(1, 1, new int[]{1, 0, 0, 0, 0}));
+        List<String> titles = titles(myIndex.search("falling", 10));
+        assertEquals(List.of("Tetris", "Tetris", "Blocks"), titles);
+    }
+
+    @Test
+    void updatesIncrementally() {
+        put("Snake", "spacey", "Eat mice");
+        assertTrue(titles(myIndex.search("apples", 10)).isEmpty());
+        assertEquals(List.of("Snake"), titles(myIndex.search("mice", 10)));
+        myIndex.remove(new GamePrimaryKey("Snake", "spacey"));
+        assertTrue(titles(myIndex.search("snake", 10)).isEmpty());
+        assertEquals(2, myIndex.size());
+        myIndex.remove(new GamePrimaryKey("Snake", "spacey"));
+        assertEquals(2, myIndex.size());
+    }
+
+    private void put(String title, String author, String description) {
+        myIndex.put(new GamePrimaryKey(title, author), new GameCenterData(title, description, null, author));
+    }
+
+    private List<String> titles(List<GameCenterData> games) {
+        List<String> titles = new ArrayList<>();
+        for (GameCenterData game : games) {
+            titles.add(game.getTitle());
+        }
+        return titles;
+    }
+}
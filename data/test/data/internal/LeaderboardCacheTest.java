@@ -0,0 +1,99 @@
+package data.internal;
+
+import data.external.UserScore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the leaderboards kept in memory and the pages of scores read from a LocalBackend
+ */
+public class LeaderboardCacheTest {
+
+    private static final String GAME = "game";
+    private static final String AUTHOR = "author";
+    private static final int SIZE = 3;
+
+    private Path myDirectory;
+    private LocalBackend myBackend;
+    private LeaderboardCache myCache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        myDirectory = Files.createTempDirectory(getClass().getSimpleName());
+        myBackend = new LocalBackend(myDirectory.toFile());
+        assertTrue(myBackend.open());
+        myCache = new LeaderboardCache(myBackend, SIZE, 60);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(myDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    void keepsOnlyTheBestScores() throws SQLException {
+        saveScores(new UserScore("a", 10.0), new UserScore("b", 20.0));
+        assertEquals(List.of(new UserScore("b", 20.0), new UserScore("a", 10.0)), myCache.getTopScores(GAME, AUTHOR, SIZE));
+        myCache.recordScores(GAME, AUTHOR, List.of(new UserScore("c", 15.0), new UserScore("d", 5.0),
+                new UserScore("e", 30.0)));
+        assertEquals(List.of(new UserScore("e", 30.0), new UserScore("b", 20.0), new UserScore("c", 15.0)),
+                myCache.getTopScores(GAME, AUTHOR, SIZE));
+    }
+
+    @Test
+    void dropsScoresBelowAFullLeaderboard() throws SQLException {
+        saveScores(new UserScore("a", 30.0), new UserScore("b", 20.0), new UserScore("c", 10.0));
+        myCache.getTopScores(GAME, AUTHOR, SIZE);
+        myCache.recordScores(GAME, AUTHOR, List.of(new UserScore("d", 5.0)));
+        assertEquals(List.of(new UserScore("a", 30.0), new UserScore("b", 20.0), new UserScore("c", 10.0)),
+                myCache.getTopScores(GAME, AUTHOR, SIZE));
+    }
+
+    @Test
+    void breaksTiesByUserNameAndScoreID() throws SQLException {
+        saveScores(new UserScore("b", 10.0), new UserScore("a", 10.0), new UserScore("a", 10.0));
+        List<UserScore> top = myCache.getTopScores(GAME, AUTHOR, SIZE);
+        assertEquals(List.of(new UserScore("a", 10.0), new UserScore("a", 10.0), new UserScore("b", 10.0)), top);
+        assertTrue(top.get(0).getScoreID() < top.get(1).getScoreID());
+        myCache.recordScores(GAME, AUTHOR, List.of(new UserScore("a", 10.0)));
+        assertEquals("a", myCache.getTopScores(GAME, AUTHOR, SIZE).get(2).getUserName());
+    }
+
+    @Test
+    void readsBiggerLeaderboardsFromTheBackend() throws SQLException {
+        saveScores(new UserScore("a", 1.0), new UserScore("b", 2.0), new UserScore("c", 3.0), new UserScore("d", 4.0));
+        assertEquals(4, myCache.getTopScores(GAME, AUTHOR, SIZE + 1).size());
+    }
+
+    @Test
+    void pagesNeitherSkipNorRepeatEqualScores() throws SQLException {
+        saveScores(new UserScore("a", 10.0), new UserScore("a", 10.0), new UserScore("a", 10.0),
+                new UserScore("b", 10.0), new UserScore("a", 5.0));
+        List<UserScore> all = new ArrayList<>();
+        List<UserScore> page = myBackend.loadScorePage(GAME, AUTHOR, null, 2);
+        while (!page.isEmpty()) {
+            all.addAll(page);
+            page = myBackend.loadScorePage(GAME, AUTHOR, page.get(page.size() - 1), 2);
+        }
+        assertEquals(List.of(new UserScore("a", 10.0), new UserScore("a", 10.0), new UserScore("a", 10.0),
+                new UserScore("b", 10.0), new UserScore("a", 5.0)), all);
+    }
+
+    private void saveScores(UserScore... scores) throws SQLException {
+        myBackend.saveScores(GAME, AUTHOR, List.of(scores));
+    }
+}
@@ -0,0 +1,134 @@
+package data.internal;
+
+import com.thoughtworks.xstream.XStream;
+import com.thoughtworks.xstream.XStreamException;
+import com.thoughtworks.xstream.io.xml.DomDriver;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Utility class for comparing how the games in created_games, or in the folders given as arguments, are stored and
+ * parsed: as xml parsed into a DOM like before, as xml parsed by StAX, and in the binary format with and without
+ * compression.  Prints the total payload size, the average time to parse every game and the peak heap used while
+ * parsing for each of them
+ */
+public class PayloadBenchmark {
+
+    private static final String DEFAULT_GAMES_DIR = "created_games";
+    private static final String XML_EXTENSION = ".xml";
+    private static final int WARM_UP_ROUNDS = 50;
+    private static final int MEASURED_ROUNDS = 200;
+    private static final String COULDNT_PARSE = "Skipping a game that couldn't be parsed: ";
+    private static final String ROW_FORMAT = "%-20s %12s %16s %16s%n";
+
+    public static void main(String[] args) throws FileNotFoundException {
+        List<String> rawXMLs = readGames(args.length == 0 ? new String[]{DEFAULT_GAMES_DIR} : args);
+        XStream domSerializer = new XStream(new DomDriver());
+        // the saved games may have been written by older versions of the game
+        domSerializer.ignoreUnknownElements();
+        List<Object> games = new ArrayList<>();
+        for (String rawXML : rawXMLs) {
+            try {
+                games.add(domSerializer.fromXML(rawXML));
+            } catch (XStreamException e) {
+                System.out.println(COULDNT_PARSE + e.getMessage());
+            }
+        }
+        System.out.println(games.size() + " games");
+        System.out.printf(ROW_FORMAT, "format", "bytes", "parse us/round", "peak heap KB");
+        measure("xml (DOM)", encodeAll(games, domSerializer::toXML), domSerializer::fromXML);
+        PayloadCodec staxCodec = new PayloadCodec(PayloadCodec.Format.XML, PayloadCodec.Compression.NONE);
+        measure("xml (StAX)", encodeAll(games, staxCodec::encode), staxCodec::decode);
+        PayloadCodec binaryCodec = new PayloadCodec(PayloadCodec.Format.BINARY, PayloadCodec.Compression.NONE);
+        measure("binary", encodeAll(games, binaryCodec::encode), binaryCodec::decode);
+        PayloadCodec deflatedCodec = new PayloadCodec(PayloadCodec.Format.BINARY, PayloadCodec.Compression.DEFLATE);
+        measure("binary + deflate", encodeAll(games, deflatedCodec::encode), deflatedCodec::decode);
+    }
+
+    private static List<String> readGames(String[] paths) throws FileNotFoundException {
+        XMLHandler xmlHandler = new XMLHandler();
+        List<String> rawXMLs = new ArrayList<>();
+        for (String path : paths) {
+            for (File file : listXMLFiles(new File(path))) {
+                rawXMLs.add(xmlHandler.readFromXML(file.getPath()));
+            }
+        }
+        return rawXMLs;
+    }
+
+    private static List<File> listXMLFiles(File file) {
+        List<File> xmlFiles = new ArrayList<>();
+        File[] children = file.listFiles();
+        if (children == null) {
+            if (file.getName().endsWith(XML_EXTENSION)) {
+                xmlFiles.add(file);
+            }
+            return xmlFiles;
+        }
+        for (File child : children) {
+            xmlFiles.addAll(listXMLFiles(child));
+        }
+        return xmlFiles;
+    }
+
+    private static List<String> encodeAll(List<Object> games, Function<Object, String> encoder) {
+        List<String> payloads = new ArrayList<>();
+        for (Object game : games) {
+            payloads.add(encoder.apply(game));
+        }
+        return payloads;
+    }
+
+    private static void measure(String name, List<String> payloads, Function<String, Object> decoder) {
+        long bytes = 0;
+        for (String payload : payloads) {
+            bytes += payload.length();
+        }
+        for (int i = 0; i < WARM_UP_ROUNDS; i++) {
+            decodeAll(payloads, decoder);
+        }
+        System.gc();
+        long heapBefore = resetPeakHeap();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            decodeAll(payloads, decoder);
+        }
+        long micros = (System.nanoTime() - start) / 1000 / MEASURED_ROUNDS;
+        long peakHeap = Math.max(0, peakHeap() - heapBefore);
+        System.out.printf(ROW_FORMAT, name, bytes, micros, peakHeap / 1024);
+    }
+
+    private static void decodeAll(List<String> payloads, Function<String, Object> decoder) {
+        for (String payload : payloads) {
+            decoder.apply(payload);
+        }
+    }
+
+    private static long resetPeakHeap() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
@@ -0,0 +1,86 @@
+package data.internal;
+
+import com.thoughtworks.xstream.XStreamException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that payloads written in every format the codec has ever written can be read back
+ */
+public class PayloadCodecTest {
+
+    private static final PayloadCodec STORED = new PayloadCodec(PayloadCodec.Format.BINARY, PayloadCodec.Compression.NONE);
+    private static final PayloadCodec DEFLATED = new PayloadCodec(PayloadCodec.Format.BINARY,
+            PayloadCodec.Compression.DEFLATE);
+    private static final PayloadCodec XML = new PayloadCodec(PayloadCodec.Format.XML, PayloadCodec.Compression.NONE);
+
+    @Test
+    void readsLegacyXML() {
+        String payload = Serializers.getXMLSerializer().toXML(makeObject());
+        assertEquals(makeObject(), DEFLATED.decode(payload));
+        assertFalse(DEFLATED.isCurrent(payload));
+    }
+
+    @Test
+    void readsXMLWrittenByCodec() {
+        String payload = XML.encode(makeObject());
+        assertTrue(payload.startsWith("<"));
+        assertEquals(makeObject(), DEFLATED.decode(payload));
+    }
+
+    @Test
+    void readsVersionOne() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Serializers.getBinarySerializer().toXML(makeObject(), bytes);
+        String payload = "#vb1:" + Base64.getEncoder().encodeToString(bytes.toByteArray());
+        assertEquals(makeObject(), DEFLATED.decode(payload));
+        assertFalse(DEFLATED.isCurrent(payload));
+    }
+
+    @Test
+    void readsVersionTwoStored() {
+        String payload = STORED.encode(makeObject());
+        assertTrue(STORED.isCurrent(payload));
+        assertEquals(makeObject(), DEFLATED.decode(payload));
+    }
+
+    @Test
+    void readsVersionTwoDeflated() {
+        String payload = DEFLATED.encode(makeObject());
+        assertTrue(DEFLATED.isCurrent(payload));
+        assertEquals(makeObject(), STORED.decode(payload));
+    }
+
+    @Test
+    void rejectsUnknownVersion() {
+        String payload = DEFLATED.encode(makeObject()).replaceFirst("#vb2:", "#vb9:");
+        assertThrows(XStreamException.class, () -> DEFLATED.decode(payload));
+    }
+
+    @Test
+    void rejectsMalformedPayloads() {
+        assertThrows(XStreamException.class, () -> DEFLATED.decode("#vbx:AAAA"));
+        assertThrows(XStreamException.class, () -> DEFLATED.decode("#vb2"));
+        assertThrows(XStreamException.class, () -> DEFLATED.decode("#vb2:not base64!"));
+        assertThrows(XStreamException.class, () -> DEFLATED.decode("#vb2:"));
+        assertThrows(XStreamException.class, () -> DEFLATED.decode("#vb2:" + Base64.getEncoder().encodeToString(new byte[]{7})));
+    }
+
+    private Map<String, List<Integer>> makeObject() {
+        Map<String, List<Integer>> object = new HashMap<>();
+        List<Integer> levels = new ArrayList<>();
+        levels.add(1);
+        levels.add(2);
+        object.put("levels", levels);
+        object.put("empty", new ArrayList<>());
+        return object;
+    }
+}
@@ -0,0 +1,20 @@
+package data.internal;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the bytes read in strings are counted as they are encoded, not as characters
+ */
+public class QueryStatisticsTest {
+
+    @Test
+    void countsEncodedLength() {
+        for (String value : new String[]{"", "level", "caf\u00e9", "\u6e38\u620f", "\ud83c\udfae game"}) {
+            assertEquals(value.getBytes(StandardCharsets.UTF_8).length, QueryStatistics.utf8Length(value));
+        }
+    }
+}
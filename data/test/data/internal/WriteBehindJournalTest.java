@@ -0,0 +1,329 @@
+package data.internal;
+
+import data.external.GameRating;
+import data.external.UserScore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the journal replays writes to a LocalBackend in order, keeps them while the backend is down, lets them be
+ * flushed before reads and removals, and recovers from entries that were cut short or corrupted on disk
+ */
+public class WriteBehindJournalTest {
+
+    private static final String GAME = "Snake";
+    private static final String AUTHOR = "alice";
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private Path myDirectory;
+    private File myFile;
+    private OutageBackend myBackend;
+    private LeaderboardCache myLeaderboards;
+    private WriteBehindJournal myJournal;
+
+    /**
+     * LocalBackend that fails every write like an unreachable database while it is down
+     */
+    private static class OutageBackend extends LocalBackend {
+        private volatile boolean myDown;
+
+        private OutageBackend(File root) {
+            super(root);
+        }
+
+        private void checkUp() throws SQLException {
+            if (myDown) {
+                throw new SQLTransientConnectionException("down");
+            }
+        }
+
+        @Override
+        public void saveScore(String userName, String gameName, String authorName, Double score) throws SQLException {
+            checkUp();
+            super.saveScore(userName, gameName, authorName, score);
+        }
+
+        @Override
+        public int saveScores(String gameName, String authorName, Collection<UserScore> scores) throws SQLException {
+            checkUp();
+            return super.saveScores(gameName, authorName, scores);
+        }
+
+        @Override
+        public void addGameRating(GameRating rating) throws SQLException {
+            checkUp();
+            super.addGameRating(rating);
+        }
+
+        @Override
+        public int addGameRatings(Collection<GameRating> ratings) throws SQLException {
+            checkUp();
+            return super.addGameRatings(ratings);
+        }
+
+        @Override
+        public void saveCheckpoint(String userName, String gameName, String authorName, String rawXML,
+                                   Integer levelNumber, Double score, boolean full, Timestamp time) throws SQLException {
+            checkUp();
+            super.saveCheckpoint(userName, gameName, authorName, rawXML, levelNumber, score, full, time);
+        }
+    }
+
+    private interface Condition {
+        boolean holds() throws Exception;
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        myDirectory = Files.createTempDirectory(getClass().getSimpleName());
+        myFile = myDirectory.resolve("journal").toFile();
+        myBackend = new OutageBackend(myDirectory.resolve("data").toFile());
+        assertTrue(myBackend.open());
+        myLeaderboards = new LeaderboardCache(myBackend, 10, 60);
+        myJournal = openJournal();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        myJournal.close();
+        try (Stream<Path> files = Files.walk(myDirectory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    void replaysWritesToTheBackend() throws Exception {
+        assertTrue(myJournal.saveScore("bob", GAME, AUTHOR, 10.0));
+        assertTrue(myJournal.saveScore("carol", GAME, AUTHOR, 20.0));
+        assertTrue(myJournal.addGameRating(new GameRating("bob", GAME, AUTHOR, 4, "Fun")));
+        assertTrue(myJournal.saveCheckpoint("bob", GAME, AUTHOR, "<level/>", 2, 10.0, true));
+        waitFor(() -> myJournal.getPendingBytes() == 0);
+        assertEquals(List.of(20.0, 10.0), scores());
+        assertEquals(4, myBackend.getAllRatings(GAME).get(0).getNumberOfStars());
+        assertEquals(Integer.valueOf(2), myBackend.getCheckpointInfo("bob", GAME, AUTHOR).get(0).getLevelNumber());
+        assertEquals(0, myFile.length());
+    }
+
+    @Test
+    void keepsWritesUntilTheBackendIsBack() throws Exception {
+        myBackend.myDown = true;
+        assertTrue(myJournal.saveScore("bob", GAME, AUTHOR, 10.0));
+        myJournal.close();
+        assertTrue(myBackend.loadScores(GAME, AUTHOR).isEmpty());
+        myBackend.myDown = false;
+        myJournal = openJournal();
+        waitFor(() -> myJournal.getPendingBytes() == 0);
+        assertEquals(List.of(10.0), scores());
+    }
+
+    @Test
+    void replaysTheTimeWritesWereMade() throws Exception {
+        myBackend.myDown = true;
+        long before = System.currentTimeMillis();
+        assertTrue(myJournal.addGameRating(new GameRating("bob", GAME, AUTHOR, 4, "Fun")));
+        assertTrue(myJournal.saveCheckpoint("bob", GAME, AUTHOR, "<level/>", 2, 10.0, true));
+        long after = System.currentTimeMillis();
+        Thread.sleep(1500);
+        myBackend.myDown = false;
+        waitFor(() -> myJournal.getPendingBytes() == 0);
+        // file times may only keep whole seconds
+        long ratingTime = myBackend.getAllRatings(GAME).get(0).getTime().getTime();
+        assertTrue(ratingTime >= before - 1000 && ratingTime <= after, "rating time " + ratingTime);
+        long checkpointTime = myBackend.getCheckpointInfo("bob", GAME, AUTHOR).get(0).getTime().getTime();
+        assertTrue(checkpointTime >= before && checkpointTime <= after, "checkpoint time " + checkpointTime);
+    }
+
+    @Test
+    void recoversFromAnEntryCutShort() throws Exception {
+        myBackend.myDown = true;
+        assertTrue(myJournal.saveScore("bob", GAME, AUTHOR, 10.0));
+        assertTrue(myJournal.saveScore("carol", GAME, AUTHOR, 20.0));
+        myJournal.close();
+        // the header of an entry whose body was never written
+        try (RandomAccessFile journal = new RandomAccessFile(myFile, "rw")) {
+            journal.seek(journal.length());
+            journal.writeInt(1000);
+            journal.writeInt(0);
+            journal.writeShort(1);
+        }
+        myBackend.myDown = false;
+        myJournal = openJournal();
+        waitFor(() -> myJournal.getPendingBytes() == 0);
+        assertEquals(List.of(20.0, 10.0), scores());
+        assertEquals(10, corruptFile().length());
+    }
+
+    @Test
+    void skipsACorruptEntryAndReplaysTheOnesAfterIt() throws Exception {
+        myBackend.myDown = true;
+        assertTrue(myJournal.saveScore("bob", GAME, AUTHOR, 10.0));
+        long firstEnd = myJournal.getPendingBytes();
+        assertTrue(myJournal.saveScore("carol", GAME, AUTHOR, 20.0));
+        long secondEnd = myJournal.getPendingBytes();
+        assertTrue(myJournal.saveScore("dave", GAME, AUTHOR, 30.0));
+        myJournal.close();
+        try (RandomAccessFile journal = new RandomAccessFile(myFile, "rw")) {
+            long inBody = (firstEnd + secondEnd) / 2;
+            journal.seek(inBody);
+            int value = journal.read();
+            journal.seek(inBody);
+            journal.write(value ^ 0xFF);
+        }
+        myBackend.myDown = false;
+        myJournal = openJournal();
+        waitFor(() -> myJournal.getPendingBytes() == 0);
+        assertEquals(List.of(30.0, 10.0), scores());
+        assertEquals(secondEnd - firstEnd, corruptFile().length());
+        // the journal keeps replaying after skipping it
+        assertTrue(myJournal.saveScore("erin", GAME, AUTHOR, 40.0));
+        waitFor(() -> myJournal.getPendingBytes() == 0);
+        assertEquals(List.of(40.0, 30.0, 10.0), scores());
+    }
+
+    @Test
+    void flushMakesWritesVisibleRightAway() throws SQLException {
+        assertTrue(myJournal.saveScore("bob", GAME, AUTHOR, 10.0));
+        assertTrue(myJournal.addGameRating(new GameRating("bob", GAME, AUTHOR, 4, "Fun")));
+        assertTrue(myJournal.saveCheckpoint("bob", GAME, AUTHOR, "<level/>", 2, 10.0, true));
+        assertTrue(myJournal.flush(GAME, AUTHOR));
+        assertEquals(List.of(10.0), scores());
+        assertEquals(1, myBackend.getAllRatings(GAME).size());
+        assertEquals(1, myBackend.getCheckpointInfo("bob", GAME, AUTHOR).size());
+    }
+
+    @Test
+    void flushFailsWhileTheBackendIsDown() {
+        myBackend.myDown = true;
+        assertTrue(myJournal.flush(GAME, AUTHOR));
+        assertTrue(myJournal.saveScore("bob", GAME, AUTHOR, 10.0));
+        long start = System.currentTimeMillis();
+        assertFalse(myJournal.flush(GAME, AUTHOR));
+        assertFalse(myJournal.flush(GAME, null));
+        assertFalse(myJournal.flush(null, null));
+        assertTrue(System.currentTimeMillis() - start < TIMEOUT_MILLIS);
+        // only the game written to has to wait, not another one with the same name
+        assertTrue(myJournal.flush("Pong", AUTHOR));
+        assertTrue(myJournal.flush(GAME, "bob"));
+    }
+
+    @Test
+    void flushDoesNotWaitWhileBackingOff() throws Exception {
+        myBackend.myDown = true;
+        myJournal.close();
+        myJournal = new WriteBehindJournal(myBackend, new CheckpointRetention(myBackend, 50, 0),
+                new LeaderboardCache(myBackend), myFile, 100, 60);
+        assertTrue(myJournal.open());
+        assertTrue(myJournal.saveScore("bob", GAME, AUTHOR, 10.0));
+        assertFalse(myJournal.flush(GAME, AUTHOR));
+        myBackend.myDown = false;
+        // the attempt after the failed one is a backoff away, which neither flush nor new writes cut short
+        long start = System.currentTimeMillis();
+        assertFalse(myJournal.flush(GAME, AUTHOR));
+        assertTrue(myJournal.saveScore("carol", GAME, AUTHOR, 20.0));
+        assertFalse(myJournal.flush(GAME, AUTHOR));
+        assertTrue(System.currentTimeMillis() - start < 250);
+        assertTrue(scores().isEmpty());
+    }
+
+    @Test
+    void flushWaitsForWritesLeftFromBefore() throws Exception {
+        myBackend.myDown = true;
+        assertTrue(myJournal.saveScore("bob", GAME, AUTHOR, 10.0));
+        myJournal.close();
+        myJournal = openJournal();
+        assertFalse(myJournal.flush(GAME, AUTHOR));
+        myBackend.myDown = false;
+        waitFor(() -> myJournal.flush(GAME, AUTHOR));
+        assertEquals(List.of(10.0), scores());
+    }
+
+    @Test
+    void removedWritesAreNotReplayedAgain() throws Exception {
+        myBackend.myDown = true;
+        assertTrue(myJournal.saveScore("bob", GAME, AUTHOR, 10.0));
+        assertTrue(myJournal.saveCheckpoint("bob", GAME, AUTHOR, "<level/>", 2, 10.0, true));
+        // removing has to wait until the journaled writes are in the backend
+        assertFalse(myJournal.flush(GAME, AUTHOR));
+        myBackend.myDown = false;
+        waitFor(() -> myJournal.flush(GAME, AUTHOR));
+        myBackend.removeScores("bob", GAME, AUTHOR);
+        myBackend.deleteCheckpoint("bob", GAME, AUTHOR);
+        myJournal.close();
+        myJournal = openJournal();
+        assertTrue(myJournal.flush(GAME, AUTHOR));
+        assertTrue(scores().isEmpty());
+        assertTrue(myBackend.getCheckpointInfo("bob", GAME, AUTHOR).isEmpty());
+    }
+
+    @Test
+    void replayedScoresReachTheLeaderboardOnce() throws Exception {
+        myBackend.myDown = true;
+        assertTrue(myJournal.saveScore("bob", GAME, AUTHOR, 10.0));
+        assertTrue(myLeaderboards.getTopScores(GAME, AUTHOR, 10).isEmpty());
+        myBackend.myDown = false;
+        waitFor(() -> myJournal.flush(GAME, AUTHOR));
+        assertEquals(1, myLeaderboards.getTopScores(GAME, AUTHOR, 10).size());
+        assertEquals(1, myLeaderboards.rebuild(GAME, AUTHOR).getTop(10).size());
+    }
+
+    @Test
+    void writesGoToTheBackendDirectlyWhenThePositionCantBeSaved() throws Exception {
+        assertTrue(new File(myFile.getPath() + ".position").mkdir());
+        List<Double> journaled = new ArrayList<>();
+        waitFor(() -> {
+            double score = journaled.size();
+            if (!myJournal.saveScore("bob", GAME, AUTHOR, score)) {
+                return true;
+            }
+            journaled.add(0, score);
+            return false;
+        });
+        // everything journaled before is still replayed
+        waitFor(() -> scores().size() == journaled.size());
+        assertEquals(journaled, scores());
+    }
+
+    private WriteBehindJournal openJournal() {
+        WriteBehindJournal journal = new WriteBehindJournal(myBackend, new CheckpointRetention(myBackend, 50, 0),
+                myLeaderboards, myFile, 100, 0);
+        assertTrue(journal.open());
+        return journal;
+    }
+
+    private File corruptFile() {
+        return new File(myFile.getPath() + ".corrupt");
+    }
+
+    private List<Double> scores() throws SQLException {
+        List<Double> scores = new ArrayList<>();
+        for (UserScore score : myBackend.loadScores(GAME, AUTHOR)) {
+            scores.add(score.getScore());
+        }
+        return scores;
+    }
+
+    private void waitFor(Condition condition) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (!condition.holds()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -10,6 +10,9 @@ import voogasalad.util.reflection.ReflectionException;
 
 import java.util.ResourceBundle;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Collection;
 import java.util.Enumeration;
 import java.util.ArrayList;
@@ -37,6 +40,7 @@ public class Engine {
     private Collection<IEventEngine> myEvents;
     private Double myLevelHeight;
     private Double myLevelWidth;
+    private String myLevelMusic;
 
     /**
      * An Engine is expected be initialized by a GameRunner and accepts a Level object containing all data (Entities and
@@ -49,6 +53,7 @@ public class Engine {
         myEvents = level.getEvents();
         myLevelHeight = level.getHeight();
         myLevelWidth = level.getWidth();
+        myLevelMusic = level.getMusic();
         initSystemMap();
     }
 
@@ -69,6 +74,16 @@ public class Engine {
         return this.getEntities();
     }
 
+    /**
+     * Lets every System load the resources it needs for the Entities of the Level ahead of the first game loop, so that
+     * an Engine prepared in the background while another Level is running can start without accessing the database
+     */
+    public void preload(){
+        for(VoogaSystem system : mySystems.values()){
+            system.preload(myEntities);
+        }
+    }
+
     /**
      * @return an unmodifiable collection of Entities within the currently running game
      */
@@ -94,12 +109,27 @@ public class Engine {
 
     /**
      * Clean up all Components that have been created in Engine for Runner to save the status of game
+     * The running Entities are left untouched, only their snapshots are cleaned up
      * @return a copy of all currently existing Entities that have had Components cleaned up
      */
     public Collection<Entity> saveGame(){
-        ArrayList<Entity> entityCopy = new ArrayList<>(myEntities);
+        return new ArrayList<>(saveGameByEntity().values());
+    }
+
+    /**
+     * Same as saveGame, but tells which running Entity each saved copy was taken from, so that Runner could
+     * compare the Entities between successive saves
+     * @return map from each running Entity to be saved to its cleaned up copy, in the order of the running Entities
+     */
+    public Map<Entity, Entity> saveGameByEntity(){
+        Map<Entity, Entity> savedEntities = new LinkedHashMap<>();
+        for(Entity entity : myEntities){
+            savedEntities.put(entity, entity.snapshot());
+        }
         Collection<Class<? extends Component>> componentsToRemove = retrieveComponentClazz(REMOVABLE_COMPONENTS_RESOURCES,mySaveGameSystem.getClass().getSimpleName());
-        return mySaveGameSystem.getSavedEntities(entityCopy,componentsToRemove);
+        Collection<Entity> cleanedEntities = mySaveGameSystem.getSavedEntities(new ArrayList<>(savedEntities.values()),componentsToRemove);
+        savedEntities.values().retainAll(new HashSet<>(cleanedEntities));
+        return savedEntities;
     }
 
     /**
@@ -116,6 +146,13 @@ public class Engine {
         return myLevelWidth;
     }
 
+    /**
+     * @return String argument with which the background music of the current game level could be retrieved from database
+     */
+    public String getMusic(){
+        return myLevelMusic;
+    }
+
     // Loop over the System class names in the properties file, instantiate the concrete Systems, and store the Systems
     // mapped by their corresponding updating order on each game loop
     private void initSystemMap() {
@@ -48,6 +48,21 @@ public class Entity implements Serializable {
         return newEntity;
     }
 
+    /**
+     * Copies every Component of this Entity as it is right now, so that replacing the value of a Component of the
+     * original Entity leaves the copy unchanged. Values are not copied, so Components holding other Entities or mutable
+     * objects still share them with the original, and the copy must be read (e.g. serialized) before the game modifies
+     * those again
+     * @return new Entity holding a copy of each Component
+     */
+    public Entity snapshot() {
+        Entity newEntity = new Entity();
+        for (Component<?> c: this.myComponents.values()) {
+            newEntity.myComponents.put(c.getClass(), c.copy());
+        }
+        return newEntity;
+    }
+
 
     public void addComponent(Collection<Component<?>> components) {
         for (Component<?> component: components) {
@@ -155,4 +155,22 @@ public class Level implements Serializable {
         return myHeight;
     }
 
+    /**
+     * Creates a Level with the same settings and Events as this Level, but holding the given Entities instead,
+     * e.g. to capture the state of a running Level as a checkpoint
+     * @param entities Entities the new Level should hold
+     * @return new Level
+     */
+    public Level copyWithEntities(Collection<Entity> entities) {
+        Level level = new Level();
+        level.myLabel = myLabel;
+        level.myWidth = myWidth;
+        level.myHeight = myHeight;
+        level.myBackground = myBackground;
+        level.myMusic = myMusic;
+        level.myEvents.addAll(myEvents);
+        level.myEntities.addAll(entities);
+        return level;
+    }
+
 }
@@ -0,0 +1,14 @@
+package engine.external.component;
+
+import javafx.scene.media.AudioClip;
+
+/**
+ * Stores a short sound effect that has been fully loaded into memory
+ * Unlike AudioComponent, the AudioClip can be fired by Runner repeatedly without creating a new MediaPlayer
+ * Not serializable; needs to be created in Engine
+ */
+public class AudioClipComponent extends Component<AudioClip> {
+    public AudioClipComponent(AudioClip audioClip) {
+        super(audioClip);
+    }
+}
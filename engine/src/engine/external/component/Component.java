@@ -7,7 +7,7 @@ import java.io.Serializable;
  * @author Lucas Liu
  * Containers for storing necessary data of Entities. Simply has a getter and setter.
  */
-public abstract class Component<T> implements Serializable {
+public abstract class Component<T> implements Serializable, Cloneable {
     protected T myValue;
     protected T myOriginalValue;
 
@@ -27,4 +27,18 @@ public abstract class Component<T> implements Serializable {
     public void resetToOriginal() {
         myValue = myOriginalValue;
     }
+
+    /**
+     * Creates a shallow copy of this Component, whose value can be replaced independently of the original from then on.
+     * The value itself is shared, so a mutable value modified in place changes in both
+     * @return copy of the same Component class holding the same current and original values
+     */
+    @SuppressWarnings("unchecked")
+    public Component<T> copy() {
+        try {
+            return (Component<T>) super.clone();
+        } catch (CloneNotSupportedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
 }
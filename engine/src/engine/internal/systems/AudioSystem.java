@@ -3,8 +3,10 @@ package engine.internal.systems;
 import data.external.DataManager;
 import engine.external.Engine;
 import engine.external.Entity;
+import engine.external.component.AudioClipComponent;
 import engine.external.component.AudioComponent;
 import engine.external.component.Component;
+import javafx.scene.media.AudioClip;
 import javafx.scene.media.Media;
 
 import java.io.InputStream;
@@ -19,14 +21,18 @@ import java.util.HashMap;
  * @Author Hsingchih Tang
  * Reads the sound file path from SoundComponent of Entities, retrieves corresponding InputStream,
  * and converts them into Media to be stored in AudioComponents
+ * Short sound effects are instead loaded once into memory as AudioClips and stored in AudioClipComponents,
+ * so that Runner could fire them without the start latency of a new MediaPlayer
  */
 public class AudioSystem extends VoogaSystem {
 
     private static final Integer REAE_BYTE_NUM = 1024;
+    private static final long MAX_CLIP_BYTES = 512 * 1024;
 
     DataManager myDataManager;
     HashMap<Entity, String> myEntityPastSound;
     HashMap<String, Media> myMedia;
+    HashMap<String, AudioClip> myClips;
 
     /**
      * Accepts a reference to the Engine in charge of all Systems in current game, and a Collection of Component classes
@@ -40,13 +46,14 @@ public class AudioSystem extends VoogaSystem {
         myDataManager = new DataManager();
         myEntityPastSound = new HashMap<>();
         myMedia = new HashMap<>();
+        myClips = new HashMap<>();
     }
 
 
     /**
      * Loops through all Entities with a SoundComponent, retrieves the corresponding sound file from database and
-     * generates/updates the AudioComponent for this Entity to store the MediaPlayer for playing the sound
-     * All MediaPlayers are cached in the System to reduce database and I/O accesses
+     * generates/updates the AudioComponent or AudioClipComponent for this Entity for playing the sound
+     * All Media and AudioClips are cached in the System to reduce database and I/O accesses
      */
     protected void run(){
         for (Entity entity : this.getEntities()) {
@@ -55,13 +62,30 @@ public class AudioSystem extends VoogaSystem {
     }
 
 
+    /**
+     * Retrieve the background music of the Level and the sounds of all eligible Entities ahead of the first game loop
+     */
+    @Override
+    protected void loadResources() {
+        if (myEngine.getMusic() != null) {
+            retrieveAudio(myEngine.getMusic());
+        }
+        for (Entity entity : this.getEntities()) {
+            retrieveAudio((String) getComponentValue(SOUND_COMPONENT_CLASS, entity));
+        }
+    }
+
     private void generateAudio(Entity entity) {
         String audioName = (String) getComponentValue(SOUND_COMPONENT_CLASS, entity);
         if (!myEntityPastSound.containsKey(entity) || !myEntityPastSound.get(entity).equals(audioName)) {
 //            System.out.println("generating Audio for "+audioName);
             myEntityPastSound.put(entity, audioName);
             retrieveAudio(audioName);
-            if (myMedia.get(audioName) != null) {
+            if (myClips.get(audioName) != null) {
+                entity.removeComponent(AUDIO_COMPONENT_CLASS);
+                entity.addComponent(new AudioClipComponent(myClips.get(audioName)));
+            } else if (myMedia.get(audioName) != null) {
+                entity.removeComponent(AUDIO_CLIP_COMPONENT_CLASS);
                 entity.addComponent(new AudioComponent(myMedia.get(audioName)));
             }
         }
@@ -69,38 +93,46 @@ public class AudioSystem extends VoogaSystem {
 
 
     private void retrieveAudio(String audioName) {
-        if (!myMedia.containsKey(audioName)) {
+        if (!myMedia.containsKey(audioName) && !myClips.containsKey(audioName)) {
             InputStream audioStream = myDataManager.loadSound(audioName);
             if (audioStream == null) {
                 System.out.println("Audio file " + audioName + " not found in database");
                 myMedia.put(audioName, null);
                 return;
             }
-            Media audio;
+            File audioFile;
             try {
-                audio = new Media(convertInputStreamToFile(audioStream).toURI().toString());
+                audioFile = convertInputStreamToFile(audioStream);
             } catch (IOException e) {
                 System.out.println("AudioSystem couldn't create audio file for " + audioName);
                 myMedia.put(audioName, null);
                 return;
             }
-            myMedia.put(audioName, audio);
+            if (isSoundEffect(audioName, audioFile)) {
+                myClips.put(audioName, new AudioClip(audioFile.toURI().toString()));
+            } else {
+                myMedia.put(audioName, new Media(audioFile.toURI().toString()));
+            }
         }
     }
 
+    // The background music of the Level and any long sound keep streaming through Media/MediaPlayer,
+    // everything else is small enough to be decoded into memory once as an AudioClip
+    private boolean isSoundEffect(String audioName, File audioFile) {
+        return !audioName.equals(myEngine.getMusic()) && audioFile.length() <= MAX_CLIP_BYTES;
+    }
+
     private File convertInputStreamToFile(InputStream inputStream) throws IOException {
-        try {
-            File audioFile = File.createTempFile("myAudio", ".mp3");
-            FileOutputStream outputStream = new FileOutputStream(audioFile);
+        File audioFile = File.createTempFile("myAudio", ".mp3");
+        audioFile.deleteOnExit();
+        try (FileOutputStream outputStream = new FileOutputStream(audioFile)) {
             int read;
             byte[] bytes = new byte[REAE_BYTE_NUM];
             while ((read = inputStream.read(bytes)) != -1) {
                 outputStream.write(bytes, 0, read);
             }
-            return audioFile;
-        } catch (IOException e) {
-            throw e;
         }
+        return audioFile;
     }
 
 }
@@ -51,6 +51,17 @@ public class ImageViewSystem extends VoogaSystem {
         }
     }
 
+    /**
+     * Retrieve the images of all eligible Entities ahead of the first game loop so that no database access
+     * is needed when their ImageViews are generated
+     */
+    @Override
+    protected void loadResources() {
+        for (Entity entity : this.getEntities()) {
+            retrieveImage((String) getComponentValue(SPRITE_COMPONENT_CLASS, entity));
+        }
+    }
+
     /**
      * Generate or adjust the height/width/positions/opacity of an Entity's ImageView
      * Only access database to retrieve new image if the Sprite String has changed since the last game loop
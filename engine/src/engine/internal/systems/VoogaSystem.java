@@ -39,6 +39,7 @@ public abstract class VoogaSystem {
     static final Class<? extends Component> WIDTH_COMPONENT_CLASS = WidthComponent.class;
     static final Class<? extends Component> HEIGHT_COMPONENT_CLASS = HeightComponent.class;
     static final Class<? extends Component> AUDIO_COMPONENT_CLASS = AudioComponent.class;
+    static final Class<? extends Component> AUDIO_CLIP_COMPONENT_CLASS = AudioClipComponent.class;
     static final Class<? extends Component> SOUND_COMPONENT_CLASS = SoundComponent.class;
     static final Class<? extends Component> SPRITE_COMPONENT_CLASS = SpriteComponent.class;
     static final Class<? extends Component> SPAWN_ENTITY_COMPONENT_CLASS = SpawnEntityComponent.class;
@@ -78,15 +79,29 @@ public abstract class VoogaSystem {
      * @param inputs Collection of keyCodes received by Runner and then passed in by Engine
      */
     public void update(Collection<Entity> entities, Collection<KeyCode> inputs) {
-        myEntities = new ArrayList<>();
         myInputs = new ArrayList<>(inputs);
+        filterEntities(entities);
+        run();
+    }
+
+    /**
+     * Call expected to be made from Engine before the first game loop, possibly off the JavaFX thread while another
+     * Level is still running. Filters the Entities in the same way as update() and lets the System load any resources
+     * it will need for them, without modifying the Entities
+     * @param entities Collection of Entities passed in from Engine
+     */
+    public void preload(Collection<Entity> entities) {
+        filterEntities(entities);
+        loadResources();
+    }
 
+    private void filterEntities(Collection<Entity> entities) {
+        myEntities = new ArrayList<>();
         for (Entity e: entities) {
             if (filter(e)) {
                 myEntities.add(e);
             }
         }
-        run();
     }
 
     /**
@@ -103,6 +118,13 @@ public abstract class VoogaSystem {
      */
     protected abstract void run();
 
+    /**
+     * Concrete Systems that cache resources such as images or sounds load them here for the matching Entities
+     * Does nothing by default
+     */
+    protected void loadResources() {
+    }
+
     /**
      * Allow concrete Systems to retrieve the private Collection of Entities stored in the super System
      * @return Collection of Entities held in the System
@@ -0,0 +1,147 @@
+package runner.external;
+
+import data.external.ChainedCheckpoint;
+import engine.external.Entity;
+import engine.external.Level;
+import engine.external.component.Component;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A saved state of a running level
+ * A full checkpoint holds every saved entity, while each following delta checkpoint of the same chain only holds
+ * the entities and component values that changed since the checkpoint before it
+ * Entities are identified by numbers that stay the same throughout a chain
+ */
+public class Checkpoint implements ChainedCheckpoint {
+    private String myChainID;
+    private int mySequenceNumber;
+    private Game myGame;
+    private Map<Integer, Entity> myChangedEntities;
+    private Map<Integer, Set<Class<? extends Component>>> myRemovedComponents;
+    private Set<Integer> myRemovedEntities;
+
+    /**
+     * Constructor for Checkpoint
+     * @param chainID - identifies the full checkpoint that this checkpoint builds on
+     * @param sequenceNumber - position in the chain, 0 for the full checkpoint
+     * @param game - manifest of the game holding the level without entities, only kept in full checkpoints
+     */
+    public Checkpoint(String chainID, int sequenceNumber, Game game) {
+        myChainID = chainID;
+        mySequenceNumber = sequenceNumber;
+        myGame = game;
+        myChangedEntities = new LinkedHashMap<>();
+        myRemovedComponents = new HashMap<>();
+        myRemovedEntities = new HashSet<>();
+    }
+
+    /**
+     * Records an entity that was added, or the components of an entity that were added or changed
+     * @param entityID - number of the entity
+     * @param components - entity holding only the added or changed components
+     */
+    public void addChangedEntity(int entityID, Entity components) {
+        myChangedEntities.put(entityID, components);
+    }
+
+    /**
+     * Records components that an entity no longer has
+     * @param entityID - number of the entity
+     * @param componentClasses - classes of the removed components
+     */
+    public void addRemovedComponents(int entityID, Set<Class<? extends Component>> componentClasses) {
+        myRemovedComponents.put(entityID, componentClasses);
+    }
+
+    /**
+     * Records an entity that no longer exists
+     * @param entityID - number of the entity
+     */
+    public void addRemovedEntity(int entityID) {
+        myRemovedEntities.add(entityID);
+    }
+
+    /**
+     * Whether this checkpoint holds every entity
+     * @return true if this is the start of a chain
+     */
+    @Override
+    public boolean isFull() {
+        return mySequenceNumber == 0;
+    }
+
+    /**
+     * Gets the chain that this checkpoint belongs to
+     * @return String chain ID
+     */
+    public String getChainID() {
+        return myChainID;
+    }
+
+    /**
+     * Gets the position of this checkpoint in its chain
+     * @return int sequence number
+     */
+    public int getSequenceNumber() {
+        return mySequenceNumber;
+    }
+
+    /**
+     * Rebuilds the game saved by this checkpoint by replaying its chain
+     * @param savedCheckpoints - saved checkpoints of the game, e.g. as returned by getCheckpoints
+     * @return Game holding the saved level, or null if the full checkpoint or any delta before this one is missing,
+     * since replaying a chain with a gap would restore a state that was never saved
+     */
+    @Override
+    public Game restore(Collection<Object> savedCheckpoints) {
+        List<Checkpoint> chain = new ArrayList<>();
+        for (Object saved : savedCheckpoints) {
+            if (saved instanceof Checkpoint && ((Checkpoint) saved).myChainID.equals(myChainID)
+                    && ((Checkpoint) saved).mySequenceNumber <= mySequenceNumber) {
+                chain.add((Checkpoint) saved);
+            }
+        }
+        chain.sort(Comparator.comparingInt(Checkpoint::getSequenceNumber));
+        for (int i = 0; i < chain.size(); i++) {
+            if (chain.get(i).mySequenceNumber != i) {
+                return null;
+            }
+        }
+        if (chain.size() != mySequenceNumber + 1) {
+            return null;
+        }
+        Map<Integer, Entity> entities = new LinkedHashMap<>();
+        for (Checkpoint checkpoint : chain) {
+            checkpoint.applyTo(entities);
+        }
+        Game base = chain.get(0).myGame;
+        Game game = base.getManifest();
+        game.addLevel(base.getLevels().get(0).copyWithEntities(entities.values()));
+        return game;
+    }
+
+    private void applyTo(Map<Integer, Entity> entities) {
+        for (Integer entityID : myRemovedEntities) {
+            entities.remove(entityID);
+        }
+        for (Map.Entry<Integer, Set<Class<? extends Component>>> removed : myRemovedComponents.entrySet()) {
+            if (entities.containsKey(removed.getKey())) {
+                entities.get(removed.getKey()).removeComponent(removed.getValue());
+            }
+        }
+        for (Map.Entry<Integer, Entity> changed : myChangedEntities.entrySet()) {
+            entities.putIfAbsent(changed.getKey(), new Entity());
+            for (Component<?> component : changed.getValue().getComponentMap().values()) {
+                entities.get(changed.getKey()).addComponent(component.copy());
+            }
+        }
+    }
+}
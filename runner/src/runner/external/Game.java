@@ -1,5 +1,6 @@
 package runner.external;
 
+import data.external.ChunkedGame;
 import engine.external.Entity;
 import engine.external.Level;
 import java.util.*;
@@ -11,7 +12,7 @@ import java.util.Map;
  * Game Object contains all information to play a game
  * @author Louis Jensen
  */
-public class Game {
+public class Game implements ChunkedGame<Level> {
     private List<Level> myLevels;
     private Map<Entity, String> myUserCreatedTypes;
     private int myWidth;
@@ -32,6 +33,7 @@ public class Game {
      * Adds a level to the game object
      * @param level - built level to add
      */
+    @Override
     public void addLevel(Level level){
         myLevels.add(level);
     }
@@ -40,10 +42,24 @@ public class Game {
      * Gets list of levels
      * @return Unmodifiable list of levels
      */
+    @Override
     public List<Level> getLevels(){
         return Collections.unmodifiableList(myLevels);
     }
 
+    /**
+     * Creates the manifest that is saved in place of the whole game, with each level saved separately
+     * @return copy of this game without any levels
+     */
+    @Override
+    public Game getManifest(){
+        Game manifest = new Game();
+        manifest.myWidth = myWidth;
+        manifest.myHeight = myHeight;
+        manifest.myUserCreatedTypes = myUserCreatedTypes;
+        return manifest;
+    }
+
     /**
      * Gets scene width
      * @return int scene width
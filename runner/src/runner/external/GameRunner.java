@@ -1,16 +1,21 @@
 package runner.external;
 
+import data.external.CheckpointInfo;
 import data.external.DataManager;
+import engine.external.Engine;
 import engine.external.Entity;
 import engine.external.Level;
 import engine.external.component.LivesComponent;
 import engine.external.component.ScoreComponent;
 import javafx.scene.image.Image;
 import javafx.stage.Stage;
+import runner.internal.LevelPreloader;
 import runner.internal.LevelRunner;
+import runner.internal.PreloadedLevel;
 import java.io.*;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 /**
@@ -30,6 +35,9 @@ public class GameRunner {
     private Double myScore;
     private String myUsername;
     private Double myLives;
+    private Map<Integer, String> myPristineLevels;
+    private int myLevelCount;
+    private LevelPreloader myLevelPreloader;
 
     /**
      * Constructor for GameRunner
@@ -38,44 +46,137 @@ public class GameRunner {
      * @throws FileNotFoundException if game is not found
      */
     public GameRunner(String gameName, String authorName, String username) throws FileNotFoundException {
-        myGame = loadGameObject(gameName, authorName);
+        this(gameName, authorName, username, null);
+    }
+
+    /**
+     * Constructor for GameRunner that continues a game from a saved checkpoint
+     * @param gameName - name of the game
+     * @param authorName - name of the game's author
+     * @param checkpoint - checkpoint to continue from, as listed by DataManager.getCheckpointInfo, or null to start
+     *                   from the first level
+     * @throws FileNotFoundException if game is not found
+     */
+    public GameRunner(String gameName, String authorName, String username, CheckpointInfo checkpoint)
+            throws FileNotFoundException {
         myGameName = gameName;
         myUsername = username;
         myAuthorName = authorName;
+        myGame = loadGameObject(gameName, authorName);
+        cachePristineLevels();
+        myLevelPreloader = new LevelPreloader();
         myGameStage = new Stage();
-        int firstLevel = 1;
-        runLevel(firstLevel);
+        Level savedLevel = loadSavedLevel(checkpoint);
+        if (savedLevel == null) {
+            int firstLevel = 1;
+            runLevel(firstLevel);
+        } else {
+            myScore = checkpoint.getScore();
+            keepScoreAndLives(savedLevel);
+            runLevel(checkpoint.getLevelNumber(), prepareLevel(savedLevel));
+        }
     }
 
     private Game loadGameObject(String gameName, String authorName){
         myDataManager = new DataManager();
         try {
-            return (Game) myDataManager.loadGameData(gameName, authorName);
+            return (Game) myDataManager.loadGameManifest(gameName, authorName);
         } catch (SQLException e) {
             System.out.println(e.getMessage());
             return null;
         }
     }
 
-    private void runLevel(int currentLevelNumber){
-        DataManager dm = new DataManager();
-        Game gameToPlay;
+    // Keep every Level that has been loaded in serialized form, so that a level transition only needs to
+    // deserialize the one Level it is about to play instead of fetching and parsing the whole Game again.
+    // Games saved with individual levels only come with a manifest, and their Levels are fetched on demand,
+    // possibly from the preloading thread
+    private void cachePristineLevels() {
+        myPristineLevels = new ConcurrentHashMap<>();
+        List<Level> levels = myGame.getLevels();
+        for (int i = 0; i < levels.size(); i++) {
+            myPristineLevels.put(i + 1, myDataManager.serialize(levels.get(i)));
+        }
+        myLevelCount = levels.size();
+        if (levels.isEmpty()) {
+            try {
+                myLevelCount = myDataManager.loadLevelCount(myGameName, myAuthorName);
+            } catch (SQLException e) {
+                System.out.println(e.getMessage());
+            }
+        }
+    }
+
+    // Delta checkpoints are restored from their chain by the DataManager, which hands back the Game holding the
+    // saved level.  Checkpoints saved without a level number can't be continued, since the levels after them are unknown
+    private Level loadSavedLevel(CheckpointInfo checkpoint) {
+        if (checkpoint == null || checkpoint.getLevelNumber() == null) {
+            return null;
+        }
         try {
-            gameToPlay = (Game) dm.loadGameData(myGameName, myAuthorName);
-        } catch(SQLException e){
-            gameToPlay = myGame;
+            Object saved = myDataManager.loadCheckpoint(myUsername, myGameName, myAuthorName, checkpoint.getTime());
+            if (saved instanceof Game && !((Game) saved).getLevels().isEmpty()) {
+                return ((Game) saved).getLevels().get(0);
+            }
+        } catch (SQLException | RuntimeException e) {
+            System.out.println(e.getMessage());
         }
-        myCurrentLevel = gameToPlay.getLevels().get(currentLevelNumber - 1);
+        return null;
+    }
+
+    private Level loadPristineLevel(int levelNumber) throws SQLException {
+        if (!myPristineLevels.containsKey(levelNumber)) {
+            Level level = (Level) myDataManager.loadGameLevel(myGameName, myAuthorName, levelNumber);
+            myPristineLevels.put(levelNumber, myDataManager.serialize(level));
+            return level;
+        }
+        return (Level) myDataManager.deserialize(myPristineLevels.get(levelNumber));
+    }
+
+    private void runLevel(int currentLevelNumber){
+        PreloadedLevel preloadedLevel = myLevelPreloader.take(currentLevelNumber);
+        if (preloadedLevel == null) {
+            try {
+                preloadedLevel = prepareLevel(currentLevelNumber);
+            } catch (SQLException e) {
+                System.out.println(e.getMessage());
+                return;
+            }
+        }
+        runLevel(currentLevelNumber, preloadedLevel);
+    }
+
+    private void runLevel(int currentLevelNumber, PreloadedLevel preloadedLevel){
+        myCurrentLevel = preloadedLevel.getLevel();
         mySceneWidth = myGame.getWidth();
         mySceneHeight = myGame.getHeight();
         Consumer<Double> goToNext = (level) -> { nextLevel(level); };
+        new LevelRunner(myCurrentLevel, preloadedLevel.getEngine(), mySceneWidth, mySceneHeight, myGameStage, goToNext, myLevelCount, preloadedLevel.getBackground(), myScore, myLives, myAuthorName, myGameName, myUsername, myGame);
+        preloadNextLevel(currentLevelNumber + 1);
+    }
+
+    // The level after the current one is the most likely to be played next, so it is loaded, decoded and
+    // handed its own Engine in the background while the current level is being played
+    private void preloadNextLevel(int nextLevelNumber) {
+        if (nextLevelNumber <= myLevelCount) {
+            myLevelPreloader.preload(nextLevelNumber, () -> prepareLevel(nextLevelNumber));
+        }
+    }
+
+    private PreloadedLevel prepareLevel(int levelNumber) throws SQLException {
+        return prepareLevel(loadPristineLevel(levelNumber));
+    }
+
+    private PreloadedLevel prepareLevel(Level level) {
         Image background;
         try {
-           background = new Image(myDataManager.loadImage(myCurrentLevel.getBackground()), myCurrentLevel.getWidth(), myCurrentLevel.getHeight(), false, false);
+           background = new Image(myDataManager.loadImage(level.getBackground()), level.getWidth(), level.getHeight(), false, false);
         } catch (Exception e){
-            background = new Image(myDataManager.loadImage("byteme_default_runnerBackground"), myCurrentLevel.getWidth(), myCurrentLevel.getHeight(), false, false);
+            background = new Image(myDataManager.loadImage("byteme_default_runnerBackground"), level.getWidth(), level.getHeight(), false, false);
         }
-        new LevelRunner(myCurrentLevel, mySceneWidth, mySceneHeight, myGameStage, goToNext, gameToPlay.getLevels().size(), background, myScore, myLives, myAuthorName, myGameName, myUsername, myGame);
+        Engine engine = LevelRunner.prepareEngine(level);
+        engine.preload();
+        return new PreloadedLevel(level, engine, background);
     }
 
     private void nextLevel(Double level) {
@@ -85,15 +186,21 @@ public class GameRunner {
         } catch (Exception e){
             levelToPlay = 10;
         }
-        for(Entity entity : myCurrentLevel.getEntities()){
+        keepScoreAndLives(myCurrentLevel);
+        this.runLevel(levelToPlay);
+    }
+
+    // Score and lives are carried into the next level played, which is also how a level continued from a checkpoint
+    // keeps the lives it was saved with
+    private void keepScoreAndLives(Level level) {
+        for(Entity entity : level.getEntities()){
             if (entity.hasComponents(ScoreComponent.class)){
                 myScore = (Double) entity.getComponent(ScoreComponent.class).getValue();
             }
             if (entity.hasComponents(LivesComponent.class)){
-                myScore = (Double) entity.getComponent(LivesComponent.class).getValue();
+                myLives = (Double) entity.getComponent(LivesComponent.class).getValue();
             }
         }
-        this.runLevel(levelToPlay);
     }
 
 }
\ No newline at end of file
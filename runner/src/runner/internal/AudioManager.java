@@ -1,11 +1,15 @@
 package runner.internal;
 
 import engine.external.Entity;
+import engine.external.component.AudioClipComponent;
 import engine.external.component.AudioComponent;
 import engine.external.component.PlayAudioComponent;
+import javafx.scene.media.AudioClip;
 import javafx.scene.media.Media;
 import javafx.scene.media.MediaPlayer;
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -17,6 +21,7 @@ public class AudioManager {
     ExecutorService soundPool;
 
     ArrayList<MediaPlayer> myMediaPlayers;
+    Set<AudioClip> myAudioClips;
 
     /**
      * Constructor to create a simple thread pool.
@@ -26,6 +31,7 @@ public class AudioManager {
     public AudioManager(int numberOfThreads) {
         soundPool = Executors.newFixedThreadPool(numberOfThreads);
         myMediaPlayers = new ArrayList<>();
+        myAudioClips = new HashSet<>();
     }
 
     /**
@@ -34,13 +40,28 @@ public class AudioManager {
      */
     public void playSound(Entity entity) {
         entity.removeComponent(PlayAudioComponent.class);
+        if (entity.hasComponents(AudioClipComponent.class)) {
+            playClip((AudioClip) entity.getComponent(AudioClipComponent.class).getValue());
+            return;
+        }
         MediaPlayer mp = new MediaPlayer((Media) entity.getComponent(AudioComponent.class).getValue());
         myMediaPlayers.add(mp);
         threadPlaySound(mp);
     }
 
+    /**
+     * Fires a short sound effect that is already loaded in memory
+     * AudioClip.play() returns immediately, so no MediaPlayer or thread is needed
+     * @param clip the AudioClip to play
+     */
+    private void playClip(AudioClip clip) {
+        myAudioClips.add(clip);
+        clip.play();
+    }
+
     /**
      * Pause all MediaPlayers currently playing
+     * Short sound effects cannot be paused, so they are stopped instead
      */
     public void pauseAllSound(){
         int i = 0;
@@ -50,6 +71,7 @@ public class AudioManager {
             }
             i++;
         }
+        stopAllClips();
     }
 
     /**
@@ -70,6 +92,13 @@ public class AudioManager {
         for(MediaPlayer mp: myMediaPlayers){
             mp.stop();
         }
+        stopAllClips();
+    }
+
+    private void stopAllClips(){
+        for(AudioClip clip: myAudioClips){
+            clip.stop();
+        }
     }
 
     /**
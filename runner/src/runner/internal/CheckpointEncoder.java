@@ -0,0 +1,117 @@
+package runner.internal;
+
+import engine.external.Entity;
+import engine.external.Level;
+import engine.external.component.Component;
+import runner.external.Checkpoint;
+import runner.external.Game;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Turns successive saves of a running level into checkpoints, where only every few checkpoints hold the whole
+ * level and the ones in between only hold what changed since the previous checkpoint
+ * Starting a new full checkpoint regularly keeps the number of checkpoints a restore has to replay bounded
+ * Saved entities are shallow copies, so a mutable component value (e.g. the map of a VariablesComponent) is shared
+ * with the running entity and can't be compared with its previous save; such values are saved in every checkpoint
+ */
+public class CheckpointEncoder {
+    private static final int CHECKPOINTS_PER_FULL_CHECKPOINT = 10;
+
+    private Map<Entity, Integer> myEntityIDs;
+    private Map<Integer, Entity> myPreviousEntities;
+    private String myChainID;
+    private int mySequenceNumber;
+    private int myNextEntityID;
+    private AtomicBoolean myNewChainRequested;
+
+    /**
+     * Constructor for CheckpointEncoder
+     */
+    public CheckpointEncoder() {
+        myEntityIDs = new IdentityHashMap<>();
+        myPreviousEntities = new HashMap<>();
+        mySequenceNumber = CHECKPOINTS_PER_FULL_CHECKPOINT;
+        myNewChainRequested = new AtomicBoolean(false);
+    }
+
+    /**
+     * Creates the next checkpoint
+     * @param game - game being played
+     * @param level - level being played
+     * @param savedEntities - map from each running entity to its saved copy, as returned by Engine.saveGameByEntity
+     * @return a full checkpoint or one holding the changes since the previous checkpoint
+     */
+    public Checkpoint encode(Game game, Level level, Map<Entity, Entity> savedEntities) {
+        if (myNewChainRequested.getAndSet(false) || mySequenceNumber == CHECKPOINTS_PER_FULL_CHECKPOINT) {
+            myChainID = UUID.randomUUID().toString();
+            mySequenceNumber = 0;
+            myPreviousEntities.clear();
+        }
+        Checkpoint checkpoint;
+        if (mySequenceNumber == 0) {
+            Game manifest = game.getManifest();
+            manifest.addLevel(level.copyWithEntities(new ArrayList<>()));
+            checkpoint = new Checkpoint(myChainID, mySequenceNumber, manifest);
+        } else {
+            checkpoint = new Checkpoint(myChainID, mySequenceNumber, null);
+        }
+        Map<Integer, Entity> currentEntities = new HashMap<>();
+        for (Map.Entry<Entity, Entity> saved : savedEntities.entrySet()) {
+            int entityID = myEntityIDs.computeIfAbsent(saved.getKey(), entity -> myNextEntityID++);
+            currentEntities.put(entityID, saved.getValue());
+            addChanges(checkpoint, entityID, myPreviousEntities.get(entityID), saved.getValue());
+        }
+        for (Integer entityID : myPreviousEntities.keySet()) {
+            if (!currentEntities.containsKey(entityID)) {
+                checkpoint.addRemovedEntity(entityID);
+            }
+        }
+        myEntityIDs.keySet().retainAll(savedEntities.keySet());
+        myPreviousEntities = currentEntities;
+        mySequenceNumber++;
+        return checkpoint;
+    }
+
+    /**
+     * Makes the next checkpoint a full one, e.g. after a checkpoint of the current chain could not be saved
+     * Can be called from any thread, such as the one saving the checkpoints
+     */
+    public void startNewChain() {
+        myNewChainRequested.set(true);
+    }
+
+    private void addChanges(Checkpoint checkpoint, int entityID, Entity previous, Entity current) {
+        Entity changed = new Entity();
+        for (Component<?> component : current.getComponentMap().values()) {
+            Component<?> previousComponent = previous == null ? null : previous.getComponent(component.getClass());
+            if (previousComponent == null || !isImmutable(component.getValue())
+                    || !Objects.equals(previousComponent.getValue(), component.getValue())) {
+                changed.addComponent(component);
+            }
+        }
+        if (previous == null || !changed.getComponentMap().isEmpty()) {
+            checkpoint.addChangedEntity(entityID, changed);
+        }
+        if (previous != null) {
+            Set<Class<? extends Component>> removed = new HashSet<>(previous.getComponentMap().keySet());
+            removed.removeAll(current.getComponentMap().keySet());
+            if (!removed.isEmpty()) {
+                checkpoint.addRemovedComponents(entityID, removed);
+            }
+        }
+    }
+
+    private boolean isImmutable(Object value) {
+        return value == null || value instanceof String || value instanceof Double || value instanceof Integer
+                || value instanceof Long || value instanceof Float || value instanceof Short || value instanceof Byte
+                || value instanceof Boolean || value instanceof Character || value instanceof Enum;
+    }
+}
@@ -0,0 +1,154 @@
+package runner.internal;
+
+import data.external.DataManager;
+import engine.external.Entity;
+import engine.external.Level;
+import engine.external.component.Component;
+import engine.external.component.NameComponent;
+import engine.external.component.VariablesComponent;
+import engine.external.component.XPositionComponent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import runner.external.Checkpoint;
+import runner.external.Game;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that a full checkpoint and the delta checkpoints after it restore the level as it was when they were taken
+ * Checkpoints are serialized as soon as they are taken, like CheckpointSaver does on the thread running the game
+ * before handing them to its background thread, so that values changed in place afterwards don't leak into them
+ */
+public class CheckpointEncoderTest {
+    private Game myGame;
+    private Level myLevel;
+    private List<Entity> myRunningEntities;
+    private CheckpointEncoder myEncoder;
+    private DataManager myDataManager;
+    private List<Object> mySavedCheckpoints;
+
+    @BeforeEach
+    void setUp() {
+        myGame = new Game();
+        myLevel = new Level();
+        myGame.addLevel(myLevel);
+        myRunningEntities = new ArrayList<>();
+        myEncoder = new CheckpointEncoder();
+        myDataManager = new DataManager();
+        mySavedCheckpoints = new ArrayList<>();
+    }
+
+    @Test
+    void restoresFullCheckpoint() {
+        addEntity("player", 1.0);
+        Checkpoint checkpoint = save();
+        assertTrue(checkpoint.isFull());
+        assertRestored(checkpoint);
+    }
+
+    @Test
+    void restoresChangedAddedAndRemovedEntities() {
+        Entity player = addEntity("player", 1.0);
+        Entity enemy = addEntity("enemy", 2.0);
+        save();
+        ((XPositionComponent) player.getComponent(XPositionComponent.class)).setValue(5.0);
+        myRunningEntities.remove(enemy);
+        addEntity("coin", 3.0);
+        Checkpoint delta = save();
+        assertFalse(delta.isFull());
+        assertRestored(delta);
+        player.removeComponent(Arrays.asList(NameComponent.class));
+        assertRestored(save());
+    }
+
+    @Test
+    void restoresMutableValuesChangedInPlace() {
+        Entity player = addEntity("player", 1.0);
+        Map<String, Double> variables = new HashMap<>();
+        variables.put("health", 10.0);
+        player.addComponent(new VariablesComponent(variables));
+        save();
+        variables.put("health", 4.0);
+        Checkpoint delta = save();
+        Entity restored = restoredEntities(delta).get(0);
+        assertEquals(Double.valueOf(4.0), ((VariablesComponent) restored.getComponent(VariablesComponent.class)).getValue().get("health"));
+    }
+
+    @Test
+    void startsNewChainAfterFailedSave() {
+        addEntity("player", 1.0);
+        save();
+        myEncoder.startNewChain();
+        Checkpoint checkpoint = save();
+        assertTrue(checkpoint.isFull());
+        assertRestored(checkpoint);
+    }
+
+    @Test
+    void doesNotRestoreChainWithMissingDelta() {
+        Entity player = addEntity("player", 1.0);
+        save();
+        ((XPositionComponent) player.getComponent(XPositionComponent.class)).setValue(2.0);
+        Checkpoint lost = save();
+        ((XPositionComponent) player.getComponent(XPositionComponent.class)).setValue(3.0);
+        Checkpoint delta = save();
+        mySavedCheckpoints.remove(lost);
+        assertNull(delta.restore(mySavedCheckpoints));
+    }
+
+    private Entity addEntity(String name, double x) {
+        Entity entity = new Entity();
+        entity.addComponent(new NameComponent(name));
+        entity.addComponent(new XPositionComponent(x));
+        myRunningEntities.add(entity);
+        return entity;
+    }
+
+    private Checkpoint save() {
+        Map<Entity, Entity> savedEntities = new LinkedHashMap<>();
+        for (Entity entity : myRunningEntities) {
+            savedEntities.put(entity, entity.snapshot());
+        }
+        Checkpoint checkpoint = myEncoder.encode(myGame, myLevel, savedEntities);
+        Checkpoint saved = (Checkpoint) myDataManager.deserialize(myDataManager.serialize(checkpoint));
+        mySavedCheckpoints.add(saved);
+        return saved;
+    }
+
+    private List<Entity> restoredEntities(Checkpoint checkpoint) {
+        Game restored = checkpoint.restore(mySavedCheckpoints);
+        assertNotNull(restored);
+        assertEquals(1, restored.getLevels().size());
+        return new ArrayList<>(restored.getLevels().get(0).getEntities());
+    }
+
+    // Levels keep their entities unordered, so the entities are compared by their component values
+    private void assertRestored(Checkpoint checkpoint) {
+        Set<Map<Class<?>, Object>> running = new HashSet<>();
+        for (Entity entity : myRunningEntities) {
+            running.add(valuesOf(entity));
+        }
+        Set<Map<Class<?>, Object>> restored = new HashSet<>();
+        for (Entity entity : restoredEntities(checkpoint)) {
+            restored.add(valuesOf(entity));
+        }
+        assertEquals(running, restored);
+    }
+
+    private Map<Class<?>, Object> valuesOf(Entity entity) {
+        Map<Class<?>, Object> values = new HashMap<>();
+        for (Component<?> component : entity.getComponentMap().values()) {
+            values.put(component.getClass(), component.getValue());
+        }
+        return values;
+    }
+}
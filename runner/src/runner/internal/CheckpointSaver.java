@@ -0,0 +1,118 @@
+package runner.internal;
+
+import data.external.DataManager;
+import javafx.application.Platform;
+import runner.external.Checkpoint;
+import java.sql.SQLException;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Saves checkpoints of a running game in the background so that the game loop never waits on the database
+ * Checkpoints are serialized as soon as they are handed over, on the thread running the game, since the entities in a
+ * checkpoint may still share objects with the ones the game loop keeps modifying
+ * Checkpoints handed over while a save is still in progress are saved together by the same background task, in the
+ * order they were taken, since a delta checkpoint is of no use without the ones before it
+ * For the same reason, once a checkpoint can't be saved, the checkpoints of its chain queued after it are dropped
+ * and a new chain is started right away
+ */
+public class CheckpointSaver {
+    private static final ExecutorService SAVE_EXECUTOR = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task);
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private DataManager myDataManager;
+    private String myUsername;
+    private String myGameName;
+    private String myAuthorName;
+    private Consumer<Boolean> myOnSaved;
+    private Runnable myOnChainBroken;
+    private Set<String> myBrokenChains;
+    private Queue<PendingCheckpoint> myPendingCheckpoints;
+    private AtomicBoolean mySaveScheduled;
+
+    private static class PendingCheckpoint {
+        private String mySerializedCheckpoint;
+        private boolean myFull;
+        private String myChainID;
+        private int myLevelNumber;
+        private Double myScore;
+
+        PendingCheckpoint(String serializedCheckpoint, boolean full, String chainID, int levelNumber, Double score) {
+            mySerializedCheckpoint = serializedCheckpoint;
+            myFull = full;
+            myChainID = chainID;
+            myLevelNumber = levelNumber;
+            myScore = score;
+        }
+    }
+
+    /**
+     * Constructor for CheckpointSaver
+     * @param username - user playing the game
+     * @param gameName - name of the game
+     * @param authorName - author of the game
+     * @param onSaved - called on the JavaFX thread after each save with whether it succeeded
+     * @param onChainBroken - called on the saving thread as soon as a checkpoint can't be saved, so that the next
+     *                      checkpoint starts a new chain
+     */
+    public CheckpointSaver(String username, String gameName, String authorName, Consumer<Boolean> onSaved,
+                           Runnable onChainBroken) {
+        myDataManager = new DataManager();
+        myUsername = username;
+        myGameName = gameName;
+        myAuthorName = authorName;
+        myOnSaved = onSaved;
+        myOnChainBroken = onChainBroken;
+        myBrokenChains = new HashSet<>();
+        myPendingCheckpoints = new ConcurrentLinkedQueue<>();
+        mySaveScheduled = new AtomicBoolean(false);
+    }
+
+    /**
+     * Serializes a checkpoint and queues it to be saved after all checkpoints queued before it. Must be called on the
+     * thread running the game, before the game loop modifies the game again
+     * @param checkpoint - snapshot of the game
+     * @param levelNumber - level the checkpoint was taken in, listed with the saved checkpoints
+     * @param score - score when the checkpoint was taken, listed with the saved checkpoints
+     */
+    public void save(Checkpoint checkpoint, int levelNumber, Double score) {
+        myPendingCheckpoints.add(new PendingCheckpoint(myDataManager.serialize(checkpoint), checkpoint.isFull(),
+                checkpoint.getChainID(), levelNumber, score));
+        if (mySaveScheduled.compareAndSet(false, true)) {
+            SAVE_EXECUTOR.execute(this::saveLatest);
+        }
+    }
+
+    private void saveLatest() {
+        PendingCheckpoint checkpoint;
+        while ((checkpoint = myPendingCheckpoints.poll()) != null) {
+            boolean saved = !myBrokenChains.contains(checkpoint.myChainID);
+            if (saved) {
+                try {
+                    myDataManager.saveSerializedCheckpoint(myUsername, myGameName, myAuthorName,
+                            checkpoint.mySerializedCheckpoint, checkpoint.myFull, checkpoint.myLevelNumber,
+                            checkpoint.myScore);
+                } catch (SQLException | RuntimeException e) {
+                    saved = false;
+                    myBrokenChains.add(checkpoint.myChainID);
+                    myOnChainBroken.run();
+                }
+            }
+            boolean result = saved;
+            Platform.runLater(() -> myOnSaved.accept(result));
+        }
+        mySaveScheduled.set(false);
+        if (!myPendingCheckpoints.isEmpty() && mySaveScheduled.compareAndSet(false, true)) {
+            SAVE_EXECUTOR.execute(this::saveLatest);
+        }
+    }
+}
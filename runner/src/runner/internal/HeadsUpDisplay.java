@@ -12,6 +12,7 @@ public class HeadsUpDisplay extends Node {
     private Double myScore;
     private Double myLevel;
     private Text myLabel;
+    private String mySaveStatus;
     private double xPosition;
     private final double DEFAULT_Y = 30.0;
     private final double DEFAULT_LIVES = 3.0;
@@ -33,6 +34,7 @@ public class HeadsUpDisplay extends Node {
         myLevel = DEFAULT_LEVEL;
         myScore = DEFAULT_SCORE;
         xPosition = DEFAULT_X_POSITION;
+        mySaveStatus = "";
         Text text = new Text (LOGO +
                 LEVEL_DISPLAY + myLevel.intValue() +
                 SCORE_DISPLAY + myScore.intValue() +
@@ -51,7 +53,8 @@ public class HeadsUpDisplay extends Node {
         myLabel.setText(LOGO +
                 LEVEL_DISPLAY + myLevel.intValue() +
                 SCORE_DISPLAY + myScore.intValue() +
-                LIVES_DISPLAY + myLives.intValue());
+                LIVES_DISPLAY + myLives.intValue() +
+                mySaveStatus);
     }
 
     /**
@@ -94,7 +97,23 @@ public class HeadsUpDisplay extends Node {
         myScore = score;
     }
 
+    /**
+     * Updates the status of the most recent checkpoint save
+     * @param saveStatus - text describing the status, empty to hide it
+     */
+    public void updateSaveStatus(String saveStatus){
+        mySaveStatus = saveStatus;
+    }
+
     public Double getLevel() {
         return myLevel;
     }
+
+    /**
+     * Gets the score that is currently shown
+     * @return Double score
+     */
+    public Double getScore() {
+        return myScore;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,66 @@
+package runner.internal;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Prepares the level that is most likely to be played next on a background thread while the current level runs,
+ * so that moving on to it only needs to swap in what has already been loaded
+ */
+public class LevelPreloader {
+    private static final String COULD_NOT_PRELOAD = "Could not preload level: ";
+    // One daemon thread preloads for every GameRunner, so that each game played doesn't leave a thread behind and
+    // preloading never keeps the application alive
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "level-preloader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Future<PreloadedLevel> myPreloadedLevel;
+    private int myPreloadedLevelNumber;
+
+    /**
+     * Starts preparing a level in the background, replacing any level that was preloaded before
+     * A level that is still being prepared is not interrupted, since it may be in the middle of a database call, and
+     * is simply dropped once it is ready
+     * @param levelNumber - number of the level that is being prepared
+     * @param loader - loads everything needed to play the level
+     */
+    public void preload(int levelNumber, Callable<PreloadedLevel> loader) {
+        if (myPreloadedLevel != null) {
+            myPreloadedLevel.cancel(false);
+        }
+        myPreloadedLevelNumber = levelNumber;
+        myPreloadedLevel = EXECUTOR.submit(loader);
+    }
+
+    /**
+     * Hands over a preloaded level if it is ready.  A level that is still being prepared is dropped rather than waited
+     * for, since this is called on the JavaFX thread, and the caller loads the level itself
+     * @param levelNumber - number of the level about to be played
+     * @return the preloaded level, or null if a different level was preloaded, it isn't ready yet or preloading failed
+     */
+    public PreloadedLevel take(int levelNumber) {
+        Future<PreloadedLevel> preloadedLevel = myPreloadedLevel;
+        myPreloadedLevel = null;
+        if (preloadedLevel == null || myPreloadedLevelNumber != levelNumber) {
+            return null;
+        }
+        if (!preloadedLevel.isDone()) {
+            preloadedLevel.cancel(false);
+            return null;
+        }
+        try {
+            return preloadedLevel.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            System.out.println(COULD_NOT_PRELOAD + e.getCause().getMessage());
+        }
+        return null;
+    }
+}
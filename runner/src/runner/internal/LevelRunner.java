@@ -81,6 +81,23 @@ public class LevelRunner {
     public LevelRunner(Level level, int width, int height, Stage stage, Consumer playNext, int numLevels,
                        Image image, Double score, Double lives, String authorName, String gameName,
                        String username, Game game){
+        this(level, prepareEngine(level), width, height, stage, playNext, numLevels, image, score, lives, authorName,
+                gameName, username, game);
+    }
+
+    /**
+     * Constructor for level runner that starts from an Engine which has already been prepared for the level
+     * @param level - current level to be played
+     * @param engine - Engine created for the level by prepareEngine
+     * @param width - width of screen
+     * @param height - height of screen
+     * @param stage - stage to create level on
+     * @param playNext - consumer to change levels
+     * @param numLevels - total number of levels in the current game
+     */
+    public LevelRunner(Level level, Engine engine, int width, int height, Stage stage, Consumer playNext,
+                       int numLevels, Image image, Double score, Double lives, String authorName, String gameName,
+                       String username, Game game){
         myLevel = level;
         myUsername = username;
         myGameName = gameName;
@@ -90,8 +107,7 @@ public class LevelRunner {
         mySceneWidth = width;
         mySceneHeight = height;
         myCurrentKeys = new HashSet<>();
-        addMusic(level);
-        myEngine = new Engine(level);
+        myEngine = engine;
         myHUD = new HeadsUpDisplay(width);
         myEntities = myEngine.updateState(myCurrentKeys);
         if(score!=null && lives!=null)keepScoreAndLives(score, lives);
@@ -105,7 +121,18 @@ public class LevelRunner {
         myStage.show();
     }
 
-    private void addMusic(Level level) {
+    /**
+     * Adds the level's music to the level and creates the Engine that runs it
+     * Does not touch the stage, so it can be called off the JavaFX thread to prepare a level ahead of time
+     * @param level - level to be played
+     * @return Engine for the level
+     */
+    public static Engine prepareEngine(Level level) {
+        addMusic(level);
+        return new Engine(level);
+    }
+
+    private static void addMusic(Level level) {
         Entity soundEntity = new Entity();
         soundEntity.addComponent(new NameComponent("###sound"));
         soundEntity.addComponent(new ValueComponent(1.0));
@@ -0,0 +1,50 @@
+package runner.internal;
+
+import engine.external.Engine;
+import engine.external.Level;
+import javafx.scene.image.Image;
+
+/**
+ * Holds everything that is loaded for a level before it can be displayed, so that it can be prepared ahead of time
+ */
+public class PreloadedLevel {
+    private Level myLevel;
+    private Engine myEngine;
+    private Image myBackground;
+
+    /**
+     * Constructor for PreloadedLevel
+     * @param level - level to be played
+     * @param engine - Engine prepared for the level
+     * @param background - decoded background image of the level
+     */
+    public PreloadedLevel(Level level, Engine engine, Image background) {
+        myLevel = level;
+        myEngine = engine;
+        myBackground = background;
+    }
+
+    /**
+     * Gets the level to be played
+     * @return Level
+     */
+    public Level getLevel() {
+        return myLevel;
+    }
+
+    /**
+     * Gets the Engine prepared for the level
+     * @return Engine
+     */
+    public Engine getEngine() {
+        return myEngine;
+    }
+
+    /**
+     * Gets the background image of the level
+     * @return Image
+     */
+    public Image getBackground() {
+        return myBackground;
+    }
+}
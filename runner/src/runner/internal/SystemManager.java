@@ -99,7 +99,7 @@ public class SystemManager {
         mySystems.add(new GameOverSystem(components, myLevelRunner, myGroup, myStage, myAnimation, mySceneWidth, mySceneHeight, myLevelChanger, myLevelCount, myAudioManger));
         Collection<Class<? extends Component>> components9 = new ArrayList<>();
         components9.add(SaveComponent.class);
-        mySystems.add(new SavingSystem(components9, myLevelRunner, myEngine, myLevel, myGame, myUsername, myGameName, myAuthorName));
+        mySystems.add(new SavingSystem(components9, myLevelRunner, myEngine, myLevel, myGame, myUsername, myGameName, myAuthorName, myHUD));
         Collection<Class<? extends Component>> components8 = new ArrayList<>();
         components8.add(NextLevelComponent.class);
         mySystems.add(new NextLevelSystem(components8, myLevelRunner, myGroup, myStage, myAnimation, mySceneWidth, mySceneHeight, myLevelChanger, myLevelCount, myHUD, myAudioManger));
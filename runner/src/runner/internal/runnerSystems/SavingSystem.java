@@ -1,68 +1,79 @@
 package runner.internal.runnerSystems;
 
-import data.external.DataManager;
 import engine.external.Engine;
 import engine.external.Entity;
 import engine.external.Level;
 import engine.external.component.Component;
 import engine.external.component.SaveComponent;
+import runner.external.Checkpoint;
 import runner.external.Game;
+import runner.internal.CheckpointEncoder;
+import runner.internal.CheckpointSaver;
+import runner.internal.HeadsUpDisplay;
 import runner.internal.LevelRunner;
-import java.sql.SQLException;
 import java.util.Collection;
 
 /**
- *
+ * Takes a snapshot of the running level whenever an entity asks for the game to be saved
+ * The snapshot is saved as a checkpoint in the background and the HUD shows once it is done
  * @author Louis Jensen
  */
 public class SavingSystem extends RunnerSystem {
     private Engine myEngine;
     private Level myLevel;
     private Game myGame;
-    private String myUsername;
-    private String myGamename;
-    private String myAuthorname;
+    private HeadsUpDisplay myHUD;
+    private CheckpointEncoder myCheckpointEncoder;
+    private CheckpointSaver myCheckpointSaver;
     private final String CANNOT_SAVE = "Unable to save game";
+    private final String SAVING = "   Saving...";
+    private final String SAVED = "   Saved";
+    private final String NOT_SAVED = "   Not saved";
 
     /**
-     * Constructor for SoundSystem
+     * Constructor for SavingSystem
      * @param requiredComponents - list of all components necessary for system
      * @param levelRunner - LevelRunner object so that system can modify the level
+     * @param hud - HUD that shows the status of the save
      */
     public SavingSystem(Collection<Class<? extends Component>> requiredComponents, LevelRunner levelRunner, Engine engine, Level level, Game game,
-                        String username, String gameName, String authorName) {
+                        String username, String gameName, String authorName, HeadsUpDisplay hud) {
         super(requiredComponents, levelRunner);
         myEngine = engine;
+        myLevel = level;
         myGame = game;
-        myAuthorname = authorName;
-        myGamename = gameName;
-        myUsername = username;
+        myHUD = hud;
+        myCheckpointEncoder = new CheckpointEncoder();
+        myCheckpointSaver = new CheckpointSaver(username, gameName, authorName, this::showSaved,
+                myCheckpointEncoder::startNewChain);
     }
 
     /**
-     *
+     * Saves a checkpoint for each request to save the game
      */
     @Override
     public void run() {
         for (Entity entity : this.getEntities()) {
             if (entity.hasComponents(SaveComponent.class)) {
-                save(entity);
+                entity.removeComponent(SaveComponent.class);
+                save();
             }
         }
     }
 
-    private void save(Entity entity) {
-        Collection<Entity> entitiesToSave = myEngine.saveGame();
-        myLevel.clearEntities();
-        for(Entity e : entitiesToSave){
-            myLevel.addEntity(e);
-        }
-        DataManager dataManager = new DataManager();
-        try {
-            dataManager.saveCheckpoint(myUsername, myGamename, myAuthorname, myGame);
-        } catch (SQLException e){
+    // The snapshot, its comparison with the previous one and serializing the resulting checkpoint happen on the game
+    // thread, since the snapshot still shares mutable values with the running entities; only uploading it happens in
+    // the background
+    private void save() {
+        Checkpoint checkpoint = myCheckpointEncoder.encode(myGame, myLevel, myEngine.saveGameByEntity());
+        myHUD.updateSaveStatus(SAVING);
+        myCheckpointSaver.save(checkpoint, myHUD.getLevel().intValue(), myHUD.getScore());
+    }
+
+    private void showSaved(boolean saved) {
+        if (!saved) {
             System.out.println(CANNOT_SAVE);
         }
+        myHUD.updateSaveStatus(saved ? SAVED : NOT_SAVED);
     }
 }
-
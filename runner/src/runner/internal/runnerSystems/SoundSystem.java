@@ -1,6 +1,7 @@
 package runner.internal.runnerSystems;
 
 import engine.external.Entity;
+import engine.external.component.AudioClipComponent;
 import engine.external.component.AudioComponent;
 import engine.external.component.Component;
 import engine.external.component.PlayAudioComponent;
@@ -32,7 +33,7 @@ public class SoundSystem extends RunnerSystem {
     @Override
     public void run() {
         for (Entity entity : this.getEntities()) {
-            if (entity.hasComponents(PlayAudioComponent.class) && (Boolean) getComponentValue(PlayAudioComponent.class, entity) && entity.hasComponents(AudioComponent.class)) {
+            if (entity.hasComponents(PlayAudioComponent.class) && (Boolean) getComponentValue(PlayAudioComponent.class, entity) && (entity.hasComponents(AudioComponent.class) || entity.hasComponents(AudioClipComponent.class))) {
                 playSound(entity);
             }
         }